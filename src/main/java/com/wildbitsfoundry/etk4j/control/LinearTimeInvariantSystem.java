@@ -2,8 +2,9 @@ package com.wildbitsfoundry.etk4j.control;
 
 import com.wildbitsfoundry.etk4j.math.MathETK;
 import com.wildbitsfoundry.etk4j.math.complex.Complex;
-import com.wildbitsfoundry.etk4j.math.linearalgebra.EigenvalueDecomposition;
 import com.wildbitsfoundry.etk4j.math.linearalgebra.Matrix;
+import com.wildbitsfoundry.etk4j.math.linearalgebra.MatrixView;
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
 import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 import com.wildbitsfoundry.etk4j.util.DoubleArrays;
 
@@ -78,7 +79,7 @@ public abstract class LinearTimeInvariantSystem {
         if (time[0] == 0.0) {
             xOut[0] = x0;
         } else if (time[0] > 0.0) {
-            xOut[0] = dot(x0, A.transpose().multiply(time[0]).expm().getAs2dArray());
+            A.transpose().multiply(time[0]).expm().view().transpose().multiply(x0, xOut[0]);
         } else {
             throw new IllegalArgumentException("Initial time must be non negative.");
         }
@@ -106,10 +107,14 @@ public abstract class LinearTimeInvariantSystem {
                     }
 
                     Matrix expMT = new Matrix(M).transpose().expm();
-                    double[][] Ad = expMT.subMatrix(0, noStates - 1, 0, noStates - 1).getAs2dArray();
-                    double[][] Bd = expMT.subMatrix(noStates, expMT.getRowCount() - 1, 0, noStates - 1).getAs2dArray();
+                    // x[i] = x[i - 1] * Ad + u[i - 1] * Bd computed as Ad' * x[i - 1] + Bd' * u[i - 1]
+                    MatrixView AdT = expMT.view(0, noStates - 1, 0, noStates - 1).transpose();
+                    MatrixView BdT = expMT.view(noStates, expMT.getRowCount() - 1, 0, noStates - 1).transpose();
+                    double[] bu = new double[noStates];
                     for (int i = 1; i < noSteps; ++i) {
-                        xOut[i] = DoubleArrays.addElementWise(dot(xOut[i - 1], Ad), dot(U[i - 1], Bd));
+                        AdT.multiply(xOut[i - 1], xOut[i]);
+                        BdT.multiply(U[i - 1], bu);
+                        DoubleArrays.addElementWiseInPlace(xOut[i], bu);
                     }
                     break;
                 }
@@ -129,15 +134,24 @@ public abstract class LinearTimeInvariantSystem {
                     }
 
                     Matrix expMT = new Matrix(M).transpose().expm();
-                    double[][] Ad = expMT.subMatrix(0, noStates - 1, 0, noStates - 1).getAs2dArray();
-                    double[][] Bd1 = expMT.subMatrix(noStates + noInputs, expMT.getRowCount() - 1, 0, noStates - 1).getAs2dArray();
-                    double[][] Bd0 = expMT.subMatrix(noStates, noStates + noInputs - 1, 0, noStates - 1).getAs2dArray();
-                    for (int i = 0; i < Bd0.length; ++i) {
-                        DoubleArrays.subtractElementWiseInPlace(Bd0[i], Bd1[i]);
+                    MatrixView AdT = expMT.view(0, noStates - 1, 0, noStates - 1).transpose();
+                    MatrixView Bd1 = expMT.view(noStates + noInputs, expMT.getRowCount() - 1, 0, noStates - 1);
+                    MatrixView Bd0 = expMT.view(noStates, noStates + noInputs - 1, 0, noStates - 1);
+                    // Bd0 -= Bd1, expMT is not used afterwards so it is safe to overwrite it
+                    for (int i = 0; i < noInputs; ++i) {
+                        for (int j = 0; j < noStates; ++j) {
+                            Bd0.set(i, j, Bd0.get(i, j) - Bd1.get(i, j));
+                        }
                     }
+                    MatrixView Bd0T = Bd0.transpose();
+                    MatrixView Bd1T = Bd1.transpose();
+                    double[] bu = new double[noStates];
                     for (int i = 1; i < noSteps; ++i) {
-                        xOut[i] = DoubleArrays.addElementWise(dot(xOut[i - 1], Ad), dot(U[i - 1], Bd0));
-                        DoubleArrays.addElementWiseInPlace(xOut[i], dot(U[i], Bd1));
+                        AdT.multiply(xOut[i - 1], xOut[i]);
+                        Bd0T.multiply(U[i - 1], bu);
+                        DoubleArrays.addElementWiseInPlace(xOut[i], bu);
+                        Bd1T.multiply(U[i], bu);
+                        DoubleArrays.addElementWiseInPlace(xOut[i], bu);
                     }
                     break;
                 }
@@ -145,25 +159,19 @@ public abstract class LinearTimeInvariantSystem {
                     throw new IllegalArgumentException("Unknown integration method.");
             }
         }
-        double[][] yOut = new double[noSteps][noStates];
-        double[][] c = C.transpose().getAs2dArray();
-        double[][] d = D.transpose().getAs2dArray();
+        final int noOutputs = C.getRowCount();
+        double[][] yOut = new double[noSteps][noOutputs];
+        MatrixView c = C.view();
+        MatrixView d = D.view();
+        double[] du = new double[noOutputs];
         for (int i = 0; i < noSteps; ++i) {
-            yOut[i] = dot(xOut[i], c);
-            DoubleArrays.addElementWiseInPlace(yOut[i], dot(U[i], d));
+            c.multiply(xOut[i], yOut[i]);
+            d.multiply(U[i], du);
+            DoubleArrays.addElementWiseInPlace(yOut[i], du);
         }
         return new TimeResponse(time, DoubleArrays.transpose(yOut), xOut);
     }
 
-    private static double[] dot(double[] a, double[][] b) {
-        if (a.length != b.length) {
-            throw new IllegalArgumentException("The number of elements in a must match the number of rows in b.");
-        }
-        Matrix A = new Matrix(a, 1);
-        A.multiplyEquals(new Matrix(b));
-        return A.getArray();
-    }
-
     /**
      * Step response of the continuous-time system with zero initial conditions and 100 default (calculated) time points.
      * The step method assumes that the underlying system is a SISO (Single-Input, Single-Output) system so for a MIMO
@@ -268,8 +276,7 @@ public abstract class LinearTimeInvariantSystem {
      * @return The default response times.
      */
     protected static double[] generateDefaultResponseTimes(Matrix A, int numberOfPoints) {
-        EigenvalueDecomposition eig = A.eig();
-        double[] realEig = eig.getRealEigenvalues();
+        double[] realEig = ComplexArrays.real(A.eigenvalues());
         for (int i = 0; i < realEig.length; ++i) {
             realEig[i] = Math.abs(realEig[i]);
         }
@@ -312,6 +319,21 @@ public abstract class LinearTimeInvariantSystem {
      */
     public abstract Complex evaluateAt(double w);
 
+    /**
+     * Evaluate the system at the given frequencies. For MIMO systems, this method calculates the response from the
+     * first input to the first output.
+     *
+     * @param w The frequencies at which to evaluate the system.
+     * @return The complex frequency response of the system at each frequency.
+     */
+    public ComplexArray evaluateAt(double[] w) {
+        ComplexArray response = new ComplexArray(w.length);
+        for (int i = 0; i < w.length; ++i) {
+            response.set(i, this.evaluateAt(w[i]));
+        }
+        return response;
+    }
+
     /**
      * Magnitude of the system. For MIMO systems, this method calculates the magnitude from the first
      * input to the first output.
@@ -329,11 +351,7 @@ public abstract class LinearTimeInvariantSystem {
      * @return The absolute value of the complex response.
      */
     public double[] calculateMagnitudeAt(double[] w) {
-        double[] magnitude = new double[w.length];
-        for (int i = 0; i < w.length; ++i) {
-            magnitude[i] = this.calculateMagnitudeAt(w[i]);
-        }
-        return magnitude;
+        return this.evaluateAt(w).abs();
     }
 
     /***
@@ -353,11 +371,7 @@ public abstract class LinearTimeInvariantSystem {
      * @return The phase response of the system in rad/s.
      */
     public double[] calculatePhaseAt(double[] w) {
-        double[] phase = new double[w.length];
-        for (int i = 0; i < w.length; ++i) {
-            phase[i] = this.calculatePhaseAt(w[i]);
-        }
-        return phase;
+        return this.evaluateAt(w).arg();
     }
 
     /***
@@ -377,9 +391,9 @@ public abstract class LinearTimeInvariantSystem {
      * @return The phase response of the system in degrees.
      */
     public double[] calculatePhaseInDegreesAt(double[] w) {
-        double[] phase = new double[w.length];
+        double[] phase = this.evaluateAt(w).arg();
         for (int i = 0; i < w.length; ++i) {
-            phase[i] = this.calculatePhaseInDegreesAt(w[i]);
+            phase[i] = Math.toDegrees(phase[i]);
         }
         return phase;
     }
@@ -429,12 +443,12 @@ public abstract class LinearTimeInvariantSystem {
      * @return The magnitude in dB and phase in degrees of the system.
      */
     public BodeResponse calculateBode(double[] w) {
-        double[] magnitudeIndB = new double[w.length];
-        double[] phaseInDegrees = new double[w.length];
+        ComplexArray response = this.evaluateAt(w);
+        double[] magnitudeIndB = response.abs();
+        double[] phaseInDegrees = response.arg();
         for (int i = 0; i < w.length; ++i) {
-            Complex response = this.evaluateAt(w[i]);
-            magnitudeIndB[i] = 20 * Math.log10(response.abs());
-            phaseInDegrees[i] = Math.toDegrees(response.arg());
+            magnitudeIndB[i] = 20 * Math.log10(magnitudeIndB[i]);
+            phaseInDegrees[i] = Math.toDegrees(phaseInDegrees[i]);
         }
         unwrapPhase(phaseInDegrees);
         return new BodeResponse(magnitudeIndB, phaseInDegrees, w);
@@ -6,6 +6,7 @@ import com.wildbitsfoundry.etk4j.math.complex.Complex;
 import com.wildbitsfoundry.etk4j.math.linearalgebra.Matrix;
 import com.wildbitsfoundry.etk4j.math.polynomials.Polynomial;
 import com.wildbitsfoundry.etk4j.math.polynomials.RationalFunction;
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
 import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 import com.wildbitsfoundry.etk4j.util.DoubleArrays;
 
@@ -190,6 +191,16 @@ public class TransferFunction extends LinearTimeInvariantSystem {
         return rf.evaluateAt(0.0, w);
     }
 
+    /**
+     * Evaluate the system at the given frequencies.
+     * @param w The frequencies at which to evaluate the system.
+     * @return The complex frequency response of the system at each frequency.
+     */
+    @Override
+    public ComplexArray evaluateAt(double[] w) {
+        return rf.evaluateAt(ComplexArray.fromImaginary(w));
+    }
+
     /***
      * Calculates the phase at of the system a given frequency. </br>
      * This operation uses the zeros and poles of the system to calculate the phase as:
@@ -1,7 +1,9 @@
 package com.wildbitsfoundry.etk4j.control;
 
 import com.wildbitsfoundry.etk4j.math.complex.Complex;
+import com.wildbitsfoundry.etk4j.math.complex.ComplexMath;
 import com.wildbitsfoundry.etk4j.math.polynomials.Polynomial;
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
 
 import static com.wildbitsfoundry.etk4j.util.ComplexArrays.deepCopy;
 
@@ -84,8 +86,36 @@ public class ZeroPoleGain extends LinearTimeInvariantSystem {
      */
     @Override
     public Complex evaluateAt(double w) {
-        Complex num = Polynomial.polyvalFromRoots(zeros, Complex.fromImaginary(w));
-        Complex den = Polynomial.polyvalFromRoots(poles, Complex.fromImaginary(w));
+        double[] value = new double[2];
+        Polynomial.polyvalFromRoots(zeros, 0.0, w, value);
+        final double numReal = value[0];
+        final double numImag = value[1];
+        Polynomial.polyvalFromRoots(poles, 0.0, w, value);
+        Complex result = new Complex();
+        ComplexMath.divide(numReal, numImag, value[0], value[1], result);
+        result.multiplyEquals(gain);
+        return result;
+    }
+
+    /**
+     * Evaluate the system at the given frequencies.
+     *
+     * @param w The frequencies at which to evaluate the system.
+     * @return The complex frequency response of the system at each frequency.
+     */
+    @Override
+    public ComplexArray evaluateAt(double[] w) {
+        ComplexArray z = ComplexArray.fromComplex(zeros);
+        ComplexArray p = ComplexArray.fromComplex(poles);
+        ComplexArray num = new ComplexArray(w.length);
+        ComplexArray den = new ComplexArray(w.length);
+        double[] value = new double[2];
+        for (int i = 0; i < w.length; ++i) {
+            Polynomial.polyvalFromRoots(z, 0.0, w[i], value);
+            num.set(i, value[0], value[1]);
+            Polynomial.polyvalFromRoots(p, 0.0, w[i], value);
+            den.set(i, value[0], value[1]);
+        }
         num.divideEquals(den);
         num.multiplyEquals(gain);
         return num;
@@ -144,6 +144,18 @@ public class Complex implements Comparable<Complex> {
         return Double.compare(this.abs(), obj.abs());
     }
 
+    /**
+     * Set the real and imaginary parts of the complex number. <br>
+     * This allows a {@code Complex} to be used as a register for the functions of {@link ComplexMath}.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     */
+    public void set(double real, double imag) {
+        this.real = real;
+        this.imag = imag;
+    }
+
     /**
      * Real part of the complex number.
      *
@@ -443,16 +455,9 @@ public class Complex implements Comparable<Complex> {
      * @return The square root of the complex number.
      */
     public Complex sqrt() {
-        if (real == 0 && imag == 0) {
-            return new Complex();
-        }
-
-        double z = Math.sqrt(0.5 * (Math.abs(real) + this.abs()));
-        if (real >= 0) {
-            return new Complex(z, 0.5 * imag / z);
-        } else {
-            return new Complex(0.5 * Math.abs(imag) / z, Math.copySign(z, imag));
-        }
+        Complex result = new Complex();
+        ComplexMath.sqrt(real, imag, result);
+        return result;
     }
 
     /**
@@ -461,7 +466,9 @@ public class Complex implements Comparable<Complex> {
      * @return {@code Complex a<sup>c</sup>}.
      */
     public Complex pow(Complex c) {
-        return this.log().multiply(c).exp();
+        Complex result = new Complex();
+        ComplexMath.pow(real, imag, c.real, c.imag, result);
+        return result;
     }
 
     /**
@@ -470,7 +477,9 @@ public class Complex implements Comparable<Complex> {
      * @return {@code Complex a<sup>d</sup>}.
      */
     public Complex pow(double d) {
-        return this.log().multiply(d).exp();
+        Complex result = new Complex();
+        ComplexMath.pow(real, imag, d, result);
+        return result;
     }
 
     /**
@@ -488,7 +497,9 @@ public class Complex implements Comparable<Complex> {
      * @return The natural logarithm of the complex number.
      */
     public Complex log() {
-        return new Complex(Math.log(this.abs()), this.arg());
+        Complex result = new Complex();
+        ComplexMath.log(real, imag, result);
+        return result;
     }
 
     /**
@@ -496,8 +507,9 @@ public class Complex implements Comparable<Complex> {
      * @return {@code e<sup>c</sup>}.
      */
     public Complex exp() {
-        double exp = Math.exp(real);
-        return new Complex(exp * Math.cos(imag), exp * Math.sin(imag));
+        Complex result = new Complex();
+        ComplexMath.exp(real, imag, result);
+        return result;
     }
 
     /**
@@ -505,9 +517,9 @@ public class Complex implements Comparable<Complex> {
      * @return {@code 1 - Complex<sup>2</sup>}.
      */
     public Complex sqrt1z() {
-        Complex result = Complex.fromReal(1.0);
-        result.subtractEquals(this.pow2());
-        return result.sqrt();
+        Complex result = new Complex();
+        ComplexMath.sqrt1z(real, imag, result);
+        return result;
     }
 
     /**
@@ -515,7 +527,9 @@ public class Complex implements Comparable<Complex> {
      * @return The Sine evaluated at the Complex number.
      */
     public Complex sin() {
-        return new Complex(Math.sin(real) * Math.cosh(imag), Math.cos(real) * Math.sinh(imag));
+        Complex result = new Complex();
+        ComplexMath.sin(real, imag, result);
+        return result;
     }
 
     /**
@@ -523,7 +537,9 @@ public class Complex implements Comparable<Complex> {
      * @return The Arc-sine evaluated at the Complex number.
      */
     public Complex asin() {
-        return sqrt1z().add(this.multiply(0.0, 1.0)).log().multiply(0.0, -1.0);
+        Complex result = new Complex();
+        ComplexMath.asin(real, imag, result);
+        return result;
     }
 
     /**
@@ -531,7 +547,9 @@ public class Complex implements Comparable<Complex> {
      * @return The Cosine evaluated at the Complex number.
      */
     public Complex cos() {
-        return new Complex(Math.cos(real) * Math.cosh(imag), -Math.sin(real) * Math.sinh(imag));
+        Complex result = new Complex();
+        ComplexMath.cos(real, imag, result);
+        return result;
     }
 
     /**
@@ -539,7 +557,9 @@ public class Complex implements Comparable<Complex> {
      * @return The Arc-cosine evaluated at the Complex number.
      */
     public Complex acos() {
-        return this.add(this.sqrt1z().multiply(0.0, 1.0)).log().multiply(0.0, -1.0);
+        Complex result = new Complex();
+        ComplexMath.acos(real, imag, result);
+        return result;
     }
 
     /**
@@ -547,18 +567,9 @@ public class Complex implements Comparable<Complex> {
      * @return The Tangent evaluated at the Complex number.
      */
     public Complex tan() {
-        if (imag > 20.0) {
-            return Complex.fromImaginary(1.0);
-        }
-        if (imag < -20) {
-            return Complex.fromImaginary(-1.0);
-        }
-
-        double dreal = 2.0 * real;
-        double dimag = 2.0 * imag;
-
-        double tmp = 1.0 / (Math.cos(dreal) + Math.cosh(dimag));
-        return new Complex(Math.sin(dreal) * tmp, Math.sinh(dimag) * tmp);
+        Complex result = new Complex();
+        ComplexMath.tan(real, imag, result);
+        return result;
     }
 
     /**
@@ -566,8 +577,9 @@ public class Complex implements Comparable<Complex> {
      * @return The Arc-tangent evaluated at the Complex number.
      */
     public Complex atan() {
-        Complex i = Complex.fromImaginary(1.0);
-        return this.add(i).divide(i.subtract(this)).log().multiply(i.multiply(new Complex(0.5, 0.0)));
+        Complex result = new Complex();
+        ComplexMath.atan(real, imag, result);
+        return result;
     }
 
     /**
@@ -588,7 +600,9 @@ public class Complex implements Comparable<Complex> {
      * @return The Hyperbolic Sine evaluated at the Complex number.
      */
     public Complex sinh() {
-        return new Complex(Math.sinh(real) * Math.cos(imag), Math.cosh(real) * Math.sin(imag));
+        Complex result = new Complex();
+        ComplexMath.sinh(real, imag, result);
+        return result;
     }
 
     /**
@@ -596,7 +610,9 @@ public class Complex implements Comparable<Complex> {
      * @return The Hyperbolic Cosine evaluated at the Complex number.
      */
     public Complex cosh() {
-        return new Complex(Math.cosh(real) * Math.cos(imag), Math.sinh(real) * Math.sin(imag));
+        Complex result = new Complex();
+        ComplexMath.cosh(real, imag, result);
+        return result;
     }
 
     /**
@@ -604,9 +620,9 @@ public class Complex implements Comparable<Complex> {
      * @return The Hyperbolic Tangent evaluated at the Complex number.
      */
     public Complex tanh() {
-        Complex num = new Complex(Math.tanh(real), Math.tan(imag));
-        Complex den = new Complex(1.0, Math.tanh(real) * Math.tan(imag));
-        return num.divide(den);
+        Complex result = new Complex();
+        ComplexMath.tanh(real, imag, result);
+        return result;
     }
 
     public boolean isFinite() {
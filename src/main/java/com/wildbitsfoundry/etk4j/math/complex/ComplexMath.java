@@ -0,0 +1,332 @@
+package com.wildbitsfoundry.etk4j.math.complex;
+
+import com.wildbitsfoundry.etk4j.math.MathETK;
+
+/**
+ * The {@code ComplexMath} class provides allocation free complex arithmetic. <br>
+ * The operands are passed as pairs of real and imaginary parts and the result is written into a {@link Complex}
+ * register, so a kernel can keep its intermediate values in a few registers instead of creating a new
+ * {@code Complex} per operation. The inputs are read before the register is written, therefore the register can also
+ * be one of the operands, e.g. {@code ComplexMath.multiply(acc.real(), acc.imag(), re, im, acc)}. <br>
+ * The methods of {@link Complex} are implemented in terms of these functions, so both give identical results.
+ */
+public final class ComplexMath {
+    private ComplexMath() {
+
+    }
+
+    /**
+     * Addition of complex numbers.
+     *
+     * @param aReal The real part of the left-hand operand.
+     * @param aImag The imaginary part of the left-hand operand.
+     * @param bReal The real part of the right-hand operand.
+     * @param bImag The imaginary part of the right-hand operand.
+     * @param out   The register where {@code a + b} is stored.
+     */
+    public static void add(double aReal, double aImag, double bReal, double bImag, Complex out) {
+        out.set(aReal + bReal, aImag + bImag);
+    }
+
+    /**
+     * Subtraction of complex numbers.
+     *
+     * @param aReal The real part of the left-hand operand.
+     * @param aImag The imaginary part of the left-hand operand.
+     * @param bReal The real part of the right-hand operand.
+     * @param bImag The imaginary part of the right-hand operand.
+     * @param out   The register where {@code a - b} is stored.
+     */
+    public static void subtract(double aReal, double aImag, double bReal, double bImag, Complex out) {
+        out.set(aReal - bReal, aImag - bImag);
+    }
+
+    /**
+     * Multiplication of complex numbers.
+     *
+     * @param aReal The real part of the left-hand operand.
+     * @param aImag The imaginary part of the left-hand operand.
+     * @param bReal The real part of the right-hand operand.
+     * @param bImag The imaginary part of the right-hand operand.
+     * @param out   The register where {@code a * b} is stored.
+     */
+    public static void multiply(double aReal, double aImag, double bReal, double bImag, Complex out) {
+        out.set(aReal * bReal - aImag * bImag, aReal * bImag + aImag * bReal);
+    }
+
+    /**
+     * Multiplication of a complex number and a real number.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param d    The real number.
+     * @param out  The register where {@code (real + j * imag) * d} is stored.
+     */
+    public static void multiply(double real, double imag, double d, Complex out) {
+        out.set(real * d, imag * d);
+    }
+
+    /**
+     * Division of complex numbers. The division is performed as the multiplication by the inverse of {@code b}.
+     *
+     * @param aReal The real part of the left-hand operand.
+     * @param aImag The imaginary part of the left-hand operand.
+     * @param bReal The real part of the right-hand operand.
+     * @param bImag The imaginary part of the right-hand operand.
+     * @param out   The register where {@code a / b} is stored.
+     */
+    public static void divide(double aReal, double aImag, double bReal, double bImag, Complex out) {
+        double mag = 1.0 / (bReal * bReal + bImag * bImag);
+        double real = bReal * mag;
+        double imag = bImag * -mag;
+        multiply(aReal, aImag, real, imag, out);
+    }
+
+    /**
+     * Division of a complex number by a real number.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param d    The real number.
+     * @param out  The register where {@code (real + j * imag) / d} is stored.
+     */
+    public static void divide(double real, double imag, double d, Complex out) {
+        multiply(real, imag, 1.0 / d, out);
+    }
+
+    /**
+     * Inverse of a complex number.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where {@code 1 / (real + j * imag)} is stored.
+     */
+    public static void invert(double real, double imag, Complex out) {
+        double mag = 1.0 / (real * real + imag * imag);
+        out.set(real * mag, imag * -mag);
+    }
+
+    /**
+     * Complex number squared.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where {@code (real + j * imag)<sup>2</sup>} is stored.
+     */
+    public static void pow2(double real, double imag, Complex out) {
+        out.set(real * real - imag * imag, 2 * real * imag);
+    }
+
+    /**
+     * Square root of a complex number.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the square root is stored.
+     */
+    public static void sqrt(double real, double imag, Complex out) {
+        if (real == 0 && imag == 0) {
+            out.set(0.0, 0.0);
+            return;
+        }
+
+        double z = Math.sqrt(0.5 * (Math.abs(real) + MathETK.hypot(real, imag)));
+        if (real >= 0) {
+            out.set(z, 0.5 * imag / z);
+        } else {
+            out.set(0.5 * Math.abs(imag) / z, Math.copySign(z, imag));
+        }
+    }
+
+    /**
+     * Square root of {@code 1 - z<sup>2</sup>}.
+     *
+     * @param real The real part of z.
+     * @param imag The imaginary part of z.
+     * @param out  The register where the result is stored.
+     */
+    public static void sqrt1z(double real, double imag, Complex out) {
+        pow2(real, imag, out);
+        sqrt(1.0 - out.real(), 0.0 - out.imag(), out);
+    }
+
+    /**
+     * Complex exponential.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where {@code e<sup>real + j * imag</sup>} is stored.
+     */
+    public static void exp(double real, double imag, Complex out) {
+        double exp = Math.exp(real);
+        out.set(exp * Math.cos(imag), exp * Math.sin(imag));
+    }
+
+    /**
+     * Complex natural logarithm.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the natural logarithm is stored.
+     */
+    public static void log(double real, double imag, Complex out) {
+        out.set(Math.log(MathETK.hypot(real, imag)), Math.atan2(imag, real));
+    }
+
+    /**
+     * Complex power.
+     *
+     * @param real  The real part of the base.
+     * @param imag  The imaginary part of the base.
+     * @param pReal The real part of the power.
+     * @param pImag The imaginary part of the power.
+     * @param out   The register where {@code (real + j * imag)<sup>pReal + j * pImag</sup>} is stored.
+     */
+    public static void pow(double real, double imag, double pReal, double pImag, Complex out) {
+        log(real, imag, out);
+        multiply(out.real(), out.imag(), pReal, pImag, out);
+        exp(out.real(), out.imag(), out);
+    }
+
+    /**
+     * Complex power.
+     *
+     * @param real The real part of the base.
+     * @param imag The imaginary part of the base.
+     * @param d    The real power.
+     * @param out  The register where {@code (real + j * imag)<sup>d</sup>} is stored.
+     */
+    public static void pow(double real, double imag, double d, Complex out) {
+        log(real, imag, out);
+        multiply(out.real(), out.imag(), d, out);
+        exp(out.real(), out.imag(), out);
+    }
+
+    /**
+     * Sine of a complex number.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the sine is stored.
+     */
+    public static void sin(double real, double imag, Complex out) {
+        out.set(Math.sin(real) * Math.cosh(imag), Math.cos(real) * Math.sinh(imag));
+    }
+
+    /**
+     * Cosine of a complex number.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the cosine is stored.
+     */
+    public static void cos(double real, double imag, Complex out) {
+        out.set(Math.cos(real) * Math.cosh(imag), -Math.sin(real) * Math.sinh(imag));
+    }
+
+    /**
+     * Tangent of a complex number.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the tangent is stored.
+     */
+    public static void tan(double real, double imag, Complex out) {
+        if (imag > 20.0) {
+            out.set(0.0, 1.0);
+            return;
+        }
+        if (imag < -20) {
+            out.set(0.0, -1.0);
+            return;
+        }
+
+        double dreal = 2.0 * real;
+        double dimag = 2.0 * imag;
+
+        double tmp = 1.0 / (Math.cos(dreal) + Math.cosh(dimag));
+        out.set(Math.sin(dreal) * tmp, Math.sinh(dimag) * tmp);
+    }
+
+    /**
+     * Arc-sine of a complex number, {@code -j * log(j * z + sqrt(1 - z<sup>2</sup>))}.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the arc-sine is stored.
+     */
+    public static void asin(double real, double imag, Complex out) {
+        sqrt1z(real, imag, out);
+        // j * z = -imag + j * real
+        add(out.real(), out.imag(), -imag, real, out);
+        log(out.real(), out.imag(), out);
+        multiply(out.real(), out.imag(), 0.0, -1.0, out);
+    }
+
+    /**
+     * Arc-cosine of a complex number, {@code -j * log(z + j * sqrt(1 - z<sup>2</sup>))}.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the arc-cosine is stored.
+     */
+    public static void acos(double real, double imag, Complex out) {
+        sqrt1z(real, imag, out);
+        multiply(out.real(), out.imag(), 0.0, 1.0, out);
+        add(real, imag, out.real(), out.imag(), out);
+        log(out.real(), out.imag(), out);
+        multiply(out.real(), out.imag(), 0.0, -1.0, out);
+    }
+
+    /**
+     * Arc-tangent of a complex number, {@code j / 2 * log((j + z) / (j - z))}.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the arc-tangent is stored.
+     */
+    public static void atan(double real, double imag, Complex out) {
+        // (j + z) / (j - z). A zero real part is taken as +0.0 whatever its sign, which keeps the results on the side of
+        // the branch cuts that Complex.atan always had
+        final double re = real == 0.0 ? 0.0 : real;
+        final double negRe = real == 0.0 ? 0.0 : -real;
+        divide(re, imag + 1.0, negRe, 1.0 - imag, out);
+        log(out.real(), out.imag(), out);
+        multiply(out.real(), out.imag(), 0.0, 0.5, out);
+    }
+
+    /**
+     * Hyperbolic sine of a complex number.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the hyperbolic sine is stored.
+     */
+    public static void sinh(double real, double imag, Complex out) {
+        out.set(Math.sinh(real) * Math.cos(imag), Math.cosh(real) * Math.sin(imag));
+    }
+
+    /**
+     * Hyperbolic cosine of a complex number.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the hyperbolic cosine is stored.
+     */
+    public static void cosh(double real, double imag, Complex out) {
+        out.set(Math.cosh(real) * Math.cos(imag), Math.sinh(real) * Math.sin(imag));
+    }
+
+    /**
+     * Hyperbolic tangent of a complex number.
+     *
+     * @param real The real part of the complex number.
+     * @param imag The imaginary part of the complex number.
+     * @param out  The register where the hyperbolic tangent is stored.
+     */
+    public static void tanh(double real, double imag, Complex out) {
+        double tanhReal = Math.tanh(real);
+        double tanImag = Math.tan(imag);
+        divide(tanhReal, tanImag, 1.0, tanhReal * tanImag, out);
+    }
+}
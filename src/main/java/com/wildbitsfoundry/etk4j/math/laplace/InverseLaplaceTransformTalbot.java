@@ -2,9 +2,9 @@ package com.wildbitsfoundry.etk4j.math.laplace;
 
 import com.wildbitsfoundry.etk4j.constants.ConstantsETK;
 import com.wildbitsfoundry.etk4j.math.complex.Complex;
+import com.wildbitsfoundry.etk4j.math.complex.ComplexMath;
 import com.wildbitsfoundry.etk4j.math.functions.ComplexUnivariateFunction;
 import com.wildbitsfoundry.etk4j.math.functions.UnivariateFunction;
-import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 
 /**
  * The {@code InverseLaplaceTransformTalbot} implements the inverse laplace transform using Talbot's method.
@@ -19,8 +19,10 @@ import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 public class InverseLaplaceTransformTalbot {
 
     private int M;
-    private Complex[] delta;
-    private Complex[] gamma;
+    private double[] deltaReal;
+    private double[] deltaImag;
+    private double[] gammaReal;
+    private double[] gammaImag;
 
     public InverseLaplaceTransformTalbot() {
         this(64);
@@ -33,19 +35,25 @@ public class InverseLaplaceTransformTalbot {
      */
     public InverseLaplaceTransformTalbot(int M) {
         this.M = M;
-        delta = ComplexArrays.zeros(M);
-        delta[0] = Complex.fromReal(2.0 * M / 5.0);
-        for (int k = 1; k < M; ++k) {
-            delta[k] = new Complex(1.0 / Math.tan(k * Math.PI / M), 1.0);
-            delta[k].multiplyEquals(2.0 * k * Math.PI / 5.0);
-        }
-        gamma = ComplexArrays.zeros(M);
-        gamma[0] = delta[0].exp().multiply(0.5);
+        deltaReal = new double[M];
+        deltaImag = new double[M];
+        gammaReal = new double[M];
+        gammaImag = new double[M];
+        Complex register = new Complex();
+        deltaReal[0] = 2.0 * M / 5.0;
+        ComplexMath.exp(deltaReal[0], deltaImag[0], register);
+        gammaReal[0] = register.real() * 0.5;
+        gammaImag[0] = register.imag() * 0.5;
         for (int k = 1; k < M; ++k) {
             double cotTerm = 1.0 / Math.tan(k * Math.PI / M);
-            gamma[k] = new Complex(1.0, (k * Math.PI / M) * (1.0 + cotTerm * cotTerm));
-            gamma[k].subtractEquals(Complex.fromImaginary(cotTerm));
-            gamma[k].multiplyEquals(delta[k].exp());
+            double factor = 2.0 * k * Math.PI / 5.0;
+            deltaReal[k] = cotTerm * factor;
+            deltaImag[k] = factor;
+            ComplexMath.exp(deltaReal[k], deltaImag[k], register);
+            ComplexMath.multiply(1.0, (k * Math.PI / M) * (1.0 + cotTerm * cotTerm) - cotTerm,
+                    register.real(), register.imag(), register);
+            gammaReal[k] = register.real();
+            gammaImag[k] = register.imag();
         }
     }
 
@@ -59,9 +67,11 @@ public class InverseLaplaceTransformTalbot {
         if (time == 0.0 || time == -0.0) {
             time = ConstantsETK.DOUBLE_EPS;
         }
+        double scale = 1.0 / time;
         double fb = 0.0;
         for(int k = 0; k < M; ++k) {
-            fb += gamma[k].multiply(function.evaluateAt(delta[k].divide(time))).real();
+            Complex value = function.evaluateAt(new Complex(deltaReal[k] * scale, deltaImag[k] * scale));
+            fb += gammaReal[k] * value.real() - gammaImag[k] * value.imag();
         }
         return 0.4 / time * fb;
     }
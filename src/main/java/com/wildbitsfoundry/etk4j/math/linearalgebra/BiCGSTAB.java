@@ -0,0 +1,89 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import com.wildbitsfoundry.etk4j.util.DoubleArrays;
+
+/**
+ * Right preconditioned biconjugate gradient stabilized method for general non-symmetric systems.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Biconjugate_gradient_stabilized_method">BiCGSTAB</a>
+ */
+public class BiCGSTAB extends IterativeSolver {
+
+    /**
+     * Constructs an instance of the BiCGSTAB solver.
+     *
+     * @param A The square matrix.
+     * @param b The right hand side.
+     */
+    public BiCGSTAB(SparseMatrix A, double[] b) {
+        super(A, b);
+    }
+
+    @Override
+    public IterativeSolverResults solve() {
+        final int n = b.length;
+        double[] x = startingPoint();
+        double[] r = new double[n];
+        double[] rHat = new double[n];
+        double[] p = new double[n];
+        double[] v = new double[n];
+        double[] pHat = new double[n];
+        double[] s = new double[n];
+        double[] sHat = new double[n];
+        double[] t = new double[n];
+        double threshold = tol * DoubleArrays.norm2(b);
+
+        residual(x, r);
+        if (DoubleArrays.norm2(r) <= threshold) {
+            return results(x, 0, true, null);
+        }
+        System.arraycopy(r, 0, rHat, 0, n);
+        double rho = 1.0;
+        double alpha = 1.0;
+        double omega = 1.0;
+        for (int k = 1; k <= maxNumberOfIterations; ++k) {
+            double rhoNew = DoubleArrays.dot(rHat, r);
+            if (rhoNew == 0.0) {
+                return results(x, k, false, "Breakdown, rho is zero.");
+            }
+            double beta = (rhoNew / rho) * (alpha / omega);
+            for (int i = 0; i < n; ++i) {
+                p[i] = r[i] + beta * (p[i] - omega * v[i]);
+            }
+            preconditioner.apply(p, pHat);
+            A.multiply(pHat, v);
+            double rv = DoubleArrays.dot(rHat, v);
+            if (rv == 0.0) {
+                return results(x, k, false, "Breakdown, rHat * v is zero.");
+            }
+            alpha = rhoNew / rv;
+            for (int i = 0; i < n; ++i) {
+                s[i] = r[i] - alpha * v[i];
+            }
+            if (DoubleArrays.norm2(s) <= threshold) {
+                axpy(alpha, pHat, x);
+                return results(x, k, true, null);
+            }
+            preconditioner.apply(s, sHat);
+            A.multiply(sHat, t);
+            double tt = DoubleArrays.dot(t, t);
+            if (tt == 0.0) {
+                axpy(alpha, pHat, x);
+                return results(x, k, false, "Breakdown, t is zero.");
+            }
+            omega = DoubleArrays.dot(t, s) / tt;
+            for (int i = 0; i < n; ++i) {
+                x[i] += alpha * pHat[i] + omega * sHat[i];
+                r[i] = s[i] - omega * t[i];
+            }
+            if (DoubleArrays.norm2(r) <= threshold) {
+                return results(x, k, true, null);
+            }
+            if (omega == 0.0) {
+                return results(x, k, false, "Breakdown, omega is zero.");
+            }
+            rho = rhoNew;
+        }
+        return results(x, maxNumberOfIterations, false, null);
+    }
+}
@@ -53,11 +53,25 @@ public class CholeskyDecomposition {
 	 */
 
 	public CholeskyDecomposition(Matrix Arg) {
+		this(Arg.getArray(), Arg.getRowCount(), Arg.getColumnCount());
+	}
+
+	/**
+	 * Cholesky algorithm for a symmetric and positive definite
+	 * {@link MatrixView}.
+	 * 
+	 * @param view
+	 *            Square, symmetric view.
+	 */
+
+	public CholeskyDecomposition(MatrixView view) {
+		this(view.getArrayCopy(), view.getRowCount(), view.getColumnCount());
+	}
+
+	// Reads the row packed data, which is left untouched.
+	private CholeskyDecomposition(double[] A, final int m, final int n) {
 
 		// Initialize.
-		double[] A = Arg.getArray();
-		final int m = Arg.getRowCount();
-		final int n = Arg.getColumnCount();
 		_n = m;
 		L = new double[m][m];
 		isspd = (n == m);
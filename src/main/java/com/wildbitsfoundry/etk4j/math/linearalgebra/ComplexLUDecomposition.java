@@ -1,11 +1,19 @@
 package com.wildbitsfoundry.etk4j.math.linearalgebra;
 
+import com.wildbitsfoundry.etk4j.math.MathETK;
 import com.wildbitsfoundry.etk4j.math.complex.Complex;
 
 import java.util.Arrays;
 
+/**
+ * LU Decomposition of a complex matrix.
+ * <P>
+ * The factors are stored row packed with the real and imaginary parts
+ * interleaved, the same layout used by {@link ComplexMatrix}, and the
+ * factorization and the substitutions work on primitive values only.
+ */
 public class ComplexLUDecomposition {
-	protected Complex[] _data;
+	protected double[] _data;
 	protected final int _rows;
 	protected final int _cols;
 
@@ -15,44 +23,53 @@ public class ComplexLUDecomposition {
 	public ComplexLUDecomposition(ComplexMatrix matrix) {
 		final int rows = matrix.getRowCount();
 		final int cols = matrix.getColumnCount();
-		Complex[] data = matrix.getArrayCopy();
+		double[] data = matrix.getInterleavedArray().clone();
 
 		_pivot = new int[rows];
 		for (int i = 0; i < rows; i++) {
 			_pivot[i] = i;
 		}
 
-		Complex[] LUcol = new Complex[rows];
+		double[] LUcol = new double[2 * rows];
 
 		// Begin the outer loop
 		for (int j = 0; j < cols; j++) {
 			// Copy the j-th column to localize references.
 			for (int i = 0; i < rows; i++) {
-				LUcol[i] = data[i * cols + j];
+				LUcol[2 * i] = data[2 * (i * cols + j)];
+				LUcol[2 * i + 1] = data[2 * (i * cols + j) + 1];
 			}
 			// Apply previous transformations
 			for (int i = 0; i < rows; i++) {
 				int maxel = Math.min(i, j);
-				Complex s = new Complex();
+				double sr = 0.0;
+				double si = 0.0;
 				for (int k = 0; k < maxel; k++) {
-					s.addEquals(data[i * cols + k].multiply(LUcol[k]));
+					double ar = data[2 * (i * cols + k)];
+					double ai = data[2 * (i * cols + k) + 1];
+					double br = LUcol[2 * k];
+					double bi = LUcol[2 * k + 1];
+					sr += ar * br - ai * bi;
+					si += ar * bi + ai * br;
 				}
-				LUcol[i].subtractEquals(s);
-				data[i * cols + j] = LUcol[i];
+				LUcol[2 * i] -= sr;
+				LUcol[2 * i + 1] -= si;
+				data[2 * (i * cols + j)] = LUcol[2 * i];
+				data[2 * (i * cols + j) + 1] = LUcol[2 * i + 1];
 			}
 
 			// Find pivot and swap if needed
 			int p = j;
 			for (int i = j + 1; i < rows; i++) {
-				if (LUcol[i].abs() > LUcol[p].abs()) {
+				if (MathETK.hypot(LUcol[2 * i], LUcol[2 * i + 1]) > MathETK.hypot(LUcol[2 * p], LUcol[2 * p + 1])) {
 					p = i;
 				}
 			}
 			if (p != j) {
-				for (int k = 0; k < cols; k++) {
-					Complex temp = data[p * cols + k];
-					data[p * cols + k] = data[j * cols + k];
-					data[j * cols + k] = temp;
+				for (int k = 0; k < 2 * cols; k++) {
+					double temp = data[2 * p * cols + k];
+					data[2 * p * cols + k] = data[2 * j * cols + k];
+					data[2 * j * cols + k] = temp;
 				}
 				int temp = _pivot[p];
 				_pivot[p] = _pivot[j];
@@ -60,9 +77,20 @@ public class ComplexLUDecomposition {
 				_pivotsign = -_pivotsign;
 			}
 			// Wrapping up
-			if (j < rows & !data[j * cols + j].equals(new Complex())) {
-				for (int i = j + 1; i < rows; i++) {
-					data[i * cols + j].divideEquals(data[j * cols + j]);
+			if (j < rows) {
+				double dr = data[2 * (j * cols + j)];
+				double di = data[2 * (j * cols + j) + 1];
+				if (dr != 0.0 || di != 0.0) {
+					// Multiply by the reciprocal of the pivot
+					double mag = 1.0 / (dr * dr + di * di);
+					double rr = dr * mag;
+					double ri = di * -mag;
+					for (int i = j + 1; i < rows; i++) {
+						int ij = 2 * (i * cols + j);
+						double re = data[ij] * rr - data[ij + 1] * ri;
+						data[ij + 1] = data[ij] * ri + data[ij + 1] * rr;
+						data[ij] = re;
+					}
 				}
 			}
 		}
@@ -73,7 +101,7 @@ public class ComplexLUDecomposition {
 
 	public boolean isNonSingular() {
 		for (int j = 0; j < _cols; ++j) {
-			if (_data[j * _cols + j].equals(new Complex())) {
+			if (_data[2 * (j * _cols + j)] == 0.0 && _data[2 * (j * _cols + j) + 1] == 0.0) {
 				return false;
 			}
 		}
@@ -82,22 +110,21 @@ public class ComplexLUDecomposition {
 
 	/**
 	 * Return lower triangular factor
-	 * 
+	 *
 	 * @return L
 	 */
 
 	public ComplexMatrix getL() {
 		final int rows = _rows;
 		final int cols = _cols;
-		Complex[] L = new Complex[rows * cols];
+		double[] L = new double[2 * rows * cols];
 		for (int i = 0; i < rows; ++i) {
 			for (int j = 0; j < cols; ++j) {
 				if (i > j) {
-					L[i * cols + j] = _data[i * cols + j];
+					L[2 * (i * cols + j)] = _data[2 * (i * cols + j)];
+					L[2 * (i * cols + j) + 1] = _data[2 * (i * cols + j) + 1];
 				} else if (i == j) {
-					L[i * cols + j] = Complex.fromReal(1.0);
-				} else {
-					L[i * cols + j] = new Complex();
+					L[2 * (i * cols + j)] = 1.0;
 				}
 			}
 		}
@@ -106,21 +133,18 @@ public class ComplexLUDecomposition {
 
 	/**
 	 * Return upper triangular factor
-	 * 
+	 *
 	 * @return U
 	 */
 
 	public ComplexMatrix getU() {
 		final int rows = _rows;
 		final int cols = _cols;
-		Complex[] U = new Complex[rows * cols];
+		double[] U = new double[2 * rows * cols];
 		for (int i = 0; i < cols; i++) {
-			for (int j = 0; j < cols; j++) {
-				if (i <= j) {
-					U[i * cols + j] = _data[i * cols + j];
-				} else {
-					U[i * cols + j] = new Complex();
-				}
+			for (int j = i; j < cols; j++) {
+				U[2 * (i * cols + j)] = _data[2 * (i * cols + j)];
+				U[2 * (i * cols + j) + 1] = _data[2 * (i * cols + j) + 1];
 			}
 		}
 		return new ComplexMatrix(U, rows, cols);
@@ -128,7 +152,7 @@ public class ComplexLUDecomposition {
 
 	/**
 	 * Return pivot permutation vector
-	 * 
+	 *
 	 * @return piv
 	 */
 
@@ -138,7 +162,7 @@ public class ComplexLUDecomposition {
 
 	/**
 	 * Return pivot permutation vector as a one-dimensional double array
-	 * 
+	 *
 	 * @return (double) piv
 	 */
 
@@ -155,16 +179,21 @@ public class ComplexLUDecomposition {
 		if (_rows != _cols) {
 			throw new IllegalArgumentException("Matrix must be square.");
 		}
-		Complex det = Complex.fromReal(_pivotsign);
+		double dr = _pivotsign;
+		double di = 0.0;
 		for (int i = 0; i < _cols; i++) {
-			det.multiplyEquals(this._data[i * _cols + i]);
+			double ur = _data[2 * (i * _cols + i)];
+			double ui = _data[2 * (i * _cols + i) + 1];
+			double re = dr * ur - di * ui;
+			di = dr * ui + di * ur;
+			dr = re;
 		}
-		return det;
+		return new Complex(dr, di);
 	}
 
 	/**
 	 * Solve A*X = B
-	 * 
+	 *
 	 * @param B
 	 *            A Matrix with as many rows as A and any number of columns.
 	 * @return X so that L*U*X = B(piv,:)
@@ -184,31 +213,113 @@ public class ComplexLUDecomposition {
 
 		// Copy right hand side with pivoting
 		int nx = B.getColumnCount();
-		ComplexMatrix Xmat = ComplexMatrix.fromRealMatrix(B.subMatrix(_pivot, 0, nx - 1));
-		Complex[] X = Xmat.getArray();
+		double[] b = B.getArray();
+		double[] X = new double[2 * _rows * nx];
+		for (int i = 0; i < _rows; ++i) {
+			for (int j = 0; j < nx; ++j) {
+				X[2 * (i * nx + j)] = b[_pivot[i] * nx + j];
+			}
+		}
+		substitute(X, nx);
+		return new ComplexMatrix(X, _rows, nx);
+	}
+
+	/**
+	 * Solve A*X = B
+	 *
+	 * @param B
+	 *            A complex matrix with as many rows as A and any number of
+	 *            columns.
+	 * @return X so that L*U*X = B(piv,:)
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is singular.
+	 */
+
+	public ComplexMatrix solve(ComplexMatrix B) {
+		ComplexMatrix X = new ComplexMatrix(_rows, B.getColumnCount());
+		solve(B, X);
+		return X;
+	}
+
+	/**
+	 * Solve A*X = B into a preallocated matrix. No memory is allocated.
+	 *
+	 * @param B
+	 *            A complex matrix with as many rows as A and any number of
+	 *            columns.
+	 * @param out
+	 *            The matrix where X is stored. It must have the same
+	 *            dimensions as B and it cannot share storage with B.
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is singular.
+	 */
+
+	public void solve(ComplexMatrix B, ComplexMatrix out) {
+		if (B.getRowCount() != _rows) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		final int nx = B.getColumnCount();
+		if (out.getRowCount() != _rows || out.getColumnCount() != nx) {
+			throw new IllegalArgumentException(String.format("The output Matrix must be %d by %d.", _rows, nx));
+		}
+		if (!this.isNonSingular()) {
+			throw new RuntimeException("Matrix is singular.");
+		}
+
+		// Copy right hand side with pivoting
+		double[] b = B.getInterleavedArray();
+		double[] X = out.getInterleavedArray();
+		for (int i = 0; i < _rows; ++i) {
+			System.arraycopy(b, 2 * _pivot[i] * nx, X, 2 * i * nx, 2 * nx);
+		}
+		substitute(X, nx);
+	}
 
+	// Forward and back substitution in place on the pivoted, row packed and interleaved right hand side
+	private void substitute(double[] X, int nx) {
 		final int cols = _cols;
 
 		// Solve L * Y = B(_pivot,:)
 		for (int k = 0; k < cols; ++k) {
 			for (int i = k + 1; i < cols; ++i) {
+				double lr = _data[2 * (i * cols + k)];
+				double li = _data[2 * (i * cols + k) + 1];
 				for (int j = 0; j < nx; ++j) {
-					X[i * nx + j].subtractEquals(X[k * nx + j].multiply(_data[i * cols + k]));
+					double xr = X[2 * (k * nx + j)];
+					double xi = X[2 * (k * nx + j) + 1];
+					X[2 * (i * nx + j)] -= xr * lr - xi * li;
+					X[2 * (i * nx + j) + 1] -= xr * li + xi * lr;
 				}
 			}
 		}
 		// Solve U * X = Y;
 		for (int k = cols - 1; k >= 0; --k) {
+			double ur = _data[2 * (k * cols + k)];
+			double ui = _data[2 * (k * cols + k) + 1];
+			double mag = 1.0 / (ur * ur + ui * ui);
+			double rr = ur * mag;
+			double ri = ui * -mag;
 			for (int j = 0; j < nx; ++j) {
-				X[k * nx + j].divideEquals(_data[k * cols + k]);
+				double xr = X[2 * (k * nx + j)];
+				double xi = X[2 * (k * nx + j) + 1];
+				X[2 * (k * nx + j)] = xr * rr - xi * ri;
+				X[2 * (k * nx + j) + 1] = xr * ri + xi * rr;
 			}
 			for (int i = 0; i < k; ++i) {
+				double ar = _data[2 * (i * cols + k)];
+				double ai = _data[2 * (i * cols + k) + 1];
 				for (int j = 0; j < nx; ++j) {
-					X[i * nx + j].subtractEquals(X[k * nx + j].multiply(_data[i * cols + k]));
+					double xr = X[2 * (k * nx + j)];
+					double xi = X[2 * (k * nx + j) + 1];
+					X[2 * (i * nx + j)] -= xr * ar - xi * ai;
+					X[2 * (i * nx + j) + 1] -= xr * ai + xi * ar;
 				}
 			}
 		}
-		return Xmat;
 	}
 
 	@Override
@@ -218,8 +329,8 @@ public class ComplexLUDecomposition {
 			if (i > 0 && i % _cols == 0) {
 				sb.append(System.lineSeparator());
 			}
-			sb.append(String.format("%.4f", _data[i])).append(" ");
+			sb.append(new Complex(_data[2 * i], _data[2 * i + 1])).append(" ");
 		}
 		return sb.toString();
 	}
-}
\ No newline at end of file
+}
@@ -1,20 +1,30 @@
 package com.wildbitsfoundry.etk4j.math.linearalgebra;
 
 import com.wildbitsfoundry.etk4j.math.complex.Complex;
-import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 
 import java.util.Arrays;
 
+/**
+ * The {@code ComplexMatrix} class represents a matrix of complex numbers. The elements are stored row packed in a
+ * single {@code double[]} with the real and imaginary parts interleaved, so element {@code (i, j)} occupies
+ * {@code data[2 * (i * cols + j)]} and {@code data[2 * (i * cols + j) + 1]}. The arithmetic operations, the
+ * products and the {@link ComplexLUDecomposition} work directly on that storage without creating {@link Complex}
+ * objects. The accessors that return {@link Complex} values are provided for convenience and always return new
+ * objects.
+ */
 public class ComplexMatrix {
-    private Complex[] data;
+    private double[] data;
     private int rows;
     private int cols;
 
+    // Products above this many complex multiply-adds are computed with four real blocked products.
+    private static final long BLOCKED_THRESHOLD = 48L * 48L * 48L;
+
     public ComplexMatrix(int rows, int cols) {
         this.rows = rows;
         this.cols = cols;
 
-        this.data = new Complex[rows * cols];
+        this.data = new double[2 * rows * cols];
     }
 
     /***
@@ -29,11 +39,12 @@ public class ComplexMatrix {
             throw new IllegalArgumentException("Array length must be a multiple of rows.");
         }
 
-        int dim = this.rows * cols;
-        this.data = new Complex[dim];
+        this.data = new double[2 * this.rows * cols];
         for (int i = 0; i < this.rows; ++i) {
             for (int j = 0; j < cols; ++j) {
-                this.data[i * cols + j] = data[i + j * rows];
+                Complex c = data[i + j * rows];
+                this.data[2 * (i * cols + j)] = c.real();
+                this.data[2 * (i * cols + j) + 1] = c.imag();
             }
         }
     }
@@ -41,31 +52,80 @@ public class ComplexMatrix {
     public ComplexMatrix(Complex[][] data) {
         rows = data.length;
         cols = data[0].length;
-        this.data = ComplexArrays.flatten(data);
+        this.data = new double[2 * rows * cols];
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < cols; ++j) {
+                this.data[2 * (i * cols + j)] = data[i][j].real();
+                this.data[2 * (i * cols + j) + 1] = data[i][j].imag();
+            }
+        }
     }
 
-    // row packed
-    // _rows = rows
-    // _cols = cols
-    // _data = data;
+    /***
+     * Row packed. The values are copied into the interleaved storage.
+     * @param data
+     * @param rows
+     * @param cols
+     */
     public ComplexMatrix(Complex[] data, int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.data = new double[2 * rows * cols];
+        for (int i = 0; i < rows * cols; ++i) {
+            this.data[2 * i] = data[i].real();
+            this.data[2 * i + 1] = data[i].imag();
+        }
+    }
+
+    /***
+     * Row packed with the real and imaginary parts interleaved. The array is used as the storage of the
+     * {@code ComplexMatrix}, it is not copied.
+     * @param data Array of length {@code 2 * rows * cols}.
+     * @param rows The number of rows.
+     * @param cols The number of columns.
+     */
+    public ComplexMatrix(double[] data, int rows, int cols) {
+        if (data.length != 2 * rows * cols) {
+            throw new IllegalArgumentException("Array length must be equal to 2 * rows * cols.");
+        }
         this.rows = rows;
         this.cols = cols;
         this.data = data;
     }
 
+    /**
+     * Complex {@code Matrix} from its real and imaginary parts.
+     * @param real The real part.
+     * @param imag The imaginary part.
+     */
+    public ComplexMatrix(Matrix real, Matrix imag) {
+        rows = real.getRowCount();
+        cols = real.getColumnCount();
+        if (imag.getRowCount() != rows || imag.getColumnCount() != cols) {
+            throw new IllegalArgumentException("Matrix dimensions must agree.");
+        }
+        double[] re = real.getArray();
+        double[] im = imag.getArray();
+        data = new double[2 * rows * cols];
+        for (int i = 0; i < rows * cols; ++i) {
+            data[2 * i] = re[i];
+            data[2 * i + 1] = im[i];
+        }
+    }
+
     public ComplexMatrix(ComplexMatrix matrix) {
         rows = matrix.rows;
         cols = matrix.cols;
-        data = new Complex[rows * cols];
-        System.arraycopy(matrix.data, 0, this.data, 0, this.rows * this.cols);
+        data = matrix.data.clone();
     }
 
     public ComplexMatrix(int rows, int cols, double val) {
         this.rows = rows;
         this.cols = cols;
-        data = new Complex[this.rows * this.cols];
-        Arrays.fill(data, val);
+        data = new double[2 * this.rows * this.cols];
+        for (int i = 0; i < this.rows * this.cols; ++i) {
+            data[2 * i] = val;
+        }
     }
 
     /***
@@ -73,12 +133,11 @@ public class ComplexMatrix {
      * @return
      */
     public ComplexMatrix copy() {
-        Complex[] data = ComplexArrays.deepCopy(this.data);
-        return new ComplexMatrix(data, this.rows, this.cols);
+        return new ComplexMatrix(this);
     }
 
     public static ComplexMatrix fromRealMatrix(Matrix m) {
-        return new ComplexMatrix(ComplexArrays.fromReal(m.getArray()), m.getRowCount(), m.getColumnCount());
+        return new ComplexMatrix(m, new Matrix(m.getRowCount(), m.getColumnCount()));
     }
     // region SubMatrix
 
@@ -94,22 +153,48 @@ public class ComplexMatrix {
     }
 
     public Complex get(int i, int j) {
-        if(i < 0) {
-            throw new ArrayIndexOutOfBoundsException("Index i cannot be less thant zero.");
-        }
-        if (i >= rows) {
-            throw new ArrayIndexOutOfBoundsException(String.format("Index i: %d >= than number of rows: %d.", i, rows));
-        }
-        if(j < 0) {
-            throw new ArrayIndexOutOfBoundsException("Index j cannot be less thant zero.");
-        }
-        if (j >= cols) {
-            throw new ArrayIndexOutOfBoundsException(String.format("Index j: %d >= than number of columns: %d.", j, cols));
-        }
-        return data[i * cols + j];
+        int index = checkIndexes(i, j);
+        return new Complex(data[index], data[index + 1]);
+    }
+
+    /**
+     * Real part of an element.
+     * @param i The row index.
+     * @param j The column index.
+     * @return {@code real(A(i, j))}.
+     */
+    public double getReal(int i, int j) {
+        return data[checkIndexes(i, j)];
+    }
+
+    /**
+     * Imaginary part of an element.
+     * @param i The row index.
+     * @param j The column index.
+     * @return {@code imag(A(i, j))}.
+     */
+    public double getImag(int i, int j) {
+        return data[checkIndexes(i, j) + 1];
     }
 
     public void set(int i, int j, Complex val) {
+        set(i, j, val.real(), val.imag());
+    }
+
+    /**
+     * Set an element.
+     * @param i The row index.
+     * @param j The column index.
+     * @param real The real part of the value.
+     * @param imag The imaginary part of the value.
+     */
+    public void set(int i, int j, double real, double imag) {
+        int index = checkIndexes(i, j);
+        data[index] = real;
+        data[index + 1] = imag;
+    }
+
+    private int checkIndexes(int i, int j) {
         if(i < 0) {
             throw new ArrayIndexOutOfBoundsException("Index i cannot be less thant zero.");
         }
@@ -122,24 +207,65 @@ public class ComplexMatrix {
         if (j >= cols) {
             throw new ArrayIndexOutOfBoundsException(String.format("Index j: %d >= than number of columns: %d.", j, cols));
         }
-        data[i * cols + j] = val;
+        return 2 * (i * cols + j);
     }
 
+    /**
+     * Row packed copy of the elements. Changes to the returned array are not reflected in the {@code ComplexMatrix}.
+     * @return The elements of the {@code ComplexMatrix}.
+     */
     public Complex[] getArray() {
-        return this.data;
+        Complex[] result = new Complex[rows * cols];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = new Complex(data[2 * i], data[2 * i + 1]);
+        }
+        return result;
     }
 
     public Complex[] getArrayCopy() {
-        return ComplexArrays.deepCopy(data);
+        return getArray();
+    }
+
+    /**
+     * The storage of the {@code ComplexMatrix}: the elements row packed with the real and imaginary parts
+     * interleaved.
+     * @return The array backing the {@code ComplexMatrix}.
+     */
+    public double[] getInterleavedArray() {
+        return data;
+    }
+
+    /**
+     * Real part.
+     * @return {@code real(A)}.
+     */
+    public Matrix real() {
+        double[] result = new double[rows * cols];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = data[2 * i];
+        }
+        return new Matrix(result, rows, cols);
+    }
+
+    /**
+     * Imaginary part.
+     * @return {@code imag(A)}.
+     */
+    public Matrix imag() {
+        double[] result = new double[rows * cols];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = data[2 * i + 1];
+        }
+        return new Matrix(result, rows, cols);
     }
     // endregion
 
     // region arithmetic operations
     public ComplexMatrix add(ComplexMatrix m) {
         checkMatrixDimensions(m);
-        Complex[] result = new Complex[this.rows * this.cols];
-        for (int i = 0; i < this.rows * this.cols; ++i) {
-            result[i] = this.data[i].add(m.data[i]);
+        double[] result = new double[data.length];
+        for (int i = 0; i < data.length; ++i) {
+            result[i] = this.data[i] + m.data[i];
         }
         return new ComplexMatrix(result, rows, cols);
     }
@@ -149,16 +275,16 @@ public class ComplexMatrix {
         checkMatrixDimensions(m);
         final int length = rows * cols;
         for (int i = 0; i < length; ++i) {
-            data[i].addEquals(mData[i]);
+            data[2 * i] += mData[i];
         }
     }
 
     public ComplexMatrix subtract(Matrix m) {
-        double[] data = m.getArray();
+        double[] mData = m.getArray();
         checkMatrixDimensions(m);
-        Complex[] result = new Complex[this.rows * this.cols];
+        double[] result = data.clone();
         for (int i = 0; i < this.rows * this.cols; ++i) {
-            result[i] = this.data[i].subtract(data[i]);
+            result[2 * i] -= mData[i];
         }
         return new ComplexMatrix(result, rows, cols);
     }
@@ -176,19 +302,30 @@ public class ComplexMatrix {
             throw new IllegalArgumentException("Matrix inner dimensions must agree. Check that the number of" +
                     "columns of the first matrix equal the number of rows of the second matrix.");
         }
-        Complex[] result = new Complex[a.rows * bCols];
-        double[] bColJ = new double[a.cols];
+        double[] result = new double[2 * a.rows * bCols];
         double[] bData = b.getArray();
-        for (int j = 0; j < bCols; j++) {
-            for (int k = 0; k < a.cols; k++) {
-                bColJ[k] = bData[k * bCols + j];
-            }
+        final int n = a.cols;
+        if ((long) a.rows * bCols * n < BLOCKED_THRESHOLD) {
             for (int i = 0; i < a.rows; i++) {
-                Complex s = new Complex();
-                for (int k = 0; k < a.cols; k++) {
-                    s.addEquals(a.data[k + i * a.cols].multiply(bColJ[k]));
+                int ci = 2 * i * bCols;
+                for (int k = 0; k < n; k++) {
+                    double re = a.data[2 * (i * n + k)];
+                    double im = a.data[2 * (i * n + k) + 1];
+                    int bk = k * bCols;
+                    for (int j = 0; j < bCols; j++) {
+                        result[ci + 2 * j] += re * bData[bk + j];
+                        result[ci + 2 * j + 1] += im * bData[bk + j];
+                    }
+                }
+            }
+        } else {
+            // real(C) = real(A) * B and imag(C) = imag(A) * B
+            double[] part = new double[a.rows * bCols];
+            for (int p = 0; p < 2; ++p) {
+                Gemm.gemm(a.rows, bCols, n, 1.0, a.data, p, 2 * n, 2, bData, 0, bCols, 1, 0.0, part, 0, bCols);
+                for (int i = 0; i < part.length; ++i) {
+                    result[2 * i + p] = part[i];
                 }
-                result[i * bCols + j] = s;
             }
         }
         c.data = result;
@@ -199,6 +336,76 @@ public class ComplexMatrix {
     public void multiplyEquals(Matrix matrix) {
         multiplyOp(this, matrix, this);
     }
+
+    /**
+     * Complex {@code Matrix} multiplication.
+     * @param B The complex {@code Matrix} to multiply.
+     * @return {@code A * B}.
+     */
+    public ComplexMatrix multiply(ComplexMatrix B) {
+        checkInnerDimensions(B);
+        ComplexMatrix C = new ComplexMatrix(rows, B.cols);
+        gemm(rows, B.cols, cols, data, B.data, C.data);
+        return C;
+    }
+
+    /**
+     * Complex {@code Matrix} multiplication into a preallocated {@code ComplexMatrix}. No memory is allocated
+     * unless the product is large enough to use the blocked kernel.
+     * @param B The complex {@code Matrix} to multiply.
+     * @param out The {@code ComplexMatrix} where the result is stored. It must have as many rows as {@code A} and
+     *            as many columns as {@code B}, and it cannot share storage with {@code A} or {@code B}.
+     */
+    public void multiply(ComplexMatrix B, ComplexMatrix out) {
+        checkInnerDimensions(B);
+        if (out.rows != rows || out.cols != B.cols) {
+            throw new IllegalArgumentException(String.format("The output Matrix must be %d by %d.", rows, B.cols));
+        }
+        gemm(rows, B.cols, cols, data, B.data, out.data);
+    }
+
+    private void checkInnerDimensions(ComplexMatrix B) {
+        if (B.rows != cols) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree. Check that the number of" +
+                    "columns of the first matrix equal the number of rows of the second matrix.");
+        }
+    }
+
+    /**
+     * Computes {@code C = A * B} over row packed interleaved storage. C must not overlap A or B.
+     */
+    static void gemm(int m, int n, int k, double[] a, double[] b, double[] c) {
+        if ((long) m * n * k < BLOCKED_THRESHOLD) {
+            Arrays.fill(c, 0, 2 * m * n, 0.0);
+            for (int i = 0; i < m; ++i) {
+                int ci = 2 * i * n;
+                for (int p = 0; p < k; ++p) {
+                    double ar = a[2 * (i * k + p)];
+                    double ai = a[2 * (i * k + p) + 1];
+                    int bp = 2 * p * n;
+                    for (int j = 0; j < n; ++j) {
+                        double br = b[bp + 2 * j];
+                        double bi = b[bp + 2 * j + 1];
+                        c[ci + 2 * j] += ar * br - ai * bi;
+                        c[ci + 2 * j + 1] += ar * bi + ai * br;
+                    }
+                }
+            }
+            return;
+        }
+        // real(C) = real(A) * real(B) - imag(A) * imag(B) and imag(C) = real(A) * imag(B) + imag(A) * real(B),
+        // with the parts of A and B addressed through strides
+        double[] re = new double[m * n];
+        double[] im = new double[m * n];
+        Gemm.gemm(m, n, k, 1.0, a, 0, 2 * k, 2, b, 0, 2 * n, 2, 0.0, re, 0, n);
+        Gemm.gemm(m, n, k, -1.0, a, 1, 2 * k, 2, b, 1, 2 * n, 2, 1.0, re, 0, n);
+        Gemm.gemm(m, n, k, 1.0, a, 0, 2 * k, 2, b, 1, 2 * n, 2, 0.0, im, 0, n);
+        Gemm.gemm(m, n, k, 1.0, a, 1, 2 * k, 2, b, 0, 2 * n, 2, 1.0, im, 0, n);
+        for (int i = 0; i < m * n; ++i) {
+            c[2 * i] = re[i];
+            c[2 * i + 1] = im[i];
+        }
+    }
     // endregion
 
     public boolean isEmpty() {
@@ -210,15 +417,16 @@ public class ComplexMatrix {
 
     public ComplexMatrix transpose() {
         if (this.isEmpty()) {
-            return new ComplexMatrix(null, 0, 0);
+            return new ComplexMatrix(0, 0);
         }
-        Complex[] result = new Complex[rows * cols];
+        double[] result = new double[data.length];
         final int trows = cols;
         final int tcols = rows;
 
         for (int i = 0; i < rows; ++i) {
             for (int j = 0; j < cols; ++j) {
-                result[j * tcols + i] = data[i * cols + j];
+                result[2 * (j * tcols + i)] = data[2 * (i * cols + j)];
+                result[2 * (j * tcols + i) + 1] = data[2 * (i * cols + j) + 1];
             }
         }
         return new ComplexMatrix(result, trows, tcols);
@@ -244,6 +452,15 @@ public class ComplexMatrix {
 //        }
     }
 
+    /**
+     * Solve {@code A * X = B} for a complex right hand side. Only implemented for square matrices.
+     * @param B The right hand side.
+     * @return The solution to {@code A * X = B}.
+     */
+    public ComplexMatrix solve(ComplexMatrix B) {
+        return new ComplexLUDecomposition(this).solve(B);
+    }
+
     // endregion
 
     @Override
@@ -253,7 +470,7 @@ public class ComplexMatrix {
             if (i > 0 && i % cols == 0) {
                 sb.append(System.lineSeparator());
             }
-            sb.append(String.format("%s", data[i])).append(" ");
+            sb.append(String.format("%s", new Complex(data[2 * i], data[2 * i + 1]))).append(" ");
         }
         sb.setLength(sb.length() - 1);
         return sb.toString();
@@ -0,0 +1,61 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import com.wildbitsfoundry.etk4j.util.DoubleArrays;
+
+/**
+ * Preconditioned conjugate gradient method for symmetric positive definite systems.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Conjugate_gradient_method">Conjugate gradient method</a>
+ */
+public class ConjugateGradient extends IterativeSolver {
+
+    /**
+     * Constructs an instance of the conjugate gradient solver.
+     *
+     * @param A The symmetric positive definite matrix.
+     * @param b The right hand side.
+     */
+    public ConjugateGradient(SparseMatrix A, double[] b) {
+        super(A, b);
+    }
+
+    @Override
+    public IterativeSolverResults solve() {
+        final int n = b.length;
+        double[] x = startingPoint();
+        double[] r = new double[n];
+        double[] z = new double[n];
+        double[] p = new double[n];
+        double[] Ap = new double[n];
+        double threshold = tol * DoubleArrays.norm2(b);
+
+        residual(x, r);
+        if (DoubleArrays.norm2(r) <= threshold) {
+            return results(x, 0, true, null);
+        }
+        preconditioner.apply(r, z);
+        System.arraycopy(z, 0, p, 0, n);
+        double rz = DoubleArrays.dot(r, z);
+        for (int k = 1; k <= maxNumberOfIterations; ++k) {
+            A.multiply(p, Ap);
+            double pAp = DoubleArrays.dot(p, Ap);
+            if (pAp == 0.0) {
+                return results(x, k, false, "Breakdown, the search direction is zero.");
+            }
+            double alpha = rz / pAp;
+            axpy(alpha, p, x);
+            axpy(-alpha, Ap, r);
+            if (DoubleArrays.norm2(r) <= threshold) {
+                return results(x, k, true, null);
+            }
+            preconditioner.apply(r, z);
+            double rzNew = DoubleArrays.dot(r, z);
+            double beta = rzNew / rz;
+            rz = rzNew;
+            for (int i = 0; i < n; ++i) {
+                p[i] = z[i] + beta * p[i];
+            }
+        }
+        return results(x, maxNumberOfIterations, false, null);
+    }
+}
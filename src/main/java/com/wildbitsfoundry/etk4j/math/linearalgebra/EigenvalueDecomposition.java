@@ -2,6 +2,8 @@ package com.wildbitsfoundry.etk4j.math.linearalgebra;
 
 import com.wildbitsfoundry.etk4j.constants.ConstantsETK;
 import com.wildbitsfoundry.etk4j.math.MathETK;
+import com.wildbitsfoundry.etk4j.math.complex.Complex;
+import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 
 /**
  * Eigenvalues and eigenvectors of a real matrix.
@@ -859,6 +861,309 @@ public class EigenvalueDecomposition {
 		}
 	}
 
+	// Nonsymmetric reduction to Hessenberg form without accumulating the
+	// transformations. H is row packed n by n.
+
+	private static void orthes(double[] H, int n) {
+		int low = 0;
+		int high = n - 1;
+		double[] ort = new double[n];
+		double[] w = new double[n];
+
+		for (int m = low + 1; m <= high - 1; m++) {
+
+			// Scale column.
+
+			double scale = 0.0;
+			for (int i = m; i <= high; i++) {
+				scale = scale + Math.abs(H[i * n + m - 1]);
+			}
+			if (scale != 0.0) {
+
+				// Compute Householder transformation.
+
+				double h = 0.0;
+				for (int i = high; i >= m; i--) {
+					ort[i] = H[i * n + m - 1] / scale;
+					h += ort[i] * ort[i];
+				}
+				double g = Math.sqrt(h);
+				if (ort[m] > 0) {
+					g = -g;
+				}
+				h = h - ort[m] * g;
+				ort[m] = ort[m] - g;
+
+				// Apply Householder similarity transformation
+				// H = (I-u*u'/h)*H*(I-u*u')/h). The rows of H are
+				// traversed contiguously.
+
+				for (int j = m; j < n; j++) {
+					w[j] = 0.0;
+				}
+				for (int i = high; i >= m; i--) {
+					double oi = ort[i];
+					for (int j = m; j < n; j++) {
+						w[j] += oi * H[i * n + j];
+					}
+				}
+				for (int j = m; j < n; j++) {
+					w[j] = w[j] / h;
+				}
+				for (int i = m; i <= high; i++) {
+					double oi = ort[i];
+					for (int j = m; j < n; j++) {
+						H[i * n + j] -= w[j] * oi;
+					}
+				}
+
+				for (int i = 0; i <= high; i++) {
+					double f = 0.0;
+					for (int j = high; j >= m; j--) {
+						f += ort[j] * H[i * n + j];
+					}
+					f = f / h;
+					for (int j = m; j <= high; j++) {
+						H[i * n + j] -= f * ort[j];
+					}
+				}
+				H[m * n + m - 1] = scale * g;
+			}
+		}
+	}
+
+	// Eigenvalues of an upper Hessenberg matrix by the Francis double shift
+	// QR algorithm. This is hqr2 without the accumulation of the
+	// transformations, so the row and column modifications are restricted
+	// to the active block. H is row packed n by n and is overwritten.
+
+	private static void hqr(double[] H, int nn, double[] d, double[] e) {
+
+		// This is derived from the Algol procedure hqr,
+		// by Martin, Peters and Wilkinson, Handbook for Auto. Comp.,
+		// Vol.ii-Linear Algebra, and the corresponding
+		// Fortran subroutine in EISPACK.
+
+		int n = nn - 1;
+		int low = 0;
+		double eps = Math.pow(2.0, -52.0);
+		double exshift = 0.0;
+		double p = 0, q = 0, r = 0, s = 0, z = 0, w, x, y;
+
+		// Compute matrix norm
+
+		double norm = 0.0;
+		for (int i = 0; i < nn; i++) {
+			for (int j = Math.max(i - 1, 0); j < nn; j++) {
+				norm = norm + Math.abs(H[i * nn + j]);
+			}
+		}
+
+		// Outer loop over eigenvalue index
+
+		int iter = 0;
+		while (n >= low) {
+
+			// Look for single small sub-diagonal element
+
+			int l = n;
+			while (l > low) {
+				s = Math.abs(H[(l - 1) * nn + l - 1]) + Math.abs(H[l * nn + l]);
+				if (s == 0.0) {
+					s = norm;
+				}
+				if (Math.abs(H[l * nn + l - 1]) < eps * s) {
+					break;
+				}
+				l--;
+			}
+
+			// Check for convergence
+			// One root found
+
+			if (l == n) {
+				d[n] = H[n * nn + n] + exshift;
+				e[n] = 0.0;
+				n--;
+				iter = 0;
+
+				// Two roots found
+
+			} else if (l == n - 1) {
+				w = H[n * nn + n - 1] * H[(n - 1) * nn + n];
+				p = (H[(n - 1) * nn + n - 1] - H[n * nn + n]) / 2.0;
+				q = p * p + w;
+				z = Math.sqrt(Math.abs(q));
+				x = H[n * nn + n] + exshift;
+
+				// Real pair
+
+				if (q >= 0) {
+					if (p >= 0) {
+						z = p + z;
+					} else {
+						z = p - z;
+					}
+					d[n - 1] = x + z;
+					d[n] = d[n - 1];
+					if (z != 0.0) {
+						d[n] = x - w / z;
+					}
+					e[n - 1] = 0.0;
+					e[n] = 0.0;
+
+					// Complex pair
+
+				} else {
+					d[n - 1] = x + p;
+					d[n] = x + p;
+					e[n - 1] = z;
+					e[n] = -z;
+				}
+				n = n - 2;
+				iter = 0;
+
+				// No convergence yet
+
+			} else {
+
+				// Form shift
+
+				x = H[n * nn + n];
+				y = H[(n - 1) * nn + n - 1];
+				w = H[n * nn + n - 1] * H[(n - 1) * nn + n];
+
+				// Wilkinson's original ad hoc shift
+
+				if (iter == 10) {
+					exshift += x;
+					for (int i = low; i <= n; i++) {
+						H[i * nn + i] -= x;
+					}
+					s = Math.abs(H[n * nn + n - 1]) + Math.abs(H[(n - 1) * nn + n - 2]);
+					x = y = 0.75 * s;
+					w = -0.4375 * s * s;
+				}
+
+				// MATLAB's new ad hoc shift
+
+				if (iter == 30) {
+					s = (y - x) / 2.0;
+					s = s * s + w;
+					if (s > 0) {
+						s = Math.sqrt(s);
+						if (y < x) {
+							s = -s;
+						}
+						s = x - w / ((y - x) / 2.0 + s);
+						for (int i = low; i <= n; i++) {
+							H[i * nn + i] -= s;
+						}
+						exshift += s;
+						x = y = w = 0.964;
+					}
+				}
+
+				iter = iter + 1; // (Could check iteration count here.)
+
+				// Look for two consecutive small sub-diagonal elements
+
+				int m = n - 2;
+				while (m >= l) {
+					z = H[m * nn + m];
+					r = x - z;
+					s = y - z;
+					p = (r * s - w) / H[(m + 1) * nn + m] + H[m * nn + m + 1];
+					q = H[(m + 1) * nn + m + 1] - z - r - s;
+					r = H[(m + 2) * nn + m + 1];
+					s = Math.abs(p) + Math.abs(q) + Math.abs(r);
+					p = p / s;
+					q = q / s;
+					r = r / s;
+					if (m == l) {
+						break;
+					}
+					if (Math.abs(H[m * nn + m - 1]) * (Math.abs(q) + Math.abs(r)) < eps * (Math.abs(p)
+							* (Math.abs(H[(m - 1) * nn + m - 1]) + Math.abs(z) + Math.abs(H[(m + 1) * nn + m + 1])))) {
+						break;
+					}
+					m--;
+				}
+
+				for (int i = m + 2; i <= n; i++) {
+					H[i * nn + i - 2] = 0.0;
+					if (i > m + 2) {
+						H[i * nn + i - 3] = 0.0;
+					}
+				}
+
+				// Double QR step involving rows l:n and columns m:n
+
+				for (int k = m; k <= n - 1; k++) {
+					boolean notlast = (k != n - 1);
+					if (k != m) {
+						p = H[k * nn + k - 1];
+						q = H[(k + 1) * nn + k - 1];
+						r = (notlast ? H[(k + 2) * nn + k - 1] : 0.0);
+						x = Math.abs(p) + Math.abs(q) + Math.abs(r);
+						if (x == 0.0) {
+							continue;
+						}
+						p = p / x;
+						q = q / x;
+						r = r / x;
+					}
+
+					s = Math.sqrt(p * p + q * q + r * r);
+					if (p < 0) {
+						s = -s;
+					}
+					if (s != 0) {
+						if (k != m) {
+							H[k * nn + k - 1] = -s * x;
+						} else if (l != m) {
+							H[k * nn + k - 1] = -H[k * nn + k - 1];
+						}
+						p = p + s;
+						x = p / s;
+						y = q / s;
+						z = r / s;
+						q = q / p;
+						r = r / p;
+
+						// Row modification
+
+						int rk = k * nn;
+						int rk1 = rk + nn;
+						int rk2 = rk1 + nn;
+						for (int j = k; j <= n; j++) {
+							p = H[rk + j] + q * H[rk1 + j];
+							if (notlast) {
+								p = p + r * H[rk2 + j];
+								H[rk2 + j] = H[rk2 + j] - p * z;
+							}
+							H[rk + j] = H[rk + j] - p * x;
+							H[rk1 + j] = H[rk1 + j] - p * y;
+						}
+
+						// Column modification
+
+						for (int i = l; i <= Math.min(n, k + 3); i++) {
+							int ri = i * nn;
+							p = x * H[ri + k] + y * H[ri + k + 1];
+							if (notlast) {
+								p = p + z * H[ri + k + 2];
+								H[ri + k + 2] = H[ri + k + 2] - p * r;
+							}
+							H[ri + k] = H[ri + k] - p;
+							H[ri + k + 1] = H[ri + k + 1] - p * q;
+						}
+					} // (s != 0)
+				} // k loop
+			} // check convergence
+		} // while (n >= low)
+	}
+
 	/*
 	 * ------------------------ Constructor ------------------------
 	 */
@@ -867,6 +1172,17 @@ public class EigenvalueDecomposition {
 		this(mat, true);
 	}
 
+	/**
+	 * Eigenvalue decomposition of a {@link MatrixView}. The view is balanced
+	 * prior to the decomposition.
+	 * 
+	 * @param view
+	 *            Square view
+	 */
+	public EigenvalueDecomposition(MatrixView view) {
+		this(view.copy(), true);
+	}
+
 	/**
 	 * Check for symmetry, then construct the eigenvalue decomposition Structure
 	 * to access D and V.
@@ -892,7 +1208,11 @@ public class EigenvalueDecomposition {
 		d = new double[_dim];
 		e = new double[_dim];
 
-		if (issymmetric) {
+		if (issymmetric && _dim >= SymmetricEigenvalueDecomposition.THRESHOLD) {
+			SymmetricEigenvalueDecomposition eig = new SymmetricEigenvalueDecomposition(new Matrix(A, _dim, _dim));
+			d = eig.getEigenvalues();
+			V = eig.getV().getArray();
+		} else if (issymmetric) {
 			for (int i = 0; i < _dim; i++) {
 				for (int j = 0; j < _dim; j++) {
 					V[i * _dim + j] = A[i * _dim + j];
@@ -923,6 +1243,77 @@ public class EigenvalueDecomposition {
 		}
 	}
 
+	/*
+	 * ------------------------ Eigenvalues only ------------------------
+	 */
+
+	/**
+	 * Eigenvalues of a square matrix without the eigenvectors. Symmetric
+	 * matrices are handled by {@link SymmetricEigenvalueDecomposition}.
+	 * Nonsymmetric matrices are balanced, reduced to Hessenberg form and then
+	 * to real Schur form by the Francis double shift QR algorithm. The
+	 * transformations are not accumulated, which roughly halves the work of
+	 * the QR iterations and avoids the n-by-n eigenvector storage.
+	 * 
+	 * @param A
+	 *            Square matrix
+	 * @return The eigenvalues of A. Complex conjugate pairs are adjacent,
+	 *         with the positive imaginary part first.
+	 * @exception NonSquareMatrixException
+	 *                If the matrix is not square.
+	 */
+	public static Complex[] eigenvalues(Matrix A) {
+		if (!A.isSquared()) {
+			throw new NonSquareMatrixException("Matrix must be a square Matrix.");
+		}
+		final int n = A.getRowCount();
+		double[] a = A.getArray();
+		boolean symmetric = true;
+		for (int i = 0; i < n && symmetric; i++) {
+			for (int j = 0; j < i && symmetric; j++) {
+				symmetric = a[i * n + j] == a[j * n + i];
+			}
+		}
+		if (symmetric) {
+			double[] d = new SymmetricEigenvalueDecomposition(A, false).getEigenvalues();
+			return ComplexArrays.zip(d, new double[n]);
+		}
+		double[] H = A.balance().getArray();
+		orthes(H, n);
+		return hqr(H, n);
+	}
+
+	/**
+	 * Eigenvalues of an upper Hessenberg matrix, such as a companion matrix,
+	 * without the eigenvectors. The reduction to Hessenberg form is skipped
+	 * and the entries below the first subdiagonal are never referenced.
+	 * 
+	 * @param H
+	 *            Square upper Hessenberg matrix
+	 * @param balance
+	 *            If {@code true}, the matrix is balanced prior to the QR
+	 *            iterations. Balancing preserves the Hessenberg structure.
+	 * @return The eigenvalues of H. Complex conjugate pairs are adjacent,
+	 *         with the positive imaginary part first.
+	 * @exception NonSquareMatrixException
+	 *                If the matrix is not square.
+	 */
+	public static Complex[] hessenbergEigenvalues(Matrix H, boolean balance) {
+		if (!H.isSquared()) {
+			throw new NonSquareMatrixException("Matrix must be a square Matrix.");
+		}
+		final int n = H.getRowCount();
+		double[] h = balance ? H.balance().getArray() : H.getArrayCopy();
+		return hqr(h, n);
+	}
+
+	private static Complex[] hqr(double[] H, int n) {
+		double[] d = new double[n];
+		double[] e = new double[n];
+		hqr(H, n, d, e);
+		return ComplexArrays.zip(d, e);
+	}
+
 	/*
 	 * ------------------------ Public Methods ------------------------
 	 */
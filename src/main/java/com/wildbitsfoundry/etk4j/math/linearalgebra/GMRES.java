@@ -0,0 +1,134 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import com.wildbitsfoundry.etk4j.util.DoubleArrays;
+
+import java.util.Arrays;
+
+/**
+ * Restarted, right preconditioned generalized minimal residual method, GMRES(m), for general non-symmetric systems.
+ * The Arnoldi basis is orthogonalized with modified Gram-Schmidt and the least squares problem is updated with Givens
+ * rotations, so the residual norm is known at every iteration without forming the solution.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Generalized_minimal_residual_method">GMRES</a>
+ */
+public class GMRES extends IterativeSolver {
+    private int restart = 30;
+
+    /**
+     * Constructs an instance of the GMRES solver.
+     *
+     * @param A The square matrix.
+     * @param b The right hand side.
+     */
+    public GMRES(SparseMatrix A, double[] b) {
+        super(A, b);
+    }
+
+    /**
+     * Restart length.
+     *
+     * @param m The number of Arnoldi vectors kept before restarting. Defaults to 30.
+     * @return This solver.
+     */
+    public GMRES restart(int m) {
+        if (m < 1) {
+            throw new IllegalArgumentException("The restart length must be greater than zero.");
+        }
+        restart = m;
+        return this;
+    }
+
+    @Override
+    public IterativeSolverResults solve() {
+        final int n = b.length;
+        final int m = Math.min(restart, n);
+        double[] x = startingPoint();
+        double[] r = new double[n];
+        double[] w = new double[n];
+        double[] z = new double[n];
+        double[][] V = new double[m + 1][n];
+        double[][] H = new double[m + 1][m];
+        double[] cs = new double[m];
+        double[] sn = new double[m];
+        double[] g = new double[m + 1];
+        double[] y = new double[m];
+        double threshold = tol * DoubleArrays.norm2(b);
+
+        int iterations = 0;
+        while (true) {
+            residual(x, r);
+            double beta = DoubleArrays.norm2(r);
+            if (beta <= threshold) {
+                return results(x, iterations, true, null);
+            }
+            if (iterations >= maxNumberOfIterations) {
+                return results(x, iterations, false, null);
+            }
+            for (int i = 0; i < n; ++i) {
+                V[0][i] = r[i] / beta;
+            }
+            Arrays.fill(g, 0.0);
+            g[0] = beta;
+
+            int j = 0;
+            boolean done = false;
+            boolean breakdown = false;
+            while (j < m && !done) {
+                preconditioner.apply(V[j], z);
+                A.multiply(z, w);
+                for (int i = 0; i <= j; ++i) {
+                    double h = DoubleArrays.dot(w, V[i]);
+                    H[i][j] = h;
+                    axpy(-h, V[i], w);
+                }
+                double h = DoubleArrays.norm2(w);
+                H[j + 1][j] = h;
+                if (h != 0.0) {
+                    for (int i = 0; i < n; ++i) {
+                        V[j + 1][i] = w[i] / h;
+                    }
+                }
+                // Apply the previous rotations to the new column and compute the next one
+                for (int i = 0; i < j; ++i) {
+                    double t = cs[i] * H[i][j] + sn[i] * H[i + 1][j];
+                    H[i + 1][j] = -sn[i] * H[i][j] + cs[i] * H[i + 1][j];
+                    H[i][j] = t;
+                }
+                double rho = Math.hypot(H[j][j], H[j + 1][j]);
+                if (rho == 0.0) {
+                    // The Krylov subspace is invariant and H is singular, keep the update of the previous columns
+                    breakdown = true;
+                    break;
+                }
+                cs[j] = H[j][j] / rho;
+                sn[j] = H[j + 1][j] / rho;
+                H[j][j] = rho;
+                H[j + 1][j] = 0.0;
+                g[j + 1] = -sn[j] * g[j];
+                g[j] = cs[j] * g[j];
+
+                ++j;
+                ++iterations;
+                done = Math.abs(g[j]) <= threshold || h == 0.0 || iterations >= maxNumberOfIterations;
+            }
+
+            // x += M^-1 * V * y with H * y = g
+            for (int i = j - 1; i >= 0; --i) {
+                double s = g[i];
+                for (int k = i + 1; k < j; ++k) {
+                    s -= H[i][k] * y[k];
+                }
+                y[i] = s / H[i][i];
+            }
+            Arrays.fill(w, 0.0);
+            for (int i = 0; i < j; ++i) {
+                axpy(y[i], V[i], w);
+            }
+            preconditioner.apply(w, z);
+            axpy(1.0, z, x);
+            if (breakdown) {
+                return results(x, iterations, false, "Breakdown, the Hessenberg matrix is singular.");
+            }
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * General matrix multiply kernel over row packed storage, {@code C = alpha * A * B + beta * C}.
+ * <pre>
+ *     Small products use a straight i-k-j loop.
+ *     Larger products are cache blocked: panels of B (KC x NC) and blocks of A (MC x KC) are packed into
+ *     contiguous buffers and a 4 x 4 register blocked micro-kernel computes the tiles of C.
+ *     Products above {@link #PARALLEL_THRESHOLD} multiply-adds are split into tiles of C and computed on the
+ *     common fork-join pool.
+ * </pre>
+ * The packing buffers are kept per thread and only grow, so repeated blocked products do not allocate. They hold
+ * at most KC * (NC + MC) doubles per thread. Parallel products still allocate the fork-join tasks that split C.
+ * <P>
+ * Every element of C accumulates its products in increasing order of the inner index regardless of the path
+ * taken, so the result is identical to the one produced by the naive triple loop. A and B are addressed through
+ * a row and a column stride, which allows transposed and strided views to be multiplied without copying them.
+ */
+final class Gemm {
+
+    private static final int MR = 4;
+    private static final int NR = 4;
+    private static final int MC = 64;
+    private static final int KC = 256;
+    private static final int NC = 1024;
+
+    private static final long BLOCKED_THRESHOLD = 48L * 48L * 48L;
+    private static final long PARALLEL_THRESHOLD = 128L * 128L * 128L;
+
+    // Larger results are not kept by the thread local workspace
+    private static final int MAX_SCRATCH_LENGTH = 1 << 16;
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    private Gemm() {
+    }
+
+    /**
+     * Computes {@code C = alpha * A * B + beta * C}. All arrays are row packed and addressed as
+     * {@code X(i, j) = x[xOff + i * ldx + j]}, so sub-blocks of larger matrices can be used directly.
+     *
+     * @see #gemm(int, int, int, double, double[], int, int, int, double[], int, int, int, double, double[], int, int)
+     */
+    static void gemm(int m, int n, int k, double alpha, double[] a, int aOff, int lda, double[] b, int bOff,
+                     int ldb, double beta, double[] c, int cOff, int ldc) {
+        gemm(m, n, k, alpha, a, aOff, lda, 1, b, bOff, ldb, 1, beta, c, cOff, ldc);
+    }
+
+    /**
+     * Computes {@code C = alpha * A * B + beta * C} where A and B are strided, {@code A(i, j) = a[aOff + i * aRs
+     * + j * aCs]} and {@code B(i, j) = b[bOff + i * bRs + j * bCs]}, and C is row packed,
+     * {@code C(i, j) = c[cOff + i * ldc + j]}.
+     *
+     * @param m     The number of rows of A and C.
+     * @param n     The number of columns of B and C.
+     * @param k     The number of columns of A and rows of B.
+     * @param alpha The scalar multiplying {@code A * B}.
+     * @param a     The storage of A.
+     * @param aOff  The offset of {@code A(0, 0)}.
+     * @param aRs   The row stride of A.
+     * @param aCs   The column stride of A.
+     * @param b     The storage of B.
+     * @param bOff  The offset of {@code B(0, 0)}.
+     * @param bRs   The row stride of B.
+     * @param bCs   The column stride of B.
+     * @param beta  The scalar multiplying C. When equal to zero, the previous contents of C are ignored.
+     * @param c     The storage of C. It must not overlap A or B.
+     * @param cOff  The offset of {@code C(0, 0)}.
+     * @param ldc   The row stride of C.
+     */
+    static void gemm(int m, int n, int k, double alpha, double[] a, int aOff, int aRs, int aCs, double[] b,
+                     int bOff, int bRs, int bCs, double beta, double[] c, int cOff, int ldc) {
+        if (m == 0 || n == 0) {
+            return;
+        }
+        if (k == 0 || alpha == 0.0) {
+            scale(m, n, beta, c, cOff, ldc);
+            return;
+        }
+        long work = (long) m * n * k;
+        if (work < BLOCKED_THRESHOLD) {
+            naive(m, n, k, alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs, beta, c, cOff, ldc);
+            return;
+        }
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (work < PARALLEL_THRESHOLD || parallelism < 2) {
+            blocked(m, n, k, alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs, beta, c, cOff, ldc);
+            return;
+        }
+        long grain = Math.max(PARALLEL_THRESHOLD / 2, work / (8L * parallelism));
+        ForkJoinPool.commonPool().invoke(new GemmTask(m, n, k, alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs,
+                beta, c, cOff, ldc, grain));
+    }
+
+    /**
+     * Scratch storage of the calling thread for a result that cannot be written over its operands. The contents are
+     * undefined and the array may be longer than requested. Lengths above {@link #MAX_SCRATCH_LENGTH} get a new
+     * array.
+     *
+     * @param length The minimum length of the array.
+     * @return The scratch array.
+     */
+    static double[] scratch(int length) {
+        if (length > MAX_SCRATCH_LENGTH) {
+            return new double[length];
+        }
+        return WORKSPACE.get().result(length);
+    }
+
+    private static void scale(int m, int n, double beta, double[] c, int cOff, int ldc) {
+        if (beta == 1.0) {
+            return;
+        }
+        for (int i = 0; i < m; ++i) {
+            int ci = cOff + i * ldc;
+            for (int j = 0; j < n; ++j) {
+                c[ci + j] = beta == 0.0 ? 0.0 : beta * c[ci + j];
+            }
+        }
+    }
+
+    private static void naive(int m, int n, int k, double alpha, double[] a, int aOff, int aRs, int aCs,
+                              double[] b, int bOff, int bRs, int bCs, double beta, double[] c, int cOff, int ldc) {
+        scale(m, n, beta, c, cOff, ldc);
+        for (int i = 0; i < m; ++i) {
+            int ai = aOff + i * aRs;
+            int ci = cOff + i * ldc;
+            for (int p = 0; p < k; ++p) {
+                double aip = alpha * a[ai + p * aCs];
+                int bp = bOff + p * bRs;
+                for (int j = 0; j < n; ++j) {
+                    c[ci + j] += aip * b[bp + j * bCs];
+                }
+            }
+        }
+    }
+
+    private static void blocked(int m, int n, int k, double alpha, double[] a, int aOff, int aRs, int aCs,
+                                double[] b, int bOff, int bRs, int bCs, double beta, double[] c, int cOff,
+                                int ldc) {
+        if (beta != 0.0) {
+            scale(m, n, beta, c, cOff, ldc);
+        }
+        final int kcMax = Math.min(KC, k);
+        Workspace workspace = WORKSPACE.get();
+        double[] bPack = workspace.bPack(kcMax * roundUp(Math.min(NC, n), NR));
+        double[] aPack = workspace.aPack(kcMax * roundUp(Math.min(MC, m), MR));
+        for (int jc = 0; jc < n; jc += NC) {
+            final int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                final int kc = Math.min(KC, k - pc);
+                // The first panel overwrites C when beta is zero, later panels accumulate on top of it.
+                final boolean overwrite = beta == 0.0 && pc == 0;
+                packB(kc, nc, b, bOff + pc * bRs + jc * bCs, bRs, bCs, bPack);
+                for (int ic = 0; ic < m; ic += MC) {
+                    final int mc = Math.min(MC, m - ic);
+                    packA(mc, kc, alpha, a, aOff + ic * aRs + pc * aCs, aRs, aCs, aPack);
+                    macroKernel(mc, nc, kc, aPack, bPack, c, cOff + ic * ldc + jc, ldc, overwrite);
+                }
+            }
+        }
+    }
+
+    private static int roundUp(int value, int multiple) {
+        return (value + multiple - 1) / multiple * multiple;
+    }
+
+    // Pack a kc x nc panel of B into strips of NR columns, each strip stored row after row.
+    private static void packB(int kc, int nc, double[] b, int bOff, int bRs, int bCs, double[] bPack) {
+        int idx = 0;
+        for (int j = 0; j < nc; j += NR) {
+            final int nr = Math.min(NR, nc - j);
+            for (int p = 0; p < kc; ++p) {
+                int bp = bOff + p * bRs + j * bCs;
+                int jj = 0;
+                for (; jj < nr; ++jj) {
+                    bPack[idx++] = b[bp + jj * bCs];
+                }
+                for (; jj < NR; ++jj) {
+                    bPack[idx++] = 0.0;
+                }
+            }
+        }
+    }
+
+    // Pack an mc x kc block of alpha * A into strips of MR rows, each strip stored column after column.
+    private static void packA(int mc, int kc, double alpha, double[] a, int aOff, int aRs, int aCs,
+                              double[] aPack) {
+        int idx = 0;
+        for (int i = 0; i < mc; i += MR) {
+            final int mr = Math.min(MR, mc - i);
+            for (int p = 0; p < kc; ++p) {
+                int ap = aOff + i * aRs + p * aCs;
+                int ii = 0;
+                if (alpha == 1.0) {
+                    for (; ii < mr; ++ii) {
+                        aPack[idx++] = a[ap + ii * aRs];
+                    }
+                } else {
+                    for (; ii < mr; ++ii) {
+                        aPack[idx++] = alpha * a[ap + ii * aRs];
+                    }
+                }
+                for (; ii < MR; ++ii) {
+                    aPack[idx++] = 0.0;
+                }
+            }
+        }
+    }
+
+    private static void macroKernel(int mc, int nc, int kc, double[] aPack, double[] bPack, double[] c, int cOff,
+                                    int ldc, boolean overwrite) {
+        for (int j = 0; j < nc; j += NR) {
+            final int nr = Math.min(NR, nc - j);
+            final int bIdx = (j / NR) * kc * NR;
+            for (int i = 0; i < mc; i += MR) {
+                final int mr = Math.min(MR, mc - i);
+                final int aIdx = (i / MR) * kc * MR;
+                final int cIdx = cOff + i * ldc + j;
+                if (mr == MR && nr == NR) {
+                    microKernel(kc, aPack, aIdx, bPack, bIdx, c, cIdx, ldc, overwrite);
+                } else {
+                    edgeKernel(kc, aPack, aIdx, bPack, bIdx, c, cIdx, ldc, mr, nr, overwrite);
+                }
+            }
+        }
+    }
+
+    private static void microKernel(int kc, double[] aPack, int aIdx, double[] bPack, int bIdx, double[] c,
+                                    int cIdx, int ldc, boolean overwrite) {
+        final int c0 = cIdx;
+        final int c1 = c0 + ldc;
+        final int c2 = c1 + ldc;
+        final int c3 = c2 + ldc;
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        if (!overwrite) {
+            c00 = c[c0]; c01 = c[c0 + 1]; c02 = c[c0 + 2]; c03 = c[c0 + 3];
+            c10 = c[c1]; c11 = c[c1 + 1]; c12 = c[c1 + 2]; c13 = c[c1 + 3];
+            c20 = c[c2]; c21 = c[c2 + 1]; c22 = c[c2 + 2]; c23 = c[c2 + 3];
+            c30 = c[c3]; c31 = c[c3 + 1]; c32 = c[c3 + 2]; c33 = c[c3 + 3];
+        }
+        int ap = aIdx;
+        int bp = bIdx;
+        for (int p = 0; p < kc; ++p, ap += MR, bp += NR) {
+            final double a0 = aPack[ap], a1 = aPack[ap + 1], a2 = aPack[ap + 2], a3 = aPack[ap + 3];
+            final double b0 = bPack[bp], b1 = bPack[bp + 1], b2 = bPack[bp + 2], b3 = bPack[bp + 3];
+            c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+            c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+            c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+            c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+        }
+        c[c0] = c00; c[c0 + 1] = c01; c[c0 + 2] = c02; c[c0 + 3] = c03;
+        c[c1] = c10; c[c1 + 1] = c11; c[c1 + 2] = c12; c[c1 + 3] = c13;
+        c[c2] = c20; c[c2 + 1] = c21; c[c2 + 2] = c22; c[c2 + 3] = c23;
+        c[c3] = c30; c[c3 + 1] = c31; c[c3 + 2] = c32; c[c3 + 3] = c33;
+    }
+
+    private static void edgeKernel(int kc, double[] aPack, int aIdx, double[] bPack, int bIdx, double[] c,
+                                   int cIdx, int ldc, int mr, int nr, boolean overwrite) {
+        for (int i = 0; i < mr; ++i) {
+            final int ci = cIdx + i * ldc;
+            for (int j = 0; j < nr; ++j) {
+                double s = overwrite ? 0.0 : c[ci + j];
+                int ap = aIdx + i;
+                int bp = bIdx + j;
+                for (int p = 0; p < kc; ++p, ap += MR, bp += NR) {
+                    s += aPack[ap] * bPack[bp];
+                }
+                c[ci + j] = s;
+            }
+        }
+    }
+
+    // The packing buffers and the result scratch of a thread. Packing overwrites every element that the kernels read.
+    private static final class Workspace {
+        private double[] aPack = new double[0];
+        private double[] bPack = new double[0];
+        private double[] result = new double[0];
+
+        double[] result(int length) {
+            if (result.length < length) {
+                result = new double[length];
+            }
+            return result;
+        }
+
+        double[] aPack(int length) {
+            if (aPack.length < length) {
+                aPack = new double[length];
+            }
+            return aPack;
+        }
+
+        double[] bPack(int length) {
+            if (bPack.length < length) {
+                bPack = new double[length];
+            }
+            return bPack;
+        }
+    }
+
+    /**
+     * Splits C into tiles along its larger dimension until each tile is below the grain size. Every tile is
+     * an independent product of a block of rows of A and a block of columns of B.
+     */
+    private static final class GemmTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int m, n, k;
+        private final double alpha, beta;
+        private final double[] a, b, c;
+        private final int aOff, aRs, aCs, bOff, bRs, bCs, cOff, ldc;
+        private final long grain;
+
+        GemmTask(int m, int n, int k, double alpha, double[] a, int aOff, int aRs, int aCs, double[] b, int bOff,
+                 int bRs, int bCs, double beta, double[] c, int cOff, int ldc, long grain) {
+            this.m = m;
+            this.n = n;
+            this.k = k;
+            this.alpha = alpha;
+            this.a = a;
+            this.aOff = aOff;
+            this.aRs = aRs;
+            this.aCs = aCs;
+            this.b = b;
+            this.bOff = bOff;
+            this.bRs = bRs;
+            this.bCs = bCs;
+            this.beta = beta;
+            this.c = c;
+            this.cOff = cOff;
+            this.ldc = ldc;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) m * n * k <= grain || Math.max(m, n) < 2 * MC) {
+                blocked(m, n, k, alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs, beta, c, cOff, ldc);
+                return;
+            }
+            if (m >= n) {
+                int half = roundUp(m / 2, MR);
+                invokeAll(
+                        new GemmTask(half, n, k, alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs, beta,
+                                c, cOff, ldc, grain),
+                        new GemmTask(m - half, n, k, alpha, a, aOff + half * aRs, aRs, aCs, b, bOff, bRs, bCs, beta,
+                                c, cOff + half * ldc, ldc, grain));
+            } else {
+                int half = roundUp(n / 2, NR);
+                invokeAll(
+                        new GemmTask(m, half, k, alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs, beta,
+                                c, cOff, ldc, grain),
+                        new GemmTask(m, n - half, k, alpha, a, aOff, aRs, aCs, b, bOff + half * bCs, bRs, bCs, beta,
+                                c, cOff + half, ldc, grain));
+            }
+        }
+    }
+}
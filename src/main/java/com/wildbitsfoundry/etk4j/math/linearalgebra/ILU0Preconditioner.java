@@ -0,0 +1,91 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import java.util.Arrays;
+
+/**
+ * Incomplete LU preconditioner with zero fill-in, ILU(0). The factors {@code L} and {@code U} are restricted to the
+ * non-zero pattern of {@code A}, so they take the same storage as {@code A} and are computed in one pass over its
+ * rows.
+ */
+public class ILU0Preconditioner implements Preconditioner {
+    private final int n;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    // L (unit diagonal, strictly lower part) and U (upper part) packed in the pattern of A.
+    private final double[] lu;
+    private final int[] diagonal;
+
+    /**
+     * Constructs an {@code ILU0Preconditioner}.
+     *
+     * @param A The square matrix to precondition. Every diagonal element must be stored.
+     * @throws NonSquareMatrixException If the matrix is not square.
+     * @throws IllegalArgumentException If a diagonal element is missing or a zero pivot is found.
+     */
+    public ILU0Preconditioner(SparseMatrix A) {
+        if (A.getRowCount() != A.getColumnCount()) {
+            throw new NonSquareMatrixException("Matrix must be a square Matrix.");
+        }
+        n = A.getRowCount();
+        rowPointers = A.getRowPointers();
+        columnIndices = A.getColumnIndices();
+        lu = Arrays.copyOf(A.getValues(), A.getNonZeroCount());
+        diagonal = new int[n];
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < n; ++i) {
+            diagonal[i] = -1;
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; ++p) {
+                position[columnIndices[p]] = p;
+                if (columnIndices[p] == i) {
+                    diagonal[i] = p;
+                }
+            }
+            if (diagonal[i] < 0) {
+                throw new IllegalArgumentException(String.format("The diagonal element %d is not stored.", i));
+            }
+            // IKJ variant restricted to the pattern of row i
+            for (int p = rowPointers[i]; p < diagonal[i]; ++p) {
+                int k = columnIndices[p];
+                double pivot = lu[diagonal[k]];
+                if (pivot == 0.0) {
+                    throw new IllegalArgumentException(String.format("Zero pivot found at row %d.", k));
+                }
+                double lik = lu[p] / pivot;
+                lu[p] = lik;
+                for (int q = diagonal[k] + 1; q < rowPointers[k + 1]; ++q) {
+                    int pos = position[columnIndices[q]];
+                    if (pos >= 0) {
+                        lu[pos] -= lik * lu[q];
+                    }
+                }
+            }
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; ++p) {
+                position[columnIndices[p]] = -1;
+            }
+            if (lu[diagonal[i]] == 0.0) {
+                throw new IllegalArgumentException(String.format("Zero pivot found at row %d.", i));
+            }
+        }
+    }
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        // L * y = r
+        for (int i = 0; i < n; ++i) {
+            double s = r[i];
+            for (int p = rowPointers[i]; p < diagonal[i]; ++p) {
+                s -= lu[p] * z[columnIndices[p]];
+            }
+            z[i] = s;
+        }
+        // U * z = y
+        for (int i = n - 1; i >= 0; --i) {
+            double s = z[i];
+            for (int p = diagonal[i] + 1; p < rowPointers[i + 1]; ++p) {
+                s -= lu[p] * z[columnIndices[p]];
+            }
+            z[i] = s / lu[diagonal[i]];
+        }
+    }
+}
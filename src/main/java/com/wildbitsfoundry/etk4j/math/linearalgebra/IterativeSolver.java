@@ -0,0 +1,132 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import com.wildbitsfoundry.etk4j.math.optimize.OptimizerStatusType;
+import com.wildbitsfoundry.etk4j.util.DoubleArrays;
+
+/**
+ * Base class of the Krylov subspace solvers for sparse linear systems {@code A * x = b}. The solvers stop when the
+ * relative residual {@code ||b - A * x|| / ||b||} drops below the tolerance, when the iteration limit is reached or
+ * when the iteration breaks down, which is reported as {@link OptimizerStatusType#BREAKDOWN}.
+ */
+public abstract class IterativeSolver {
+    protected final SparseMatrix A;
+    protected final double[] b;
+    protected int maxNumberOfIterations;
+    protected double tol = 1e-10;
+    protected Preconditioner preconditioner = (r, z) -> System.arraycopy(r, 0, z, 0, r.length);
+    protected double[] initialGuess;
+
+    protected IterativeSolver(SparseMatrix A, double[] b) {
+        if (A.getRowCount() != A.getColumnCount()) {
+            throw new NonSquareMatrixException("Matrix must be a square Matrix.");
+        }
+        if (b.length != A.getRowCount()) {
+            throw new IllegalArgumentException("The length of b must be equal to the number of rows of A.");
+        }
+        this.A = A;
+        this.b = b;
+        this.maxNumberOfIterations = Math.max(100, 10 * b.length);
+    }
+
+    /**
+     * Maximum number of iterations.
+     *
+     * @param limit The maximum number of iterations allowed.
+     * @return This solver.
+     */
+    public IterativeSolver iterationLimit(int limit) {
+        maxNumberOfIterations = limit;
+        return this;
+    }
+
+    /**
+     * Relative tolerance.
+     *
+     * @param tol The maximum allowed relative residual.
+     * @return This solver.
+     */
+    public IterativeSolver tolerance(double tol) {
+        this.tol = tol;
+        return this;
+    }
+
+    /**
+     * Preconditioner.
+     *
+     * @param preconditioner The preconditioner. For example {@link JacobiPreconditioner} or
+     *                       {@link ILU0Preconditioner}.
+     * @return This solver.
+     */
+    public IterativeSolver preconditioner(Preconditioner preconditioner) {
+        this.preconditioner = preconditioner;
+        return this;
+    }
+
+    /**
+     * Initial guess.
+     *
+     * @param x0 The initial guess of the solution. Defaults to zero.
+     * @return This solver.
+     */
+    public IterativeSolver initialGuess(double[] x0) {
+        if (x0.length != b.length) {
+            throw new IllegalArgumentException("The length of the initial guess must be equal to the length of b.");
+        }
+        this.initialGuess = x0;
+        return this;
+    }
+
+    /**
+     * Solve the system.
+     *
+     * @return The {@link IterativeSolverResults} containing the solution and the convergence information.
+     */
+    public abstract IterativeSolverResults solve();
+
+    protected double[] startingPoint() {
+        return initialGuess == null ? new double[b.length] : initialGuess.clone();
+    }
+
+    // r = b - A * x
+    protected void residual(double[] x, double[] r) {
+        A.multiply(x, r);
+        for (int i = 0; i < r.length; ++i) {
+            r[i] = b[i] - r[i];
+        }
+    }
+
+    protected IterativeSolverResults results(double[] x, int iterations, boolean converged, String breakdown) {
+        double bnorm = DoubleArrays.norm2(b);
+        double[] r = new double[b.length];
+        residual(x, r);
+        double error = bnorm == 0.0 ? DoubleArrays.norm2(r) : DoubleArrays.norm2(r) / bnorm;
+        IterativeSolverResults results = new IterativeSolverResults();
+        results.setValue(x);
+        results.setNumberOfIterations(iterations);
+        results.setError(error);
+        if (Double.isNaN(error)) {
+            results.setHasConverged(false);
+            results.setSolverStatus("Value found was NaN.");
+            results.setOptimizerStatusType(OptimizerStatusType.VALUE_FOUND_WAS_NAN);
+        } else if (converged) {
+            results.setHasConverged(true);
+            results.setSolverStatus("Converged");
+            results.setOptimizerStatusType(OptimizerStatusType.CONVERGED);
+        } else if (breakdown != null) {
+            results.setHasConverged(false);
+            results.setSolverStatus(breakdown);
+            results.setOptimizerStatusType(OptimizerStatusType.BREAKDOWN);
+        } else {
+            results.setHasConverged(false);
+            results.setSolverStatus("Maximum number of iterations exceeded.");
+            results.setOptimizerStatusType(OptimizerStatusType.MAXIMUM_NUMBER_OF_ITERATIONS_EXCEEDED);
+        }
+        return results;
+    }
+
+    protected static void axpy(double alpha, double[] x, double[] y) {
+        for (int i = 0; i < y.length; ++i) {
+            y[i] += alpha * x[i];
+        }
+    }
+}
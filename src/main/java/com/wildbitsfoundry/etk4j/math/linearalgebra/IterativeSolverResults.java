@@ -0,0 +1,87 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import com.wildbitsfoundry.etk4j.math.optimize.OptimizerStatusType;
+
+import java.util.Arrays;
+
+/**
+ * The {@code IterativeSolverResults} class holds the solution of a linear system found by an {@link IterativeSolver}
+ * along with the convergence information.
+ */
+public class IterativeSolverResults {
+    private double[] value;
+    private int numberOfIterations;
+    private String solverStatus;
+    private double error;
+    private boolean converged;
+    private OptimizerStatusType optimizerStatusType;
+
+    /**
+     * The solution.
+     *
+     * @return The approximate solution {@code x} to {@code A * x = b}.
+     */
+    public double[] getValue() {
+        return value;
+    }
+
+    void setValue(double[] value) {
+        this.value = value;
+    }
+
+    public int getNumberOfIterations() {
+        return numberOfIterations;
+    }
+
+    void setNumberOfIterations(int numberOfIterations) {
+        this.numberOfIterations = numberOfIterations;
+    }
+
+    public String getSolverStatus() {
+        return solverStatus;
+    }
+
+    void setSolverStatus(String solverStatus) {
+        this.solverStatus = solverStatus;
+    }
+
+    public OptimizerStatusType getOptimizerStatusType() {
+        return optimizerStatusType;
+    }
+
+    void setOptimizerStatusType(OptimizerStatusType optimizerStatusType) {
+        this.optimizerStatusType = optimizerStatusType;
+    }
+
+    /**
+     * The relative residual.
+     *
+     * @return {@code ||b - A * x|| / ||b||}.
+     */
+    public double getError() {
+        return error;
+    }
+
+    void setError(double error) {
+        this.error = error;
+    }
+
+    public boolean hasConverged() {
+        return converged;
+    }
+
+    void setHasConverged(boolean converged) {
+        this.converged = converged;
+    }
+
+    @Override
+    public String toString() {
+        return "IterativeSolverResults{" +
+                "value=" + Arrays.toString(value) +
+                ", numberOfIterations=" + numberOfIterations +
+                ", solverStatus='" + solverStatus + '\'' +
+                ", error=" + error +
+                ", converged=" + converged +
+                '}';
+    }
+}
@@ -0,0 +1,31 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+/**
+ * Jacobi (diagonal) preconditioner, {@code M = diag(A)}.
+ */
+public class JacobiPreconditioner implements Preconditioner {
+    private final double[] invDiagonal;
+
+    /**
+     * Constructs a {@code JacobiPreconditioner}.
+     *
+     * @param A The matrix to precondition.
+     * @throws IllegalArgumentException If a diagonal element of the matrix is zero.
+     */
+    public JacobiPreconditioner(SparseMatrix A) {
+        invDiagonal = A.diagonal();
+        for (int i = 0; i < invDiagonal.length; ++i) {
+            if (invDiagonal[i] == 0.0) {
+                throw new IllegalArgumentException(String.format("The diagonal element %d is zero.", i));
+            }
+            invDiagonal[i] = 1.0 / invDiagonal[i];
+        }
+    }
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        for (int i = 0; i < invDiagonal.length; ++i) {
+            z[i] = r[i] * invDiagonal[i];
+        }
+    }
+}
@@ -11,15 +11,134 @@ public class LUDecomposition {
 	protected int[] _pivot;
 
 	public LUDecomposition(Matrix matrix) {
-		final int rows = matrix.getRowCount();
-		final int cols = matrix.getColumnCount();
-		double[] data = matrix.getArrayCopy();
+		this(matrix.getArrayCopy(), matrix.getRowCount(), matrix.getColumnCount());
+	}
+
+	/**
+	 * LU decomposition of a {@link MatrixView}. The elements of the view are gathered directly into the
+	 * working storage of the decomposition.
+	 *
+	 * @param view
+	 *            The view to decompose.
+	 */
+	public LUDecomposition(MatrixView view) {
+		this(view.getArrayCopy(), view.getRowCount(), view.getColumnCount());
+	}
+
+	// Factors the row packed data in place.
+	private LUDecomposition(double[] data, int rows, int cols) {
 
 		_pivot = new int[rows];
 		for (int i = 0; i < rows; i++) {
 			_pivot[i] = i;
 		}
 
+		if (rows == cols && rows >= BLOCKED_THRESHOLD) {
+			factorBlocked(data, rows);
+		} else {
+			factorCrout(data, rows, cols);
+		}
+		_data = data;
+		_rows = rows;
+		_cols = cols;
+	}
+
+	/**
+	 * Square matrices of at least this size are factored with the recursive algorithm. Smaller matrices fit in
+	 * cache and the Crout algorithm is as fast.
+	 */
+	static final int BLOCKED_THRESHOLD = 128;
+	private static final int RECURSION_BASE = 16;
+
+	// Recursive right-looking LU with partial pivoting (Toledo). The columns j0 : j0 + w - 1 are split in two halves:
+	// 1. Factor the left half A(j0:n, j0:j1) recursively, swapping whole rows.
+	// 2. Solve L11 * U12 = A12 for the top of the right half.
+	// 3. Update the bottom of the right half A22 -= L21 * U12, a GEMM that runs on the fork-join pool.
+	// 4. Factor the right half recursively.
+	// Unlike a fixed block size this keeps the inner dimension of the GEMM large, so almost all the flops run at
+	// the speed of the GEMM kernel.
+	private void factorBlocked(double[] data, int n) {
+		factorRecursive(data, n, 0, n);
+	}
+
+	private void factorRecursive(double[] data, int n, int j0, int w) {
+		if (w <= RECURSION_BASE) {
+			factorPanel(data, n, j0, w);
+			return;
+		}
+		final int h = w / 2;
+		final int j1 = j0 + h;
+		factorRecursive(data, n, j0, h);
+		solveUnitLower(data, n, j0, h, j1, w - h);
+		Gemm.gemm(n - j1, w - h, h, -1.0, data, j1 * n + j0, n, data, j0 * n + j1, n, 1.0, data, j1 * n + j1, n);
+		factorRecursive(data, n, j1, w - h);
+	}
+
+	// Unblocked right-looking elimination of the columns j0 : j0 + w - 1.
+	private void factorPanel(double[] data, int n, int j0, int w) {
+		final int je = j0 + w;
+		for (int j = j0; j < je; j++) {
+			int p = j;
+			double max = Math.abs(data[j * n + j]);
+			for (int i = j + 1; i < n; i++) {
+				double v = Math.abs(data[i * n + j]);
+				if (v > max) {
+					max = v;
+					p = i;
+				}
+			}
+			if (p != j) {
+				for (int k = 0; k < n; k++) {
+					double temp = data[p * n + k];
+					data[p * n + k] = data[j * n + k];
+					data[j * n + k] = temp;
+				}
+				int temp = _pivot[p];
+				_pivot[p] = _pivot[j];
+				_pivot[j] = temp;
+				_pivotsign = -_pivotsign;
+			}
+			double pivot = data[j * n + j];
+			if (pivot == 0.0) {
+				continue;
+			}
+			for (int i = j + 1; i < n; i++) {
+				double lij = data[i * n + j] /= pivot;
+				if (lij != 0.0) {
+					for (int k = j + 1; k < je; k++) {
+						data[i * n + k] -= lij * data[j * n + k];
+					}
+				}
+			}
+		}
+	}
+
+	// B = L \ B where L is the unit lower triangular block of size h at (r0, r0) and B is the h x w block at
+	// (r0, c0). Recursive so that most of the work is done by the GEMM.
+	private static void solveUnitLower(double[] data, int n, int r0, int h, int c0, int w) {
+		if (h <= RECURSION_BASE) {
+			final int re = r0 + h;
+			for (int j = r0; j < re; j++) {
+				for (int i = j + 1; i < re; i++) {
+					double lij = data[i * n + j];
+					if (lij != 0.0) {
+						for (int k = c0; k < c0 + w; k++) {
+							data[i * n + k] -= lij * data[j * n + k];
+						}
+					}
+				}
+			}
+			return;
+		}
+		final int h1 = h / 2;
+		final int r1 = r0 + h1;
+		solveUnitLower(data, n, r0, h1, c0, w);
+		Gemm.gemm(h - h1, w, h1, -1.0, data, r1 * n + r0, n, data, r0 * n + c0, n, 1.0, data, r1 * n + c0, n);
+		solveUnitLower(data, n, r1, h - h1, c0, w);
+	}
+
+	// JAMA's Crout algorithm with row dot products.
+	private void factorCrout(double[] data, int rows, int cols) {
 		double[] LUcol = new double[rows];
 
 		// Begin the outer loop
@@ -64,9 +183,6 @@ public class LUDecomposition {
 				}
 			}
 		}
-		_data = data;
-		_rows = rows;
-		_cols = cols;
 	}
 
 	public boolean isNonSingular() {
@@ -209,6 +325,119 @@ public class LUDecomposition {
 		return Xmat;
 	}
 
+	/**
+	 * Solve A*x = b into a preallocated array. No memory is allocated.
+	 * 
+	 * @param b
+	 *            The right hand side. Its length must be equal to the number of rows of A.
+	 * @param x
+	 *            The array where the solution is stored. It cannot be the same array as {@code b}.
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is singular.
+	 */
+	public void solve(double[] b, double[] x) {
+		if (b.length != _rows || x.length != _cols || _rows != _cols) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		if (b == x) {
+			throw new IllegalArgumentException("The solution array cannot be the same as the right hand side.");
+		}
+		if (!this.isNonSingular()) {
+			throw new RuntimeException("Matrix is singular.");
+		}
+		for (int i = 0; i < _rows; ++i) {
+			x[i] = b[_pivot[i]];
+		}
+		substitute(x, 0, 1);
+	}
+
+	/**
+	 * Solve A*X = B into a preallocated Matrix. No memory is allocated.
+	 * 
+	 * @param B
+	 *            A Matrix with as many rows as A and any number of columns.
+	 * @param X
+	 *            The Matrix where the solution is stored. It must have the same size as B and it cannot share
+	 *            storage with B.
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is singular.
+	 */
+	public void solve(Matrix B, Matrix X) {
+		if (B.getRowCount() != _rows || _rows != _cols) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		final int nx = B.getColumnCount();
+		Matrix.checkOutputDimensions(X, _rows, nx);
+		double[] b = B.getArray();
+		double[] x = X.getArray();
+		if (b == x) {
+			throw new IllegalArgumentException("The solution Matrix cannot share storage with the right hand side.");
+		}
+		if (!this.isNonSingular()) {
+			throw new RuntimeException("Matrix is singular.");
+		}
+		for (int i = 0; i < _rows; ++i) {
+			System.arraycopy(b, _pivot[i] * nx, x, i * nx, nx);
+		}
+		for (int j = 0; j < nx; ++j) {
+			substitute(x, j, nx);
+		}
+	}
+
+	// Forward and back substitution on the column of X starting at offset with the given stride. The operations
+	// are done in the same order as in solve(Matrix) so both produce the same results.
+	private void substitute(double[] X, int offset, int stride) {
+		final int cols = _cols;
+		for (int k = 0; k < cols; ++k) {
+			double xk = X[offset + k * stride];
+			for (int i = k + 1; i < cols; ++i) {
+				X[offset + i * stride] -= xk * _data[i * cols + k];
+			}
+		}
+		for (int k = cols - 1; k >= 0; --k) {
+			X[offset + k * stride] /= _data[k * cols + k];
+			double xk = X[offset + k * stride];
+			for (int i = 0; i < k; ++i) {
+				X[offset + i * stride] -= xk * _data[i * cols + k];
+			}
+		}
+	}
+
+	/**
+	 * Solve A'*x = b into a preallocated array. It is used to estimate the reciprocal condition number.
+	 * 
+	 * @param b
+	 *            The right hand side.
+	 * @param x
+	 *            The array where the solution is stored.
+	 */
+	void transposeSolve(double[] b, double[] x) {
+		final int n = _cols;
+		// A' = U' * L' * P so solve U' * v = b, L' * v = v and x = P' * v.
+		double[] v = new double[n];
+		for (int i = 0; i < n; ++i) {
+			double s = b[i];
+			for (int k = 0; k < i; ++k) {
+				s -= _data[k * n + i] * v[k];
+			}
+			v[i] = s / _data[i * n + i];
+		}
+		for (int i = n - 1; i >= 0; --i) {
+			double s = v[i];
+			for (int k = i + 1; k < n; ++k) {
+				s -= _data[k * n + i] * v[k];
+			}
+			v[i] = s;
+		}
+		for (int i = 0; i < n; ++i) {
+			x[_pivot[i]] = v[i];
+		}
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
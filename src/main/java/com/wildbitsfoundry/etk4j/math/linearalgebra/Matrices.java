@@ -84,4 +84,62 @@ public final class Matrices {
         }
         return new Matrix(X, m, nx);
     }
+
+    /**
+     * General matrix multiply, {@code C = alpha * A * B + beta * C}, computed in place without allocating a result.
+     * Large products are computed with a cache blocked kernel and split across the common fork-join pool. The packing
+     * buffers of the blocked kernel are kept per thread, so repeated calls do not allocate except for the fork-join
+     * tasks of the products that are split.
+     * @param alpha The scalar multiplying {@code A * B}.
+     * @param A The left {@code Matrix}.
+     * @param B The right {@code Matrix}.
+     * @param beta The scalar multiplying {@code C}. If it is equal to zero, the previous contents of {@code C} are
+     *             ignored.
+     * @param C The {@code Matrix} where the result is stored. It must have as many rows as {@code A} and as many
+     *          columns as {@code B}, and it cannot share storage with {@code A} or {@code B}.
+     */
+    public static void gemm(double alpha, Matrix A, Matrix B, double beta, Matrix C) {
+        final int m = A.getRowCount();
+        final int k = A.getColumnCount();
+        final int n = B.getColumnCount();
+        if (B.getRowCount() != k) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree. Check that the number of" +
+                    "columns of the first matrix equal the number of rows of the second matrix.");
+        }
+        Matrix.checkOutputDimensions(C, m, n);
+        double[] c = C.getArray();
+        if (c == A.getArray() || c == B.getArray()) {
+            throw new IllegalArgumentException("The output Matrix cannot share storage with the operands.");
+        }
+        Gemm.gemm(m, n, k, alpha, A.getArray(), 0, k, B.getArray(), 0, n, beta, c, 0, n);
+    }
+
+    /**
+     * General matrix multiply on views, {@code C = alpha * A * B + beta * C}. Transposed and sliced views are read
+     * in place through their strides, so no copy of {@code A} or {@code B} is made. Allocation is the same as in
+     * {@link #gemm(double, Matrix, Matrix, double, Matrix)}.
+     * @param alpha The scalar multiplying {@code A * B}.
+     * @param A The left view.
+     * @param B The right view.
+     * @param beta The scalar multiplying {@code C}. If it is equal to zero, the previous contents of {@code C} are
+     *             ignored.
+     * @param C The {@code Matrix} where the result is stored. It must have as many rows as {@code A} and as many
+     *          columns as {@code B}, and it cannot share storage with {@code A} or {@code B}.
+     */
+    public static void gemm(double alpha, MatrixView A, MatrixView B, double beta, Matrix C) {
+        final int m = A.getRowCount();
+        final int k = A.getColumnCount();
+        final int n = B.getColumnCount();
+        if (B.getRowCount() != k) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree. Check that the number of" +
+                    "columns of the first matrix equal the number of rows of the second matrix.");
+        }
+        Matrix.checkOutputDimensions(C, m, n);
+        double[] c = C.getArray();
+        if (c == A.getData() || c == B.getData()) {
+            throw new IllegalArgumentException("The output Matrix cannot share storage with the operands.");
+        }
+        Gemm.gemm(m, n, k, alpha, A.getData(), A.getOffset(), A.getRowStride(), A.getColumnStride(),
+                B.getData(), B.getOffset(), B.getRowStride(), B.getColumnStride(), beta, c, 0, n);
+    }
 }
@@ -7,7 +7,6 @@ import com.wildbitsfoundry.etk4j.constants.ConstantsETK;
 import com.wildbitsfoundry.etk4j.math.MathETK;
 import com.wildbitsfoundry.etk4j.math.complex.Complex;
 import com.wildbitsfoundry.etk4j.math.polynomials.Polynomial;
-import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 import com.wildbitsfoundry.etk4j.util.DoubleArrays;
 
 import static com.wildbitsfoundry.etk4j.math.MathETK.frexp;
@@ -169,6 +168,32 @@ public class Matrix {
         return new Matrix(data, rowDim, colDim);
     }
 
+    /**
+     * View of the whole {@code Matrix}. No data is copied and element changes made through the {@code Matrix} or the
+     * view are visible in both. Operations that replace the storage of the {@code Matrix}, such as
+     * {@link #appendRows(int)} or {@link #multiplyEquals(Matrix)} by a non square {@code Matrix}, detach the existing
+     * views, which keep the old data.
+     *
+     * @return A {@link MatrixView} of {@code A(:, :)}.
+     */
+    public MatrixView view() {
+        return new MatrixView(data, 0, rows, cols, cols, 1);
+    }
+
+    /***
+     * Get sub-matrix view. Unlike {@link #subMatrix(int, int, int, int)} no data is copied. The view is detached by the
+     * same operations as {@link #view()}.
+     *
+     * @param row0 The initial row index.
+     * @param row1 The final row index.
+     * @param col0 The initial column index.
+     * @param col1 The final column index.
+     * @return A {@link MatrixView} of {@code A(row0 : row1, col0 : col1)}.
+     */
+    public MatrixView view(int row0, int row1, int col0, int col1) {
+        return view().subView(row0, row1, col0, col1);
+    }
+
     /***
      * Get sub-matrix
      *
@@ -413,7 +438,7 @@ public class Matrix {
      * @return The effective numerical rank, obtained from SVD.
      */
     public int rank() {
-        return new SingularValueDecomposition(this).rank();
+        return new SingularValueDecomposition(this, false).rank();
     }
 
     /**
@@ -423,7 +448,7 @@ public class Matrix {
      */
 
     public double cond() {
-        return new SingularValueDecomposition(this).cond();
+        return new SingularValueDecomposition(this, false).cond();
     }
 
     /**
@@ -545,6 +570,29 @@ public class Matrix {
     public SingularValueDecomposition SVD() {
         return new SingularValueDecomposition(this);
     }
+
+    /**
+     * Truncated Singular Value Decomposition of the {@code Matrix}. Only the {@code k} largest singular values and
+     * their singular vectors are approximated, by a randomized range finder. This is much cheaper than {@link #SVD()}
+     * for rank estimation and low rank approximations of large matrices.
+     *
+     * @param k The number of singular triplets to compute.
+     * @return The {@link TruncatedSingularValueDecomposition} of the {@code Matrix}.
+     */
+    public TruncatedSingularValueDecomposition SVD(int k) {
+        return new TruncatedSingularValueDecomposition(this, k);
+    }
+
+    /**
+     * Reusable factorization of the {@code Matrix}. Use it instead of {@link #solve(Matrix)}, {@link #inv()} or
+     * {@link #det()} when the same {@code Matrix} is used more than once, for example when solving against many right
+     * hand sides that arrive over time, since those methods factor the {@code Matrix} on every call.
+     *
+     * @return The {@link MatrixFactorization} of the {@code Matrix}.
+     */
+    public MatrixFactorization factorize() {
+        return new MatrixFactorization(this);
+    }
     // endregion
 
     /***
@@ -608,6 +656,25 @@ public class Matrix {
         return new Matrix(result, trows, tcols);
     }
 
+    /**
+     * {@code Matrix} transpose into a preallocated {@code Matrix}.
+     *
+     * @param out The {@code Matrix} where {@code A<sup>T</sup>} is stored. It must have as many rows as {@code A}
+     *            has columns and as many columns as {@code A} has rows, and it cannot be {@code A} itself.
+     */
+    public void transpose(Matrix out) {
+        checkOutputDimensions(out, cols, rows);
+        if (out.data == data) {
+            throw new IllegalArgumentException("The output Matrix cannot share storage with the Matrix being transposed.");
+        }
+        double[] result = out.data;
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < cols; ++j) {
+                result[j * rows + i] = data[i * cols + j];
+            }
+        }
+    }
+
     // region norms
 
     /***
@@ -634,7 +701,7 @@ public class Matrix {
      */
 
     public double norm2() {
-        return new SingularValueDecomposition(this).norm2();
+        return new SingularValueDecomposition(this, false).norm2();
     }
 
     /***
@@ -686,6 +753,19 @@ public class Matrix {
         return new Matrix(x, m, n);
     }
 
+    /**
+     * Unary minus into a preallocated {@code Matrix}.
+     *
+     * @param out The {@code Matrix} where {@code -A} is stored.
+     */
+    public void uminus(Matrix out) {
+        checkOutputDimensions(out, rows, cols);
+        final int length = rows * cols;
+        for (int i = 0; i < length; ++i) {
+            out.data[i] = -data[i];
+        }
+    }
+
     // region arithmetic operations
 
     /**
@@ -714,6 +794,36 @@ public class Matrix {
         }
     }
 
+    /**
+     * Matrix addition into a preallocated {@code Matrix}. This is equivalent to {@code out = A + B}.
+     * @param B The {@code Matrix} to add.
+     * @param out The {@code Matrix} where the result is stored. It can be {@code A} or {@code B}.
+     */
+    public void add(Matrix B, Matrix out) {
+        checkMatrixDimensions(B);
+        checkOutputDimensions(out, rows, cols);
+        final int length = rows * cols;
+        for (int i = 0; i < length; ++i) {
+            out.data[i] = data[i] + B.data[i];
+        }
+    }
+
+    /**
+     * Scaled matrix addition into a preallocated {@code Matrix}. This is equivalent to
+     * {@code out = A + alpha * B}.
+     * @param alpha The scalar multiplying {@code B}.
+     * @param B The {@code Matrix} to scale and add.
+     * @param out The {@code Matrix} where the result is stored. It can be {@code A} or {@code B}.
+     */
+    public void addScaled(double alpha, Matrix B, Matrix out) {
+        checkMatrixDimensions(B);
+        checkOutputDimensions(out, rows, cols);
+        final int length = rows * cols;
+        for (int i = 0; i < length; ++i) {
+            out.data[i] = data[i] + alpha * B.data[i];
+        }
+    }
+
     /**
      * Matrix subtraction.
      * @param M The {@code Matrix} to subtract.
@@ -740,6 +850,20 @@ public class Matrix {
         }
     }
 
+    /**
+     * Matrix subtraction into a preallocated {@code Matrix}. This is equivalent to {@code out = A - B}.
+     * @param B The {@code Matrix} to subtract.
+     * @param out The {@code Matrix} where the result is stored. It can be {@code A} or {@code B}.
+     */
+    public void subtract(Matrix B, Matrix out) {
+        checkMatrixDimensions(B);
+        checkOutputDimensions(out, rows, cols);
+        final int length = rows * cols;
+        for (int i = 0; i < length; ++i) {
+            out.data[i] = data[i] - B.data[i];
+        }
+    }
+
     /**
      * Element-by-element multiplication, C = A.*B
      *
@@ -762,6 +886,21 @@ public class Matrix {
         DoubleArrays.multiplyElementWiseInPlace(data, B.data);
     }
 
+    /**
+     * Element-by-element multiplication into a preallocated {@code Matrix}, out = A.*B
+     *
+     * @param B another matrix
+     * @param out The {@code Matrix} where the result is stored. It can be {@code A} or {@code B}.
+     */
+    public void arrayMultiply(Matrix B, Matrix out) {
+        checkMatrixDimensions(B);
+        checkOutputDimensions(out, rows, cols);
+        final int length = rows * cols;
+        for (int i = 0; i < length; ++i) {
+            out.data[i] = data[i] * B.data[i];
+        }
+    }
+
     /**
      * Element-by-element right division, C = A./B
      *
@@ -783,6 +922,21 @@ public class Matrix {
         DoubleArrays.divideElementWiseInPlace(data, B.data);
     }
 
+    /**
+     * Element-by-element right division into a preallocated {@code Matrix}, out = A./B
+     *
+     * @param B another matrix
+     * @param out The {@code Matrix} where the result is stored. It can be {@code A} or {@code B}.
+     */
+    public void arrayRightDivide(Matrix B, Matrix out) {
+        checkMatrixDimensions(B);
+        checkOutputDimensions(out, rows, cols);
+        final int length = rows * cols;
+        for (int i = 0; i < length; ++i) {
+            out.data[i] = data[i] / B.data[i];
+        }
+    }
+
     /**
      * Element-by-element left division, C = A.\B
      *
@@ -837,7 +991,12 @@ public class Matrix {
      * @return s*A
      */
     public ComplexMatrix multiply(Complex s) {
-        return new ComplexMatrix(ComplexArrays.multiplyElementWise(data, s), rows, cols);
+        double[] result = new double[2 * data.length];
+        for (int i = 0; i < data.length; ++i) {
+            result[2 * i] = s.real() * data[i];
+            result[2 * i + 1] = s.imag() * data[i];
+        }
+        return new ComplexMatrix(result, rows, cols);
     }
 
     /**
@@ -850,7 +1009,22 @@ public class Matrix {
     }
 
     /**
-     * Matrix multiplication.
+     * Multiply a matrix by a scalar into a preallocated {@code Matrix}, out = s*A
+     *
+     * @param s scalar
+     * @param out The {@code Matrix} where the result is stored. It can be {@code A}.
+     */
+    public void multiply(double s, Matrix out) {
+        checkOutputDimensions(out, rows, cols);
+        final int length = rows * cols;
+        for (int i = 0; i < length; ++i) {
+            out.data[i] = s * data[i];
+        }
+    }
+
+    /**
+     * Matrix multiplication. Large products are computed with a cache blocked kernel and split across the
+     * common fork-join pool.
      * @param B The matrix to multiply.
      * @return {@code A * B}
      */
@@ -861,11 +1035,34 @@ public class Matrix {
     }
 
     /**
-     * Matrix multiplication in place. This is equivalent to {@code A *= B}
+     * Matrix multiplication in place. This is equivalent to {@code A *= B}. When {@code B} is square the product is
+     * computed in a scratch buffer of the calling thread and copied back, so the storage and the views of {@code A}
+     * are kept. Otherwise the shape of {@code A} changes, the result is stored in a new array and the views of
+     * {@code A} are detached.
      * @param B The {@code Matrix} to multiply.
      */
     public void multiplyEquals(Matrix B) {
-        multiplyOp(this, B, this);
+        if (B.rows != cols || B.cols != cols) {
+            multiplyOp(this, B, this);
+            return;
+        }
+        final int length = rows * cols;
+        double[] result = Gemm.scratch(length);
+        Gemm.gemm(rows, cols, cols, 1.0, data, 0, cols, B.data, 0, cols, 0.0, result, 0, cols);
+        System.arraycopy(result, 0, data, 0, length);
+    }
+
+    /**
+     * Matrix multiplication into a preallocated {@code Matrix}. This is equivalent to {@code out = A * B}. No result
+     * is allocated and the packing buffers of the blocked kernel are reused across calls; only products large enough
+     * to be split across the fork-join pool allocate the tasks that do so.
+     * @param B The {@code Matrix} to multiply.
+     * @param out The {@code Matrix} where the result is stored. It must have as many rows as {@code A} and as many
+     *            columns as {@code B}, and it cannot share storage with {@code A} or {@code B}.
+     * @see Matrices#gemm(double, Matrix, Matrix, double, Matrix)
+     */
+    public void multiply(Matrix B, Matrix out) {
+        Matrices.gemm(1.0, this, B, 0.0, out);
     }
 
     private static void multiplyOp(Matrix a, Matrix b, Matrix c) {
@@ -873,20 +1070,9 @@ public class Matrix {
             throw new IllegalArgumentException("Matrix inner dimensions must agree. Check that the number of" +
                     "columns of the first matrix equal the number of rows of the second matrix.");
         }
+        // A new array is required when A *= B changes the shape of A since the result cannot overwrite its operands.
         double[] result = new double[a.rows * b.cols];
-        double[] bColJ = new double[a.cols];
-        for (int j = 0; j < b.cols; j++) {
-            for (int k = 0; k < a.cols; k++) {
-                bColJ[k] = b.data[k * b.cols + j];
-            }
-            for (int i = 0; i < a.rows; i++) {
-                double s = 0;
-                for (int k = 0; k < a.cols; k++) {
-                    s += a.data[k + i * a.cols] * bColJ[k];
-                }
-                result[i * b.cols + j] = s;
-            }
-        }
+        Gemm.gemm(a.rows, b.cols, a.cols, 1.0, a.data, 0, a.cols, b.data, 0, b.cols, 0.0, result, 0, b.cols);
         c.data = result;
         c.rows = a.rows;
         c.cols = b.cols;
@@ -904,21 +1090,10 @@ public class Matrix {
             throw new IllegalArgumentException("Matrix inner dimensions must agree. Check that the number of" +
                     "columns of the first matrix equal the number of rows of the second matrix.");
         }
-        Complex[] result = new Complex[rows * bCols];
-        Complex[] bColJ = new Complex[cols];
-        Complex[] bData = matrix.getArray();
-        for (int j = 0; j < bCols; j++) {
-            for (int k = 0; k < cols; k++) {
-                bColJ[k] = bData[k * bCols + j];
-            }
-            for (int i = 0; i < rows; i++) {
-                Complex s = new Complex();
-                for (int k = 0; k < cols; k++) {
-                    s.addEquals(bColJ[k].multiply(data[k + i * cols]));
-                }
-                result[i * bCols + j] = s;
-            }
-        }
+        // The interleaved storage of B is a real bRows x (2 * bCols) matrix, so A * B is a single real product.
+        double[] result = new double[2 * rows * bCols];
+        Gemm.gemm(rows, 2 * bCols, cols, 1.0, data, 0, cols, matrix.getInterleavedArray(), 0, 2 * bCols, 0.0,
+                result, 0, 2 * bCols);
         return new ComplexMatrix(result, rows, bCols);
     }
 
@@ -929,9 +1104,13 @@ public class Matrix {
      * <pre>
      *     LU Decomposition if the matrix is squared.
      *     QR if the matrix is thin in other words it has more rows than columns. (Overdetermined system)
+     *     Tall and skinny QR if the matrix has many more rows than columns, see {@link TallSkinnyQR}.
      *     Transpose QR if the matrix is short and wide in other words it has more columns than rows. (Under-determined system)
      * </pre>
      *
+     * The {@code Matrix} is factored on every call, see {@link #factorize()} to solve repeatedly with the same
+     * {@code Matrix}.
+     *
      * @param b The solution {@Matrix}.
      * @return The solution to {@code Ax = b}
      */
@@ -939,6 +1118,8 @@ public class Matrix {
 
         if (rows == cols) { // Matrix is Squared
             return new LUDecomposition(this).solve(b);
+        } else if (TallSkinnyQR.isTallSkinny(rows, cols)) { // Matrix is very thin, e.g. a large regression
+            return TallSkinnyQR.solve(this, b);
         } else if (rows > cols) { // Matrix is thin (Overdetermined system)
             return new QRDecomposition(this).solve(b);
         } else { // Matrix is short and wide (Under-determined system)
@@ -959,6 +1140,12 @@ public class Matrix {
         return transpose().solve(B.transpose());
     }
 
+    /**
+     * Append rows of zeros at the bottom of the {@code Matrix}. The data is copied into a new array, so the views of
+     * the {@code Matrix} are detached.
+     *
+     * @param count The number of rows to append.
+     */
     public void appendRows(int count) {
         rows += count;
         final int newSize = rows * cols;
@@ -1044,6 +1231,28 @@ public class Matrix {
         return new EigenvalueDecomposition(this, balance);
     }
 
+    /**
+     * Eigenvalue decomposition of a symmetric {@code Matrix}. Only the lower triangle is referenced. See
+     * {@link SymmetricEigenvalueDecomposition#indexRange(Matrix, int, int, boolean)} to compute only some of the
+     * eigenvalues and eigenvectors.
+     *
+     * @return The {@link SymmetricEigenvalueDecomposition} of the {@code Matrix}.
+     */
+    public SymmetricEigenvalueDecomposition eigSymmetric() {
+        return new SymmetricEigenvalueDecomposition(this);
+    }
+
+    /**
+     * Eigenvalues of the {@code Matrix}. The eigenvectors are not computed, which is considerably cheaper than
+     * {@link #eig()} when only the eigenvalues are needed.
+     *
+     * @return The eigenvalues of the {@code Matrix}.
+     * @see EigenvalueDecomposition#eigenvalues(Matrix)
+     */
+    public Complex[] eigenvalues() {
+        return EigenvalueDecomposition.eigenvalues(this);
+    }
+
     /**
      * Balances the matrix using the algorithm by Parlett and Reinsch with norm -1.
      * References:
@@ -1325,6 +1534,15 @@ public class Matrix {
         }
     }
 
+    /**
+     * Check if size(out) == [rows, cols]
+     **/
+    static void checkOutputDimensions(Matrix out, int rows, int cols) {
+        if (out.rows != rows || out.cols != cols) {
+            throw new IllegalArgumentException(String.format("The output Matrix must be %d by %d.", rows, cols));
+        }
+    }
+
     /**
      * Set a row to a predefined set of values.
      *
@@ -1626,9 +1844,7 @@ public class Matrix {
      * @return The Characteristic polynomial of the Matrix.
      */
     public double[] poly() {
-        EigenvalueDecomposition eig = this.eig();
-        Complex[] roots = ComplexArrays.zip(eig.getRealEigenvalues(), eig.getImagEigenvalues());
-        return new Polynomial(roots).getCoefficients();
+        return new Polynomial(this.eigenvalues()).getCoefficients();
     }
 
 }
@@ -0,0 +1,258 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import java.util.Arrays;
+
+/**
+ * The {@code MatrixFactorization} class is a reusable handle to the factorization of a {@link Matrix}. The matrix
+ * is factored once when the handle is created and every subsequent call to {@code solve} only costs the forward and
+ * back substitutions. The determinant, the reciprocal condition number estimate and the inverse are computed from
+ * the same factorization the first time they are requested and are cached afterwards.
+ * <br>
+ * Square matrices are factored with an {@link LUDecomposition}. Rectangular matrices are factored with a
+ * {@link QRDecomposition} and are solved in the least squares sense, the same way {@link Matrix#solve(Matrix)} does.
+ * <br>
+ * The factorization is a snapshot: later changes to the {@code Matrix} are not reflected by the handle.
+ */
+public class MatrixFactorization {
+    private final int rows;
+    private final int cols;
+    private final double norm1;
+    private final LUDecomposition lu;
+    private final QRDecomposition qr;
+
+    private Double det;
+    private Double rcond;
+    private Matrix inverse;
+
+    /**
+     * Factors a {@code Matrix}.
+     *
+     * @param A The {@code Matrix} to factor.
+     */
+    public MatrixFactorization(Matrix A) {
+        rows = A.getRowCount();
+        cols = A.getColumnCount();
+        if (rows == cols) {
+            norm1 = A.norm1();
+            lu = new LUDecomposition(A);
+            qr = null;
+        } else {
+            norm1 = Double.NaN;
+            lu = null;
+            qr = rows > cols ? new QRDecomposition(A) : new QRDecomposition(A.transpose());
+        }
+    }
+
+    /**
+     * Number of rows of the factored {@code Matrix}.
+     *
+     * @return The number of rows.
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Number of columns of the factored {@code Matrix}.
+     *
+     * @return The number of columns.
+     */
+    public int getColumnCount() {
+        return cols;
+    }
+
+    /**
+     * Is the factored {@code Matrix} square.
+     *
+     * @return {@code true} if the matrix was factored with an {@link LUDecomposition}.
+     */
+    public boolean isSquared() {
+        return lu != null;
+    }
+
+    /**
+     * The LU decomposition of a square {@code Matrix}.
+     *
+     * @return The {@link LUDecomposition} used by this handle.
+     * @throws NonSquareMatrixException If the factored {@code Matrix} is not square.
+     */
+    public LUDecomposition getLU() {
+        checkSquare();
+        return lu;
+    }
+
+    /**
+     * Solve {@code A * X = B}. The result is the same as {@link Matrix#solve(Matrix)} without refactoring
+     * {@code A}.
+     *
+     * @param B The right hand side.
+     * @return The solution to {@code A * X = B}.
+     */
+    public Matrix solve(Matrix B) {
+        if (lu != null) {
+            return lu.solve(B);
+        } else if (rows > cols) {
+            return qr.solve(B);
+        } else {
+            Matrix R1 = Matrices.forwardSubstitutionSolve(qr.getRT(), B);
+            R1.appendRows(cols - R1.getRowCount());
+            return qr.QmultiplyX(R1);
+        }
+    }
+
+    /**
+     * Solve {@code A * X = B} into a preallocated {@code Matrix}. No memory is allocated if {@code A} is square.
+     *
+     * @param B   The right hand side.
+     * @param out The {@code Matrix} where the solution is stored. It must have as many rows as {@code A} has
+     *            columns and as many columns as {@code B}, and it cannot share storage with {@code B}.
+     */
+    public void solve(Matrix B, Matrix out) {
+        if (lu != null) {
+            lu.solve(B, out);
+        } else {
+            Matrix.checkOutputDimensions(out, cols, B.getColumnCount());
+            Matrix X = solve(B);
+            System.arraycopy(X.getArray(), 0, out.getArray(), 0, X.getArray().length);
+        }
+    }
+
+    /**
+     * Solve {@code A * x = b} into a preallocated array. No memory is allocated if {@code A} is square.
+     *
+     * @param b   The right hand side. Its length must be equal to the number of rows.
+     * @param out The array where the solution is stored. Its length must be equal to the number of columns and it
+     *            cannot be the same array as {@code b}.
+     */
+    public void solve(double[] b, double[] out) {
+        if (lu != null) {
+            lu.solve(b, out);
+        } else {
+            if (b.length != rows || out.length != cols) {
+                throw new IllegalArgumentException("Matrix row dimensions must agree.");
+            }
+            double[] x = solve(new Matrix(b, rows, 1)).getArray();
+            System.arraycopy(x, 0, out, 0, cols);
+        }
+    }
+
+    /**
+     * Solve {@code A * x = b}.
+     *
+     * @param b The right hand side.
+     * @return The solution to {@code A * x = b}.
+     */
+    public double[] solve(double[] b) {
+        double[] x = new double[cols];
+        solve(b, x);
+        return x;
+    }
+
+    /**
+     * Determinant of the factored {@code Matrix}. It is computed the first time it is requested.
+     *
+     * @return {@code det(A)}.
+     * @throws NonSquareMatrixException If the factored {@code Matrix} is not square.
+     */
+    public synchronized double det() {
+        checkSquare();
+        if (det == null) {
+            det = lu.det();
+        }
+        return det;
+    }
+
+    /**
+     * Estimate of the reciprocal condition number in the 1-norm, {@code 1 / (||A||<sub>1</sub> *
+     * ||A<sup>-1</sup>||<sub>1</sub>)}. {@code ||A<sup>-1</sup>||<sub>1</sub>} is estimated with Hager's method as
+     * refined by Higham, which only needs a few solves with {@code A} and {@code A'}, so the estimate costs
+     * {@code O(n<sup>2</sup>)} instead of the {@code O(n<sup>3</sup>)} of the singular values used by
+     * {@link Matrix#cond()}. The value is computed the first time it is requested.
+     *
+     * @return An estimate of the reciprocal condition number. Zero if the matrix is singular.
+     * @throws NonSquareMatrixException If the factored {@code Matrix} is not square.
+     * @see <a href="https://doi.org/10.1145/50063.214386">Higham, FORTRAN codes for estimating the one-norm of a
+     * real or complex matrix</a>
+     */
+    public synchronized double rcond() {
+        checkSquare();
+        if (rcond == null) {
+            if (!lu.isNonSingular()) {
+                rcond = 0.0;
+            } else if (norm1 == 0.0) {
+                rcond = 0.0;
+            } else {
+                rcond = 1.0 / (norm1 * inverseNorm1Estimate());
+            }
+        }
+        return rcond;
+    }
+
+    private double inverseNorm1Estimate() {
+        final int n = rows;
+        if (n == 0) {
+            return 0.0;
+        }
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] xi = new double[n];
+        double[] z = new double[n];
+        Arrays.fill(x, 1.0 / n);
+        double estimate = 0.0;
+        int previous = -1;
+        for (int iteration = 0; iteration < 5; ++iteration) {
+            lu.solve(x, y);
+            estimate = 0.0;
+            for (int i = 0; i < n; ++i) {
+                estimate += Math.abs(y[i]);
+                xi[i] = y[i] >= 0.0 ? 1.0 : -1.0;
+            }
+            lu.transposeSolve(xi, z);
+            int j = 0;
+            double zx = 0.0;
+            for (int i = 0; i < n; ++i) {
+                if (Math.abs(z[i]) > Math.abs(z[j])) {
+                    j = i;
+                }
+                zx += z[i] * x[i];
+            }
+            if (Math.abs(z[j]) <= zx || j == previous) {
+                break;
+            }
+            previous = j;
+            Arrays.fill(x, 0.0);
+            x[j] = 1.0;
+        }
+        // Higham's alternative estimate guards against the cases where the gradient iteration stalls.
+        for (int i = 0; i < n; ++i) {
+            x[i] = (i % 2 == 0 ? 1.0 : -1.0) * (1.0 + (n > 1 ? (double) i / (n - 1) : 0.0));
+        }
+        lu.solve(x, y);
+        double alternative = 0.0;
+        for (int i = 0; i < n; ++i) {
+            alternative += Math.abs(y[i]);
+        }
+        alternative = 2.0 * alternative / (3.0 * n);
+        return Math.max(estimate, alternative);
+    }
+
+    /**
+     * Inverse of the factored {@code Matrix}. For rectangular matrices this is the least squares solution of
+     * {@code A * X = I}, as in {@link Matrix#inv()}. The inverse is computed the first time it is requested and a
+     * copy of the cached value is returned.
+     *
+     * @return {@code A<sup>-1</sup>}.
+     */
+    public synchronized Matrix inverse() {
+        if (inverse == null) {
+            inverse = solve(Matrix.identity(rows));
+        }
+        return inverse.copy();
+    }
+
+    private void checkSquare() {
+        if (lu == null) {
+            throw new NonSquareMatrixException("Matrix must be a square Matrix.");
+        }
+    }
+}
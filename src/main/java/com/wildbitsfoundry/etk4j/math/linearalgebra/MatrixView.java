@@ -0,0 +1,334 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import com.wildbitsfoundry.etk4j.math.MathETK;
+
+/**
+ * The {@code MatrixView} class provides a strided window into the storage of a {@link Matrix}. Element
+ * {@code (i, j)} of the view maps to {@code data[offset + i * rowStride + j * colStride]} of the backing array, so
+ * slicing ({@link #subView(int, int, int, int)}, {@link #row(int)}, {@link #col(int)}) and transposition
+ * ({@link #transpose()}) only create new metadata and never copy the elements.
+ * <br>
+ * Views share storage with the {@code Matrix} they were created from. Changes to the {@code Matrix} are visible
+ * through the view and {@link #set(int, int, double)} writes through to the {@code Matrix}.
+ */
+public class MatrixView {
+    private final double[] data;
+    private final int offset;
+    private final int rows;
+    private final int cols;
+    private final int rowStride;
+    private final int colStride;
+
+    MatrixView(double[] data, int offset, int rows, int cols, int rowStride, int colStride) {
+        this.data = data;
+        this.offset = offset;
+        this.rows = rows;
+        this.cols = cols;
+        this.rowStride = rowStride;
+        this.colStride = colStride;
+    }
+
+    /**
+     * Number of rows.
+     *
+     * @return The number of rows of the {@code MatrixView}.
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Number of columns.
+     *
+     * @return The number of columns of the {@code MatrixView}.
+     */
+    public int getColumnCount() {
+        return cols;
+    }
+
+    /**
+     * Retrieve value from the {@code MatrixView} at a given position.
+     *
+     * @param i The row index.
+     * @param j The column index.
+     * @return The value at {@code V(i, j)}.
+     */
+    public double get(int i, int j) {
+        checkIndices(i, j);
+        return data[offset + i * rowStride + j * colStride];
+    }
+
+    /**
+     * Set the value of the {@code MatrixView} at a given position. The change is written through to the backing
+     * {@code Matrix}.
+     *
+     * @param i   The row index.
+     * @param j   The column index.
+     * @param val The value used to set {@code V(i, j) = val}.
+     */
+    public void set(int i, int j, double val) {
+        checkIndices(i, j);
+        data[offset + i * rowStride + j * colStride] = val;
+    }
+
+    private void checkIndices(int i, int j) {
+        if (i < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index i cannot be less thant zero.");
+        }
+        if (i >= rows) {
+            throw new ArrayIndexOutOfBoundsException(String.format("Index i: %d >= than number of rows: %d.", i, rows));
+        }
+        if (j < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index j cannot be less thant zero.");
+        }
+        if (j >= cols) {
+            throw new ArrayIndexOutOfBoundsException(String.format("Index j: %d >= than number of columns: %d.", j, cols));
+        }
+    }
+
+    /***
+     * Get sub-view. No data is copied.
+     *
+     * @param row0 The initial row index.
+     * @param row1 The final row index.
+     * @param col0 The initial column index.
+     * @param col1 The final column index.
+     * @return {@code V(row0 : row1, col0 : col1)}.
+     */
+    public MatrixView subView(int row0, int row1, int col0, int col1) {
+        if (row0 < 0 || row1 < 0) {
+            throw new IllegalArgumentException("The row indexes row0 and row1 must be non-negative.");
+        }
+        if (col0 < 0 || col1 < 0) {
+            throw new IllegalArgumentException("The column indexes col0 and col1 must be non-negative.");
+        }
+        if (row0 > row1) {
+            throw new IllegalArgumentException("The initial row index cannot be greater than the final row index.");
+        }
+        if (col0 > col1) {
+            throw new IllegalArgumentException("The initial column index cannot be greater than the final column index.");
+        }
+        if (row1 >= rows) {
+            throw new ArrayIndexOutOfBoundsException("The final row index cannot be greater than the number of rows in the MatrixView.");
+        }
+        if (col1 >= cols) {
+            throw new ArrayIndexOutOfBoundsException("The final column index cannot be greater than the number of columns in the MatrixView.");
+        }
+        return new MatrixView(data, offset + row0 * rowStride + col0 * colStride, row1 - row0 + 1,
+                col1 - col0 + 1, rowStride, colStride);
+    }
+
+    /**
+     * Row view. No data is copied.
+     *
+     * @param i The index of the row.
+     * @return A {@code 1 x n} view of {@code V(i, :)}.
+     */
+    public MatrixView row(int i) {
+        return subView(i, i, 0, cols - 1);
+    }
+
+    /**
+     * Column view. No data is copied.
+     *
+     * @param j The index of the column.
+     * @return A {@code m x 1} view of {@code V(:, j)}.
+     */
+    public MatrixView col(int j) {
+        return subView(0, rows - 1, j, j);
+    }
+
+    /**
+     * Transposed view. No data is copied.
+     *
+     * @return A view of {@code V<sup>T</sup>}.
+     */
+    public MatrixView transpose() {
+        return new MatrixView(data, offset, cols, rows, colStride, rowStride);
+    }
+
+    /**
+     * Copy of the view into a new {@code Matrix}.
+     *
+     * @return A {@code Matrix} with the elements of the view.
+     */
+    public Matrix copy() {
+        return new Matrix(getArrayCopy(), rows, cols);
+    }
+
+    /**
+     * Copy of the view into a preallocated {@code Matrix}.
+     *
+     * @param out The {@code Matrix} where the elements of the view are copied. It must be of the same size as the
+     *            view.
+     */
+    public void copy(Matrix out) {
+        Matrix.checkOutputDimensions(out, rows, cols);
+        copyTo(out.getArray());
+    }
+
+    /**
+     * Retrieves a row packed copy of the elements of the view.
+     *
+     * @return The elements of the view packed by rows.
+     */
+    public double[] getArrayCopy() {
+        double[] result = new double[rows * cols];
+        copyTo(result);
+        return result;
+    }
+
+    private void copyTo(double[] result) {
+        for (int i = 0, k = 0; i < rows; ++i) {
+            int idx = offset + i * rowStride;
+            for (int j = 0; j < cols; ++j, ++k, idx += colStride) {
+                result[k] = data[idx];
+            }
+        }
+    }
+
+    /**
+     * Retrieve the view data as 2d array.
+     *
+     * @return A 2d array copy of the elements of the view.
+     */
+    public double[][] getAs2dArray() {
+        double[][] result = new double[rows][cols];
+        for (int i = 0; i < rows; ++i) {
+            int idx = offset + i * rowStride;
+            for (int j = 0; j < cols; ++j, idx += colStride) {
+                result[i][j] = data[idx];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Matrix trace.
+     *
+     * @return sum of the diagonal elements.
+     */
+    public double trace() {
+        double t = 0;
+        for (int i = 0; i < Math.min(rows, cols); ++i) {
+            t += data[offset + i * (rowStride + colStride)];
+        }
+        return t;
+    }
+
+    /***
+     * One norm
+     *
+     * @return maximum column sum.
+     */
+    public double norm1() {
+        double norm = 0.0;
+        for (int j = 0; j < cols; ++j) {
+            double sum = 0.0;
+            for (int i = 0; i < rows; ++i) {
+                sum += Math.abs(data[offset + i * rowStride + j * colStride]);
+            }
+            norm = Math.max(norm, sum);
+        }
+        return norm;
+    }
+
+    /***
+     * Infinity norm
+     *
+     * @return maximum row sum.
+     */
+    public double normInf() {
+        double norm = 0.0;
+        for (int i = 0; i < rows; ++i) {
+            double sum = 0.0;
+            for (int j = 0; j < cols; ++j) {
+                sum += Math.abs(data[offset + i * rowStride + j * colStride]);
+            }
+            norm = Math.max(norm, sum);
+        }
+        return norm;
+    }
+
+    /***
+     * Frobenius norm
+     *
+     * @return square root of the sum of squares of all elements.
+     */
+    public double normFrob() {
+        double norm = 0.0;
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < cols; ++j) {
+                norm = MathETK.hypot(norm, data[offset + i * rowStride + j * colStride]);
+            }
+        }
+        return norm;
+    }
+
+    /**
+     * Matrix multiplication.
+     *
+     * @param B The view to multiply.
+     * @return {@code V * B}.
+     */
+    public Matrix multiply(MatrixView B) {
+        Matrix out = new Matrix(rows, B.cols);
+        multiply(B, out);
+        return out;
+    }
+
+    /**
+     * Matrix multiplication into a preallocated {@code Matrix}.
+     *
+     * @param B   The view to multiply.
+     * @param out The {@code Matrix} where {@code V * B} is stored. It cannot share storage with either view.
+     */
+    public void multiply(MatrixView B, Matrix out) {
+        Matrices.gemm(1.0, this, B, 0.0, out);
+    }
+
+    /**
+     * Matrix-vector multiplication into a preallocated array, {@code y = V * x}. The elements of {@code y} are
+     * accumulated in the order of the columns of the view.
+     *
+     * @param x The vector to multiply. Its length must be equal to the number of columns.
+     * @param y The array where the result is stored. Its length must be equal to the number of rows.
+     */
+    public void multiply(double[] x, double[] y) {
+        if (x.length != cols) {
+            throw new IllegalArgumentException("The length of x must be equal to the number of columns.");
+        }
+        if (y.length != rows) {
+            throw new IllegalArgumentException("The length of y must be equal to the number of rows.");
+        }
+        for (int i = 0; i < rows; ++i) {
+            double s = 0.0;
+            int idx = offset + i * rowStride;
+            for (int j = 0; j < cols; ++j, idx += colStride) {
+                s += data[idx] * x[j];
+            }
+            y[i] = s;
+        }
+    }
+
+    double[] getData() {
+        return data;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    int getRowStride() {
+        return rowStride;
+    }
+
+    int getColumnStride() {
+        return colStride;
+    }
+
+    @Override
+    public String toString() {
+        return copy().toString();
+    }
+}
@@ -0,0 +1,15 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+/**
+ * The {@code Preconditioner} interface represents an approximation {@code M} of a matrix {@code A} whose inverse is
+ * cheap to apply. Iterative solvers call {@link #apply(double[], double[])} once or twice per iteration.
+ */
+public interface Preconditioner {
+    /**
+     * Apply the preconditioner.
+     *
+     * @param r The vector to precondition.
+     * @param z The array where {@code M<sup>-1</sup> * r} is stored.
+     */
+    void apply(double[] r, double[] z);
+}
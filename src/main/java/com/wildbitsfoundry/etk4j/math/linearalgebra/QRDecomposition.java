@@ -1,5 +1,6 @@
 package com.wildbitsfoundry.etk4j.math.linearalgebra;
 
+import com.wildbitsfoundry.etk4j.constants.ConstantsETK;
 import com.wildbitsfoundry.etk4j.math.MathETK;
 
 public class QRDecomposition {
@@ -9,13 +10,83 @@ public class QRDecomposition {
 
 	protected double[] _rdiag;
 
+	protected int[] _pivot;
+
 	public QRDecomposition(Matrix matrix) {
-		final int rows = matrix.getRowCount();
-		final int cols = matrix.getColumnCount();
-		double[] data = matrix.getArrayCopy();
+		this(matrix.getArrayCopy(), matrix.getRowCount(), matrix.getColumnCount(), false);
+	}
+
+	/**
+	 * QR decomposition with optional column pivoting. With column pivoting the decomposition is A*P = Q*R where
+	 * the permutation P moves the column with the largest remaining norm to the front at every step, so the
+	 * magnitudes of the diagonal of R are non increasing and reveal the numerical rank of A.
+	 *
+	 * @param matrix
+	 *            The matrix to decompose.
+	 * @param columnPivoting
+	 *            {@code true} to compute the rank revealing decomposition A*P = Q*R.
+	 * @see #getPivot()
+	 * @see #rank()
+	 */
+	public QRDecomposition(Matrix matrix, boolean columnPivoting) {
+		this(matrix.getArrayCopy(), matrix.getRowCount(), matrix.getColumnCount(), columnPivoting);
+	}
+
+	/**
+	 * QR decomposition of a {@link MatrixView}. The elements of the view are gathered directly into the
+	 * working storage of the decomposition.
+	 *
+	 * @param view
+	 *            The view to decompose.
+	 */
+	public QRDecomposition(MatrixView view) {
+		this(view.getArrayCopy(), view.getRowCount(), view.getColumnCount(), false);
+	}
+
+	// Factors the row packed data in place.
+	QRDecomposition(double[] data, int rows, int cols) {
+		this(data, rows, cols, false);
+	}
+
+	// Upper triangular factor of a row packed rows x cols block, factored in place. Only the first
+	// min(rows, cols) rows can be non zero.
+	static double[] upperTriangle(double[] data, int rows, int cols) {
+		QRDecomposition qr = new QRDecomposition(data, rows, cols);
+		final int n = Math.min(rows, cols);
+		double[] R = new double[cols * cols];
+		for (int i = 0; i < n; ++i) {
+			R[i * cols + i] = qr._rdiag[i];
+			for (int j = i + 1; j < cols; ++j) {
+				R[i * cols + j] = qr._data[i * cols + j];
+			}
+		}
+		return R;
+	}
+
+	private QRDecomposition(double[] data, int rows, int cols, boolean columnPivoting) {
 		_rdiag = new double[cols];
+		if (columnPivoting) {
+			factorPivoted(data, rows, cols);
+		} else if (cols >= BLOCKED_THRESHOLD && rows >= cols) {
+			factorBlocked(data, rows, cols);
+		} else {
+			factorPanel(data, rows, cols, 0, cols);
+		}
+		_data = data;
+		_rows = rows;
+		_cols = cols;
+	}
 
-		for (int k = 0; k < cols; ++k) {
+	/**
+	 * Matrices with at least this many columns are factored with the blocked algorithm.
+	 */
+	static final int BLOCKED_THRESHOLD = 96;
+	private static final int BLOCK_SIZE = 32;
+
+	// Householder QR of the columns k0 : k1 - 1. The reflectors are only applied to the columns of the panel.
+	// H(k) = I - v * v' / v(k), v is stored in the lower part of the k-th column.
+	private void factorPanel(double[] data, int rows, int cols, int k0, int k1) {
+		for (int k = k0; k < k1; ++k) {
 			double nrm = 0.0;
 			// Compute 2-norm of k-th column without under/overflow.
 			for (int i = k; i < rows; ++i) {
@@ -33,7 +104,7 @@ public class QRDecomposition {
 				data[k * cols + k] += 1.0;
 
 				// Apply transformation to remaining columns.
-				for (int j = k + 1; j < cols; j++) {
+				for (int j = k + 1; j < k1; j++) {
 					double s = 0.0;
 					for (int i = k; i < rows; i++) {
 						s += data[i * cols + k] * data[i * cols + j];
@@ -46,9 +117,145 @@ public class QRDecomposition {
 			}
 			_rdiag[k] = -nrm;
 		}
-		_data = data;
-		_rows = rows;
-		_cols = cols;
+	}
+
+	// Blocked Householder QR. Each panel of BLOCK_SIZE reflectors is accumulated in the compact WY form
+	// H(k0) * ... * H(k1 - 1) = I - V * T * V' (Schreiber and Van Loan) and applied to the trailing columns
+	// as C = C - V * (T' * (V' * C)), which is matrix-matrix work done by the GEMM kernel.
+	private void factorBlocked(double[] data, int rows, int cols) {
+		double[] V = new double[rows * BLOCK_SIZE];
+		double[] T = new double[BLOCK_SIZE * BLOCK_SIZE];
+		double[] W = new double[BLOCK_SIZE * cols];
+		for (int k0 = 0; k0 < cols; k0 += BLOCK_SIZE) {
+			final int nb = Math.min(BLOCK_SIZE, cols - k0);
+			final int k1 = k0 + nb;
+			factorPanel(data, rows, cols, k0, k1);
+			if (k1 == cols) {
+				break;
+			}
+			final int m = rows - k0;
+			final int nc = cols - k1;
+
+			// V is the unit lower trapezoidal m x nb matrix of reflectors. tau(c) = 1 / v(c).
+			for (int i = 0; i < m; ++i) {
+				for (int c = 0; c < nb; ++c) {
+					V[i * nb + c] = i >= c ? data[(k0 + i) * cols + k0 + c] : 0.0;
+				}
+			}
+			// T(0:c, c) = -tau(c) * T(0:c, 0:c) * V(:, 0:c)' * v(c)
+			for (int c = 0; c < nb; ++c) {
+				double vc = V[c * nb + c];
+				double tau = vc == 0.0 ? 0.0 : 1.0 / vc;
+				for (int r = 0; r < c; ++r) {
+					double s = 0.0;
+					for (int i = c; i < m; ++i) {
+						s += V[i * nb + r] * V[i * nb + c];
+					}
+					T[r * nb + c] = -tau * s;
+				}
+				for (int r = 0; r < c; ++r) {
+					double s = 0.0;
+					for (int q = r; q < c; ++q) {
+						s += T[r * nb + q] * T[q * nb + c];
+					}
+					W[r] = s;
+				}
+				for (int r = 0; r < c; ++r) {
+					T[r * nb + c] = W[r];
+				}
+				T[c * nb + c] = tau;
+			}
+
+			// W = V' * C
+			final int cOff = k0 * cols + k1;
+			Gemm.gemm(nb, nc, m, 1.0, V, 0, 1, nb, data, cOff, cols, 1, 0.0, W, 0, nc);
+			// W = T' * W, T' is lower triangular so go from the bottom row up
+			for (int r = nb - 1; r >= 0; --r) {
+				final double trr = T[r * nb + r];
+				for (int j = 0; j < nc; ++j) {
+					W[r * nc + j] *= trr;
+				}
+				for (int q = 0; q < r; ++q) {
+					final double tqr = T[q * nb + r];
+					for (int j = 0; j < nc; ++j) {
+						W[r * nc + j] += tqr * W[q * nc + j];
+					}
+				}
+			}
+			// C = C - V * W
+			Gemm.gemm(m, nc, nb, -1.0, V, 0, nb, 1, W, 0, nc, 1, 1.0, data, cOff, cols);
+		}
+	}
+
+	// Householder QR with column pivoting (Businger and Golub). The partial column norms are downdated after each
+	// step and recomputed when cancellation makes the downdated value unreliable (LAPACK's xLAQP2).
+	private void factorPivoted(double[] data, int rows, int cols) {
+		_pivot = new int[cols];
+		double[] norms = new double[cols];
+		double[] reference = new double[cols];
+		for (int j = 0; j < cols; ++j) {
+			_pivot[j] = j;
+			norms[j] = columnNorm(data, rows, cols, 0, j);
+			reference[j] = norms[j];
+		}
+		final double tol = Math.sqrt(ConstantsETK.DOUBLE_EPS);
+		final int steps = Math.min(rows, cols);
+		for (int k = 0; k < steps; ++k) {
+			int p = k;
+			for (int j = k + 1; j < cols; ++j) {
+				if (norms[j] > norms[p]) {
+					p = j;
+				}
+			}
+			if (p != k) {
+				for (int i = 0; i < rows; ++i) {
+					double t = data[i * cols + p];
+					data[i * cols + p] = data[i * cols + k];
+					data[i * cols + k] = t;
+				}
+				int t = _pivot[p];
+				_pivot[p] = _pivot[k];
+				_pivot[k] = t;
+				norms[p] = norms[k];
+				reference[p] = reference[k];
+			}
+			factorPanel(data, rows, cols, k, k + 1);
+			double nrm = -_rdiag[k];
+			if (nrm != 0.0) {
+				for (int j = k + 1; j < cols; j++) {
+					double s = 0.0;
+					for (int i = k; i < rows; i++) {
+						s += data[i * cols + k] * data[i * cols + j];
+					}
+					s = -s / data[k * cols + k];
+					for (int i = k; i < rows; i++) {
+						data[i * cols + j] += s * data[i * cols + k];
+					}
+				}
+			}
+			for (int j = k + 1; j < cols; ++j) {
+				if (norms[j] == 0.0) {
+					continue;
+				}
+				double r = Math.abs(data[k * cols + j]) / norms[j];
+				double temp = Math.max(0.0, (1.0 + r) * (1.0 - r));
+				double ratio = norms[j] / reference[j];
+				if (temp * ratio * ratio <= tol) {
+					norms[j] = columnNorm(data, rows, cols, k + 1, j);
+					reference[j] = norms[j];
+				} else {
+					norms[j] *= Math.sqrt(temp);
+				}
+			}
+		}
+	}
+
+	private static double columnNorm(double[] data, int rows, int cols, int i0, int j) {
+		double nrm = 0.0;
+		for (int i = i0; i < rows; ++i) {
+			nrm = MathETK.hypot(nrm, data[i * cols + j]);
+		}
+		return nrm;
 	}
 
 	/*
@@ -69,6 +276,44 @@ public class QRDecomposition {
 		return true;
 	}
 
+	/**
+	 * Return the column permutation of a decomposition computed with column pivoting.
+	 * 
+	 * @return p so that column k of A*P is column p[k] of A.
+	 * @exception IllegalStateException
+	 *                If the decomposition was computed without column pivoting.
+	 */
+	public int[] getPivot() {
+		if (_pivot == null) {
+			throw new IllegalStateException("The decomposition was computed without column pivoting.");
+		}
+		return _pivot.clone();
+	}
+
+	/**
+	 * Numerical rank of a decomposition computed with column pivoting. The rank is the number of diagonal entries
+	 * of R larger than max(m, n) * eps * |R(0, 0)|.
+	 * 
+	 * @return The effective numerical rank of A.
+	 * @exception IllegalStateException
+	 *                If the decomposition was computed without column pivoting.
+	 */
+	public int rank() {
+		if (_pivot == null) {
+			throw new IllegalStateException("The decomposition was computed without column pivoting.");
+		}
+		final int steps = Math.min(_rows, _cols);
+		if (steps == 0) {
+			return 0;
+		}
+		double tol = Math.max(_rows, _cols) * ConstantsETK.DOUBLE_EPS * Math.abs(_rdiag[0]);
+		int r = 0;
+		while (r < steps && Math.abs(_rdiag[r]) > tol) {
+			++r;
+		}
+		return r;
+	}
+
 	/**
 	 * Return the Householder vectors
 	 * 
@@ -251,6 +496,9 @@ public class QRDecomposition {
 		if (B.getRowCount() != _rows) {
 			throw new IllegalArgumentException("Matrix row dimensions must agree.");
 		}
+		if (_pivot != null) {
+			return solvePivoted(B);
+		}
 		if (!this.isFullRank()) {
 			throw new RuntimeException("Matrix is rank deficient.");
 		}
@@ -286,6 +534,45 @@ public class QRDecomposition {
 		return (new Matrix(X, _cols, nx).subMatrix(0, _cols - 1, 0, nx - 1));
 	}
 	
+	// Basic solution of a rank deficient problem: only the first rank() columns of A*P are used, the remaining
+	// unknowns are set to zero.
+	private Matrix solvePivoted(Matrix B) {
+		final int r = rank();
+		int nx = B.getColumnCount();
+		double[] X = B.getArrayCopy();
+
+		// Compute Y = transpose(Q)*B
+		for (int k = 0; k < r; k++) {
+			for (int j = 0; j < nx; j++) {
+				double s = 0.0;
+				for (int i = k; i < _rows; i++) {
+					s += _data[i * _cols + k] * X[i * nx + j];
+				}
+				s = -s / _data[k * _cols + k];
+				for (int i = k; i < _rows; i++) {
+					X[i * nx + j] += s * _data[i * _cols + k];
+				}
+			}
+		}
+		// Solve R11*Z = Y(0 : r - 1, :)
+		for (int k = r - 1; k >= 0; k--) {
+			for (int j = 0; j < nx; j++) {
+				X[k * nx + j] /= _rdiag[k];
+			}
+			for (int i = 0; i < k; i++) {
+				for (int j = 0; j < nx; j++) {
+					X[i * nx + j] -= X[k * nx + j] * _data[i * _cols + k];
+				}
+			}
+		}
+		// X = P*Z
+		double[] result = new double[_cols * nx];
+		for (int k = 0; k < r; k++) {
+			System.arraycopy(X, k * nx, result, _pivot[k] * nx, nx);
+		}
+		return new Matrix(result, _cols, nx);
+	}
+
 //	public Matrix solveTranspose(Matrix B) {
 ////		if (B.getRowCount() != _rows) {
 ////			throw new IllegalArgumentException("Matrix row dimensions must agree.");
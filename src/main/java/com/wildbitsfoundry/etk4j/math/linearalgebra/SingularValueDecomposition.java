@@ -3,6 +3,8 @@ package com.wildbitsfoundry.etk4j.math.linearalgebra;
 import com.wildbitsfoundry.etk4j.math.MathETK;
 import com.wildbitsfoundry.etk4j.util.DoubleArrays;
 
+import java.util.Arrays;
+
 /**
  * Singular Value Decomposition.
  * <P>
@@ -60,14 +62,56 @@ public class SingularValueDecomposition {
 	 */
 
 	public SingularValueDecomposition(Matrix Arg) {
+		this(Arg.getArrayCopy(), Arg.getRowCount(), Arg.getColumnCount(), true);
+	}
 
-		// Derived from LINPACK code.
-		// Initialize.
-		double[] A = Arg.getArrayCopy();
-		final int m = Arg.getRowCount();
-		final int n = Arg.getColumnCount();
+	/**
+	 * Construct the singular value decomposition with or without the singular
+	 * vectors. When only the singular values are requested, U and V are never
+	 * formed and the matrices for which blocked QR is used are first reduced
+	 * to their triangular factor, which has the same singular values.
+	 * 
+	 * @param Arg
+	 *            Rectangular matrix
+	 * @param computeVectors
+	 *            {@code false} to compute the singular values only.
+	 */
+
+	public SingularValueDecomposition(Matrix Arg, boolean computeVectors) {
+		this(Arg.getArrayCopy(), Arg.getRowCount(), Arg.getColumnCount(), computeVectors);
+	}
+
+	/**
+	 * Construct the singular value decomposition of a {@link MatrixView}. The
+	 * elements of the view are gathered directly into the working storage.
+	 * 
+	 * @param view
+	 *            Rectangular view
+	 */
+
+	public SingularValueDecomposition(MatrixView view) {
+		this(view.getArrayCopy(), view.getRowCount(), view.getColumnCount(), true);
+	}
+
+	private SingularValueDecomposition(double[] A, final int m, final int n, boolean wantVectors) {
 		_rows = m;
 		_cols = n;
+		final int threshold = QRDecomposition.BLOCKED_THRESHOLD;
+		if (!wantVectors && m >= 2 * n && n >= threshold) {
+			decompose(QRDecomposition.upperTriangle(A, m, n), n, n, false);
+		} else if (!wantVectors && n >= 2 * m && m >= threshold) {
+			double[] At = new Matrix(A, m, n).transpose().getArray();
+			decompose(QRDecomposition.upperTriangle(At, n, m), m, m, false);
+			s = Arrays.copyOf(s, Math.min(m + 1, n));
+		} else {
+			decompose(A, m, n, wantVectors);
+		}
+	}
+
+	private void decompose(double[] A, final int m, final int n, boolean wantVectors) {
+
+		// Derived from LINPACK code.
+		// Initialize.
 		/*
 		 * Apparently the failing cases are only a proper subset of (m<n), so
 		 * let's not throw error. Correct fix to come later? if (m<n) { throw
@@ -75,12 +119,15 @@ public class SingularValueDecomposition {
 		 */
 		int nu = Math.min(m, n);
 		s = new double[Math.min(m + 1, n)];
-		U = new double[m][nu];
-		V = new double[n][n];
 		double[] e = new double[n];
 		double[] work = new double[m];
-		boolean wantu = true;
-		boolean wantv = true;
+		double[] factors = new double[n];
+		boolean wantu = wantVectors;
+		boolean wantv = wantVectors;
+		if (wantVectors) {
+			U = new double[m][nu];
+			V = new double[n][n];
+		}
 
 		// Reduce A to bidiagonal form, storing the diagonal elements
 		// in s and the super-diagonal elements in e.
@@ -108,20 +155,32 @@ public class SingularValueDecomposition {
 				}
 				s[k] = -s[k];
 			}
-			for (int j = k + 1; j < n; j++) {
-				if ((k < nct) & (s[k] != 0.0)) {
+			if ((k < nct) & (s[k] != 0.0)) {
 
-					// Apply the transformation.
+				// Apply the transformation. The rows of A are traversed
+				// contiguously, accumulating the products of every column
+				// at once.
 
-					double t = 0;
-					for (int i = k; i < m; i++) {
-						t += A[i * n + k] * A[i * n + j];
+				for (int j = k + 1; j < n; j++) {
+					factors[j] = 0;
+				}
+				for (int i = k; i < m; i++) {
+					double aik = A[i * n + k];
+					for (int j = k + 1; j < n; j++) {
+						factors[j] += aik * A[i * n + j];
 					}
-					t = -t / A[k * n + k];
-					for (int i = k; i < m; i++) {
-						A[i * n + j] += t * A[i * n + k];
+				}
+				for (int j = k + 1; j < n; j++) {
+					factors[j] = -factors[j] / A[k * n + k];
+				}
+				for (int i = k; i < m; i++) {
+					double aik = A[i * n + k];
+					for (int j = k + 1; j < n; j++) {
+						A[i * n + j] += factors[j] * aik;
 					}
 				}
+			}
+			for (int j = k + 1; j < n; j++) {
 
 				// Place the k-th row of A into e for the
 				// subsequent calculation of the row transformation.
@@ -162,16 +221,17 @@ public class SingularValueDecomposition {
 
 					for (int i = k + 1; i < m; i++) {
 						work[i] = 0.0;
-					}
-					for (int j = k + 1; j < n; j++) {
-						for (int i = k + 1; i < m; i++) {
+						for (int j = k + 1; j < n; j++) {
 							work[i] += e[j] * A[i * n + j];
 						}
 					}
 					for (int j = k + 1; j < n; j++) {
-						double t = -e[j] / e[k + 1];
-						for (int i = k + 1; i < m; i++) {
-							A[i * n + j] += t * work[i];
+						factors[j] = -e[j] / e[k + 1];
+					}
+					for (int i = k + 1; i < m; i++) {
+						double wi = work[i];
+						for (int j = k + 1; j < n; j++) {
+							A[i * n + j] += factors[j] * wi;
 						}
 					}
 				}
@@ -213,13 +273,21 @@ public class SingularValueDecomposition {
 			for (int k = nct - 1; k >= 0; k--) {
 				if (s[k] != 0.0) {
 					for (int j = k + 1; j < nu; j++) {
-						double t = 0;
-						for (int i = k; i < m; i++) {
-							t += U[i][k] * U[i][j];
+						factors[j] = 0;
+					}
+					for (int i = k; i < m; i++) {
+						double[] Ui = U[i];
+						for (int j = k + 1; j < nu; j++) {
+							factors[j] += Ui[k] * Ui[j];
 						}
-						t = -t / U[k][k];
-						for (int i = k; i < m; i++) {
-							U[i][j] += t * U[i][k];
+					}
+					for (int j = k + 1; j < nu; j++) {
+						factors[j] = -factors[j] / U[k][k];
+					}
+					for (int i = k; i < m; i++) {
+						double[] Ui = U[i];
+						for (int j = k + 1; j < nu; j++) {
+							Ui[j] += factors[j] * Ui[k];
 						}
 					}
 					for (int i = k; i < m; i++) {
@@ -244,13 +312,21 @@ public class SingularValueDecomposition {
 			for (int k = n - 1; k >= 0; k--) {
 				if ((k < nrt) & (e[k] != 0.0)) {
 					for (int j = k + 1; j < nu; j++) {
-						double t = 0;
-						for (int i = k + 1; i < n; i++) {
-							t += V[i][k] * V[i][j];
+						factors[j] = 0;
+					}
+					for (int i = k + 1; i < n; i++) {
+						double[] Vi = V[i];
+						for (int j = k + 1; j < nu; j++) {
+							factors[j] += Vi[k] * Vi[j];
 						}
-						t = -t / V[k + 1][k];
-						for (int i = k + 1; i < n; i++) {
-							V[i][j] += t * V[i][k];
+					}
+					for (int j = k + 1; j < nu; j++) {
+						factors[j] = -factors[j] / V[k + 1][k];
+					}
+					for (int i = k + 1; i < n; i++) {
+						double[] Vi = V[i];
+						for (int j = k + 1; j < nu; j++) {
+							Vi[j] += factors[j] * Vi[k];
 						}
 					}
 				}
@@ -495,6 +571,7 @@ public class SingularValueDecomposition {
 	 */
 
 	public Matrix getU() {
+		checkVectors();
 		return new Matrix(DoubleArrays.flatten(U), _rows, Math.min(_rows + 1, _cols));
 	}
 
@@ -505,9 +582,26 @@ public class SingularValueDecomposition {
 	 */
 
 	public Matrix getV() {
+		checkVectors();
 		return new Matrix(DoubleArrays.flatten(V), _cols, _cols);
 	}
 
+	/**
+	 * Were the singular vectors computed?
+	 * 
+	 * @return {@code true} if U and V are available.
+	 */
+
+	public boolean hasSingularVectors() {
+		return U != null;
+	}
+
+	private void checkVectors() {
+		if (U == null) {
+			throw new IllegalStateException("The singular vectors were not computed.");
+		}
+	}
+
 	/**
 	 * Return the one-dimensional array of singular values
 	 * 
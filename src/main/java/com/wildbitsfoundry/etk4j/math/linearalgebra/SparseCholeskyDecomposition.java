@@ -0,0 +1,293 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import java.util.Arrays;
+
+/**
+ * Sparse Cholesky Decomposition.
+ * <P>
+ * For a symmetric, positive definite sparse matrix A, the Cholesky decomposition is a lower triangular matrix L and a
+ * fill-reducing permutation P so that P*A*P' = L*L'. Only the lower triangle of A is referenced.
+ * <P>
+ * The factorization is up-looking: the pattern of each row of L is obtained from the elimination tree, which also
+ * gives the exact number of non-zeros of L before any floating point work is done.
+ * <P>
+ * If the matrix is not positive definite, the constructor stops at the first non positive pivot and sets an internal
+ * flag that may be queried by the isSPD() method.
+ */
+public class SparseCholeskyDecomposition {
+	private final int _n;
+	private final int[] _Lp;
+	private final int[] _Li;
+	private final double[] _Lx;
+	private final int[] _p;
+	private boolean _isspd = true;
+
+	/**
+	 * Sparse Cholesky decomposition using a {@link SparseOrdering#MINIMUM_DEGREE} ordering.
+	 *
+	 * @param A
+	 *            The square, symmetric and positive definite matrix to decompose.
+	 */
+	public SparseCholeskyDecomposition(SparseMatrix A) {
+		this(A, SparseOrdering.MINIMUM_DEGREE);
+	}
+
+	/**
+	 * Sparse Cholesky decomposition.
+	 *
+	 * @param A
+	 *            The square, symmetric and positive definite matrix to decompose.
+	 * @param ordering
+	 *            The fill-reducing symmetric ordering.
+	 * @exception NonSquareMatrixException
+	 *                If the matrix is not square.
+	 */
+	public SparseCholeskyDecomposition(SparseMatrix A, SparseOrdering ordering) {
+		if (A.getRowCount() != A.getColumnCount()) {
+			throw new NonSquareMatrixException("Matrix must be a square Matrix.");
+		}
+		final int n = A.getRowCount();
+		_n = n;
+		_p = ordering.permutation(A);
+		int[] pinv = new int[n];
+		for (int k = 0; k < n; ++k) {
+			pinv[_p[k]] = k;
+		}
+
+		// Lower triangle of C = P*A*P' by rows
+		SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+		int[] ap = A.getRowPointers();
+		int[] ai = A.getColumnIndices();
+		double[] ax = A.getValues();
+		for (int i = 0; i < n; ++i) {
+			for (int q = ap[i]; q < ap[i + 1]; ++q) {
+				int j = ai[q];
+				if (j > i) {
+					continue;
+				}
+				int i2 = pinv[i];
+				int j2 = pinv[j];
+				builder.add(Math.max(i2, j2), Math.min(i2, j2), ax[q]);
+			}
+		}
+		SparseMatrix C = builder.build();
+		int[] Cp = C.getRowPointers();
+		int[] Ci = C.getColumnIndices();
+		double[] Cx = C.getValues();
+
+		// Elimination tree
+		int[] parent = new int[n];
+		int[] ancestor = new int[n];
+		for (int k = 0; k < n; ++k) {
+			parent[k] = -1;
+			ancestor[k] = -1;
+			for (int q = Cp[k]; q < Cp[k + 1]; ++q) {
+				for (int i = Ci[q]; i != -1 && i < k; ) {
+					int inext = ancestor[i];
+					ancestor[i] = k;
+					if (inext == -1) {
+						parent[i] = k;
+					}
+					i = inext;
+				}
+			}
+		}
+
+		// Column counts of L
+		int[] s = new int[n];
+		int[] mark = new int[n];
+		Arrays.fill(mark, -1);
+		int[] c = new int[n];
+		Arrays.fill(c, 1);
+		for (int k = 0; k < n; ++k) {
+			int top = ereach(Cp, Ci, k, parent, s, mark);
+			for (int q = top; q < n; ++q) {
+				c[s[q]]++;
+			}
+		}
+		_Lp = new int[n + 1];
+		for (int k = 0; k < n; ++k) {
+			_Lp[k + 1] = _Lp[k] + c[k];
+		}
+		_Li = new int[_Lp[n]];
+		_Lx = new double[_Lp[n]];
+
+		// Numeric factorization, the diagonal is stored first in each column
+		Arrays.fill(mark, -1);
+		for (int k = 0; k < n; ++k) {
+			c[k] = _Lp[k];
+		}
+		double[] x = new double[n];
+		for (int k = 0; k < n; ++k) {
+			int top = ereach(Cp, Ci, k, parent, s, mark);
+			for (int q = Cp[k]; q < Cp[k + 1]; ++q) {
+				x[Ci[q]] = Cx[q];
+			}
+			double d = x[k];
+			x[k] = 0.0;
+			for (; top < n; ++top) {
+				int i = s[top];
+				double lki = x[i] / _Lx[_Lp[i]];
+				x[i] = 0.0;
+				for (int q = _Lp[i] + 1; q < c[i]; ++q) {
+					x[_Li[q]] -= _Lx[q] * lki;
+				}
+				d -= lki * lki;
+				int q = c[i]++;
+				_Li[q] = k;
+				_Lx[q] = lki;
+			}
+			if (d <= 0.0) {
+				_isspd = false;
+				return;
+			}
+			int q = c[k]++;
+			_Li[q] = k;
+			_Lx[q] = Math.sqrt(d);
+		}
+	}
+
+	// Pattern of row k of L, returned in topological order in s[top : n - 1].
+	private static int ereach(int[] Cp, int[] Ci, int k, int[] parent, int[] s, int[] mark) {
+		final int n = s.length;
+		int top = n;
+		mark[k] = k;
+		for (int q = Cp[k]; q < Cp[k + 1]; ++q) {
+			int i = Ci[q];
+			if (i > k) {
+				continue;
+			}
+			int len = 0;
+			for (; mark[i] != k; i = parent[i]) {
+				s[len++] = i;
+				mark[i] = k;
+			}
+			while (len > 0) {
+				s[--top] = s[--len];
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * Is the matrix symmetric and positive definite?
+	 *
+	 * @return true if A is symmetric and positive definite.
+	 */
+	public boolean isSPD() {
+		return _isspd;
+	}
+
+	/**
+	 * Return triangular factor.
+	 *
+	 * @return L so that P*A*P' = L*L'.
+	 */
+	public SparseMatrix getL() {
+		if (!_isspd) {
+			throw new RuntimeException("Matrix is not symmetric positive definite.");
+		}
+		return new SparseMatrix(_n, _n, _Lp, _Li, _Lx).transpose();
+	}
+
+	/**
+	 * Return the fill-reducing permutation.
+	 *
+	 * @return p so that row and column k of P*A*P' are row and column p[k] of A.
+	 */
+	public int[] getPermutation() {
+		return _p.clone();
+	}
+
+	/**
+	 * Solve A*x = b
+	 *
+	 * @param b
+	 *            The right hand side.
+	 * @return x so that A*x = b.
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is not symmetric positive definite.
+	 */
+	public double[] solve(double[] b) {
+		double[] x = new double[_n];
+		solve(b, x);
+		return x;
+	}
+
+	/**
+	 * Solve A*x = b into a preallocated array. {@code b} and {@code x} can be the same array.
+	 *
+	 * @param b
+	 *            The right hand side.
+	 * @param x
+	 *            The array where the solution is stored.
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is not symmetric positive definite.
+	 */
+	public void solve(double[] b, double[] x) {
+		if (b.length != _n || x.length != _n) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		if (!_isspd) {
+			throw new RuntimeException("Matrix is not symmetric positive definite.");
+		}
+		double[] y = new double[_n];
+		for (int k = 0; k < _n; ++k) {
+			y[k] = b[_p[k]];
+		}
+		// L * z = P * b
+		for (int j = 0; j < _n; ++j) {
+			y[j] /= _Lx[_Lp[j]];
+			double yj = y[j];
+			for (int q = _Lp[j] + 1; q < _Lp[j + 1]; ++q) {
+				y[_Li[q]] -= _Lx[q] * yj;
+			}
+		}
+		// L' * w = z
+		for (int j = _n - 1; j >= 0; --j) {
+			double yj = y[j];
+			for (int q = _Lp[j] + 1; q < _Lp[j + 1]; ++q) {
+				yj -= _Lx[q] * y[_Li[q]];
+			}
+			y[j] = yj / _Lx[_Lp[j]];
+		}
+		for (int k = 0; k < _n; ++k) {
+			x[_p[k]] = y[k];
+		}
+	}
+
+	/**
+	 * Solve A*X = B
+	 *
+	 * @param B
+	 *            A Matrix with as many rows as A and any number of columns.
+	 * @return X so that L*L'*X = B
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is not symmetric positive definite.
+	 */
+	public Matrix solve(Matrix B) {
+		if (B.getRowCount() != _n) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		final int nx = B.getColumnCount();
+		double[] b = B.getArray();
+		double[] X = new double[_n * nx];
+		double[] col = new double[_n];
+		for (int j = 0; j < nx; ++j) {
+			for (int i = 0; i < _n; ++i) {
+				col[i] = b[i * nx + j];
+			}
+			solve(col, col);
+			for (int i = 0; i < _n; ++i) {
+				X[i * nx + j] = col[i];
+			}
+		}
+		return new Matrix(X, _n, nx);
+	}
+}
@@ -0,0 +1,395 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import java.util.Arrays;
+
+/**
+ * Sparse LU Decomposition.
+ * <P>
+ * For a square sparse matrix A, the LU decomposition computes a unit lower triangular matrix L, an upper triangular
+ * matrix U, a row permutation P and a column permutation Q so that P*A*Q = L*U. The column permutation is a
+ * fill-reducing {@link SparseOrdering} and the row permutation comes from threshold partial pivoting, which prefers
+ * the diagonal entry whenever it is within a factor of the largest entry in the pivot column.
+ * <P>
+ * The factorization is left-looking (Gilbert-Peierls): each column of L and U is obtained from a sparse triangular
+ * solve whose non-zero pattern is found with a depth first search, so the cost is proportional to the number of
+ * floating point operations rather than to the size of the matrix.
+ */
+public class SparseLUDecomposition {
+	private final int _n;
+	private int[] _Lp;
+	private int[] _Li;
+	private double[] _Lx;
+	private int[] _Up;
+	private int[] _Ui;
+	private double[] _Ux;
+	private final int[] _pinv;
+	private final int[] _q;
+	private boolean _singular = false;
+
+	/**
+	 * Sparse LU decomposition using a {@link SparseOrdering#MINIMUM_DEGREE} column ordering and a diagonal
+	 * pivoting tolerance of 0.1.
+	 *
+	 * @param A
+	 *            The square matrix to decompose.
+	 */
+	public SparseLUDecomposition(SparseMatrix A) {
+		this(A, SparseOrdering.MINIMUM_DEGREE, 0.1);
+	}
+
+	/**
+	 * Sparse LU decomposition.
+	 *
+	 * @param A
+	 *            The square matrix to decompose.
+	 * @param ordering
+	 *            The fill-reducing column ordering.
+	 * @param pivotTolerance
+	 *            The diagonal entry is chosen as pivot if its magnitude is at least {@code pivotTolerance} times
+	 *            the largest magnitude in the pivot column. 1.0 is regular partial pivoting.
+	 * @exception NonSquareMatrixException
+	 *                If the matrix is not square.
+	 */
+	public SparseLUDecomposition(SparseMatrix A, SparseOrdering ordering, double pivotTolerance) {
+		if (A.getRowCount() != A.getColumnCount()) {
+			throw new NonSquareMatrixException("Matrix must be a square Matrix.");
+		}
+		if (pivotTolerance <= 0.0 || pivotTolerance > 1.0) {
+			throw new IllegalArgumentException("The pivot tolerance must be in the interval (0, 1].");
+		}
+		final int n = A.getRowCount();
+		_n = n;
+		_q = ordering.permutation(A);
+		_pinv = new int[n];
+		Arrays.fill(_pinv, -1);
+
+		// Column access to A
+		SparseMatrix At = A.transpose();
+		int[] Ap = At.getRowPointers();
+		int[] Ai = At.getColumnIndices();
+		double[] Ax = At.getValues();
+
+		int capacity = 4 * A.getNonZeroCount() + n;
+		_Lp = new int[n + 1];
+		_Li = new int[capacity];
+		_Lx = new double[capacity];
+		_Up = new int[n + 1];
+		_Ui = new int[capacity];
+		_Ux = new double[capacity];
+
+		double[] x = new double[n];
+		int[] xi = new int[n];
+		int[] pstack = new int[n];
+		int[] mark = new int[n];
+		Arrays.fill(mark, -1);
+		int lnz = 0;
+		int unz = 0;
+		for (int k = 0; k < n; ++k) {
+			_Lp[k] = lnz;
+			_Up[k] = unz;
+			if (lnz + n > _Li.length) {
+				_Li = Arrays.copyOf(_Li, 2 * _Li.length + n);
+				_Lx = Arrays.copyOf(_Lx, _Li.length);
+			}
+			if (unz + n > _Ui.length) {
+				_Ui = Arrays.copyOf(_Ui, 2 * _Ui.length + n);
+				_Ux = Arrays.copyOf(_Ux, _Ui.length);
+			}
+			final int col = _q[k];
+
+			// x = L \ A(:, col)
+			int top = reach(Ap, Ai, col, k, xi, pstack, mark);
+			for (int p = Ap[col]; p < Ap[col + 1]; ++p) {
+				x[Ai[p]] = Ax[p];
+			}
+			for (int px = top; px < n; ++px) {
+				int j = xi[px];
+				int J = _pinv[j];
+				if (J < 0) {
+					continue;
+				}
+				double xj = x[j];
+				for (int p = _Lp[J] + 1; p < _Lp[J + 1]; ++p) {
+					x[_Li[p]] -= _Lx[p] * xj;
+				}
+			}
+
+			// Find the pivot and store the k-th column of U
+			int ipiv = -1;
+			double a = -1.0;
+			for (int p = top; p < n; ++p) {
+				int i = xi[p];
+				if (_pinv[i] < 0) {
+					double t = Math.abs(x[i]);
+					if (t > a) {
+						a = t;
+						ipiv = i;
+					}
+				} else {
+					_Ui[unz] = _pinv[i];
+					_Ux[unz++] = x[i];
+				}
+			}
+			if (ipiv == -1 || a <= 0.0) {
+				_singular = true;
+				return;
+			}
+			if (_pinv[col] < 0 && Math.abs(x[col]) >= a * pivotTolerance) {
+				ipiv = col;
+			}
+			double pivot = x[ipiv];
+			_Ui[unz] = k;
+			_Ux[unz++] = pivot;
+			_pinv[ipiv] = k;
+
+			// Store the k-th column of L, unit diagonal first
+			_Li[lnz] = ipiv;
+			_Lx[lnz++] = 1.0;
+			for (int p = top; p < n; ++p) {
+				int i = xi[p];
+				if (_pinv[i] < 0) {
+					_Li[lnz] = i;
+					_Lx[lnz++] = x[i] / pivot;
+				}
+				x[i] = 0.0;
+			}
+		}
+		_Lp[n] = lnz;
+		_Up[n] = unz;
+		// Renumber the rows of L to pivot order
+		for (int p = 0; p < lnz; ++p) {
+			_Li[p] = _pinv[_Li[p]];
+		}
+		_Li = Arrays.copyOf(_Li, lnz);
+		_Lx = Arrays.copyOf(_Lx, lnz);
+		_Ui = Arrays.copyOf(_Ui, unz);
+		_Ux = Arrays.copyOf(_Ux, unz);
+	}
+
+	// Non-zero pattern of L \ A(:, col) in topological order, returned in xi[top : n - 1].
+	private int reach(int[] Ap, int[] Ai, int col, int k, int[] xi, int[] pstack, int[] mark) {
+		int top = _n;
+		for (int p = Ap[col]; p < Ap[col + 1]; ++p) {
+			if (mark[Ai[p]] != k) {
+				top = dfs(Ai[p], k, top, xi, pstack, mark);
+			}
+		}
+		return top;
+	}
+
+	// Non recursive depth first search on the graph of L. The bottom of xi is used as the recursion stack.
+	private int dfs(int j, int k, int top, int[] xi, int[] pstack, int[] mark) {
+		int head = 0;
+		xi[0] = j;
+		while (head >= 0) {
+			j = xi[head];
+			int jnew = _pinv[j];
+			if (mark[j] != k) {
+				mark[j] = k;
+				pstack[head] = jnew < 0 ? 0 : _Lp[jnew];
+			}
+			boolean done = true;
+			int p2 = jnew < 0 ? 0 : _Lp[jnew + 1];
+			for (int p = pstack[head]; p < p2; ++p) {
+				int i = _Li[p];
+				if (mark[i] == k) {
+					continue;
+				}
+				pstack[head] = p;
+				xi[++head] = i;
+				done = false;
+				break;
+			}
+			if (done) {
+				head--;
+				xi[--top] = j;
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * Is the matrix nonsingular?
+	 *
+	 * @return true if U, and hence A, is nonsingular.
+	 */
+	public boolean isNonSingular() {
+		return !_singular;
+	}
+
+	private void checkNonSingular() {
+		if (_singular) {
+			throw new RuntimeException("Matrix is singular.");
+		}
+	}
+
+	/**
+	 * Return lower triangular factor
+	 *
+	 * @return L
+	 */
+	public SparseMatrix getL() {
+		checkNonSingular();
+		return new SparseMatrix(_n, _n, _Lp, _Li, _Lx).transpose();
+	}
+
+	/**
+	 * Return upper triangular factor
+	 *
+	 * @return U
+	 */
+	public SparseMatrix getU() {
+		checkNonSingular();
+		// The columns of U are stored unsorted with the diagonal last, the transpose sorts them.
+		return new SparseMatrix(_n, _n, _Up, _Ui, _Ux).transpose();
+	}
+
+	/**
+	 * Return the row permutation
+	 *
+	 * @return p so that row k of P*A is row p[k] of A.
+	 */
+	public int[] getPivot() {
+		int[] p = new int[_n];
+		for (int i = 0; i < _n; ++i) {
+			if (_pinv[i] >= 0) {
+				p[_pinv[i]] = i;
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Return the column permutation
+	 *
+	 * @return q so that column k of A*Q is column q[k] of A.
+	 */
+	public int[] getColumnPermutation() {
+		return _q.clone();
+	}
+
+	/**
+	 * Determinant
+	 *
+	 * @return det(A)
+	 */
+	public double det() {
+		if (_singular) {
+			return 0.0;
+		}
+		double d = permutationSign(getPivot()) * permutationSign(_q);
+		for (int j = 0; j < _n; ++j) {
+			d *= _Ux[_Up[j + 1] - 1];
+		}
+		return d;
+	}
+
+	private static int permutationSign(int[] p) {
+		boolean[] visited = new boolean[p.length];
+		int sign = 1;
+		for (int i = 0; i < p.length; ++i) {
+			if (visited[i]) {
+				continue;
+			}
+			int len = 0;
+			for (int j = i; !visited[j]; j = p[j]) {
+				visited[j] = true;
+				++len;
+			}
+			if (len % 2 == 0) {
+				sign = -sign;
+			}
+		}
+		return sign;
+	}
+
+	/**
+	 * Solve A*x = b
+	 *
+	 * @param b
+	 *            The right hand side.
+	 * @return x so that A*x = b.
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is singular.
+	 */
+	public double[] solve(double[] b) {
+		double[] x = new double[_n];
+		solve(b, x);
+		return x;
+	}
+
+	/**
+	 * Solve A*x = b into a preallocated array. {@code b} and {@code x} can be the same array.
+	 *
+	 * @param b
+	 *            The right hand side.
+	 * @param x
+	 *            The array where the solution is stored.
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is singular.
+	 */
+	public void solve(double[] b, double[] x) {
+		if (b.length != _n || x.length != _n) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		checkNonSingular();
+		double[] y = new double[_n];
+		for (int i = 0; i < _n; ++i) {
+			y[_pinv[i]] = b[i];
+		}
+		// L * z = P * b
+		for (int j = 0; j < _n; ++j) {
+			double yj = y[j];
+			for (int p = _Lp[j] + 1; p < _Lp[j + 1]; ++p) {
+				y[_Li[p]] -= _Lx[p] * yj;
+			}
+		}
+		// U * w = z
+		for (int j = _n - 1; j >= 0; --j) {
+			int last = _Up[j + 1] - 1;
+			y[j] /= _Ux[last];
+			double yj = y[j];
+			for (int p = _Up[j]; p < last; ++p) {
+				y[_Ui[p]] -= _Ux[p] * yj;
+			}
+		}
+		for (int k = 0; k < _n; ++k) {
+			x[_q[k]] = y[k];
+		}
+	}
+
+	/**
+	 * Solve A*X = B
+	 *
+	 * @param B
+	 *            A Matrix with as many rows as A and any number of columns.
+	 * @return X so that A*X = B
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is singular.
+	 */
+	public Matrix solve(Matrix B) {
+		if (B.getRowCount() != _n) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		final int nx = B.getColumnCount();
+		double[] b = B.getArray();
+		double[] X = new double[_n * nx];
+		double[] col = new double[_n];
+		for (int j = 0; j < nx; ++j) {
+			for (int i = 0; i < _n; ++i) {
+				col[i] = b[i * nx + j];
+			}
+			solve(col, col);
+			for (int i = 0; i < _n; ++i) {
+				X[i * nx + j] = col[i];
+			}
+		}
+		return new Matrix(X, _n, nx);
+	}
+}
@@ -0,0 +1,503 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import java.util.Arrays;
+
+/**
+ * The {@code SparseMatrix} class represents a matrix in compressed sparse row (CSR) storage. The non-zero values of
+ * row {@code i} are stored in {@code values[rowPointers[i] : rowPointers[i + 1] - 1]} and their column indices in
+ * the same positions of {@code columnIndices}. Column indices are sorted within each row and there are no duplicates.
+ * <br>
+ * The compressed sparse column (CSC) form of a matrix is the CSR form of its transpose, which can be obtained in
+ * {@code O(nnz)} through {@link #transpose()}.
+ * <br>
+ * Instances are immutable and are most easily assembled from triplets through a {@link Builder}.
+ */
+public class SparseMatrix {
+    private final int rows;
+    private final int cols;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final double[] values;
+
+    /**
+     * Constructs a {@code SparseMatrix} from its compressed sparse row arrays. No copies are made and the column
+     * indices of each row must be sorted and unique.
+     *
+     * @param rows          The number of rows.
+     * @param cols          The number of columns.
+     * @param rowPointers   The row pointers. Its length must be {@code rows + 1}.
+     * @param columnIndices The column index of each value.
+     * @param values        The non-zero values.
+     * @throws IllegalArgumentException If the lengths of the arrays are not consistent.
+     */
+    public SparseMatrix(int rows, int cols, int[] rowPointers, int[] columnIndices, double[] values) {
+        if (rowPointers.length != rows + 1) {
+            throw new IllegalArgumentException("The length of the row pointers must be equal to the number of rows + 1.");
+        }
+        if (columnIndices.length != values.length || rowPointers[rows] > values.length) {
+            throw new IllegalArgumentException("The column indices and the values must have the same length.");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    /**
+     * Builder of {@link SparseMatrix} from coordinate (COO) triplets. Entries can be added in any order and duplicated
+     * entries are summed, which is convenient when stamping element contributions of a network.
+     */
+    public static class Builder {
+        private final int rows;
+        private final int cols;
+        private int[] is = new int[16];
+        private int[] js = new int[16];
+        private double[] vs = new double[16];
+        private int size = 0;
+
+        /**
+         * Constructs a {@code Builder} for a matrix of the given size.
+         *
+         * @param rows The number of rows.
+         * @param cols The number of columns.
+         */
+        public Builder(int rows, int cols) {
+            if (rows < 0 || cols < 0) {
+                throw new IllegalArgumentException("The number of rows and columns cannot be negative.");
+            }
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        /**
+         * Add a value to the entry {@code (i, j)}.
+         *
+         * @param i     The row index.
+         * @param j     The column index.
+         * @param value The value to add to {@code A(i, j)}.
+         * @return This {@code Builder}.
+         */
+        public Builder add(int i, int j, double value) {
+            if (i < 0 || i >= rows) {
+                throw new ArrayIndexOutOfBoundsException(String.format("Index i: %d is out of range [0, %d).", i, rows));
+            }
+            if (j < 0 || j >= cols) {
+                throw new ArrayIndexOutOfBoundsException(String.format("Index j: %d is out of range [0, %d).", j, cols));
+            }
+            if (size == is.length) {
+                int capacity = 2 * size;
+                is = Arrays.copyOf(is, capacity);
+                js = Arrays.copyOf(js, capacity);
+                vs = Arrays.copyOf(vs, capacity);
+            }
+            is[size] = i;
+            js[size] = j;
+            vs[size] = value;
+            ++size;
+            return this;
+        }
+
+        /**
+         * Build the {@code SparseMatrix}. Duplicated entries are summed and explicit zeros are kept.
+         *
+         * @return The {@code SparseMatrix} containing the entries added so far.
+         */
+        public SparseMatrix build() {
+            // Bucket the triplets by column, then by row, so that each row ends up sorted by column.
+            int[] colCount = new int[cols + 1];
+            for (int k = 0; k < size; ++k) {
+                colCount[js[k] + 1]++;
+            }
+            for (int j = 0; j < cols; ++j) {
+                colCount[j + 1] += colCount[j];
+            }
+            int[] byCol = new int[size];
+            for (int k = 0; k < size; ++k) {
+                byCol[colCount[js[k]]++] = k;
+            }
+            int[] rp = new int[rows + 1];
+            for (int k = 0; k < size; ++k) {
+                rp[is[k] + 1]++;
+            }
+            for (int i = 0; i < rows; ++i) {
+                rp[i + 1] += rp[i];
+            }
+            int[] next = Arrays.copyOf(rp, rows);
+            int[] ci = new int[size];
+            double[] v = new double[size];
+            for (int t = 0; t < size; ++t) {
+                int k = byCol[t];
+                int p = next[is[k]]++;
+                ci[p] = js[k];
+                v[p] = vs[k];
+            }
+            // Sum duplicates and compact.
+            int nz = 0;
+            int start = 0;
+            for (int i = 0; i < rows; ++i) {
+                int end = rp[i + 1];
+                rp[i] = nz;
+                for (int p = start; p < end; ++p) {
+                    if (nz > rp[i] && ci[nz - 1] == ci[p]) {
+                        v[nz - 1] += v[p];
+                    } else {
+                        ci[nz] = ci[p];
+                        v[nz] = v[p];
+                        ++nz;
+                    }
+                }
+                start = end;
+            }
+            rp[rows] = nz;
+            return new SparseMatrix(rows, cols, rp, Arrays.copyOf(ci, nz), Arrays.copyOf(v, nz));
+        }
+    }
+
+    /**
+     * Creates a {@code SparseMatrix} from the non-zero entries of a dense {@link Matrix}.
+     *
+     * @param A The dense matrix.
+     * @return The sparse representation of {@code A}.
+     */
+    public static SparseMatrix fromDense(Matrix A) {
+        final int m = A.getRowCount();
+        final int n = A.getColumnCount();
+        double[] data = A.getArray();
+        int nz = 0;
+        for (double d : data) {
+            if (d != 0.0) {
+                ++nz;
+            }
+        }
+        int[] rp = new int[m + 1];
+        int[] ci = new int[nz];
+        double[] v = new double[nz];
+        nz = 0;
+        for (int i = 0; i < m; ++i) {
+            for (int j = 0; j < n; ++j) {
+                double d = data[i * n + j];
+                if (d != 0.0) {
+                    ci[nz] = j;
+                    v[nz++] = d;
+                }
+            }
+            rp[i + 1] = nz;
+        }
+        return new SparseMatrix(m, n, rp, ci, v);
+    }
+
+    /**
+     * Sparse identity matrix.
+     *
+     * @param n The number of rows and columns.
+     * @return {@code identity(n, n)}.
+     */
+    public static SparseMatrix identity(int n) {
+        int[] rp = new int[n + 1];
+        int[] ci = new int[n];
+        double[] v = new double[n];
+        for (int i = 0; i < n; ++i) {
+            rp[i + 1] = i + 1;
+            ci[i] = i;
+            v[i] = 1.0;
+        }
+        return new SparseMatrix(n, n, rp, ci, v);
+    }
+
+    /**
+     * Number of rows.
+     *
+     * @return The number of rows of the {@code SparseMatrix}.
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Number of columns.
+     *
+     * @return The number of columns of the {@code SparseMatrix}.
+     */
+    public int getColumnCount() {
+        return cols;
+    }
+
+    /**
+     * Number of stored entries.
+     *
+     * @return The number of stored (structurally non-zero) entries.
+     */
+    public int getNonZeroCount() {
+        return rowPointers[rows];
+    }
+
+    /**
+     * Row pointers of the CSR storage. This is the internal array, not a copy.
+     *
+     * @return The row pointers.
+     */
+    public int[] getRowPointers() {
+        return rowPointers;
+    }
+
+    /**
+     * Column indices of the CSR storage. This is the internal array, not a copy.
+     *
+     * @return The column indices.
+     */
+    public int[] getColumnIndices() {
+        return columnIndices;
+    }
+
+    /**
+     * Values of the CSR storage. This is the internal array, not a copy.
+     *
+     * @return The non-zero values.
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * Retrieve value at a given position. The column indices of the row are searched with a binary search.
+     *
+     * @param i The row index.
+     * @param j The column index.
+     * @return The value at {@code A(i, j)}.
+     */
+    public double get(int i, int j) {
+        if (i < 0 || i >= rows) {
+            throw new ArrayIndexOutOfBoundsException(String.format("Index i: %d is out of range [0, %d).", i, rows));
+        }
+        if (j < 0 || j >= cols) {
+            throw new ArrayIndexOutOfBoundsException(String.format("Index j: %d is out of range [0, %d).", j, cols));
+        }
+        int p = Arrays.binarySearch(columnIndices, rowPointers[i], rowPointers[i + 1], j);
+        return p >= 0 ? values[p] : 0.0;
+    }
+
+    /**
+     * Diagonal of the matrix.
+     *
+     * @return The elements {@code A(i, i)}.
+     */
+    public double[] diagonal() {
+        double[] d = new double[Math.min(rows, cols)];
+        for (int i = 0; i < d.length; ++i) {
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; ++p) {
+                if (columnIndices[p] == i) {
+                    d[i] = values[p];
+                    break;
+                }
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Sparse matrix-vector multiplication.
+     *
+     * @param x The vector to multiply.
+     * @return {@code A * x}.
+     */
+    public double[] multiply(double[] x) {
+        double[] y = new double[rows];
+        multiply(x, y);
+        return y;
+    }
+
+    /**
+     * Sparse matrix-vector multiplication into a preallocated array.
+     *
+     * @param x The vector to multiply. Its length must be equal to the number of columns.
+     * @param y The array where {@code A * x} is stored. Its length must be equal to the number of rows.
+     */
+    public void multiply(double[] x, double[] y) {
+        if (x.length != cols) {
+            throw new IllegalArgumentException("The length of x must be equal to the number of columns.");
+        }
+        if (y.length != rows) {
+            throw new IllegalArgumentException("The length of y must be equal to the number of rows.");
+        }
+        for (int i = 0; i < rows; ++i) {
+            double s = 0.0;
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; ++p) {
+                s += values[p] * x[columnIndices[p]];
+            }
+            y[i] = s;
+        }
+    }
+
+    /**
+     * Transposed sparse matrix-vector multiplication into a preallocated array.
+     *
+     * @param x The vector to multiply. Its length must be equal to the number of rows.
+     * @param y The array where {@code A<sup>T</sup> * x} is stored. Its length must be equal to the number of
+     *          columns.
+     */
+    public void transposeMultiply(double[] x, double[] y) {
+        if (x.length != rows) {
+            throw new IllegalArgumentException("The length of x must be equal to the number of rows.");
+        }
+        if (y.length != cols) {
+            throw new IllegalArgumentException("The length of y must be equal to the number of columns.");
+        }
+        Arrays.fill(y, 0.0);
+        for (int i = 0; i < rows; ++i) {
+            double xi = x[i];
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; ++p) {
+                y[columnIndices[p]] += values[p] * xi;
+            }
+        }
+    }
+
+    /**
+     * Sparse times dense multiplication.
+     *
+     * @param B The dense matrix to multiply.
+     * @return {@code A * B}.
+     */
+    public Matrix multiply(Matrix B) {
+        if (B.getRowCount() != cols) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        final int n = B.getColumnCount();
+        double[] b = B.getArray();
+        double[] c = new double[rows * n];
+        for (int i = 0; i < rows; ++i) {
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; ++p) {
+                double v = values[p];
+                int k = columnIndices[p] * n;
+                for (int j = 0; j < n; ++j) {
+                    c[i * n + j] += v * b[k + j];
+                }
+            }
+        }
+        return new Matrix(c, rows, n);
+    }
+
+    /**
+     * Transpose of the matrix. The result is the compressed sparse column form of this matrix.
+     *
+     * @return {@code A<sup>T</sup>}.
+     */
+    public SparseMatrix transpose() {
+        final int nz = getNonZeroCount();
+        int[] tp = new int[cols + 1];
+        for (int p = 0; p < nz; ++p) {
+            tp[columnIndices[p] + 1]++;
+        }
+        for (int j = 0; j < cols; ++j) {
+            tp[j + 1] += tp[j];
+        }
+        int[] next = Arrays.copyOf(tp, cols);
+        int[] ti = new int[nz];
+        double[] tv = new double[nz];
+        for (int i = 0; i < rows; ++i) {
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; ++p) {
+                int q = next[columnIndices[p]]++;
+                ti[q] = i;
+                tv[q] = values[p];
+            }
+        }
+        return new SparseMatrix(cols, rows, tp, ti, tv);
+    }
+
+    /**
+     * Dense copy of the matrix.
+     *
+     * @return A {@link Matrix} with the same entries.
+     */
+    public Matrix toDense() {
+        double[] data = new double[rows * cols];
+        for (int i = 0; i < rows; ++i) {
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; ++p) {
+                data[i * cols + columnIndices[p]] += values[p];
+            }
+        }
+        return new Matrix(data, rows, cols);
+    }
+
+    /**
+     * Sparse LU decomposition with a fill-reducing column ordering.
+     *
+     * @return The {@link SparseLUDecomposition} of the matrix.
+     */
+    public SparseLUDecomposition LU() {
+        return new SparseLUDecomposition(this);
+    }
+
+    /**
+     * Sparse Cholesky decomposition with a fill-reducing symmetric ordering. Only the lower triangle of the matrix
+     * is referenced.
+     *
+     * @return The {@link SparseCholeskyDecomposition} of the matrix.
+     */
+    public SparseCholeskyDecomposition Chol() {
+        return new SparseCholeskyDecomposition(this);
+    }
+
+    /**
+     * Solve {@code A * x = b} with a sparse LU decomposition.
+     *
+     * @param b The right hand side.
+     * @return The solution to {@code A * x = b}.
+     * @throws NonSquareMatrixException If the matrix is not square.
+     */
+    public double[] solve(double[] b) {
+        return LU().solve(b);
+    }
+
+    /**
+     * Solve {@code A * X = B}. Square systems are solved with a sparse LU decomposition. Rectangular systems are
+     * solved in the least squares sense with {@link Matrix#solve(Matrix)} on a dense copy.
+     *
+     * @param B The right hand side.
+     * @return The solution to {@code A * X = B}.
+     */
+    public Matrix solve(Matrix B) {
+        if (rows != cols) {
+            return toDense().solve(B);
+        }
+        return LU().solve(B);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SparseMatrix)) {
+            return false;
+        }
+        SparseMatrix other = (SparseMatrix) obj;
+        final int nz = getNonZeroCount();
+        return rows == other.rows && cols == other.cols &&
+                Arrays.equals(rowPointers, other.rowPointers) &&
+                Arrays.equals(Arrays.copyOf(columnIndices, nz), Arrays.copyOf(other.columnIndices, nz)) &&
+                Arrays.equals(Arrays.copyOf(values, nz), Arrays.copyOf(other.values, nz));
+    }
+
+    @Override
+    public int hashCode() {
+        final int nz = getNonZeroCount();
+        int result = 31 * rows + cols;
+        result = 31 * result + Arrays.hashCode(rowPointers);
+        result = 31 * result + Arrays.hashCode(Arrays.copyOf(columnIndices, nz));
+        result = 31 * result + Arrays.hashCode(Arrays.copyOf(values, nz));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("SparseMatrix %d x %d, %d non-zeros", rows, cols, getNonZeroCount()));
+        for (int i = 0; i < rows; ++i) {
+            for (int p = rowPointers[i]; p < rowPointers[i + 1]; ++p) {
+                sb.append(System.lineSeparator()).append(String.format("(%d, %d) %.4f", i, columnIndices[p], values[p]));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,225 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Fill-reducing orderings for sparse factorizations. The orderings are computed on the graph of
+ * {@code A + A<sup>T</sup>} and are returned as a permutation {@code p} such that the {@code k}-th row and column
+ * of the reordered matrix are the {@code p[k]}-th row and column of {@code A}.
+ */
+public enum SparseOrdering {
+    /**
+     * No reordering.
+     */
+    NATURAL,
+    /**
+     * Reverse Cuthill-McKee. Reduces the bandwidth and profile of the matrix and therefore bounds the fill to the
+     * envelope.
+     */
+    REVERSE_CUTHILL_MCKEE,
+    /**
+     * Minimum degree. Greedily eliminates the node of the elimination graph with the fewest neighbours. Usually
+     * produces less fill than {@link #REVERSE_CUTHILL_MCKEE} for matrices arising from networks and meshes.
+     */
+    MINIMUM_DEGREE;
+
+    /**
+     * Computes the ordering of a square matrix.
+     *
+     * @param A The matrix to order.
+     * @return The permutation vector.
+     */
+    public int[] permutation(SparseMatrix A) {
+        if (A.getRowCount() != A.getColumnCount()) {
+            throw new NonSquareMatrixException("Matrix must be a square Matrix.");
+        }
+        switch (this) {
+            case REVERSE_CUTHILL_MCKEE:
+                return reverseCuthillMcKee(symmetricPattern(A));
+            case MINIMUM_DEGREE:
+                return minimumDegree(symmetricPattern(A));
+            default:
+                int[] p = new int[A.getRowCount()];
+                for (int i = 0; i < p.length; ++i) {
+                    p[i] = i;
+                }
+                return p;
+        }
+    }
+
+    // Adjacency lists of A + A' without the diagonal.
+    private static int[][] symmetricPattern(SparseMatrix A) {
+        final int n = A.getRowCount();
+        SparseMatrix At = A.transpose();
+        int[] ap = A.getRowPointers();
+        int[] ai = A.getColumnIndices();
+        int[] tp = At.getRowPointers();
+        int[] ti = At.getColumnIndices();
+        int[][] adj = new int[n][];
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        int[] work = new int[n];
+        for (int i = 0; i < n; ++i) {
+            int len = 0;
+            mark[i] = i;
+            for (int p = ap[i]; p < ap[i + 1]; ++p) {
+                int j = ai[p];
+                if (mark[j] != i) {
+                    mark[j] = i;
+                    work[len++] = j;
+                }
+            }
+            for (int p = tp[i]; p < tp[i + 1]; ++p) {
+                int j = ti[p];
+                if (mark[j] != i) {
+                    mark[j] = i;
+                    work[len++] = j;
+                }
+            }
+            adj[i] = Arrays.copyOf(work, len);
+        }
+        return adj;
+    }
+
+    private static int[] reverseCuthillMcKee(int[][] adj) {
+        final int n = adj.length;
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        Integer[] neighbours = new Integer[n];
+        int[] level = new int[n];
+        Arrays.fill(level, -1);
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int s = 0; s < n; ++s) {
+            if (visited[s]) {
+                continue;
+            }
+            int root = pseudoPeripheralNode(adj, s, level, queue);
+            visited[root] = true;
+            order[tail++] = root;
+            while (head < tail) {
+                int v = order[head++];
+                int count = 0;
+                for (int u : adj[v]) {
+                    if (!visited[u]) {
+                        visited[u] = true;
+                        neighbours[count++] = u;
+                    }
+                }
+                Arrays.sort(neighbours, 0, count, (a, b) -> Integer.compare(adj[a].length, adj[b].length));
+                for (int k = 0; k < count; ++k) {
+                    order[tail++] = neighbours[k];
+                }
+            }
+        }
+        for (int i = 0, j = n - 1; i < j; ++i, --j) {
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return order;
+    }
+
+    // George-Liu heuristic: repeatedly restart the level structure from a node of minimum degree in the last level.
+    // The level array must be -1 on entry and is restored before returning.
+    private static int pseudoPeripheralNode(int[][] adj, int start, int[] level, int[] queue) {
+        int root = start;
+        int eccentricity = -1;
+        while (true) {
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = root;
+            level[root] = 0;
+            int last = root;
+            while (head < tail) {
+                int v = queue[head++];
+                for (int u : adj[v]) {
+                    if (level[u] < 0) {
+                        level[u] = level[v] + 1;
+                        queue[tail++] = u;
+                    }
+                }
+                last = v;
+            }
+            int depth = level[last];
+            int candidate = last;
+            for (int k = 0; k < tail; ++k) {
+                int v = queue[k];
+                if (level[v] == depth && adj[v].length < adj[candidate].length) {
+                    candidate = v;
+                }
+            }
+            for (int k = 0; k < tail; ++k) {
+                level[queue[k]] = -1;
+            }
+            if (depth <= eccentricity) {
+                return root;
+            }
+            eccentricity = depth;
+            root = candidate;
+        }
+    }
+
+    // Minimum degree on the explicit elimination graph. Eliminating a node turns its neighbours into a clique.
+    private static int[] minimumDegree(int[][] adjacency) {
+        final int n = adjacency.length;
+        int[][] adj = new int[n][];
+        int[] degree = new int[n];
+        for (int i = 0; i < n; ++i) {
+            adj[i] = adjacency[i].clone();
+            degree[i] = adj[i].length;
+        }
+        boolean[] eliminated = new boolean[n];
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        int stamp = 0;
+        int[] work = new int[n];
+        PriorityQueue<long[]> queue = new PriorityQueue<>(Math.max(1, n),
+                (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        for (int i = 0; i < n; ++i) {
+            queue.add(new long[]{degree[i], i});
+        }
+        int[] order = new int[n];
+        int k = 0;
+        while (k < n) {
+            long[] top = queue.poll();
+            int v = (int) top[1];
+            if (eliminated[v] || top[0] != degree[v]) {
+                continue;
+            }
+            eliminated[v] = true;
+            order[k++] = v;
+            int[] nv = adj[v];
+            for (int u : nv) {
+                if (eliminated[u]) {
+                    continue;
+                }
+                // adj[u] = (adj[u] U adj[v]) \ {u, v, eliminated}
+                int len = 0;
+                ++stamp;
+                mark[u] = stamp;
+                for (int w : adj[u]) {
+                    if (!eliminated[w] && mark[w] != stamp) {
+                        mark[w] = stamp;
+                        work[len++] = w;
+                    }
+                }
+                for (int w : nv) {
+                    if (!eliminated[w] && mark[w] != stamp) {
+                        mark[w] = stamp;
+                        work[len++] = w;
+                    }
+                }
+                adj[u] = Arrays.copyOf(work, len);
+                if (len != degree[u]) {
+                    degree[u] = len;
+                    queue.add(new long[]{len, u});
+                }
+            }
+            adj[v] = null;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,1079 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.wildbitsfoundry.etk4j.constants.ConstantsETK;
+import com.wildbitsfoundry.etk4j.math.MathETK;
+
+/**
+ * Eigenvalues and eigenvectors of a real symmetric matrix.
+ * <P>
+ * For a symmetric matrix A, A = V*D*V' where the eigenvalue matrix D is diagonal and the eigenvector matrix V is
+ * orthogonal. Only the lower triangle of A is referenced.
+ * <P>
+ * A is first reduced to tridiagonal form T = Q'*A*Q with a blocked Householder reduction, where the update of the
+ * trailing matrix after every panel of reflectors is a symmetric rank-2k update done by the GEMM kernel. Then,
+ * depending on what is requested:
+ * <pre>
+ *     All eigenvalues and eigenvectors: Cuppen's divide and conquer method on T.
+ *     Eigenvalues only: implicit QL iterations on T, which cost O(n<sup>2</sup>).
+ *     A subset of the eigenvalues: bisection with Sturm sequence counts, plus inverse iteration on T for the
+ *     corresponding eigenvectors.
+ * </pre>
+ * The eigenvectors of T are transformed back by applying Q in blocks of reflectors, so computing k eigenvectors
+ * only costs O(n<sup>2</sup>k) on top of the reduction. The eigenvalues are returned in ascending order.
+ */
+public class SymmetricEigenvalueDecomposition {
+	private final int _dim;
+	private final double[] _d;
+	private final double[] _V;
+
+	private static final int BLOCK_SIZE = 32;
+	private static final int APPLY_BLOCK_SIZE = 128;
+	private static final int LEAF_SIZE = 25;
+
+	/**
+	 * Symmetric matrices of at least this size are decomposed with this class by
+	 * {@link EigenvalueDecomposition}.
+	 */
+	static final int THRESHOLD = 64;
+
+	/**
+	 * All the eigenvalues and eigenvectors of a symmetric matrix.
+	 *
+	 * @param A
+	 *            The symmetric matrix to decompose. Only the lower triangle is referenced.
+	 * @exception NonSquareMatrixException
+	 *                If the matrix is not square.
+	 */
+	public SymmetricEigenvalueDecomposition(Matrix A) {
+		this(A, true);
+	}
+
+	/**
+	 * All the eigenvalues, and optionally the eigenvectors, of a symmetric matrix.
+	 *
+	 * @param A
+	 *            The symmetric matrix to decompose. Only the lower triangle is referenced.
+	 * @param computeVectors
+	 *            {@code false} to compute the eigenvalues only.
+	 * @exception NonSquareMatrixException
+	 *                If the matrix is not square.
+	 */
+	public SymmetricEigenvalueDecomposition(Matrix A, boolean computeVectors) {
+		this(A, computeVectors, 0, A.getRowCount() - 1, false, 0.0, 0.0);
+	}
+
+	/**
+	 * Eigenvalues {@code il} through {@code iu}, counted from the smallest, and optionally their eigenvectors. For
+	 * example, the k largest eigenpairs of an n by n covariance matrix are {@code indexRange(A, n - k, n - 1, true)}.
+	 *
+	 * @param A
+	 *            The symmetric matrix to decompose. Only the lower triangle is referenced.
+	 * @param il
+	 *            The index of the smallest eigenvalue to compute, starting at zero.
+	 * @param iu
+	 *            The index of the largest eigenvalue to compute.
+	 * @param computeVectors
+	 *            {@code false} to compute the eigenvalues only.
+	 * @return The decomposition of the selected eigenvalues.
+	 * @exception NonSquareMatrixException
+	 *                If the matrix is not square.
+	 * @exception IllegalArgumentException
+	 *                If {@code 0 <= il <= iu < n} does not hold.
+	 */
+	public static SymmetricEigenvalueDecomposition indexRange(Matrix A, int il, int iu, boolean computeVectors) {
+		if (il < 0 || iu < il || iu >= A.getRowCount()) {
+			throw new IllegalArgumentException("The eigenvalue indexes must satisfy 0 <= il <= iu < n.");
+		}
+		return new SymmetricEigenvalueDecomposition(A, computeVectors, il, iu, false, 0.0, 0.0);
+	}
+
+	/**
+	 * Eigenvalues in the interval {@code [vl, vu)}, and optionally their eigenvectors.
+	 *
+	 * @param A
+	 *            The symmetric matrix to decompose. Only the lower triangle is referenced.
+	 * @param vl
+	 *            The lower bound of the interval.
+	 * @param vu
+	 *            The upper bound of the interval.
+	 * @param computeVectors
+	 *            {@code false} to compute the eigenvalues only.
+	 * @return The decomposition of the selected eigenvalues, which can be empty.
+	 * @exception NonSquareMatrixException
+	 *                If the matrix is not square.
+	 * @exception IllegalArgumentException
+	 *                If {@code vl >= vu}.
+	 */
+	public static SymmetricEigenvalueDecomposition valueRange(Matrix A, double vl, double vu,
+			boolean computeVectors) {
+		if (!(vl < vu)) {
+			throw new IllegalArgumentException("The lower bound of the interval must be less than the upper bound.");
+		}
+		return new SymmetricEigenvalueDecomposition(A, computeVectors, 0, 0, true, vl, vu);
+	}
+
+	private SymmetricEigenvalueDecomposition(Matrix A, boolean computeVectors, int il, int iu, boolean byValue,
+			double vl, double vu) {
+		if (A.getRowCount() != A.getColumnCount()) {
+			throw new NonSquareMatrixException("Matrix must be a square Matrix.");
+		}
+		final int n = A.getRowCount();
+		_dim = n;
+		double[] a = new double[n * n];
+		double[] data = A.getArray();
+		for (int i = 0; i < n; ++i) {
+			System.arraycopy(data, i * n, a, i * n, i + 1);
+		}
+		double[] d = new double[n];
+		double[] e = new double[Math.max(n - 1, 0)];
+		double[] tau = new double[Math.max(n - 1, 0)];
+		tridiagonalize(a, n, d, e, tau);
+
+		boolean all = !byValue && il == 0 && iu == n - 1;
+		if (all && !computeVectors) {
+			_d = d;
+			tql(d, Arrays.copyOf(e, n), n, null);
+			_V = null;
+		} else if (all) {
+			double[] Z = new double[n * n];
+			divideAndConquer(d, e, n, Z);
+			_d = d;
+			_V = applyQ(a, tau, n, Z, n);
+		} else {
+			double[] e2 = new double[e.length];
+			double pivmin = 1.0;
+			for (int i = 0; i < e.length; ++i) {
+				e2[i] = e[i] * e[i];
+				pivmin = Math.max(pivmin, e2[i]);
+			}
+			pivmin *= Double.MIN_NORMAL;
+			double[] bounds = gershgorin(d, e, pivmin);
+			if (byValue) {
+				il = n == 0 ? 0 : sturmCount(d, e2, vl, pivmin);
+				iu = n == 0 ? -1 : sturmCount(d, e2, vu, pivmin) - 1;
+			}
+			final int m = Math.max(iu - il + 1, 0);
+			_d = new double[m];
+			for (int k = 0; k < m; ++k) {
+				_d[k] = bisect(d, e2, il + k, bounds[0], bounds[1], pivmin);
+			}
+			if (computeVectors) {
+				double[] Z = new double[n * m];
+				inverseIteration(d, e, _d, Z);
+				_V = applyQ(a, tau, n, Z, m);
+			} else {
+				_V = null;
+			}
+		}
+	}
+
+	/*
+	 * ------------------------ Tridiagonal reduction ------------------------
+	 */
+
+	// Blocked Householder tridiagonalization of the symmetric matrix a, of which only the lower triangle is used
+	// (LAPACK's xSYTRD and xLATRD). Reflector j is H(j) = I - tau(j) * v * v' where v(j + 1) = 1 and
+	// v(j + 2 : n - 1) is stored below the subdiagonal of column j of a. Each panel of reflectors is built against
+	// the not yet updated trailing matrix, corrected with the V and W of the panel, and the lower triangle of the
+	// trailing matrix is then updated as A = A - V*W' - W*V'.
+	private static void tridiagonalize(double[] a, int n, double[] d, double[] e, double[] tau) {
+		if (n == 0) {
+			return;
+		}
+		final int nb0 = BLOCK_SIZE;
+		double[] V = new double[n * nb0];
+		double[] W = new double[n * nb0];
+		double[] t1 = new double[nb0];
+		double[] t2 = new double[nb0];
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int k = 0; k < n - 1; k += nb0) {
+			final int nb = Math.min(nb0, n - 1 - k);
+			for (int i = 0; i < nb; ++i) {
+				final int j = k + i;
+				// A(j : n - 1, j) -= V(j : n - 1, 0 : i - 1) * W(j, 0 : i - 1)' + W(j : n - 1, 0 : i - 1) * V(j, 0 : i - 1)'
+				if (i > 0) {
+					for (int r = j; r < n; ++r) {
+						double s = 0.0;
+						for (int c = 0; c < i; ++c) {
+							s += V[r * nb0 + c] * W[j * nb0 + c] + W[r * nb0 + c] * V[j * nb0 + c];
+						}
+						a[r * n + j] -= s;
+					}
+				}
+				d[j] = a[j * n + j];
+
+				// Generate the reflector that annihilates A(j + 2 : n - 1, j)
+				double alpha = a[(j + 1) * n + j];
+				double xnorm = 0.0;
+				for (int r = j + 2; r < n; ++r) {
+					xnorm = MathETK.hypot(xnorm, a[r * n + j]);
+				}
+				double tj = 0.0;
+				double beta = alpha;
+				if (xnorm != 0.0) {
+					beta = -Math.copySign(MathETK.hypot(alpha, xnorm), alpha);
+					tj = (beta - alpha) / beta;
+					double scale = 1.0 / (alpha - beta);
+					for (int r = j + 2; r < n; ++r) {
+						a[r * n + j] *= scale;
+					}
+				}
+				e[j] = beta;
+				tau[j] = tj;
+				x[j + 1] = 1.0;
+				for (int r = j + 2; r < n; ++r) {
+					x[r] = a[r * n + j];
+				}
+
+				// y = A22 * v from the lower triangle of A22
+				for (int r = j + 1; r < n; ++r) {
+					y[r] = 0.0;
+				}
+				for (int r = j + 1; r < n; ++r) {
+					final int row = r * n;
+					final double xr = x[r];
+					double s = 0.0;
+					for (int c = j + 1; c < r; ++c) {
+						s += a[row + c] * x[c];
+						y[c] += a[row + c] * xr;
+					}
+					y[r] += s + a[row + r] * xr;
+				}
+				// t1 = W' * v, t2 = V' * v
+				for (int c = 0; c < i; ++c) {
+					t1[c] = 0.0;
+					t2[c] = 0.0;
+				}
+				for (int r = j + 1; r < n; ++r) {
+					final double xr = x[r];
+					for (int c = 0; c < i; ++c) {
+						t1[c] += W[r * nb0 + c] * xr;
+						t2[c] += V[r * nb0 + c] * xr;
+					}
+				}
+				// w = tau * (y - V * t1 - W * t2), w = w - 0.5 * tau * (w' * v) * v
+				double wv = 0.0;
+				for (int r = j + 1; r < n; ++r) {
+					double s = y[r];
+					for (int c = 0; c < i; ++c) {
+						s -= V[r * nb0 + c] * t1[c] + W[r * nb0 + c] * t2[c];
+					}
+					s *= tj;
+					y[r] = s;
+					wv += s * x[r];
+				}
+				double half = -0.5 * tj * wv;
+				for (int r = 0; r <= j; ++r) {
+					V[r * nb0 + i] = 0.0;
+					W[r * nb0 + i] = 0.0;
+				}
+				for (int r = j + 1; r < n; ++r) {
+					V[r * nb0 + i] = x[r];
+					W[r * nb0 + i] = y[r] + half * x[r];
+				}
+			}
+			// A22 = A22 - V2 * W2' - W2 * V2', one block column of the lower triangle at a time
+			final int k1 = k + nb;
+			for (int c0 = k1; c0 < n; c0 += 2 * nb0) {
+				final int nc = Math.min(2 * nb0, n - c0);
+				final int m = n - c0;
+				Gemm.gemm(m, nc, nb, -1.0, V, c0 * nb0, nb0, 1, W, c0 * nb0, 1, nb0, 1.0, a, c0 * n + c0, n);
+				Gemm.gemm(m, nc, nb, -1.0, W, c0 * nb0, nb0, 1, V, c0 * nb0, 1, nb0, 1.0, a, c0 * n + c0, n);
+			}
+		}
+		d[n - 1] = a[(n - 1) * n + n - 1];
+	}
+
+	// Computes Q*Z where Q = H(0) * H(1) * ... * H(n - 2) and Z is n x m. The reflectors are applied a block at a
+	// time, from the last block to the first, in the compact WY form H(k) * ... * H(k + nb - 1) = I - V*T*V'.
+	private static double[] applyQ(double[] a, double[] tau, int n, double[] Z, int m) {
+		if (n < 2 || m == 0) {
+			return Z;
+		}
+		final int nr = n - 1;
+		double[] V = new double[nr * APPLY_BLOCK_SIZE];
+		double[] T = new double[APPLY_BLOCK_SIZE * APPLY_BLOCK_SIZE];
+		double[] W = new double[APPLY_BLOCK_SIZE * m];
+		int last = ((nr - 1) / APPLY_BLOCK_SIZE) * APPLY_BLOCK_SIZE;
+		for (int k = last; k >= 0; k -= APPLY_BLOCK_SIZE) {
+			final int nb = Math.min(APPLY_BLOCK_SIZE, nr - k);
+			// V holds rows k + 1 : n - 1 of the reflectors k : k + nb - 1
+			final int rows = n - k - 1;
+			for (int r = 0; r < rows; ++r) {
+				for (int c = 0; c < nb; ++c) {
+					double v;
+					if (r < c) {
+						v = 0.0;
+					} else if (r == c) {
+						v = 1.0;
+					} else {
+						v = a[(k + 1 + r) * n + k + c];
+					}
+					V[r * nb + c] = v;
+				}
+			}
+			for (int c = 0; c < nb; ++c) {
+				double tc = tau[k + c];
+				for (int r = 0; r < c; ++r) {
+					double s = 0.0;
+					for (int i = c; i < rows; ++i) {
+						s += V[i * nb + r] * V[i * nb + c];
+					}
+					W[r] = -tc * s;
+				}
+				for (int r = 0; r < c; ++r) {
+					double s = 0.0;
+					for (int q = r; q < c; ++q) {
+						s += T[r * nb + q] * W[q];
+					}
+					T[r * nb + c] = s;
+				}
+				T[c * nb + c] = tc;
+			}
+			final int zOff = (k + 1) * m;
+			// W = V' * Z
+			Gemm.gemm(nb, m, rows, 1.0, V, 0, 1, nb, Z, zOff, m, 1, 0.0, W, 0, m);
+			// W = T * W, T is upper triangular so go from the top row down
+			for (int r = 0; r < nb; ++r) {
+				final double trr = T[r * nb + r];
+				for (int j = 0; j < m; ++j) {
+					W[r * m + j] *= trr;
+				}
+				for (int q = r + 1; q < nb; ++q) {
+					final double trq = T[r * nb + q];
+					for (int j = 0; j < m; ++j) {
+						W[r * m + j] += trq * W[q * m + j];
+					}
+				}
+			}
+			// Z = Z - V * W
+			Gemm.gemm(rows, m, nb, -1.0, V, 0, nb, 1, W, 0, m, 1, 1.0, Z, zOff, m);
+		}
+		return Z;
+	}
+
+	/*
+	 * ------------------------ Tridiagonal eigenproblem ------------------------
+	 */
+
+	// Implicit QL iterations on the tridiagonal with diagonal d and subdiagonal e(0 : n - 2), e(n - 1) is
+	// workspace. The rotations are accumulated into the columns of the n x n matrix Z when it is not null. On exit
+	// d holds the eigenvalues in ascending order.
+	private static void tql(double[] d, double[] e, int n, double[] Z) {
+		if (n == 0) {
+			return;
+		}
+		e[n - 1] = 0.0;
+		double f = 0.0;
+		double tst1 = 0.0;
+		final double eps = ConstantsETK.DOUBLE_EPS;
+		for (int l = 0; l < n; l++) {
+			// Find small subdiagonal element
+			tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+			int m = l;
+			while (m < n) {
+				if (Math.abs(e[m]) <= eps * tst1) {
+					break;
+				}
+				m++;
+			}
+
+			// If m == l, d[l] is an eigenvalue, otherwise, iterate.
+			if (m > l) {
+				do {
+					// Compute implicit shift
+					double g = d[l];
+					double p = (d[l + 1] - g) / (2.0 * e[l]);
+					double r = MathETK.hypot(p, 1.0);
+					if (p < 0) {
+						r = -r;
+					}
+					d[l] = e[l] / (p + r);
+					d[l + 1] = e[l] * (p + r);
+					double dl1 = d[l + 1];
+					double h = g - d[l];
+					for (int i = l + 2; i < n; i++) {
+						d[i] -= h;
+					}
+					f = f + h;
+
+					// Implicit QL transformation.
+					p = d[m];
+					double c = 1.0;
+					double c2 = c;
+					double c3 = c;
+					double el1 = e[l + 1];
+					double s = 0.0;
+					double s2 = 0.0;
+					for (int i = m - 1; i >= l; i--) {
+						c3 = c2;
+						c2 = c;
+						s2 = s;
+						g = c * e[i];
+						h = c * p;
+						r = MathETK.hypot(p, e[i]);
+						e[i + 1] = s * r;
+						s = e[i] / r;
+						c = p / r;
+						p = c * d[i] - s * g;
+						d[i + 1] = h + s * (c * g + s * d[i]);
+
+						// Accumulate transformation.
+						if (Z != null) {
+							for (int k = 0; k < n; k++) {
+								h = Z[k * n + (i + 1)];
+								Z[k * n + (i + 1)] = s * Z[k * n + i] + c * h;
+								Z[k * n + i] = c * Z[k * n + i] - s * h;
+							}
+						}
+					}
+					p = -s * s2 * c3 * el1 * e[l] / dl1;
+					e[l] = s * p;
+					d[l] = c * p;
+
+					// Check for convergence.
+				} while (Math.abs(e[l]) > eps * tst1);
+			}
+			d[l] = d[l] + f;
+			e[l] = 0.0;
+		}
+		sort(d, Z, n, n);
+	}
+
+	// Sorts d(0 : cols - 1) in ascending order together with the columns of the rows x cols matrix Z, if not null.
+	private static void sort(double[] d, double[] Z, int rows, int cols) {
+		for (int i = 0; i < cols - 1; i++) {
+			int k = i;
+			double p = d[i];
+			for (int j = i + 1; j < cols; j++) {
+				if (d[j] < p) {
+					k = j;
+					p = d[j];
+				}
+			}
+			if (k != i) {
+				d[k] = d[i];
+				d[i] = p;
+				if (Z != null) {
+					for (int j = 0; j < rows; j++) {
+						p = Z[j * cols + i];
+						Z[j * cols + i] = Z[j * cols + k];
+						Z[j * cols + k] = p;
+					}
+				}
+			}
+		}
+	}
+
+	// Eigenvalues and eigenvectors of the tridiagonal (d, e) with Cuppen's divide and conquer method. The
+	// eigenvectors are stored in the n x n matrix Z.
+	private static void divideAndConquer(double[] d, double[] e, int n, double[] Z) {
+		if (n == 0) {
+			return;
+		}
+		// Scale the tridiagonal so that its largest entry is one
+		double scale = 0.0;
+		for (int i = 0; i < n; ++i) {
+			scale = Math.max(scale, Math.abs(d[i]));
+		}
+		for (int i = 0; i < n - 1; ++i) {
+			scale = Math.max(scale, Math.abs(e[i]));
+		}
+		if (scale == 0.0) {
+			for (int i = 0; i < n; ++i) {
+				Z[i * n + i] = 1.0;
+			}
+			return;
+		}
+		double[] ds = new double[n];
+		double[] es = new double[Math.max(n - 1, 0)];
+		for (int i = 0; i < n; ++i) {
+			ds[i] = d[i] / scale;
+		}
+		for (int i = 0; i < n - 1; ++i) {
+			es[i] = e[i] / scale;
+		}
+		divideAndConquer(ds, es, n, Z, 0, n);
+		for (int i = 0; i < n; ++i) {
+			d[i] = ds[i] * scale;
+		}
+	}
+
+	// Solves the subproblem T(lo : hi - 1, lo : hi - 1). The eigenvalues overwrite d(lo : hi - 1) and the
+	// eigenvectors are stored in the diagonal block Z(lo : hi - 1, lo : hi - 1) of the n x n matrix Z.
+	private static void divideAndConquer(double[] d, double[] e, int n, double[] Z, int lo, int hi) {
+		final int m = hi - lo;
+		if (m <= LEAF_SIZE) {
+			double[] dl = Arrays.copyOfRange(d, lo, hi);
+			double[] el = new double[m];
+			System.arraycopy(e, lo, el, 0, m - 1);
+			double[] Zl = new double[m * m];
+			for (int i = 0; i < m; ++i) {
+				Zl[i * m + i] = 1.0;
+			}
+			tql(dl, el, m, Zl);
+			System.arraycopy(dl, 0, d, lo, m);
+			for (int i = 0; i < m; ++i) {
+				System.arraycopy(Zl, i * m, Z, (lo + i) * n + lo, m);
+			}
+			return;
+		}
+		// T = diag(T1, T2) + |beta| * u * u' with u = e(n1 - 1) + sign(beta) * e(n1)
+		final int mid = lo + m / 2;
+		final double beta = e[mid - 1];
+		d[mid - 1] -= Math.abs(beta);
+		d[mid] -= Math.abs(beta);
+		divideAndConquer(d, e, n, Z, lo, mid);
+		divideAndConquer(d, e, n, Z, mid, hi);
+		merge(d, Z, n, lo, mid, hi, beta);
+	}
+
+	// Eigen decomposition of Q*(D + rho*z*z')*Q' where Q = diag(Q1, Q2) holds the eigenvectors of the two halves.
+	// Small components of z and close eigenvalues are deflated, the remaining eigenvalues are the roots of the
+	// secular equation 1 + rho * sum(z(i)^2 / (d(i) - lambda)) = 0 and the eigenvectors are computed from the
+	// recomputed z of Gu and Eisenstat, which keeps them numerically orthogonal.
+	private static void merge(double[] d, double[] Z, int n, int lo, int mid, int hi, double beta) {
+		final int m = hi - lo;
+		final int n1 = mid - lo;
+		final double eps = ConstantsETK.DOUBLE_EPS;
+		final double sqrt2 = Math.sqrt(2.0);
+		double rho = 2.0 * Math.abs(beta);
+		double sign = beta >= 0.0 ? 1.0 : -1.0;
+
+		// Sort the eigenvalues of both halves in ascending order, the columns of Q follow them.
+		Integer[] order = new Integer[m];
+		for (int i = 0; i < m; ++i) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (p, q) -> Double.compare(d[lo + p], d[lo + q]));
+		double[] ds = new double[m];
+		double[] z = new double[m];
+		double[] Q = new double[m * m];
+		// Whether the columns of Q have non-zeros in the rows of the first and of the second half
+		boolean[] top = new boolean[m];
+		boolean[] bottom = new boolean[m];
+		for (int c = 0; c < m; ++c) {
+			int p = order[c];
+			ds[c] = d[lo + p];
+			top[c] = p < n1;
+			bottom[c] = p >= n1;
+			if (p < n1) {
+				z[c] = Z[(mid - 1) * n + lo + p] / sqrt2;
+				for (int r = 0; r < n1; ++r) {
+					Q[r * m + c] = Z[(lo + r) * n + lo + p];
+				}
+			} else {
+				z[c] = sign * Z[mid * n + lo + p] / sqrt2;
+				for (int r = n1; r < m; ++r) {
+					Q[r * m + c] = Z[(lo + r) * n + lo + p];
+				}
+			}
+		}
+
+		// Deflation
+		double dmax = 0.0;
+		double zmax = 0.0;
+		for (int i = 0; i < m; ++i) {
+			dmax = Math.max(dmax, Math.abs(ds[i]));
+			zmax = Math.max(zmax, Math.abs(z[i]));
+		}
+		final double tol = 8.0 * eps * Math.max(dmax, zmax);
+		boolean[] deflated = new boolean[m];
+		int[] kept = new int[m];
+		int K = 0;
+		int prev = -1;
+		for (int j = 0; j < m; ++j) {
+			if (rho * Math.abs(z[j]) <= tol) {
+				deflated[j] = true;
+				continue;
+			}
+			if (prev == -1) {
+				prev = j;
+				continue;
+			}
+			double s = z[prev];
+			double c = z[j];
+			double t = MathETK.hypot(c, s);
+			double gap = ds[j] - ds[prev];
+			c /= t;
+			s = -s / t;
+			if (Math.abs(gap * c * s) <= tol) {
+				// Rotate z(prev) into z(j), ds(prev) becomes an eigenvalue
+				z[j] = t;
+				z[prev] = 0.0;
+				for (int r = 0; r < m; ++r) {
+					double x = Q[r * m + prev];
+					double y = Q[r * m + j];
+					Q[r * m + prev] = c * x + s * y;
+					Q[r * m + j] = c * y - s * x;
+				}
+				top[j] |= top[prev];
+				bottom[j] |= bottom[prev];
+				double dp = ds[prev] * c * c + ds[j] * s * s;
+				ds[j] = ds[prev] * s * s + ds[j] * c * c;
+				ds[prev] = dp;
+				deflated[prev] = true;
+			} else {
+				kept[K++] = prev;
+			}
+			prev = j;
+		}
+		if (prev != -1) {
+			kept[K++] = prev;
+		}
+
+		double[] lambda = new double[m];
+		double[] vectors = new double[m * m];
+		if (K > 0) {
+			double[] dk = new double[K];
+			double[] wk = new double[K];
+			for (int i = 0; i < K; ++i) {
+				dk[i] = ds[kept[i]];
+				wk[i] = z[kept[i]];
+			}
+			int[] origin = new int[K];
+			double[] tau = new double[K];
+			for (int j = 0; j < K; ++j) {
+				secularRoot(j, dk, wk, rho, origin, tau);
+			}
+
+			// Gu and Eisenstat: z(i)^2 = prod(lambda(j) - d(i)) / (rho * prod(d(j) - d(i)), j != i)
+			double[] zhat = new double[K];
+			for (int i = 0; i < K; ++i) {
+				double p = -difference(dk, i, origin, tau, K - 1) / rho;
+				for (int j = 0; j < i; ++j) {
+					p *= -difference(dk, i, origin, tau, j) / (dk[j] - dk[i]);
+				}
+				for (int j = i; j < K - 1; ++j) {
+					p *= -difference(dk, i, origin, tau, j) / (dk[j + 1] - dk[i]);
+				}
+				zhat[i] = Math.copySign(Math.sqrt(Math.abs(p)), wk[i]);
+			}
+			// Eigenvectors of D + rho*z*z', u(i) = z(i) / (d(i) - lambda)
+			double[] U = new double[K * K];
+			for (int j = 0; j < K; ++j) {
+				double nrm = 0.0;
+				for (int i = 0; i < K; ++i) {
+					double u = zhat[i] / difference(dk, i, origin, tau, j);
+					U[i * K + j] = u;
+					nrm = MathETK.hypot(nrm, u);
+				}
+				for (int i = 0; i < K; ++i) {
+					U[i * K + j] /= nrm;
+				}
+				lambda[j] = dk[origin[j]] + tau[j];
+			}
+			// Q*U one half of the rows at a time, skipping the columns of Q that are zero in that half
+			multiplyHalf(Q, U, kept, top, m, K, 0, n1, vectors);
+			multiplyHalf(Q, U, kept, bottom, m, K, n1, m, vectors);
+		}
+		// The deflated eigenpairs go after the secular ones, then everything is sorted
+		int c = K;
+		for (int j = 0; j < m; ++j) {
+			if (deflated[j]) {
+				lambda[c] = ds[j];
+				for (int r = 0; r < m; ++r) {
+					vectors[r * m + c] = Q[r * m + j];
+				}
+				++c;
+			}
+		}
+		sort(lambda, vectors, m, m);
+		System.arraycopy(lambda, 0, d, lo, m);
+		for (int r = 0; r < m; ++r) {
+			System.arraycopy(vectors, r * m, Z, (lo + r) * n + lo, m);
+		}
+	}
+
+	// Rows r0 : r1 - 1 of Q(:, kept) * U into the m x m matrix X, using only the columns marked as non-zero.
+	private static void multiplyHalf(double[] Q, double[] U, int[] kept, boolean[] nonZero, int m, int K, int r0,
+			int r1, double[] X) {
+		int[] columns = new int[K];
+		int nc = 0;
+		for (int c = 0; c < K; ++c) {
+			if (nonZero[kept[c]]) {
+				columns[nc++] = c;
+			}
+		}
+		final int rows = r1 - r0;
+		if (rows == 0) {
+			return;
+		}
+		double[] Qh = new double[rows * nc];
+		double[] Uh = new double[nc * K];
+		for (int r = 0; r < rows; ++r) {
+			for (int c = 0; c < nc; ++c) {
+				Qh[r * nc + c] = Q[(r0 + r) * m + kept[columns[c]]];
+			}
+		}
+		for (int c = 0; c < nc; ++c) {
+			System.arraycopy(U, columns[c] * K, Uh, c * K, K);
+		}
+		Gemm.gemm(rows, K, nc, 1.0, Qh, 0, nc, Uh, 0, K, 0.0, X, r0 * m, m);
+	}
+
+	// d(i) - lambda(j), computed from the pole closest to lambda(j) to keep the relative accuracy.
+	private static double difference(double[] dk, int i, int[] origin, double[] tau, int j) {
+		return (dk[i] - dk[origin[j]]) - tau[j];
+	}
+
+	// The j-th root of 1 + rho * sum(w(i)^2 / (d(i) - lambda)) = 0 for increasing d and rho > 0. The root is returned
+	// as lambda = d(origin) + tau where d(origin) is the closest pole. The iteration fits a rational function with
+	// the two poles adjacent to the root (the fixed weight method) and falls back to bisection when the step leaves
+	// the bracket.
+	private static void secularRoot(int j, double[] dk, double[] wk, double rho, int[] origin, double[] tau) {
+		final int K = dk.length;
+		final double eps = ConstantsETK.DOUBLE_EPS;
+		final boolean last = j == K - 1;
+		int o;
+		double lo;
+		double hi;
+		if (last) {
+			double sum = 0.0;
+			for (int i = 0; i < K; ++i) {
+				sum += wk[i] * wk[i];
+			}
+			o = j;
+			lo = 0.0;
+			hi = rho * sum;
+		} else {
+			double half = 0.5 * (dk[j + 1] - dk[j]);
+			double f = 1.0;
+			for (int i = 0; i < K; ++i) {
+				f += rho * wk[i] * wk[i] / ((dk[i] - dk[j]) - half);
+			}
+			if (f >= 0.0) {
+				o = j;
+				lo = 0.0;
+				hi = half;
+			} else {
+				o = j + 1;
+				lo = -half;
+				hi = 0.0;
+			}
+		}
+		double t = 0.5 * (lo + hi);
+		for (int iter = 0; iter < 100; ++iter) {
+			double psi = 0.0;
+			double dpsi = 0.0;
+			double phi = 0.0;
+			double dphi = 0.0;
+			double err = 0.0;
+			for (int i = 0; i < K; ++i) {
+				double delta = (dk[i] - dk[o]) - t;
+				double term = rho * wk[i] * wk[i] / delta;
+				err += Math.abs(term);
+				if (i <= j) {
+					psi += term;
+					dpsi += term / delta;
+				} else {
+					phi += term;
+					dphi += term / delta;
+				}
+			}
+			double f = 1.0 + psi + phi;
+			if (f < 0.0) {
+				lo = t;
+			} else {
+				hi = t;
+			}
+			if (Math.abs(f) <= 8.0 * eps * (1.0 + err) || hi - lo <= 2.0 * eps * Math.max(Math.abs(lo), Math.abs(hi))) {
+				break;
+			}
+			double dj = (dk[j] - dk[o]) - t;
+			double eta;
+			if (last) {
+				double c = f - dj * dpsi;
+				eta = c > 0.0 ? dj + dj * dj * dpsi / c : Double.NaN;
+			} else {
+				double dj1 = (dk[j + 1] - dk[o]) - t;
+				double a = (dj + dj1) * f - dj * dj1 * (dpsi + dphi);
+				double b = dj * dj1 * f;
+				double c = f - dj * dpsi - dj1 * dphi;
+				if (c == 0.0) {
+					eta = b / a;
+				} else {
+					double disc = Math.sqrt(Math.abs(a * a - 4.0 * b * c));
+					eta = a <= 0.0 ? (a - disc) / (2.0 * c) : 2.0 * b / (a + disc);
+				}
+			}
+			double next = t + eta;
+			if (!(next > lo && next < hi)) {
+				next = 0.5 * (lo + hi);
+			}
+			if (next == t) {
+				break;
+			}
+			t = next;
+		}
+		origin[j] = o;
+		tau[j] = t;
+	}
+
+	/*
+	 * ------------------------ Bisection and inverse iteration ------------------------
+	 */
+
+	// Interval containing all the eigenvalues of the tridiagonal.
+	private static double[] gershgorin(double[] d, double[] e, double pivmin) {
+		final int n = d.length;
+		double gl = Double.POSITIVE_INFINITY;
+		double gu = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; ++i) {
+			double r = (i > 0 ? Math.abs(e[i - 1]) : 0.0) + (i < n - 1 ? Math.abs(e[i]) : 0.0);
+			gl = Math.min(gl, d[i] - r);
+			gu = Math.max(gu, d[i] + r);
+		}
+		double bnorm = Math.max(Math.abs(gl), Math.abs(gu));
+		double margin = 2.0 * ConstantsETK.DOUBLE_EPS * bnorm * n + 2.0 * pivmin;
+		return new double[] { gl - margin, gu + margin };
+	}
+
+	// Number of eigenvalues of the tridiagonal less than x, from the signs of the pivots of T - x*I.
+	private static int sturmCount(double[] d, double[] e2, double x, double pivmin) {
+		int count = 0;
+		double q = d[0] - x;
+		if (Math.abs(q) < pivmin) {
+			q = -pivmin;
+		}
+		if (q < 0.0) {
+			++count;
+		}
+		for (int i = 1; i < d.length; ++i) {
+			q = d[i] - x - e2[i - 1] / q;
+			if (Math.abs(q) < pivmin) {
+				q = -pivmin;
+			}
+			if (q < 0.0) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	// The k-th smallest eigenvalue of the tridiagonal by bisection of the Gershgorin interval.
+	private static double bisect(double[] d, double[] e2, int k, double lo, double hi, double pivmin) {
+		final double eps = ConstantsETK.DOUBLE_EPS;
+		while (hi - lo > 2.0 * eps * Math.max(Math.abs(lo), Math.abs(hi)) + pivmin) {
+			double mid = 0.5 * (lo + hi);
+			if (mid == lo || mid == hi) {
+				break;
+			}
+			if (sturmCount(d, e2, mid, pivmin) > k) {
+				hi = mid;
+			} else {
+				lo = mid;
+			}
+		}
+		return 0.5 * (lo + hi);
+	}
+
+	// Eigenvectors of the tridiagonal for the ascending eigenvalues w by inverse iteration (LAPACK's xSTEIN). The
+	// vectors of eigenvalues closer than 1e-3 * ||T|| are kept orthogonal to each other with Gram-Schmidt. The
+	// vectors are stored in the columns of the n x w.length matrix Z.
+	private static void inverseIteration(double[] d, double[] e, double[] w, double[] Z) {
+		final int n = d.length;
+		final int m = w.length;
+		final double eps = ConstantsETK.DOUBLE_EPS;
+		double onenrm = 0.0;
+		for (int i = 0; i < n; ++i) {
+			double r = Math.abs(d[i]) + (i > 0 ? Math.abs(e[i - 1]) : 0.0) + (i < n - 1 ? Math.abs(e[i]) : 0.0);
+			onenrm = Math.max(onenrm, r);
+		}
+		if (onenrm == 0.0) {
+			// T is zero, any orthonormal basis will do
+			for (int j = 0; j < m; ++j) {
+				Z[j * m + j] = 1.0;
+			}
+			return;
+		}
+		final double ortol = 1e-3 * onenrm;
+		final double dtpcrt = Math.sqrt(0.1 / n);
+		Random random = new Random(1);
+		double[] u0 = new double[n];
+		double[] u1 = new double[n];
+		double[] u2 = new double[n];
+		double[] l = new double[n];
+		boolean[] swap = new boolean[n];
+		double[] b = new double[n];
+		int first = 0;
+		double xjm = 0.0;
+		for (int j = 0; j < m; ++j) {
+			double xj = w[j];
+			if (j > 0) {
+				if (xj - w[j - 1] >= ortol) {
+					first = j;
+				}
+				double pertol = 10.0 * Math.abs(eps * xj);
+				if (xj - xjm < pertol) {
+					xj = xjm + pertol;
+				}
+			}
+			xjm = xj;
+			factorShifted(d, e, xj, u0, u1, u2, l, swap, eps * onenrm);
+
+			for (int i = 0; i < n; ++i) {
+				b[i] = 2.0 * random.nextDouble() - 1.0;
+			}
+			// Iterate until the solution grows enough, then twice more
+			int accepted = 0;
+			for (int iter = 0; iter < 5 && accepted < 3; ++iter) {
+				double asum = 0.0;
+				for (int i = 0; i < n; ++i) {
+					asum += Math.abs(b[i]);
+				}
+				double scl = n * onenrm * Math.max(eps, Math.abs(u0[n - 1])) / Math.max(asum, Double.MIN_NORMAL);
+				for (int i = 0; i < n; ++i) {
+					b[i] *= scl;
+				}
+				solveShifted(u0, u1, u2, l, swap, b);
+				// Reorthogonalize against the vectors of the cluster
+				for (int c = first; c < j; ++c) {
+					double s = 0.0;
+					for (int i = 0; i < n; ++i) {
+						s += b[i] * Z[i * m + c];
+					}
+					for (int i = 0; i < n; ++i) {
+						b[i] -= s * Z[i * m + c];
+					}
+				}
+				double amax = 0.0;
+				for (int i = 0; i < n; ++i) {
+					amax = Math.max(amax, Math.abs(b[i]));
+				}
+				if (amax >= dtpcrt) {
+					++accepted;
+				}
+			}
+			double nrm = 0.0;
+			int imax = 0;
+			for (int i = 0; i < n; ++i) {
+				nrm = MathETK.hypot(nrm, b[i]);
+				if (Math.abs(b[i]) > Math.abs(b[imax])) {
+					imax = i;
+				}
+			}
+			double scl = b[imax] < 0.0 ? -1.0 / nrm : 1.0 / nrm;
+			for (int i = 0; i < n; ++i) {
+				Z[i * m + j] = b[i] * scl;
+			}
+		}
+	}
+
+	// LU factorization with partial pivoting of T - x*I. U has the diagonals u0, u1 and u2, l holds the multipliers
+	// and swap(i) tells whether rows i and i + 1 were interchanged. Zero pivots are replaced by tiny.
+	private static void factorShifted(double[] d, double[] e, double x, double[] u0, double[] u1, double[] u2,
+			double[] l, boolean[] swap, double tiny) {
+		final int n = d.length;
+		if (tiny == 0.0) {
+			tiny = Double.MIN_NORMAL;
+		}
+		double p = d[0] - x;
+		double q = n > 1 ? e[0] : 0.0;
+		for (int i = 0; i < n - 1; ++i) {
+			double c = e[i];
+			double a = d[i + 1] - x;
+			double bn = i + 1 < n - 1 ? e[i + 1] : 0.0;
+			if (Math.abs(p) >= Math.abs(c)) {
+				if (p == 0.0) {
+					p = tiny;
+				}
+				swap[i] = false;
+				u0[i] = p;
+				u1[i] = q;
+				u2[i] = 0.0;
+				l[i] = c / p;
+				p = a - l[i] * q;
+				q = bn;
+			} else {
+				swap[i] = true;
+				u0[i] = c;
+				u1[i] = a;
+				u2[i] = bn;
+				l[i] = p / c;
+				p = q - l[i] * a;
+				q = -l[i] * bn;
+			}
+		}
+		if (p == 0.0) {
+			p = tiny;
+		}
+		u0[n - 1] = p;
+		swap[n - 1] = false;
+	}
+
+	// Solves (T - x*I)*y = b in place with the factorization of factorShifted.
+	private static void solveShifted(double[] u0, double[] u1, double[] u2, double[] l, boolean[] swap, double[] b) {
+		final int n = b.length;
+		for (int i = 0; i < n - 1; ++i) {
+			if (swap[i]) {
+				double t = b[i];
+				b[i] = b[i + 1];
+				b[i + 1] = t;
+			}
+			b[i + 1] -= l[i] * b[i];
+		}
+		b[n - 1] /= u0[n - 1];
+		if (n > 1) {
+			b[n - 2] = (b[n - 2] - u1[n - 2] * b[n - 1]) / u0[n - 2];
+		}
+		for (int i = n - 3; i >= 0; --i) {
+			b[i] = (b[i] - u1[i] * b[i + 1] - u2[i] * b[i + 2]) / u0[i];
+		}
+	}
+
+	/*
+	 * ------------------------ Public Methods ------------------------
+	 */
+
+	/**
+	 * Return the eigenvalues
+	 *
+	 * @return The computed eigenvalues in ascending order.
+	 */
+	public double[] getEigenvalues() {
+		return _d.clone();
+	}
+
+	/**
+	 * Were the eigenvectors computed?
+	 *
+	 * @return true if the eigenvectors are available through {@link #getV()}.
+	 */
+	public boolean hasEigenvectors() {
+		return _V != null;
+	}
+
+	/**
+	 * Return the eigenvector matrix
+	 *
+	 * @return V, an n by m matrix whose j-th column is the eigenvector of the j-th eigenvalue.
+	 * @exception IllegalStateException
+	 *                If the eigenvectors were not computed.
+	 */
+	public Matrix getV() {
+		if (_V == null) {
+			throw new IllegalStateException("The eigenvectors were not computed.");
+		}
+		return new Matrix(_V.clone(), _dim, _d.length);
+	}
+
+	/**
+	 * Return the diagonal eigenvalue matrix
+	 *
+	 * @return D
+	 */
+	public Matrix getD() {
+		final int m = _d.length;
+		Matrix X = new Matrix(m, m);
+		double[] D = X.getArray();
+		for (int i = 0; i < m; ++i) {
+			D[i * m + i] = _d[i];
+		}
+		return X;
+	}
+}
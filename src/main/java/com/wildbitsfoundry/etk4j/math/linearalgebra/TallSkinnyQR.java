@@ -0,0 +1,173 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tall and skinny QR decomposition (TSQR).
+ * <P>
+ * For an m-by-n matrix A with m much larger than n, the rows of A are split into blocks that are factored
+ * independently, and the triangular factors are combined pairwise by factoring the 2n-by-n matrices formed by
+ * stacking them, until a single n-by-n triangular factor R remains. The blocks are factored on the common fork-join
+ * pool, and only O(n<sup>2</sup>) memory per block is needed to combine the results.
+ * <P>
+ * The orthogonal factor is not formed. Least squares problems are solved from the triangular factor of the augmented
+ * matrix [A B], which contains both R and Q'*B.
+ *
+ * @see <a href="https://doi.org/10.1137/080731992">Demmel, Grigori, Hoemmen and Langou, Communication-optimal
+ * parallel and sequential QR and LU factorizations</a>
+ */
+public class TallSkinnyQR {
+	private final int _cols;
+	private final double[] _R;
+
+	/**
+	 * Minimum number of rows factored by a single task.
+	 */
+	static final int LEAF_ROWS = 4096;
+
+	/**
+	 * TSQR decomposition.
+	 *
+	 * @param A
+	 *            The matrix to decompose. It must have at least as many rows as columns.
+	 * @exception IllegalArgumentException
+	 *                If the matrix has fewer rows than columns.
+	 */
+	public TallSkinnyQR(Matrix A) {
+		if (A.getRowCount() < A.getColumnCount()) {
+			throw new IllegalArgumentException("Matrix must have at least as many rows as columns.");
+		}
+		_cols = A.getColumnCount();
+		_R = factor(A.getArray(), A.getRowCount(), _cols);
+	}
+
+	// Shapes for which TSQR is used by Matrix.solve: at least two leaves and a small number of columns.
+	static boolean isTallSkinny(int rows, int cols) {
+		return rows >= 2 * LEAF_ROWS && rows >= 32 * cols;
+	}
+
+	private static double[] factor(double[] data, int rows, int cols) {
+		TsqrTask task = new TsqrTask(data, 0, rows, cols, Math.max(LEAF_ROWS, 2 * cols));
+		if (rows < 2 * task.leaf) {
+			return task.compute();
+		}
+		return ForkJoinPool.commonPool().invoke(task);
+	}
+
+	/**
+	 * Is the matrix full rank?
+	 *
+	 * @return true if R, and hence A, has full rank.
+	 */
+	public boolean isFullRank() {
+		for (int j = 0; j < _cols; ++j) {
+			if (_R[j * _cols + j] == 0.0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the upper triangular factor
+	 *
+	 * @return R
+	 */
+	public Matrix getR() {
+		return new Matrix(_R.clone(), _cols, _cols);
+	}
+
+	/**
+	 * Least squares solution of A*X = B using the TSQR decomposition of [A B].
+	 *
+	 * @param A
+	 *            A matrix with at least as many rows as columns.
+	 * @param B
+	 *            A Matrix with as many rows as A and any number of columns.
+	 * @return X that minimizes the two norm of A*X-B.
+	 * @exception IllegalArgumentException
+	 *                Matrix row dimensions must agree.
+	 * @exception RuntimeException
+	 *                Matrix is rank deficient.
+	 */
+	public static Matrix solve(Matrix A, Matrix B) {
+		final int rows = A.getRowCount();
+		final int n = A.getColumnCount();
+		final int nx = B.getColumnCount();
+		if (B.getRowCount() != rows) {
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		}
+		if (rows < n) {
+			throw new IllegalArgumentException("Matrix must have at least as many rows as columns.");
+		}
+		final int w = n + nx;
+		double[] a = A.getArray();
+		double[] b = B.getArray();
+		double[] augmented = new double[rows * w];
+		for (int i = 0; i < rows; ++i) {
+			System.arraycopy(a, i * n, augmented, i * w, n);
+			System.arraycopy(b, i * nx, augmented, i * w + n, nx);
+		}
+		// The first n rows of the triangular factor of [A B] are [R Q'*B]
+		double[] R = factor(augmented, rows, w);
+		for (int j = 0; j < n; ++j) {
+			if (R[j * w + j] == 0.0) {
+				throw new RuntimeException("Matrix is rank deficient.");
+			}
+		}
+
+		// Solve R11*X = R12
+		double[] X = new double[n * nx];
+		for (int k = n - 1; k >= 0; --k) {
+			for (int j = 0; j < nx; ++j) {
+				double s = R[k * w + n + j];
+				for (int i = k + 1; i < n; ++i) {
+					s -= R[k * w + i] * X[i * nx + j];
+				}
+				X[k * nx + j] = s / R[k * w + k];
+			}
+		}
+		return new Matrix(X, n, nx);
+	}
+
+	/**
+	 * Factors rows {@code [row0, row0 + rows)} of A and returns the cols x cols triangular factor. Blocks larger
+	 * than the leaf size are split in half and the two factors are combined by factoring them stacked.
+	 */
+	private static final class TsqrTask extends RecursiveTask<double[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] data;
+		private final int row0, rows, cols;
+		private final int leaf;
+
+		TsqrTask(double[] data, int row0, int rows, int cols, int leaf) {
+			this.data = data;
+			this.row0 = row0;
+			this.rows = rows;
+			this.cols = cols;
+			this.leaf = leaf;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (rows < 2 * leaf) {
+				double[] block = new double[rows * cols];
+				System.arraycopy(data, row0 * cols, block, 0, rows * cols);
+				return QRDecomposition.upperTriangle(block, rows, cols);
+			}
+			int half = rows / 2;
+			TsqrTask top = new TsqrTask(data, row0, half, cols, leaf);
+			TsqrTask bottom = new TsqrTask(data, row0 + half, rows - half, cols, leaf);
+			bottom.fork();
+			double[] R1 = top.compute();
+			double[] R2 = bottom.join();
+
+			double[] stacked = new double[2 * cols * cols];
+			System.arraycopy(R1, 0, stacked, 0, R1.length);
+			System.arraycopy(R2, 0, stacked, R1.length, R2.length);
+			return QRDecomposition.upperTriangle(stacked, 2 * cols, cols);
+		}
+	}
+}
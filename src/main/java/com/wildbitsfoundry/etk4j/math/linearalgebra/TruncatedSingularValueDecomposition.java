@@ -0,0 +1,321 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import java.util.Random;
+
+/**
+ * Truncated Singular Value Decomposition.
+ * <P>
+ * For an m-by-n matrix A, the k largest singular values and, optionally, the
+ * corresponding singular vectors are approximated so that A ~ U*S*V', where U
+ * is m-by-k, S is k-by-k and V is n-by-k. The range of A is sampled by a
+ * randomized range finder: A is applied to k + p Gaussian vectors, and power
+ * iterations with A*A' sharpen the decay of the spectrum before the sample is
+ * orthonormalized into Q. The small singular value decomposition of Q'*A then
+ * gives the triplets. Besides A, only O((m + n) * (k + p)) memory is needed
+ * and A is accessed through matrix products only.
+ * <P>
+ * The accuracy depends on the decay of the singular values past the k-th one.
+ * Increasing the number of power iterations improves the approximation of
+ * matrices with slowly decaying spectra. The Gaussian vectors are drawn from a
+ * fixed seed, so the results are reproducible.
+ *
+ * @see <a href="https://doi.org/10.1137/090771806">Halko, Martinsson and
+ *      Tropp, Finding structure with randomness: probabilistic algorithms for
+ *      constructing approximate matrix decompositions</a>
+ */
+public class TruncatedSingularValueDecomposition {
+	private final int _rows, _cols, _k;
+	private final double[] _s;
+	private final double[] _U, _V;
+
+	/**
+	 * Default number of extra samples of the range of A.
+	 */
+	public static final int DEFAULT_OVERSAMPLING = 10;
+
+	/**
+	 * Default number of power iterations.
+	 */
+	public static final int DEFAULT_POWER_ITERATIONS = 2;
+
+	/**
+	 * Truncated singular value decomposition with the default oversampling
+	 * and number of power iterations.
+	 *
+	 * @param A
+	 *            Rectangular matrix
+	 * @param k
+	 *            The number of singular triplets to compute.
+	 * @exception IllegalArgumentException
+	 *                If {@code 1 <= k <= min(m, n)} does not hold.
+	 */
+	public TruncatedSingularValueDecomposition(Matrix A, int k) {
+		this(A, k, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS, true);
+	}
+
+	/**
+	 * Truncated singular value decomposition with the default oversampling
+	 * and number of power iterations.
+	 *
+	 * @param A
+	 *            Rectangular matrix
+	 * @param k
+	 *            The number of singular values to compute.
+	 * @param computeVectors
+	 *            {@code false} to compute the singular values only.
+	 * @exception IllegalArgumentException
+	 *                If {@code 1 <= k <= min(m, n)} does not hold.
+	 */
+	public TruncatedSingularValueDecomposition(Matrix A, int k, boolean computeVectors) {
+		this(A, k, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS, computeVectors);
+	}
+
+	/**
+	 * Truncated singular value decomposition.
+	 *
+	 * @param A
+	 *            Rectangular matrix
+	 * @param k
+	 *            The number of singular values to compute.
+	 * @param oversampling
+	 *            The number of samples of the range of A in excess of k.
+	 * @param powerIterations
+	 *            The number of power iterations.
+	 * @param computeVectors
+	 *            {@code false} to compute the singular values only.
+	 * @exception IllegalArgumentException
+	 *                If {@code 1 <= k <= min(m, n)} does not hold or if the
+	 *                oversampling or the number of power iterations are
+	 *                negative.
+	 */
+	public TruncatedSingularValueDecomposition(Matrix A, int k, int oversampling, int powerIterations,
+			boolean computeVectors) {
+		final int m = A.getRowCount();
+		final int n = A.getColumnCount();
+		if (k < 1 || k > Math.min(m, n)) {
+			throw new IllegalArgumentException("The number of singular values must satisfy 1 <= k <= min(m, n).");
+		}
+		if (oversampling < 0 || powerIterations < 0) {
+			throw new IllegalArgumentException("The oversampling and the number of power iterations cannot be negative.");
+		}
+		_rows = m;
+		_cols = n;
+		_k = k;
+		final int l = Math.min(k + oversampling, Math.min(m, n));
+		double[] a = A.getArray();
+
+		// Sample the range of A
+		Random random = new Random(1);
+		double[] omega = new double[n * l];
+		for (int i = 0; i < omega.length; ++i) {
+			omega[i] = random.nextGaussian();
+		}
+		double[] Y = new double[m * l];
+		Gemm.gemm(m, l, n, 1.0, a, 0, n, omega, 0, l, 0.0, Y, 0, l);
+		double[] Q = orthonormalize(Y, m, l);
+
+		// Power iterations, orthonormalizing every product to preserve the
+		// small singular values from round off
+		double[] Z = new double[n * l];
+		for (int q = 0; q < powerIterations; ++q) {
+			Gemm.gemm(n, l, m, 1.0, a, 0, 1, n, Q, 0, l, 1, 0.0, Z, 0, l);
+			double[] W = orthonormalize(Z, n, l);
+			Gemm.gemm(m, l, n, 1.0, a, 0, n, W, 0, l, 0.0, Y, 0, l);
+			Q = orthonormalize(Y, m, l);
+		}
+
+		// B' = A'*Q = Ub*S*Vb' so A ~ Q*B = (Q*Vb)*S*Ub'
+		Gemm.gemm(n, l, m, 1.0, a, 0, 1, n, Q, 0, l, 1, 0.0, Z, 0, l);
+		SingularValueDecomposition svd = new SingularValueDecomposition(new Matrix(Z, n, l), computeVectors);
+		_s = new double[k];
+		System.arraycopy(svd.getSingularValues(), 0, _s, 0, k);
+		if (computeVectors) {
+			double[] Ub = svd.getU().getArray();
+			double[] Vb = svd.getV().getArray();
+			_U = new double[m * k];
+			Gemm.gemm(m, k, l, 1.0, Q, 0, l, Vb, 0, l, 0.0, _U, 0, k);
+			_V = new double[n * k];
+			for (int i = 0; i < n; ++i) {
+				System.arraycopy(Ub, i * l, _V, i * k, k);
+			}
+		} else {
+			_U = null;
+			_V = null;
+		}
+	}
+
+	/**
+	 * Orthonormal basis of the columns of the row packed rows-by-cols matrix Y
+	 * by Householder reflections. Y is overwritten by the reflections.
+	 * Columns that are linearly dependent on the previous ones are replaced by
+	 * arbitrary orthonormal directions.
+	 */
+	private static double[] orthonormalize(double[] Y, int rows, int cols) {
+		double[] w = new double[cols];
+		for (int k = 0; k < cols; ++k) {
+			double scale = 0.0;
+			for (int i = k; i < rows; ++i) {
+				scale = Math.max(scale, Math.abs(Y[i * cols + k]));
+			}
+			if (scale == 0.0) {
+				continue;
+			}
+			double nrm = 0.0;
+			for (int i = k; i < rows; ++i) {
+				double y = Y[i * cols + k] / scale;
+				nrm += y * y;
+			}
+			nrm = scale * Math.sqrt(nrm);
+			if (Y[k * cols + k] < 0) {
+				nrm = -nrm;
+			}
+			for (int i = k; i < rows; ++i) {
+				Y[i * cols + k] /= nrm;
+			}
+			Y[k * cols + k] += 1.0;
+			applyReflection(Y, rows, cols, k, Y, k + 1, w);
+		}
+
+		// Q = H(0)*H(1)*...*H(cols - 1)*[I; 0]
+		double[] Q = new double[rows * cols];
+		for (int i = 0; i < cols; ++i) {
+			Q[i * cols + i] = 1.0;
+		}
+		for (int k = cols - 1; k >= 0; --k) {
+			if (Y[k * cols + k] != 0.0) {
+				applyReflection(Y, rows, cols, k, Q, k, w);
+			}
+		}
+		return Q;
+	}
+
+	// Applies the reflection stored in column k of V to columns j0 and up of X, traversing the rows contiguously.
+	private static void applyReflection(double[] V, int rows, int cols, int k, double[] X, int j0, double[] w) {
+		for (int j = j0; j < cols; ++j) {
+			w[j] = 0.0;
+		}
+		for (int i = k; i < rows; ++i) {
+			double vi = V[i * cols + k];
+			for (int j = j0; j < cols; ++j) {
+				w[j] += vi * X[i * cols + j];
+			}
+		}
+		for (int j = j0; j < cols; ++j) {
+			w[j] = -w[j] / V[k * cols + k];
+		}
+		for (int i = k; i < rows; ++i) {
+			double vi = V[i * cols + k];
+			for (int j = j0; j < cols; ++j) {
+				X[i * cols + j] += w[j] * vi;
+			}
+		}
+	}
+
+	/**
+	 * Were the singular vectors computed?
+	 *
+	 * @return {@code true} if U and V are available.
+	 */
+	public boolean hasSingularVectors() {
+		return _U != null;
+	}
+
+	/**
+	 * Return the k largest singular values in descending order.
+	 *
+	 * @return diagonal of S.
+	 */
+	public double[] getSingularValues() {
+		return _s.clone();
+	}
+
+	/**
+	 * Return the diagonal matrix of singular values
+	 *
+	 * @return S (k-by-k)
+	 */
+	public Matrix getS() {
+		Matrix S = new Matrix(_k, _k);
+		for (int i = 0; i < _k; ++i) {
+			S.set(i, i, _s[i]);
+		}
+		return S;
+	}
+
+	/**
+	 * Return the left singular vectors
+	 *
+	 * @return U (m-by-k)
+	 * @exception IllegalStateException
+	 *                If the singular vectors were not computed.
+	 */
+	public Matrix getU() {
+		checkVectors();
+		return new Matrix(_U.clone(), _rows, _k);
+	}
+
+	/**
+	 * Return the right singular vectors
+	 *
+	 * @return V (n-by-k)
+	 * @exception IllegalStateException
+	 *                If the singular vectors were not computed.
+	 */
+	public Matrix getV() {
+		checkVectors();
+		return new Matrix(_V.clone(), _cols, _k);
+	}
+
+	/**
+	 * Rank k approximation of A.
+	 *
+	 * @return U*S*V' (m-by-n)
+	 * @exception IllegalStateException
+	 *                If the singular vectors were not computed.
+	 */
+	public Matrix getApproximation() {
+		checkVectors();
+		double[] US = new double[_rows * _k];
+		for (int i = 0; i < _rows; ++i) {
+			for (int j = 0; j < _k; ++j) {
+				US[i * _k + j] = _U[i * _k + j] * _s[j];
+			}
+		}
+		double[] X = new double[_rows * _cols];
+		Gemm.gemm(_rows, _cols, _k, 1.0, US, 0, _k, 1, _V, 0, 1, _k, 0.0, X, 0, _cols);
+		return new Matrix(X, _rows, _cols);
+	}
+
+	/**
+	 * Two norm estimate
+	 *
+	 * @return max(S)
+	 */
+	public double norm2() {
+		return _s[0];
+	}
+
+	/**
+	 * Effective numerical rank estimate. The rank of A is only resolved up to
+	 * k, so a result equal to k means that the rank of A is at least k.
+	 *
+	 * @return Number of nonnegligible singular values among the k computed.
+	 */
+	public int rank() {
+		double eps = Math.pow(2.0, -52.0);
+		double tol = Math.max(_rows, _cols) * _s[0] * eps;
+		int r = 0;
+		for (int i = 0; i < _k; i++) {
+			if (_s[i] > tol) {
+				r++;
+			}
+		}
+		return r;
+	}
+
+	private void checkVectors() {
+		if (_U == null) {
+			throw new IllegalStateException("The singular vectors were not computed.");
+		}
+	}
+}
@@ -7,5 +7,6 @@ public enum OptimizerStatusType {
     ROOT_IS_NOT_BRACKETED,
     DERIVATIVE_WAS_ZERO,
     SECOND_INITIAL_GUESS_WAS_EQUAL_TO_FIRST_INITIAL_GUESS,
-    TOLERANCE_WAS_REACHED
+    TOLERANCE_WAS_REACHED,
+    BREAKDOWN
 }
@@ -9,6 +9,7 @@ import com.wildbitsfoundry.etk4j.math.functions.IntegrableFunction;
 import com.wildbitsfoundry.etk4j.math.functions.UnivariateFunction;
 import com.wildbitsfoundry.etk4j.math.linearalgebra.EigenvalueDecomposition;
 import com.wildbitsfoundry.etk4j.math.linearalgebra.Matrix;
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
 import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 import com.wildbitsfoundry.etk4j.util.DoubleArrays;
 
@@ -337,6 +338,50 @@ public class Polynomial implements UnivariateFunction, ComplexUnivariateFunction
         return result;
     }
 
+    /***
+     * Evaluates the polynomial at each point of an array using Horner's method
+     *
+     * @param z
+     *            The points at which to evaluate the polynomial.
+     * @return The values of the polynomial at {@code z}.
+     */
+    public ComplexArray evaluateAt(ComplexArray z) {
+        ComplexArray result = new ComplexArray(z.length());
+        this.evaluateAt(z, result);
+        return result;
+    }
+
+    /***
+     * Evaluates the polynomial at each point of an array using Horner's method. No memory is allocated.
+     *
+     * @param z
+     *            The points at which to evaluate the polynomial.
+     * @param out
+     *            The array where the values of the polynomial at {@code z} are stored. It can be {@code z} itself.
+     */
+    public void evaluateAt(ComplexArray z, ComplexArray out) {
+        if (z.length() != out.length()) {
+            throw new IllegalArgumentException("The lengths of the arrays must be equal.");
+        }
+        double[] zr = z.getReal();
+        double[] zi = z.getImag();
+        double[] outr = out.getReal();
+        double[] outi = out.getImag();
+        for (int i = 0; i < zr.length; ++i) {
+            double x = zr[i];
+            double y = zi[i];
+            double re = 0.0;
+            double im = 0.0;
+            for (double coef : coefficients) {
+                double t = re * x - im * y;
+                im = re * y + im * x;
+                re = t + coef;
+            }
+            outr[i] = re;
+            outi[i] = im;
+        }
+    }
+
     public Complex[] calculateRoots() {
         // lazy creation of roots
         if (roots == null) {
@@ -352,13 +397,9 @@ public class Polynomial implements UnivariateFunction, ComplexUnivariateFunction
                     roots = Formulas.quadraticFormula(coefficients[0], coefficients[1], coefficients[2]);
                     break;
                 default:
-                    // Use generalized eigenvalue decomposition to find the roots
-                    roots = new Complex[N];
+                    // The roots are the eigenvalues of the companion matrix, which is already upper Hessenberg
                     Matrix c = Matrix.companion(coefficients, N);
-                    EigenvalueDecomposition evd = c.eig();
-                    double[] realEig = evd.getRealEigenvalues();
-                    double[] imagEig = evd.getImagEigenvalues();
-                    roots = ComplexArrays.zip(realEig, imagEig);
+                    roots = EigenvalueDecomposition.hessenbergEigenvalues(c, true);
             }
         }
         // Defensive copy
@@ -609,6 +650,54 @@ public class Polynomial implements UnivariateFunction, ComplexUnivariateFunction
      * polyfromroots</a>
      */
     public static Complex polyvalFromRoots(Complex[] roots, Complex x) {
-        return ComplexArrays.product(ComplexArrays.subtractElementWise(x, roots));
+        double[] value = new double[2];
+        polyvalFromRoots(roots, x.real(), x.imag(), value);
+        return new Complex(value[0], value[1]);
+    }
+
+    /**
+     * Evaluate a {@code Polynomial} without allocating memory.
+     *
+     * @param roots The roots of the polynomial.
+     * @param real  The real part of the argument at which to evaluate the polynomial.
+     * @param imag  The imaginary part of the argument at which to evaluate the polynomial.
+     * @param out   Array of length 2 where the real and imaginary parts of the value of the polynomial are stored.
+     */
+    public static void polyvalFromRoots(Complex[] roots, double real, double imag, double[] out) {
+        double re = 1.0;
+        double im = 0.0;
+        for (Complex root : roots) {
+            double xr = real - root.real();
+            double xi = imag - root.imag();
+            double t = re * xr - im * xi;
+            im = re * xi + im * xr;
+            re = t;
+        }
+        out[0] = re;
+        out[1] = im;
+    }
+
+    /**
+     * Evaluate a {@code Polynomial} without allocating memory.
+     *
+     * @param roots The roots of the polynomial.
+     * @param real  The real part of the argument at which to evaluate the polynomial.
+     * @param imag  The imaginary part of the argument at which to evaluate the polynomial.
+     * @param out   Array of length 2 where the real and imaginary parts of the value of the polynomial are stored.
+     */
+    public static void polyvalFromRoots(ComplexArray roots, double real, double imag, double[] out) {
+        double[] rr = roots.getReal();
+        double[] ri = roots.getImag();
+        double re = 1.0;
+        double im = 0.0;
+        for (int i = 0; i < rr.length; ++i) {
+            double xr = real - rr[i];
+            double xi = imag - ri[i];
+            double t = re * xr - im * xi;
+            im = re * xi + im * xr;
+            re = t;
+        }
+        out[0] = re;
+        out[1] = im;
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.wildbitsfoundry.etk4j.math.polynomials;
 import com.wildbitsfoundry.etk4j.math.complex.Complex;
 import com.wildbitsfoundry.etk4j.math.functions.ComplexUnivariateFunction;
 import com.wildbitsfoundry.etk4j.math.functions.UnivariateFunction;
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
 import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 import com.wildbitsfoundry.etk4j.util.DoubleArrays;
 
@@ -170,6 +171,19 @@ public class RationalFunction implements UnivariateFunction, ComplexUnivariateFu
         return resultNum;
     }
 
+    /**
+     * Evaluate the rational function at each point of an array.
+     *
+     * @param z The points at which to evaluate the rational function.
+     * @return The values of the rational function at {@code z}.
+     */
+    public ComplexArray evaluateAt(ComplexArray z) {
+        ComplexArray result = numerator.evaluateAt(z);
+        ComplexArray den = denominator.evaluateAt(z);
+        result.divideEquals(den);
+        return result;
+    }
+
     private static double calculateZeroPoleGain(Complex[] zeros, Complex[] poles) {
         // Compute gain k
         Complex num = ComplexArrays.product(zeros).multiply(Math.pow(-1, zeros.length));
@@ -0,0 +1,149 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import java.util.stream.IntStream;
+
+/**
+ * The {@code BatchFFT} class transforms several signals of the same length in a single call.
+ * <P>
+ * The signals are stored contiguously in a pair of arrays with the real and
+ * imaginary parts of all the channels, in one of two layouts:
+ * <ul>
+ * <li>{@link Layout#CHANNEL_MAJOR}: the i-th sample of channel c is stored at
+ * {@code c * n + i}, i.e. one signal after the other.</li>
+ * <li>{@link Layout#INTERLEAVED}: the i-th sample of channel c is stored at
+ * {@code i * channels + c}, i.e. one frame after the other as acquired from
+ * synchronized sensors. For power of two lengths, blocks of
+ * {@value #CHANNEL_BLOCK} adjacent channels go through every butterfly pass
+ * together, so the innermost loop streams through contiguous memory.</li>
+ * </ul>
+ * The channels (or blocks of channels) can be transformed in parallel on the
+ * common fork-join pool. The plan is taken from {@link FFT#getInstance(int)}.
+ */
+public class BatchFFT {
+
+	/**
+	 * Layout of the channels in the data arrays.
+	 */
+	public enum Layout {
+		CHANNEL_MAJOR,
+		INTERLEAVED
+	}
+
+	/**
+	 * Number of adjacent channels of interleaved data processed together.
+	 */
+	public static final int CHANNEL_BLOCK = 16;
+
+	private final FFT _fft;
+	private final int _n;
+	private final int _channels;
+	private final Layout _layout;
+	private boolean _parallel = false;
+
+	/**
+	 * Constructs a {@code BatchFFT} for channel major data.
+	 * @param n The length of the signals.
+	 * @param channels The number of signals.
+	 */
+	public BatchFFT(int n, int channels) {
+		this(n, channels, Layout.CHANNEL_MAJOR);
+	}
+
+	/**
+	 * Constructs a {@code BatchFFT}.
+	 * @param n The length of the signals.
+	 * @param channels The number of signals.
+	 * @param layout The layout of the signals in the data arrays.
+	 */
+	public BatchFFT(int n, int channels, Layout layout) {
+		if(channels < 1) {
+			throw new IllegalArgumentException("The number of channels must be greater than zero.");
+		}
+		_fft = FFT.getInstance(n);
+		_n = n;
+		_channels = channels;
+		_layout = layout;
+	}
+
+	/**
+	 * Transform the channels in parallel on the common fork-join pool.
+	 * @param parallel {@code true} to transform in parallel. Defaults to {@code false}.
+	 * @return This {@code BatchFFT}.
+	 */
+	public BatchFFT parallel(boolean parallel) {
+		_parallel = parallel;
+		return this;
+	}
+
+	/**
+	 * The length of the signals.
+	 * @return n.
+	 */
+	public int getLength() {
+		return _n;
+	}
+
+	/**
+	 * The number of signals.
+	 * @return The number of channels.
+	 */
+	public int getChannelCount() {
+		return _channels;
+	}
+
+	/**
+	 * The layout of the signals in the data arrays.
+	 * @return The layout.
+	 */
+	public Layout getLayout() {
+		return _layout;
+	}
+
+	/**
+	 * Fast Fourier Transform of all the channels in place.
+	 * @param real The real part of the data of all the channels.
+	 * @param imag The imaginary part of the data of all the channels.
+	 */
+	public void direct(double[] real, double[] imag) {
+		if(real.length != imag.length) {
+			throw new IllegalArgumentException("Length mismatch between real and imag");
+		}
+		if(real.length != _n * _channels) {
+			throw new IllegalArgumentException(String.format("The lengths of the arrays must be equal to n * channels = %d.",
+					_n * _channels));
+		}
+		if(_layout == Layout.INTERLEAVED) {
+			final int blocks = (_channels + CHANNEL_BLOCK - 1) / CHANNEL_BLOCK;
+			IntStream range = IntStream.range(0, blocks);
+			(_parallel ? range.parallel() : range).forEach(b -> _fft.directInterleaved(real, imag, _channels,
+					b * CHANNEL_BLOCK, Math.min(_channels, (b + 1) * CHANNEL_BLOCK)));
+		} else {
+			IntStream range = IntStream.range(0, _channels);
+			(_parallel ? range.parallel() : range).forEach(c -> directChannel(real, imag, c));
+		}
+	}
+
+	private void directChannel(double[] real, double[] imag, int channel) {
+		double[] xr = new double[_n];
+		double[] xi = new double[_n];
+		System.arraycopy(real, channel * _n, xr, 0, _n);
+		System.arraycopy(imag, channel * _n, xi, 0, _n);
+		_fft.direct(xr, xi);
+		System.arraycopy(xr, 0, real, channel * _n, _n);
+		System.arraycopy(xi, 0, imag, channel * _n, _n);
+	}
+
+	/**
+	 * Inverse Fast Fourier Transform of all the channels in place.
+	 * @param real The real part of the data of all the channels.
+	 * @param imag The imaginary part of the data of all the channels.
+	 */
+	public void inverse(double[] real, double[] imag) {
+		this.direct(imag, real);
+		double factor = 1.0 / _n;
+		for (int i = 0; i < real.length; ++i) {
+			real[i] *= factor;
+			imag[i] *= factor;
+		}
+	}
+}
@@ -1,54 +1,240 @@
 package com.wildbitsfoundry.etk4j.signals.fft;
 
 import com.wildbitsfoundry.etk4j.math.complex.Complex;
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The {@code FFT} class provides and implementation of the Fast Fourier Transform.
+ * <P>
+ * Any length is supported. The transform is planned once per length when the
+ * {@code FFT} is constructed:
+ * <ul>
+ * <li>Powers of two use an in-place decimation in time with radix-4 passes
+ * (and a single radix-2 pass when log2(n) is odd) over a precomputed
+ * bit-reversal permutation. The twiddle factors of every pass are stored
+ * contiguously in the order the butterflies read them.</li>
+ * <li>Other lengths are factorized into radix 4, 2 and 3 stages and odd prime
+ * stages (5, 7, 11, ...) of a self sorting Stockham transform.</li>
+ * <li>Lengths with a prime factor larger than {@value #MAX_PRIME_FACTOR} are
+ * computed as a circular convolution of power of two length using Bluestein's
+ * chirp-z algorithm.</li>
+ * </ul>
+ * Lengths like 1000 = 2<sup>3</sup>5<sup>3</sup> or 44100 =
+ * 2<sup>2</sup>3<sup>2</sup>5<sup>2</sup>7<sup>2</sup> therefore don't need
+ * to be zero padded to a power of two.
+ * <P>
+ * Planning computes all the tables, so it is more expensive than a single
+ * transform. An {@code FFT} is immutable and the transforms don't share any
+ * mutable state, so a plan can be used by several threads at the same time.
+ * {@link #getInstance(int)} returns plans from a cache shared by the whole
+ * application, which avoids planning the same length over and over.
  * @see <a href="https://en.wikipedia.org/wiki/Fast_Fourier_transform">Fast Fourier Transform.</a>
+ * @see <a href="https://en.wikipedia.org/wiki/Chirp_Z-transform#Bluestein.27s_algorithm">Bluestein's algorithm.</a>
  */
 public class FFT {
 
-	private int _n;
-	private int _m;
+	/**
+	 * Largest prime factor that is transformed by a mixed-radix stage. Lengths
+	 * with larger prime factors use Bluestein's algorithm.
+	 */
+	public static final int MAX_PRIME_FACTOR = 64;
+
+	private static final ConcurrentMap<Integer, FFT> PLANS = new ConcurrentHashMap<>();
+
+	private final int _n;
+	private final int _m;
 
-	private double[] _cos;
-	private double[] _sin;
+	// Power of two plan. Pairs of indices swapped by the bit-reversal and, for
+	// every radix-4 pass, exp(-2 * pi * j * i / 2h) and exp(-2 * pi * j * i / 4h)
+	// interleaved for i = 0, ..., h - 1
+	private final int[] _swaps;
+	private final double[] _twiddles;
+
+	// Mixed-radix plan. The twiddle factors are exp(-2 * pi * j * i / n)
+	private final int[] _factors;
+	private final double[] _twiddleReal;
+	private final double[] _twiddleImag;
+
+	// Bluestein plan. The chirp is exp(-pi * j * k^2 / n)
+	private final FFT _convolution;
+	private final double[] _chirpReal;
+	private final double[] _chirpImag;
+	private final double[] _filterReal;
+	private final double[] _filterImag;
+
+	// Workspace of the Complex[] transforms, followed by the real and imaginary
+	// parts of the data
+	private final ThreadLocal<double[][]> _complexWorkspace = ThreadLocal.withInitial(() -> newWorkspace(2));
 
 	/**
 	 * Construcsts and instance of the {@code FFT} class.
-	 * @param n The length of the {@code FFT}. Must be a power of 2.
+	 * @param n The length of the {@code FFT}.
 	 */
 	public FFT(int n) {
+		if(n < 1) {
+			throw new IllegalArgumentException("n must be greater than zero");
+		}
+		int m = 0;
+		int[] swaps = null;
+		double[] twiddles = null;
+		int[] factors = null;
+		double[] twiddleReal = null;
+		double[] twiddleImag = null;
+		FFT convolution = null;
+		double[] chirpReal = null;
+		double[] chirpImag = null;
+		double[] filterReal = null;
+		double[] filterImag = null;
+		if(Integer.bitCount(n) == 1) {
+			m = Integer.numberOfTrailingZeros(n);
+			swaps = bitReversalSwaps(n, m);
+			twiddles = radix4Twiddles(n, m);
+		} else {
+			factors = factorize(n);
+			if(factors[factors.length - 1] > MAX_PRIME_FACTOR) {
+				factors = null;
+				int length = Integer.highestOneBit(2 * n - 1);
+				if(length < 2 * n - 1) {
+					length <<= 1;
+				}
+				convolution = getInstance(length);
+				chirpReal = new double[n];
+				chirpImag = new double[n];
+				filterReal = new double[length];
+				filterImag = new double[length];
+				for(int k = 0; k < n; ++k) {
+					// k^2 mod 2n keeps the argument small
+					double angle = Math.PI * ((long) k * k % (2L * n)) / n;
+					chirpReal[k] = Math.cos(angle);
+					chirpImag[k] = -Math.sin(angle);
+					filterReal[k] = chirpReal[k];
+					filterImag[k] = -chirpImag[k];
+					if(k > 0) {
+						filterReal[length - k] = chirpReal[k];
+						filterImag[length - k] = -chirpImag[k];
+					}
+				}
+				convolution.direct(filterReal, filterImag);
+			} else {
+				twiddleReal = new double[n];
+				twiddleImag = new double[n];
+				double t = -2 * Math.PI / n;
+				for (int i = 0; i < n; ++i) {
+					twiddleReal[i] = Math.cos(i * t);
+					twiddleImag[i] = Math.sin(i * t);
+				}
+			}
+		}
 		_n = n;
-		_m = (int) (Math.log(n) / Math.log(2.0));
-		
-		if(_n != (1 << _m)) {
-			throw new IllegalArgumentException("n must be a power of 2");
-		}
-
-		_cos = new double[n / 2];
-		_sin = new double[n / 2];
-
-		double t = -2 * Math.PI / n;
-		for (int i = 0; i < n / 2; ++i) {
-			_cos[i] = Math.cos(i * t);
-			_sin[i] = Math.sin(i * t);
-		}
-	}
-
-	/***************************************************************
-	 * fft.c Douglas L. Jones University of Illinois at Urbana-Champaign January
-	 * 19, 1992 http://cnx.rice.edu/content/m12016/latest/
-	 * 
-	 * fft: in-place radix-2 DIT DFT of a complex input
-	 * 
-	 * input: n: length of FFT: must be a power of two m: n = 2**m input/output
-	 * x: double array of length n with real part of data y: double array of
-	 * length n with imag part of data
-	 * 
-	 * Permission to copy and use this program is granted as long as this header
-	 * is included.
-	 ****************************************************************/
+		_m = m;
+		_swaps = swaps;
+		_twiddles = twiddles;
+		_factors = factors;
+		_twiddleReal = twiddleReal;
+		_twiddleImag = twiddleImag;
+		_convolution = convolution;
+		_chirpReal = chirpReal;
+		_chirpImag = chirpImag;
+		_filterReal = filterReal;
+		_filterImag = filterImag;
+	}
+
+	/**
+	 * Get the plan of a given length from the shared cache, planning it on the
+	 * first request. This method is thread safe.
+	 * @param n The length of the {@code FFT}.
+	 * @return The {@code FFT} of length n.
+	 */
+	public static FFT getInstance(int n) {
+		FFT fft = PLANS.get(n);
+		if(fft == null) {
+			// Planning is done outside of the map since Bluestein plans request their convolution plan
+			fft = new FFT(n);
+			FFT previous = PLANS.putIfAbsent(n, fft);
+			if(previous != null) {
+				fft = previous;
+			}
+		}
+		return fft;
+	}
+
+	/**
+	 * Remove all the plans from the shared cache.
+	 */
+	public static void clearCache() {
+		PLANS.clear();
+	}
+
+	/**
+	 * The length of the {@code FFT}.
+	 * @return n.
+	 */
+	public int getLength() {
+		return _n;
+	}
+
+	// Pairs of indices swapped by the bit-reversal permutation of length n = 2^m
+	private static int[] bitReversalSwaps(int n, int m) {
+		int count = 0;
+		int[] swaps = new int[n];
+		for(int i = 1; i < n - 1; ++i) {
+			int j = Integer.reverse(i) >>> (32 - m);
+			if(i < j) {
+				swaps[count++] = i;
+				swaps[count++] = j;
+			}
+		}
+		int[] result = new int[count];
+		System.arraycopy(swaps, 0, result, 0, count);
+		return result;
+	}
+
+	private static double[] radix4Twiddles(int n, int m) {
+		int size = 0;
+		for(int h = (m & 1) == 1 ? 2 : 1; h < n; h *= 4) {
+			size += 4 * h;
+		}
+		double[] twiddles = new double[size];
+		int offset = 0;
+		for(int h = (m & 1) == 1 ? 2 : 1; h < n; h *= 4) {
+			for(int i = 0; i < h; ++i) {
+				double t1 = -2 * Math.PI * i / (2 * h);
+				double t2 = -2 * Math.PI * i / (4 * h);
+				twiddles[offset++] = Math.cos(t1);
+				twiddles[offset++] = Math.sin(t1);
+				twiddles[offset++] = Math.cos(t2);
+				twiddles[offset++] = Math.sin(t2);
+			}
+		}
+		return twiddles;
+	}
+
+	// Radix 4 stages first, then 2, 3 and the odd primes in ascending order
+	private static int[] factorize(int n) {
+		int[] factors = new int[32];
+		int count = 0;
+		while(n % 4 == 0) {
+			factors[count++] = 4;
+			n /= 4;
+		}
+		for(int p = 2; p * p <= n; p = p == 2 ? 3 : p + 2) {
+			while(n % p == 0) {
+				factors[count++] = p;
+				n /= p;
+			}
+		}
+		if(n > 1) {
+			factors[count++] = n;
+		}
+		int[] result = new int[count];
+		System.arraycopy(factors, 0, result, 0, count);
+		return result;
+	}
+
 	/**
 	 * Fast Fourier Transform in place.The real and imaginary parts after performing the {@code FFT}, are stored in the
 	 * input arrays {@code real} and {@code imag} respectively.
@@ -62,54 +248,467 @@ public class FFT {
 		if(real.length != _n) {
 			throw new IllegalArgumentException(String.format("The lengths of the arrays must be equal to n = %d.", _n));
 		}
-		
-		int i, j, k, n1, n2, a;
-		double c, s, t1, t2;
-
-		// Bit-reverse
-		j = 0;
-		n2 = _n / 2;
-		for (i = 1; i < _n - 1; i++) {
-			n1 = n2;
-			while (j >= n1) {
-				j = j - n1;
-				n1 = n1 / 2;
-			}
-			j = j + n1;
-
-			if (i < j) {
-				t1 = real[i];
-				real[i] = real[j];
-				real[j] = t1;
-				t1 = imag[i];
-				imag[i] = imag[j];
-				imag[j] = t1;
-			}
-		}
-
-		// FFT
-		n1 = 0;
-		n2 = 1;
-
-		for (i = 0; i < _m; i++) {
-			n1 = n2;
-			n2 = n2 + n2;
-			a = 0;
-
-			for (j = 0; j < n1; j++) {
-				c = _cos[a];
-				s = _sin[a];
-				a += 1 << (_m - i - 1);
-
-				for (k = j; k < _n; k = k + n2) {
-					t1 = c * real[k + n1] - s * imag[k + n1];
-					t2 = s * real[k + n1] + c * imag[k + n1];
-					real[k + n1] = real[k] - t1;
-					imag[k + n1] = imag[k] - t2;
-					real[k] = real[k] + t1;
-					imag[k] = imag[k] + t2;
+		this.transform(real, imag, this.newWorkspace());
+	}
+
+	/*
+	 * Work buffers for transform: the ping-pong buffers of length n and the
+	 * odd radix butterfly sums of the mixed-radix plans, or the convolution
+	 * buffers of length m of Bluestein's plans. Power of two plans work in
+	 * place and need none.
+	 */
+	double[][] newWorkspace() {
+		if(_factors != null) {
+			final int h = (_factors[_factors.length - 1] - 1) / 2 + 1;
+			return new double[][] { new double[_n], new double[_n],
+				new double[h], new double[h], new double[h], new double[h] };
+		}
+		if(_convolution != null) {
+			final int m = _filterReal.length;
+			return new double[][] { new double[m], new double[m] };
+		}
+		return new double[0][];
+	}
+
+	// The workspace followed by count buffers of length n for the caller
+	private double[][] newWorkspace(int count) {
+		double[][] workspace = newWorkspace();
+		double[][] result = Arrays.copyOf(workspace, workspace.length + count);
+		for(int i = workspace.length; i < result.length; ++i) {
+			result[i] = new double[_n];
+		}
+		return result;
+	}
+
+	/*
+	 * Unchecked transform of the first n elements of the arrays, which may be
+	 * longer than n, using the buffers from newWorkspace, which may be followed
+	 * by buffers of the caller. No memory is allocated, so callers that keep a
+	 * workspace can transform repeatedly garbage free.
+	 */
+	void transform(double[] real, double[] imag, double[][] workspace) {
+		if(_factors != null) {
+			mixedRadix(real, imag, workspace);
+		} else if(_convolution != null) {
+			bluestein(real, imag, workspace);
+		} else {
+			radix4(real, imag);
+		}
+	}
+
+	/*
+	 * In-place decimation in time. After the bit-reversal, two radix-2 passes of
+	 * half sizes h and 2h are done at once by a radix-4 butterfly:
+	 * A, B = x0 +- w1 * x1, C, D = x2 +- w1 * x3 and
+	 * y0, y2 = A +- w2 * C, y1, y3 = B -+ j * w2 * D
+	 * where w1 = exp(-2 * pi * j * i / 2h) and w2 = exp(-2 * pi * j * i / 4h).
+	 */
+	private void radix4(double[] real, double[] imag) {
+		final int n = _n;
+		final int[] swaps = _swaps;
+		for (int k = 0; k < swaps.length; k += 2) {
+			int i = swaps[k];
+			int j = swaps[k + 1];
+			double t = real[i];
+			real[i] = real[j];
+			real[j] = t;
+			t = imag[i];
+			imag[i] = imag[j];
+			imag[j] = t;
+		}
+
+		int h = 1;
+		if ((_m & 1) == 1) {
+			for (int k = 0; k < n; k += 2) {
+				double xr = real[k + 1];
+				double xi = imag[k + 1];
+				real[k + 1] = real[k] - xr;
+				imag[k + 1] = imag[k] - xi;
+				real[k] += xr;
+				imag[k] += xi;
+			}
+			h = 2;
+		}
+
+		final double[] tw = _twiddles;
+		int offset = 0;
+		for (; h < n; h *= 4) {
+			for (int k0 = 0; k0 < n; k0 += 4 * h) {
+				for (int i = 0, t = offset; i < h; ++i, t += 4) {
+					double w1r = tw[t];
+					double w1i = tw[t + 1];
+					double w2r = tw[t + 2];
+					double w2i = tw[t + 3];
+					int a0 = k0 + i;
+					int a1 = a0 + h;
+					int a2 = a1 + h;
+					int a3 = a2 + h;
+
+					double t1r = real[a1] * w1r - imag[a1] * w1i;
+					double t1i = real[a1] * w1i + imag[a1] * w1r;
+					double t3r = real[a3] * w1r - imag[a3] * w1i;
+					double t3i = real[a3] * w1i + imag[a3] * w1r;
+					double ar = real[a0] + t1r;
+					double ai = imag[a0] + t1i;
+					double br = real[a0] - t1r;
+					double bi = imag[a0] - t1i;
+					double cr = real[a2] + t3r;
+					double ci = imag[a2] + t3i;
+					double dr = real[a2] - t3r;
+					double di = imag[a2] - t3i;
+
+					double ur = cr * w2r - ci * w2i;
+					double ui = cr * w2i + ci * w2r;
+					double vr = dr * w2r - di * w2i;
+					double vi = dr * w2i + di * w2r;
+					real[a0] = ar + ur;
+					imag[a0] = ai + ui;
+					real[a2] = ar - ur;
+					imag[a2] = ai - ui;
+					real[a1] = br + vi;
+					imag[a1] = bi - vr;
+					real[a3] = br - vi;
+					imag[a3] = bi + vr;
+				}
+			}
+			offset += 4 * h;
+		}
+	}
+
+	/*
+	 * Transform of the channels c0 <= c < c1 of interleaved data, where the i-th
+	 * sample of channel c is stored at i * stride + c. Power of two plans run
+	 * the radix-4 passes with the channels in the innermost loop so every
+	 * butterfly streams through contiguous memory. Other plans transform the
+	 * channels one at a time.
+	 */
+	void directInterleaved(double[] real, double[] imag, int stride, int c0, int c1) {
+		final int n = _n;
+		if (_swaps == null) {
+			double[] xr = new double[n];
+			double[] xi = new double[n];
+			double[][] workspace = this.newWorkspace();
+			for (int c = c0; c < c1; ++c) {
+				for (int i = 0; i < n; ++i) {
+					xr[i] = real[i * stride + c];
+					xi[i] = imag[i * stride + c];
+				}
+				this.transform(xr, xi, workspace);
+				for (int i = 0; i < n; ++i) {
+					real[i * stride + c] = xr[i];
+					imag[i * stride + c] = xi[i];
+				}
+			}
+			return;
+		}
+
+		final int[] swaps = _swaps;
+		for (int k = 0; k < swaps.length; k += 2) {
+			int i = swaps[k] * stride;
+			int j = swaps[k + 1] * stride;
+			for (int c = c0; c < c1; ++c) {
+				double t = real[i + c];
+				real[i + c] = real[j + c];
+				real[j + c] = t;
+				t = imag[i + c];
+				imag[i + c] = imag[j + c];
+				imag[j + c] = t;
+			}
+		}
+
+		int h = 1;
+		if ((_m & 1) == 1) {
+			for (int k = 0; k < n; k += 2) {
+				int i = k * stride;
+				int j = i + stride;
+				for (int c = c0; c < c1; ++c) {
+					double xr = real[j + c];
+					double xi = imag[j + c];
+					real[j + c] = real[i + c] - xr;
+					imag[j + c] = imag[i + c] - xi;
+					real[i + c] += xr;
+					imag[i + c] += xi;
 				}
 			}
+			h = 2;
+		}
+
+		final double[] tw = _twiddles;
+		int offset = 0;
+		for (; h < n; h *= 4) {
+			final int hs = h * stride;
+			for (int k0 = 0; k0 < n; k0 += 4 * h) {
+				for (int i = 0, t = offset; i < h; ++i, t += 4) {
+					double w1r = tw[t];
+					double w1i = tw[t + 1];
+					double w2r = tw[t + 2];
+					double w2i = tw[t + 3];
+					int b0 = (k0 + i) * stride;
+					for (int c = c0; c < c1; ++c) {
+						int a0 = b0 + c;
+						int a1 = a0 + hs;
+						int a2 = a1 + hs;
+						int a3 = a2 + hs;
+
+						double t1r = real[a1] * w1r - imag[a1] * w1i;
+						double t1i = real[a1] * w1i + imag[a1] * w1r;
+						double t3r = real[a3] * w1r - imag[a3] * w1i;
+						double t3i = real[a3] * w1i + imag[a3] * w1r;
+						double ar = real[a0] + t1r;
+						double ai = imag[a0] + t1i;
+						double br = real[a0] - t1r;
+						double bi = imag[a0] - t1i;
+						double cr = real[a2] + t3r;
+						double ci = imag[a2] + t3i;
+						double dr = real[a2] - t3r;
+						double di = imag[a2] - t3i;
+
+						double ur = cr * w2r - ci * w2i;
+						double ui = cr * w2i + ci * w2r;
+						double vr = dr * w2r - di * w2i;
+						double vi = dr * w2i + di * w2r;
+						real[a0] = ar + ur;
+						imag[a0] = ai + ui;
+						real[a2] = ar - ur;
+						imag[a2] = ai - ui;
+						real[a1] = br + vi;
+						imag[a1] = bi - vr;
+						real[a3] = br - vi;
+						imag[a3] = bi + vr;
+					}
+				}
+			}
+			offset += 4 * h;
+		}
+	}
+
+	/*
+	 * Self sorting Stockham decimation in frequency. At every stage the
+	 * sequences of length l = n / s interleaved with stride s are split into f
+	 * subsequences of length l / f by radix f butterflies, ping-ponging between
+	 * the data and a work buffer.
+	 */
+	private void mixedRadix(double[] real, double[] imag, double[][] workspace) {
+		double[] xr = real;
+		double[] xi = imag;
+		double[] yr = workspace[0];
+		double[] yi = workspace[1];
+		int s = 1;
+		for (int f : _factors) {
+			int m = _n / (s * f);
+			switch (f) {
+			case 2:
+				butterfly2(xr, xi, yr, yi, m, s);
+				break;
+			case 3:
+				butterfly3(xr, xi, yr, yi, m, s);
+				break;
+			case 4:
+				butterfly4(xr, xi, yr, yi, m, s);
+				break;
+			default:
+				butterflyOdd(xr, xi, yr, yi, m, s, f, workspace);
+			}
+			double[] t = xr;
+			xr = yr;
+			yr = t;
+			t = xi;
+			xi = yi;
+			yi = t;
+			s *= f;
+		}
+		if (xr != real) {
+			System.arraycopy(xr, 0, real, 0, _n);
+			System.arraycopy(xi, 0, imag, 0, _n);
+		}
+	}
+
+	private void butterfly2(double[] xr, double[] xi, double[] yr, double[] yi, int m, int s) {
+		for (int p = 0; p < m; ++p) {
+			double wr = _twiddleReal[p * s];
+			double wi = _twiddleImag[p * s];
+			for (int q = 0; q < s; ++q) {
+				int a = q + s * p;
+				int b = a + s * m;
+				double dr = xr[a] - xr[b];
+				double di = xi[a] - xi[b];
+				int y = q + s * 2 * p;
+				yr[y] = xr[a] + xr[b];
+				yi[y] = xi[a] + xi[b];
+				yr[y + s] = dr * wr - di * wi;
+				yi[y + s] = dr * wi + di * wr;
+			}
+		}
+	}
+
+	private void butterfly3(double[] xr, double[] xi, double[] yr, double[] yi, int m, int s) {
+		final double c = -0.5;
+		final double sn = Math.sqrt(3.0) / 2.0;
+		for (int p = 0; p < m; ++p) {
+			double w1r = _twiddleReal[p * s];
+			double w1i = _twiddleImag[p * s];
+			double w2r = _twiddleReal[2 * p * s];
+			double w2i = _twiddleImag[2 * p * s];
+			for (int q = 0; q < s; ++q) {
+				int a0 = q + s * p;
+				int a1 = a0 + s * m;
+				int a2 = a1 + s * m;
+				double tr = xr[a1] + xr[a2];
+				double ti = xi[a1] + xi[a2];
+				double dr = sn * (xr[a1] - xr[a2]);
+				double di = sn * (xi[a1] - xi[a2]);
+				double mr = xr[a0] + c * tr;
+				double mi = xi[a0] + c * ti;
+				// b1 = m - j * d, b2 = m + j * d
+				double b1r = mr + di;
+				double b1i = mi - dr;
+				double b2r = mr - di;
+				double b2i = mi + dr;
+				int y = q + s * 3 * p;
+				yr[y] = xr[a0] + tr;
+				yi[y] = xi[a0] + ti;
+				yr[y + s] = b1r * w1r - b1i * w1i;
+				yi[y + s] = b1r * w1i + b1i * w1r;
+				yr[y + 2 * s] = b2r * w2r - b2i * w2i;
+				yi[y + 2 * s] = b2r * w2i + b2i * w2r;
+			}
+		}
+	}
+
+	private void butterfly4(double[] xr, double[] xi, double[] yr, double[] yi, int m, int s) {
+		for (int p = 0; p < m; ++p) {
+			double w1r = _twiddleReal[p * s];
+			double w1i = _twiddleImag[p * s];
+			double w2r = _twiddleReal[2 * p * s];
+			double w2i = _twiddleImag[2 * p * s];
+			double w3r = _twiddleReal[3 * p * s];
+			double w3i = _twiddleImag[3 * p * s];
+			for (int q = 0; q < s; ++q) {
+				int a0 = q + s * p;
+				int a1 = a0 + s * m;
+				int a2 = a1 + s * m;
+				int a3 = a2 + s * m;
+				double t0r = xr[a0] + xr[a2];
+				double t0i = xi[a0] + xi[a2];
+				double t1r = xr[a0] - xr[a2];
+				double t1i = xi[a0] - xi[a2];
+				double t2r = xr[a1] + xr[a3];
+				double t2i = xi[a1] + xi[a3];
+				double t3r = xr[a1] - xr[a3];
+				double t3i = xi[a1] - xi[a3];
+				// b1 = t1 - j * t3, b2 = t0 - t2, b3 = t1 + j * t3
+				double b1r = t1r + t3i;
+				double b1i = t1i - t3r;
+				double b2r = t0r - t2r;
+				double b2i = t0i - t2i;
+				double b3r = t1r - t3i;
+				double b3i = t1i + t3r;
+				int y = q + s * 4 * p;
+				yr[y] = t0r + t2r;
+				yi[y] = t0i + t2i;
+				yr[y + s] = b1r * w1r - b1i * w1i;
+				yi[y + s] = b1r * w1i + b1i * w1r;
+				yr[y + 2 * s] = b2r * w2r - b2i * w2i;
+				yi[y + 2 * s] = b2r * w2i + b2i * w2r;
+				yr[y + 3 * s] = b3r * w3r - b3i * w3i;
+				yi[y + 3 * s] = b3r * w3i + b3i * w3r;
+			}
+		}
+	}
+
+	// Odd radix f butterfly exploiting the symmetry between the outputs k and f - k
+	private void butterflyOdd(double[] xr, double[] xi, double[] yr, double[] yi, int m, int s, int f,
+			double[][] workspace) {
+		final int h = (f - 1) / 2;
+		final int stride = _n / f;
+		double[] tr = workspace[2];
+		double[] ti = workspace[3];
+		double[] dr = workspace[4];
+		double[] di = workspace[5];
+		for (int p = 0; p < m; ++p) {
+			for (int q = 0; q < s; ++q) {
+				int a0 = q + s * p;
+				double y0r = xr[a0];
+				double y0i = xi[a0];
+				for (int j = 1; j <= h; ++j) {
+					int aj = a0 + j * s * m;
+					int ajc = a0 + (f - j) * s * m;
+					tr[j] = xr[aj] + xr[ajc];
+					ti[j] = xi[aj] + xi[ajc];
+					dr[j] = xr[aj] - xr[ajc];
+					di[j] = xi[aj] - xi[ajc];
+					y0r += tr[j];
+					y0i += ti[j];
+				}
+				int y = q + s * f * p;
+				yr[y] = y0r;
+				yi[y] = y0i;
+				for (int k = 1; k <= h; ++k) {
+					double sr = xr[a0];
+					double si = xi[a0];
+					double ur = 0.0;
+					double ui = 0.0;
+					// exp(-2 * pi * j * j * k / f) from the twiddle table with index = (j * k mod f) * n / f
+					int index = 0;
+					for (int j = 1; j <= h; ++j) {
+						index += k * stride;
+						if (index >= _n) {
+							index -= _n;
+						}
+						double c = _twiddleReal[index];
+						double sn = -_twiddleImag[index];
+						sr += tr[j] * c;
+						si += ti[j] * c;
+						ur += dr[j] * sn;
+						ui += di[j] * sn;
+					}
+					// b(k) = sr - j * u, b(f - k) = sr + j * u
+					double bkr = sr + ui;
+					double bki = si - ur;
+					double bcr = sr - ui;
+					double bci = si + ur;
+					double wr = _twiddleReal[k * p * s];
+					double wi = _twiddleImag[k * p * s];
+					yr[y + k * s] = bkr * wr - bki * wi;
+					yi[y + k * s] = bkr * wi + bki * wr;
+					wr = _twiddleReal[(f - k) * p * s];
+					wi = _twiddleImag[(f - k) * p * s];
+					yr[y + (f - k) * s] = bcr * wr - bci * wi;
+					yi[y + (f - k) * s] = bcr * wi + bci * wr;
+				}
+			}
+		}
+	}
+
+	/*
+	 * X(k) = w(k) * sum(x(i) * w(i) * conj(w(k - i))) with w(k) = exp(-pi * j * k^2 / n). The sum is a
+	 * convolution that is computed with power of two FFTs.
+	 */
+	private void bluestein(double[] real, double[] imag, double[][] workspace) {
+		final int m = _filterReal.length;
+		final double[] ar = workspace[0];
+		final double[] ai = workspace[1];
+		for (int k = 0; k < _n; ++k) {
+			ar[k] = real[k] * _chirpReal[k] - imag[k] * _chirpImag[k];
+			ai[k] = real[k] * _chirpImag[k] + imag[k] * _chirpReal[k];
+		}
+		Arrays.fill(ar, _n, m, 0.0);
+		Arrays.fill(ai, _n, m, 0.0);
+		// The power of two convolution plan works in place and ignores the workspace
+		_convolution.transform(ar, ai, workspace);
+		for (int k = 0; k < m; ++k) {
+			double re = ar[k] * _filterReal[k] - ai[k] * _filterImag[k];
+			ai[k] = ar[k] * _filterImag[k] + ai[k] * _filterReal[k];
+			ar[k] = re;
+		}
+		// Inverse transform of length m by swapping the parts, scaled below
+		_convolution.transform(ai, ar, workspace);
+		final double factor = 1.0 / m;
+		for (int k = 0; k < _n; ++k) {
+			double re = ar[k] * factor;
+			double im = ai[k] * factor;
+			real[k] = re * _chirpReal[k] - im * _chirpImag[k];
+			imag[k] = re * _chirpImag[k] + im * _chirpReal[k];
 		}
 	}
 
@@ -124,6 +723,22 @@ public class FFT {
 		multiplyInPlace(real, imag, factor);
 	}
 	
+	/**
+	 * Fast Fourier Transform in place.
+	 * @param data The input data.
+	 */
+	public void direct(ComplexArray data) {
+		this.direct(data.getReal(), data.getImag());
+	}
+
+	/**
+	 * Inverse Fast Fourier Transform in place.
+	 * @param data The input data.
+	 */
+	public void inverse(ComplexArray data) {
+		this.inverse(data.getReal(), data.getImag());
+	}
+
     private static void multiplyInPlace(double[] a, double[] b, double d) {
         final int length = a.length;
         for (int i = 0; i < length; ++i) {
@@ -133,78 +748,48 @@ public class FFT {
     }
 
 	/**
-	 * Fast Fourier Transform in place.
+	 * Fast Fourier Transform in place. The transform runs on buffers kept per
+	 * thread, so repeated calls from the same thread do not allocate.
 	 * @param data The input data.
 	 */
 	public void direct(Complex[] data) {
 		if(data.length != _n) {
 			throw new IllegalArgumentException(String.format("The lengths of the arrays must be equal to n = %d.", _n));
 		}
-		
-		int i, j, k, n1, n2, a;
-		double c, s, t1, t2;
-
-		// Bit-reverse
-		j = 0;
-		n2 = _n / 2;
-		for (i = 1; i < _n - 1; i++) {
-			n1 = n2;
-			while (j >= n1) {
-				j = j - n1;
-				n1 = n1 / 2;
-			}
-			j = j + n1;
-
-			if (i < j) {
-				// swap data[i] and data[j]
-				Complex swap = data[i];
-				data[i] = data[j];
-				data[j] = swap;
-			}
+		double[][] workspace = _complexWorkspace.get();
+		double[] real = workspace[workspace.length - 2];
+		double[] imag = workspace[workspace.length - 1];
+		for(int i = 0; i < _n; ++i) {
+			real[i] = data[i].real();
+			imag[i] = data[i].imag();
 		}
-
-		// FFT
-		n1 = 0;
-		n2 = 1;
-
-		for (i = 0; i < _m; i++) {
-			n1 = n2;
-			n2 = n2 + n2;
-			a = 0;
-
-			for (j = 0; j < n1; j++) {
-				c = _cos[a];
-				s = _sin[a];
-				a += 1 << (_m - i - 1);
-
-				for (k = j; k < _n; k = k + n2) {
-					t1 = c * data[k + n1].real() - s * data[k + n1].imag();
-					t2 = s * data[k + n1].real() + c * data[k + n1].imag();
-					data[k + n1].addEquals(-data[k + n1].real() + data[k].real() - t1, -data[k + n1].imag() + data[k].imag() - t2);
-					data[k].addEquals(t1, t2);
-				}
-			}
+		this.transform(real, imag, workspace);
+		for(int i = 0; i < _n; ++i) {
+			data[i].set(real[i], imag[i]);
 		}
 	}
 
 	/**
-	 * Inverse Fast Fourier Transform in place.
+	 * Inverse Fast Fourier Transform in place. The transform runs on buffers
+	 * kept per thread, so repeated calls from the same thread do not allocate.
 	 * @param data The input data.
 	 */
 	public void inverse(Complex[] data) {
-		double t1;
-		// finding the conjugate of the complex number
-		// without calling conj() and creating a new Complex
+		if(data.length != _n) {
+			throw new IllegalArgumentException(String.format("The lengths of the arrays must be equal to n = %d.", _n));
+		}
+		double[][] workspace = _complexWorkspace.get();
+		double[] real = workspace[workspace.length - 2];
+		double[] imag = workspace[workspace.length - 1];
 		for(int i = 0; i < _n; ++i) {
-			t1 = data[i].imag();
-			data[i].addEquals(0.0, -t1 - t1);
+			real[i] = data[i].real();
+			imag[i] = data[i].imag();
 		}
-		this.direct(data);
+		// The inverse is the direct transform with the real and imaginary parts swapped
+		this.transform(imag, real, workspace);
 		double factor = 1.0 / _n;
 		for(int i = 0; i < _n; ++i) {
-			t1 = data[i].imag();
-			data[i].addEquals(0.0, -t1 - t1);
-			data[i].multiplyEquals(factor);
+			data[i].set(real[i] * factor, imag[i] * factor);
 		}
 	}
 }
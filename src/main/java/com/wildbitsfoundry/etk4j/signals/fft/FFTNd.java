@@ -0,0 +1,181 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code FFTNd} class provides the multidimensional Fast Fourier Transform.
+ * <P>
+ * The data is stored row major, i.e. for dimensions {@code n0 x n1 x ... x nd}
+ * the last index varies the fastest, and the transform is computed as one
+ * dimensional transforms along every axis. The lines of the last axis are
+ * contiguous and are transformed one at a time. The lines of any other axis
+ * are strided, so blocks of {@value BatchFFT#CHANNEL_BLOCK} adjacent lines go
+ * through the butterfly passes together, which reads whole cache lines instead
+ * of a single value per row (see {@link BatchFFT.Layout#INTERLEAVED}). Two
+ * dimensional grids stored as {@code double[][]} are supported as well.
+ * <P>
+ * The lines of every axis can be transformed in parallel on the common
+ * fork-join pool. The plans are taken from {@link FFT#getInstance(int)}.
+ */
+public class FFTNd {
+
+	private final int[] _dims;
+	private final FFT[] _ffts;
+	private final int _size;
+	private boolean _parallel = false;
+
+	/**
+	 * Constructs an instance of the {@code FFTNd} class.
+	 * @param dimensions The length of every dimension, e.g. {@code rows, cols} for two dimensional data.
+	 */
+	public FFTNd(int... dimensions) {
+		if(dimensions.length == 0) {
+			throw new IllegalArgumentException("At least one dimension is required.");
+		}
+		_dims = Arrays.copyOf(dimensions, dimensions.length);
+		_ffts = new FFT[_dims.length];
+		int size = 1;
+		for(int i = 0; i < _dims.length; ++i) {
+			_ffts[i] = FFT.getInstance(_dims[i]);
+			size *= _dims[i];
+		}
+		_size = size;
+	}
+
+	/**
+	 * Transform the lines of every axis in parallel on the common fork-join pool.
+	 * @param parallel {@code true} to transform in parallel. Defaults to {@code false}.
+	 * @return This {@code FFTNd}.
+	 */
+	public FFTNd parallel(boolean parallel) {
+		_parallel = parallel;
+		return this;
+	}
+
+	/**
+	 * The dimensions of the data.
+	 * @return The length of every dimension.
+	 */
+	public int[] getDimensions() {
+		return Arrays.copyOf(_dims, _dims.length);
+	}
+
+	/**
+	 * Fast Fourier Transform in place.
+	 * @param real The real part of the data stored row major.
+	 * @param imag The imaginary part of the data stored row major.
+	 */
+	public void direct(double[] real, double[] imag) {
+		if(real.length != imag.length) {
+			throw new IllegalArgumentException("Length mismatch between real and imag");
+		}
+		if(real.length != _size) {
+			throw new IllegalArgumentException(String.format("The lengths of the arrays must be equal to %d.", _size));
+		}
+		final int last = _dims.length - 1;
+		// Lines of the last axis are contiguous
+		final int n = _dims[last];
+		final FFT rowFFT = _ffts[last];
+		range(_size / n).forEach(r -> {
+			double[] xr = new double[n];
+			double[] xi = new double[n];
+			System.arraycopy(real, r * n, xr, 0, n);
+			System.arraycopy(imag, r * n, xi, 0, n);
+			rowFFT.direct(xr, xi);
+			System.arraycopy(xr, 0, real, r * n, n);
+			System.arraycopy(xi, 0, imag, r * n, n);
+		});
+
+		// Lines of the other axes are interleaved with a stride equal to the product of the following dimensions
+		int stride = n;
+		for(int axis = last - 1; axis >= 0; --axis) {
+			final int length = _dims[axis];
+			final int lineStride = stride;
+			final int blocksPerSlab = (lineStride + BatchFFT.CHANNEL_BLOCK - 1) / BatchFFT.CHANNEL_BLOCK;
+			final int slabs = _size / (length * lineStride);
+			final FFT fft = _ffts[axis];
+			range(slabs * blocksPerSlab).forEach(b -> {
+				int base = b / blocksPerSlab * length * lineStride;
+				int c0 = b % blocksPerSlab * BatchFFT.CHANNEL_BLOCK;
+				int c1 = Math.min(lineStride, c0 + BatchFFT.CHANNEL_BLOCK);
+				fft.directInterleaved(real, imag, lineStride, base + c0, base + c1);
+			});
+			stride *= length;
+		}
+	}
+
+	/**
+	 * Inverse Fast Fourier Transform in place.
+	 * @param real The real part of the data stored row major.
+	 * @param imag The imaginary part of the data stored row major.
+	 */
+	public void inverse(double[] real, double[] imag) {
+		this.direct(imag, real);
+		scale(real, imag, 1.0 / _size);
+	}
+
+	/**
+	 * Two dimensional Fast Fourier Transform in place.
+	 * @param real The real part of the data. Every row must have the same length.
+	 * @param imag The imaginary part of the data. Every row must have the same length.
+	 */
+	public void direct(double[][] real, double[][] imag) {
+		if(_dims.length != 2) {
+			throw new IllegalStateException("The two dimensional transform requires a two dimensional FFTNd.");
+		}
+		final int rows = _dims[0];
+		final int cols = _dims[1];
+		if(real.length != rows || imag.length != rows) {
+			throw new IllegalArgumentException(String.format("The arrays must have %d rows.", rows));
+		}
+		for(int i = 0; i < rows; ++i) {
+			if(real[i].length != cols || imag[i].length != cols) {
+				throw new IllegalArgumentException(String.format("The rows of the arrays must have length %d.", cols));
+			}
+		}
+		range(rows).forEach(i -> _ffts[1].direct(real[i], imag[i]));
+
+		// Columns are gathered by blocks into interleaved buffers
+		final int block = BatchFFT.CHANNEL_BLOCK;
+		range((cols + block - 1) / block).forEach(b -> {
+			int c0 = b * block;
+			int width = Math.min(cols, c0 + block) - c0;
+			double[] xr = new double[rows * width];
+			double[] xi = new double[rows * width];
+			for(int i = 0; i < rows; ++i) {
+				System.arraycopy(real[i], c0, xr, i * width, width);
+				System.arraycopy(imag[i], c0, xi, i * width, width);
+			}
+			_ffts[0].directInterleaved(xr, xi, width, 0, width);
+			for(int i = 0; i < rows; ++i) {
+				System.arraycopy(xr, i * width, real[i], c0, width);
+				System.arraycopy(xi, i * width, imag[i], c0, width);
+			}
+		});
+	}
+
+	/**
+	 * Two dimensional inverse Fast Fourier Transform in place.
+	 * @param real The real part of the data. Every row must have the same length.
+	 * @param imag The imaginary part of the data. Every row must have the same length.
+	 */
+	public void inverse(double[][] real, double[][] imag) {
+		this.direct(imag, real);
+		for(int i = 0; i < real.length; ++i) {
+			scale(real[i], imag[i], 1.0 / _size);
+		}
+	}
+
+	private IntStream range(int count) {
+		IntStream range = IntStream.range(0, count);
+		return _parallel ? range.parallel() : range;
+	}
+
+	private static void scale(double[] real, double[] imag, double factor) {
+		for(int i = 0; i < real.length; ++i) {
+			real[i] *= factor;
+			imag[i] *= factor;
+		}
+	}
+}
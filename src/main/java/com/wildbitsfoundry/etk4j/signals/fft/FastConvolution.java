@@ -0,0 +1,301 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
+import com.wildbitsfoundry.etk4j.util.DoubleArrays;
+
+/**
+ * The {@code FastConvolution} class computes convolutions and correlations with the Fast Fourier Transform.
+ * <P>
+ * The full convolution of sequences of lengths n and m is the inverse transform of the product of their transforms
+ * zero padded to a power of two N &ge; n + m - 1, which takes O(N log N) operations instead of the O(n * m) of the
+ * direct sum. When one sequence is much shorter than the other, the long sequence is processed in blocks against a
+ * single transform of the short one, either by overlap-add, which adds the tails of consecutive blocks, or by
+ * overlap-save, which discards the first m - 1 samples of overlapping blocks. The block transforms are sized for the
+ * fewest operations per output sample. The cost of every method is estimated to choose between them.
+ * <P>
+ * Short sequences are faster to convolve by the direct sum, so {@link #convolve(double[], double[])},
+ * {@link #correlate(double[], double[])} and {@link #convolve(ComplexArray, ComplexArray)} fall back to
+ * {@link DoubleArrays#convolve(double[], double[])} and {@link ComplexArray#convolve(ComplexArray, ComplexArray)}
+ * below 40 samples in the shorter sequence or 4096 products. Above that, the results differ from the direct sum by
+ * the rounding errors of the transforms, which are of the order of the machine epsilon relative to the largest values
+ * of the sequences.
+ * @see <a href="https://en.wikipedia.org/wiki/Overlap%E2%80%93add_method">Overlap-add method.</a>
+ * @see <a href="https://en.wikipedia.org/wiki/Overlap%E2%80%93save_method">Overlap-save method.</a>
+ */
+public final class FastConvolution {
+
+	// Largest block transform considered for overlap-add and overlap-save
+	private static final int MAX_BLOCK_LENGTH = 1 << 20;
+
+	// Below these sizes the direct sum is faster than the Fast Fourier Transform
+	private static final int MIN_FFT_LENGTH = 40;
+	private static final int MIN_FFT_PRODUCTS = 4096;
+
+	private FastConvolution() {
+
+	}
+
+	/**
+	 * Convolve two arrays, choosing between the direct sum, a single transform and the overlap-add method.
+	 * @param a The left-hand array.
+	 * @param b The right-hand array.
+	 * @return The convolution of {@code a} and {@code b}, of length {@code a.length + b.length - 1}.
+	 */
+	public static double[] convolve(double[] a, double[] b) {
+		checkLengths(a.length, b.length);
+		if(!useTransforms(a.length, b.length)) {
+			return DoubleArrays.convolve(a, b);
+		}
+		double[] x = a.length >= b.length ? a : b;
+		double[] h = a.length >= b.length ? b : a;
+		final int size = nextPowerOfTwo(x.length + h.length - 1);
+		final int block = blockLength(h.length);
+		final long blocks = (x.length + block - h.length) / (block - h.length + 1);
+		// Three transforms of length size against two per block plus the transform of h
+		if((2 * blocks + 1) * cost(block) < 3 * cost(size)) {
+			return overlapAdd(x, h, block);
+		}
+		return convolve(a, b, size);
+	}
+
+	private static double[] convolve(double[] a, double[] b, int size) {
+		RealFFT fft = RealFFT.getInstance(size);
+		double[][] workspace = fft.newWorkspace();
+		final int bins = fft.getSpectrumLength();
+		double[] frame = new double[size];
+		double[] ar = new double[bins];
+		double[] ai = new double[bins];
+		double[] br = new double[bins];
+		double[] bi = new double[bins];
+		System.arraycopy(a, 0, frame, 0, a.length);
+		fft.direct(frame, ar, ai, workspace);
+		System.arraycopy(b, 0, frame, 0, b.length);
+		for (int i = b.length; i < a.length; ++i) {
+			frame[i] = 0.0;
+		}
+		fft.direct(frame, br, bi, workspace);
+		multiply(ar, ai, br, bi);
+		fft.inverse(ar, ai, frame, workspace);
+
+		double[] result = new double[a.length + b.length - 1];
+		System.arraycopy(frame, 0, result, 0, result.length);
+		return result;
+	}
+
+	/**
+	 * Cross-correlate two arrays, c(k) = sum(a(i + k - m + 1) * b(i)) where m is the length of {@code b}, i.e. the
+	 * convolution of {@code a} and {@code b} reversed. The element k of the result is the correlation at lag k - m + 1.
+	 * @param a The left-hand array.
+	 * @param b The right-hand array.
+	 * @return The cross-correlation of {@code a} and {@code b}, of length {@code a.length + b.length - 1}.
+	 */
+	public static double[] correlate(double[] a, double[] b) {
+		return convolve(a, DoubleArrays.reverse(b));
+	}
+
+	/**
+	 * Convolve two complex arrays, by the direct sum or by a single transform.
+	 * @param a The left-hand array.
+	 * @param b The right-hand array.
+	 * @return The convolution of {@code a} and {@code b}, of length {@code a.length() + b.length() - 1}.
+	 */
+	public static ComplexArray convolve(ComplexArray a, ComplexArray b) {
+		final int na = a.length();
+		final int nb = b.length();
+		checkLengths(na, nb);
+		if(!useTransforms(na, nb)) {
+			return ComplexArray.convolve(a, b);
+		}
+		final int size = nextPowerOfTwo(na + nb - 1);
+		FFT fft = FFT.getInstance(size);
+		double[][] workspace = fft.newWorkspace();
+		double[] ar = new double[size];
+		double[] ai = new double[size];
+		double[] br = new double[size];
+		double[] bi = new double[size];
+		System.arraycopy(a.getReal(), 0, ar, 0, na);
+		System.arraycopy(a.getImag(), 0, ai, 0, na);
+		System.arraycopy(b.getReal(), 0, br, 0, nb);
+		System.arraycopy(b.getImag(), 0, bi, 0, nb);
+		fft.transform(ar, ai, workspace);
+		fft.transform(br, bi, workspace);
+		multiply(ar, ai, br, bi);
+		// The direct transform of the swapped parts gives the swapped inverse
+		fft.transform(ai, ar, workspace);
+
+		final double factor = 1.0 / size;
+		ComplexArray result = new ComplexArray(na + nb - 1);
+		double[] real = result.getReal();
+		double[] imag = result.getImag();
+		for (int i = 0; i < real.length; ++i) {
+			real[i] = ar[i] * factor;
+			imag[i] = ai[i] * factor;
+		}
+		return result;
+	}
+
+	/**
+	 * Convolve a long signal with a kernel by the overlap-add method.
+	 * @param x The signal.
+	 * @param h The kernel.
+	 * @return The convolution of {@code x} and {@code h}, of length {@code x.length + h.length - 1}.
+	 */
+	public static double[] overlapAdd(double[] x, double[] h) {
+		checkLengths(x.length, h.length);
+		return overlapAdd(x, h, blockLength(h.length));
+	}
+
+	/**
+	 * Convolve a long signal with a kernel by the overlap-add method. Every block of {@code fftLength - h.length + 1}
+	 * samples of the signal is convolved with the kernel by transforms of length {@code fftLength} and the
+	 * {@code h.length - 1} samples of its tail are added to the next block.
+	 * @param x The signal.
+	 * @param h The kernel.
+	 * @param fftLength The length of the block transforms, at least {@code h.length}.
+	 * @return The convolution of {@code x} and {@code h}, of length {@code x.length + h.length - 1}.
+	 */
+	public static double[] overlapAdd(double[] x, double[] h, int fftLength) {
+		checkLengths(x.length, h.length);
+		checkBlockLength(h.length, fftLength);
+		final int n = x.length;
+		final int m = h.length;
+		final int block = fftLength - m + 1;
+		RealFFT fft = RealFFT.getInstance(fftLength);
+		double[][] workspace = fft.newWorkspace();
+		final int bins = fft.getSpectrumLength();
+		double[] hr = new double[bins];
+		double[] hi = new double[bins];
+		double[] xr = new double[bins];
+		double[] xi = new double[bins];
+		double[] frame = new double[fftLength];
+		System.arraycopy(h, 0, frame, 0, m);
+		fft.direct(frame, hr, hi, workspace);
+
+		double[] result = new double[n + m - 1];
+		for (int start = 0; start < n; start += block) {
+			final int length = Math.min(block, n - start);
+			System.arraycopy(x, start, frame, 0, length);
+			for (int i = length; i < fftLength; ++i) {
+				frame[i] = 0.0;
+			}
+			fft.direct(frame, xr, xi, workspace);
+			multiply(xr, xi, hr, hi);
+			fft.inverse(xr, xi, frame, workspace);
+			final int count = Math.min(length + m - 1, result.length - start);
+			for (int i = 0; i < count; ++i) {
+				result[start + i] += frame[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Convolve a long signal with a kernel by the overlap-save method.
+	 * @param x The signal.
+	 * @param h The kernel.
+	 * @return The convolution of {@code x} and {@code h}, of length {@code x.length + h.length - 1}.
+	 */
+	public static double[] overlapSave(double[] x, double[] h) {
+		checkLengths(x.length, h.length);
+		return overlapSave(x, h, blockLength(h.length));
+	}
+
+	/**
+	 * Convolve a long signal with a kernel by the overlap-save method. Every block of {@code fftLength - h.length + 1}
+	 * samples of the result is the circular convolution of the kernel and the {@code fftLength} samples of the signal
+	 * that end with the block, without its first {@code h.length - 1} samples, which are wrapped around.
+	 * @param x The signal.
+	 * @param h The kernel.
+	 * @param fftLength The length of the block transforms, at least {@code h.length}.
+	 * @return The convolution of {@code x} and {@code h}, of length {@code x.length + h.length - 1}.
+	 */
+	public static double[] overlapSave(double[] x, double[] h, int fftLength) {
+		checkLengths(x.length, h.length);
+		checkBlockLength(h.length, fftLength);
+		final int n = x.length;
+		final int m = h.length;
+		final int block = fftLength - m + 1;
+		RealFFT fft = RealFFT.getInstance(fftLength);
+		double[][] workspace = fft.newWorkspace();
+		final int bins = fft.getSpectrumLength();
+		double[] hr = new double[bins];
+		double[] hi = new double[bins];
+		double[] xr = new double[bins];
+		double[] xi = new double[bins];
+		double[] frame = new double[fftLength];
+		System.arraycopy(h, 0, frame, 0, m);
+		fft.direct(frame, hr, hi, workspace);
+
+		double[] result = new double[n + m - 1];
+		for (int start = 0; start < result.length; start += block) {
+			// The frame holds x(start - m + 1), ..., x(start + block - 1), zero outside of x
+			final int first = start - m + 1;
+			final int from = Math.max(0, first);
+			final int to = Math.min(n, first + fftLength);
+			for (int i = 0; i < fftLength; ++i) {
+				frame[i] = 0.0;
+			}
+			if(from < to) {
+				System.arraycopy(x, from, frame, from - first, to - from);
+			}
+			fft.direct(frame, xr, xi, workspace);
+			multiply(xr, xi, hr, hi);
+			fft.inverse(xr, xi, frame, workspace);
+			final int count = Math.min(block, result.length - start);
+			System.arraycopy(frame, m - 1, result, start, count);
+		}
+		return result;
+	}
+
+	/*
+	 * Power of two block transform with the fewest operations per output
+	 * sample, N * log2(N) / (N - m + 1).
+	 */
+	private static int blockLength(int m) {
+		int best = nextPowerOfTwo(2 * m);
+		double bestCost = cost(best) / (double) (best - m + 1);
+		for (int size = 2 * best; size <= MAX_BLOCK_LENGTH; size *= 2) {
+			double c = cost(size) / (double) (size - m + 1);
+			if(c >= bestCost) {
+				break;
+			}
+			best = size;
+			bestCost = c;
+		}
+		return best;
+	}
+
+	private static boolean useTransforms(int n, int m) {
+		return Math.min(n, m) >= MIN_FFT_LENGTH && (long) n * m >= MIN_FFT_PRODUCTS;
+	}
+
+	// Operations of a real transform of length n, up to a constant
+	private static long cost(int n) {
+		return (long) n * (32 - Integer.numberOfLeadingZeros(n));
+	}
+
+	private static int nextPowerOfTwo(int n) {
+		return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+	}
+
+	// a = a * b for the bins of two spectra
+	private static void multiply(double[] ar, double[] ai, double[] br, double[] bi) {
+		for (int k = 0; k < ar.length; ++k) {
+			double re = ar[k] * br[k] - ai[k] * bi[k];
+			ai[k] = ar[k] * bi[k] + ai[k] * br[k];
+			ar[k] = re;
+		}
+	}
+
+	private static void checkLengths(int n, int m) {
+		if(n == 0 || m == 0) {
+			throw new IllegalArgumentException("The arrays must not be empty.");
+		}
+	}
+
+	private static void checkBlockLength(int m, int fftLength) {
+		if(fftLength < m) {
+			throw new IllegalArgumentException("The length of the block transforms must not be less than the kernel length.");
+		}
+	}
+}
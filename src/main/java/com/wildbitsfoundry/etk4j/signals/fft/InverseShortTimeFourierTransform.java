@@ -0,0 +1,141 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+/**
+ * The {@code InverseShortTimeFourierTransform} class rebuilds a stream from its short-time Fourier transform.
+ * <P>
+ * Every frame of n / 2 + 1 bins is transformed back with a {@link RealFFT}, multiplied by the synthesis window and
+ * overlap-added to the frames before it. Once a frame is added, the hop samples at its start receive no further
+ * contributions, so they are divided by the sum of the squared windows that overlap them and emitted. With the same
+ * window and hop as the {@link ShortTimeFourierTransform} this inverts the analysis exactly wherever n / hop frames
+ * overlap, i.e. everywhere but the first and last n - hop samples of the stream, which are left attenuated. The window
+ * and hop must satisfy the nonzero overlap-add condition, the squared windows must not add up to zero anywhere.
+ * <P>
+ * Every buffer is allocated by the constructor, so processing does not allocate memory. An
+ * {@code InverseShortTimeFourierTransform} keeps the state of the stream and is not thread safe.
+ * @see ShortTimeFourierTransform
+ */
+public class InverseShortTimeFourierTransform {
+
+	private final double[] _window;
+	private final int _n;
+	private final int _hop;
+	private final int _bins;
+	private final RealFFT _fft;
+	private final double[][] _workspace;
+
+	// 1 / sum(w(i + m * hop)^2), which is periodic with period hop
+	private final double[] _norm;
+
+	private final double[] _real;
+	private final double[] _imag;
+	private final double[] _frame;
+	private final double[] _overlap;
+
+	/**
+	 * Constructs an instance of the {@code InverseShortTimeFourierTransform} class.
+	 * @param window The synthesis window. Its length is the frame length n. See {@link Windows}.
+	 * @param hop The number of samples between the start of consecutive frames, {@code 1 <= hop <= n}.
+	 */
+	public InverseShortTimeFourierTransform(double[] window, int hop) {
+		if(window.length < 1) {
+			throw new IllegalArgumentException("The window must not be empty.");
+		}
+		if(hop < 1 || hop > window.length) {
+			throw new IllegalArgumentException("The hop size must be between one and the window length.");
+		}
+		_window = window.clone();
+		_n = window.length;
+		_hop = hop;
+		_fft = RealFFT.getInstance(_n);
+		_workspace = _fft.newWorkspace();
+		_bins = _fft.getSpectrumLength();
+
+		_norm = new double[hop];
+		for (int i = 0; i < _n; ++i) {
+			_norm[i % hop] += window[i] * window[i];
+		}
+		for (int i = 0; i < hop; ++i) {
+			if(_norm[i] <= 1e-10) {
+				throw new IllegalArgumentException("The window and hop size do not satisfy the nonzero overlap-add condition.");
+			}
+			_norm[i] = 1.0 / _norm[i];
+		}
+
+		_real = new double[_bins];
+		_imag = new double[_bins];
+		_frame = new double[_n];
+		_overlap = new double[_n];
+	}
+
+	/**
+	 * The length of the frames.
+	 * @return n, the length of the window.
+	 */
+	public int getFrameLength() {
+		return _n;
+	}
+
+	/**
+	 * The number of samples between consecutive frames.
+	 * @return The hop size.
+	 */
+	public int getHop() {
+		return _hop;
+	}
+
+	/**
+	 * Add a frame to the stream.
+	 * @param real The real part of the n / 2 + 1 bins of the frame. It is not modified.
+	 * @param imag The imaginary part of the n / 2 + 1 bins of the frame. It is not modified.
+	 * @param samples The array where the samples completed by the frame are stored.
+	 * @param offset The index where the hop samples completed by the frame are stored.
+	 */
+	public void process(double[] real, double[] imag, double[] samples, int offset) {
+		if(real.length != _bins || imag.length != _bins) {
+			throw new IllegalArgumentException(String.format("The lengths of the frame arrays must be equal to n / 2 + 1 = %d.", _bins));
+		}
+		if(offset < 0 || offset + _hop > samples.length) {
+			throw new IllegalArgumentException("The hop samples are out of the bounds of the array.");
+		}
+		System.arraycopy(real, 0, _real, 0, _bins);
+		System.arraycopy(imag, 0, _imag, 0, _bins);
+		_fft.inverse(_real, _imag, _frame, _workspace);
+		for (int i = 0; i < _n; ++i) {
+			_overlap[i] += _frame[i] * _window[i];
+		}
+		for (int i = 0; i < _hop; ++i) {
+			samples[offset + i] = _overlap[i] * _norm[i];
+		}
+		System.arraycopy(_overlap, _hop, _overlap, 0, _n - _hop);
+		for (int i = _n - _hop; i < _n; ++i) {
+			_overlap[i] = 0.0;
+		}
+	}
+
+	/**
+	 * Emit the last n - hop samples of the stream, which no further frames overlap, and start a new stream.
+	 * @param samples The array where the samples are stored.
+	 * @param offset The index where the n - hop samples are stored.
+	 * @return The number of samples stored, n - hop.
+	 */
+	public int flush(double[] samples, int offset) {
+		final int count = _n - _hop;
+		if(offset < 0 || offset + count > samples.length) {
+			throw new IllegalArgumentException("The samples are out of the bounds of the array.");
+		}
+		for (int i = 0; i < count; ++i) {
+			samples[offset + i] = _overlap[i] * _norm[i % _hop];
+		}
+		this.reset();
+		return count;
+	}
+
+	/**
+	 * Discard the overlapped samples to start a new stream.
+	 */
+	public void reset() {
+		for (int i = 0; i < _n; ++i) {
+			_overlap[i] = 0.0;
+		}
+	}
+}
@@ -0,0 +1,288 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@code RealFFT} class provides the Fast Fourier Transform of real sequences.
+ * <P>
+ * The spectrum X of a real sequence of length n is Hermitian, X(n - k) =
+ * conj(X(k)), so only the n / 2 + 1 bins X(0), ..., X(n / 2) are computed. For
+ * even n, the even and odd samples are packed into the real and imaginary
+ * parts of a complex sequence of length n / 2 whose {@link FFT} is split back
+ * into the spectrum of the real sequence, halving the work and memory of a full
+ * complex transform. Odd lengths fall back to a complex transform of length n.
+ * <P>
+ * Like {@link FFT}, a {@code RealFFT} is immutable and can be shared between
+ * threads, and {@link #getInstance(int)} returns plans from a shared cache.
+ * @see <a href="https://en.wikipedia.org/wiki/Fast_Fourier_transform">Fast Fourier Transform.</a>
+ */
+public class RealFFT {
+
+	private static final ConcurrentMap<Integer, RealFFT> PLANS = new ConcurrentHashMap<>();
+
+	private int _n;
+	private FFT _fft;
+
+	// exp(-2 * pi * j * k / n) for k = 0, ..., n / 2 - 1
+	private double[] _cos;
+	private double[] _sin;
+
+	/**
+	 * Constructs an instance of the {@code RealFFT} class.
+	 * @param n The length of the real sequences.
+	 */
+	public RealFFT(int n) {
+		if(n < 1) {
+			throw new IllegalArgumentException("n must be greater than zero");
+		}
+		_n = n;
+		if(n % 2 != 0) {
+			_fft = FFT.getInstance(n);
+			return;
+		}
+		final int h = n / 2;
+		_fft = FFT.getInstance(h);
+		_cos = new double[h];
+		_sin = new double[h];
+		double t = -2 * Math.PI / n;
+		for (int k = 0; k < h; ++k) {
+			_cos[k] = Math.cos(k * t);
+			_sin[k] = Math.sin(k * t);
+		}
+	}
+
+	/**
+	 * Get the plan of a given length from the shared cache, planning it on the
+	 * first request. This method is thread safe.
+	 * @param n The length of the real sequences.
+	 * @return The {@code RealFFT} of length n.
+	 */
+	public static RealFFT getInstance(int n) {
+		RealFFT fft = PLANS.get(n);
+		if(fft == null) {
+			fft = new RealFFT(n);
+			RealFFT previous = PLANS.putIfAbsent(n, fft);
+			if(previous != null) {
+				fft = previous;
+			}
+		}
+		return fft;
+	}
+
+	/**
+	 * Remove all the plans from the shared cache.
+	 */
+	public static void clearCache() {
+		PLANS.clear();
+	}
+
+	/**
+	 * The length of the real sequences.
+	 * @return n.
+	 */
+	public int getLength() {
+		return _n;
+	}
+
+	/**
+	 * The number of non-redundant frequency bins.
+	 * @return n / 2 + 1.
+	 */
+	public int getSpectrumLength() {
+		return _n / 2 + 1;
+	}
+
+	/**
+	 * Fast Fourier Transform of a real sequence.
+	 * @param data The real sequence of length n.
+	 * @return The n / 2 + 1 non-redundant bins of the spectrum.
+	 */
+	public ComplexArray direct(double[] data) {
+		ComplexArray spectrum = new ComplexArray(this.getSpectrumLength());
+		this.direct(data, spectrum.getReal(), spectrum.getImag());
+		return spectrum;
+	}
+
+	/**
+	 * Fast Fourier Transform of a real sequence into preallocated arrays.
+	 * @param data The real sequence of length n. It is not modified.
+	 * @param real The array of length n / 2 + 1 where the real part of the spectrum is stored.
+	 * @param imag The array of length n / 2 + 1 where the imaginary part of the spectrum is stored.
+	 */
+	public void direct(double[] data, double[] real, double[] imag) {
+		if(data.length != _n) {
+			throw new IllegalArgumentException(String.format("The length of the data must be equal to n = %d.", _n));
+		}
+		checkSpectrumLength(real, imag);
+		this.direct(data, real, imag, this.newWorkspace());
+	}
+
+	/*
+	 * Work buffers for the unchecked transforms: the workspace of the complex
+	 * plan followed, for odd lengths, by the complex sequence of length n.
+	 */
+	double[][] newWorkspace() {
+		double[][] fft = _fft.newWorkspace();
+		if(_cos == null) {
+			double[][] workspace = Arrays.copyOf(fft, fft.length + 2);
+			workspace[fft.length] = new double[_n];
+			workspace[fft.length + 1] = new double[_n];
+			return workspace;
+		}
+		return fft;
+	}
+
+	/*
+	 * Unchecked direct transform. For even n the spectrum arrays hold the
+	 * packed sequence during the complex transform, which is then split in
+	 * place, so no memory is allocated.
+	 */
+	void direct(double[] data, double[] real, double[] imag, double[][] workspace) {
+		if(_cos == null) {
+			double[] zr = workspace[workspace.length - 2];
+			double[] zi = workspace[workspace.length - 1];
+			System.arraycopy(data, 0, zr, 0, _n);
+			Arrays.fill(zi, 0.0);
+			_fft.transform(zr, zi, workspace);
+			System.arraycopy(zr, 0, real, 0, real.length);
+			System.arraycopy(zi, 0, imag, 0, imag.length);
+			return;
+		}
+
+		final int h = _n / 2;
+		for (int k = 0; k < h; ++k) {
+			real[k] = data[2 * k];
+			imag[k] = data[2 * k + 1];
+		}
+		_fft.transform(real, imag, workspace);
+
+		// X(k) = E(k) + W(k) * O(k) with E(k) = (Z(k) + conj(Z(h - k))) / 2 and
+		// O(k) = (Z(k) - conj(Z(h - k))) / 2j. The bins k and h - k are computed
+		// together since both depend on Z(k) and Z(h - k).
+		double z0r = real[0];
+		double z0i = imag[0];
+		real[0] = z0r + z0i;
+		imag[0] = 0.0;
+		real[h] = z0r - z0i;
+		imag[h] = 0.0;
+		for (int k = 1; k <= h / 2; ++k) {
+			final int j = h - k;
+			double ar = real[k];
+			double ai = imag[k];
+			double br = real[j];
+			double bi = -imag[j];
+			double er = 0.5 * (ar + br);
+			double ei = 0.5 * (ai + bi);
+			double or = 0.5 * (ai - bi);
+			double oi = -0.5 * (ar - br);
+			real[k] = er + or * _cos[k] - oi * _sin[k];
+			imag[k] = ei + or * _sin[k] + oi * _cos[k];
+			if(j != k) {
+				// E(h - k) = conj(E(k)) and O(h - k) = conj(O(k))
+				real[j] = er + or * _cos[j] + oi * _sin[j];
+				imag[j] = -ei + or * _sin[j] - oi * _cos[j];
+			}
+		}
+	}
+
+	/**
+	 * Inverse Fast Fourier Transform to a real sequence.
+	 * @param spectrum The n / 2 + 1 non-redundant bins of the spectrum.
+	 * @return The real sequence of length n.
+	 */
+	public double[] inverse(ComplexArray spectrum) {
+		double[] data = new double[_n];
+		this.inverse(spectrum.getReal(), spectrum.getImag(), data);
+		return data;
+	}
+
+	/**
+	 * Inverse Fast Fourier Transform to a real sequence into a preallocated array. The imaginary parts of the bins
+	 * 0 and n / 2 (for even n) are ignored since they are zero for the spectrum of a real sequence.
+	 * @param real The real part of the n / 2 + 1 non-redundant bins of the spectrum. It is not modified.
+	 * @param imag The imaginary part of the n / 2 + 1 non-redundant bins of the spectrum. It is not modified.
+	 * @param data The array of length n where the real sequence is stored.
+	 */
+	public void inverse(double[] real, double[] imag, double[] data) {
+		if(data.length != _n) {
+			throw new IllegalArgumentException(String.format("The length of the data must be equal to n = %d.", _n));
+		}
+		checkSpectrumLength(real, imag);
+		this.inverse(real.clone(), imag.clone(), data, this.newWorkspace());
+	}
+
+	/*
+	 * Unchecked inverse transform. For even n the spectrum arrays are
+	 * overwritten with the packed sequence, so no memory is allocated.
+	 */
+	void inverse(double[] real, double[] imag, double[] data, double[][] workspace) {
+		if(_cos == null) {
+			double[] zr = workspace[workspace.length - 2];
+			double[] zi = workspace[workspace.length - 1];
+			zr[0] = 0.0;
+			zi[0] = real[0];
+			for (int k = 1; k < real.length; ++k) {
+				zr[k] = imag[k];
+				zi[k] = real[k];
+				zr[_n - k] = -imag[k];
+				zi[_n - k] = real[k];
+			}
+			// The direct transform of the swapped parts gives the swapped inverse
+			_fft.transform(zr, zi, workspace);
+			final double factor = 1.0 / _n;
+			for (int k = 0; k < _n; ++k) {
+				data[k] = zi[k] * factor;
+			}
+			return;
+		}
+
+		// Z(k) = E(k) + j * O(k) with E(k) = (X(k) + conj(X(h - k))) / 2 and
+		// O(k) = (X(k) - conj(X(h - k))) * conj(W(k)) / 2. The bins k and h - k
+		// are computed together since both depend on X(k) and X(h - k).
+		final int h = _n / 2;
+		double x0 = real[0];
+		double xh = real[h];
+		real[0] = 0.5 * (x0 + xh);
+		imag[0] = 0.5 * (x0 - xh);
+		for (int k = 1; k <= h / 2; ++k) {
+			final int j = h - k;
+			double ar = real[k];
+			double ai = imag[k];
+			double br = real[j];
+			double bi = -imag[j];
+			double er = 0.5 * (ar + br);
+			double ei = 0.5 * (ai + bi);
+			double dr = 0.5 * (ar - br);
+			double di = 0.5 * (ai - bi);
+			double or = dr * _cos[k] + di * _sin[k];
+			double oi = di * _cos[k] - dr * _sin[k];
+			real[k] = er - oi;
+			imag[k] = ei + or;
+			if(j != k) {
+				// E(h - k) = conj(E(k)) and (X(h - k) - conj(X(k))) / 2 = -conj(D(k))
+				or = -dr * _cos[j] + di * _sin[j];
+				oi = di * _cos[j] + dr * _sin[j];
+				real[j] = er - oi;
+				imag[j] = -ei + or;
+			}
+		}
+		// The direct transform of the swapped parts gives the swapped inverse
+		_fft.transform(imag, real, workspace);
+		final double factor = 1.0 / h;
+		for (int k = 0; k < h; ++k) {
+			data[2 * k] = real[k] * factor;
+			data[2 * k + 1] = imag[k] * factor;
+		}
+	}
+
+	private void checkSpectrumLength(double[] real, double[] imag) {
+		final int length = this.getSpectrumLength();
+		if(real.length != length || imag.length != length) {
+			throw new IllegalArgumentException(String.format("The lengths of the spectrum arrays must be equal to n / 2 + 1 = %d.", length));
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+/**
+ * The {@code ShortTimeFourierTransform} class computes the short-time Fourier transform (STFT) of a stream.
+ * <P>
+ * The samples are fed in chunks of any size through {@link #process(double[], int, int)}. Every time a frame of n
+ * samples is complete, it is multiplied by the window, transformed with a {@link RealFFT} and its n / 2 + 1 bins are
+ * stored in a ring buffer, then the frame advances by the hop size. The samples of the frame that overlap the next
+ * one are kept internally, so consecutive chunks are processed as one continuous signal. The frames are read back in
+ * the order they were produced with {@code poll}. When the ring buffer is full the oldest frame is overwritten.
+ * <P>
+ * The frames are stored as complex bins, as magnitudes |X(k)| or as powers |X(k)|<sup>2</sup>, which makes a
+ * spectrogram engine. Every buffer is allocated by the constructor, so processing does not allocate memory.
+ * <P>
+ * A {@code ShortTimeFourierTransform} keeps the state of the stream and is not thread safe.
+ * @see InverseShortTimeFourierTransform
+ * @see <a href="https://en.wikipedia.org/wiki/Short-time_Fourier_transform">Short-time Fourier transform.</a>
+ */
+public class ShortTimeFourierTransform {
+
+	/**
+	 * Content of the frames stored in the ring buffer.
+	 */
+	public enum Output {
+		/** The real and imaginary parts of the bins. */
+		COMPLEX,
+		/** The magnitude of the bins. */
+		MAGNITUDE,
+		/** The squared magnitude of the bins. */
+		POWER
+	}
+
+	private final double[] _window;
+	private final int _n;
+	private final int _hop;
+	private final int _bins;
+	private final Output _output;
+	private final RealFFT _fft;
+	private final double[][] _workspace;
+
+	// Samples of the frame being filled
+	private final double[] _input;
+	private int _filled = 0;
+
+	private final double[] _frame;
+	private final double[] _real;
+	private final double[] _imag;
+
+	// Ring buffer of frames, the bins of the frame in slot s start at s * _frameSize
+	private final double[] _frames;
+	private final int _frameSize;
+	private final int _capacity;
+	private int _head = 0;
+	private int _count = 0;
+
+	/**
+	 * Constructs an instance of the {@code ShortTimeFourierTransform} class.
+	 * @param window The analysis window. Its length is the frame length n. See {@link Windows}.
+	 * @param hop The number of samples between the start of consecutive frames, {@code 1 <= hop <= n}.
+	 * @param capacity The number of frames held by the ring buffer.
+	 * @param output The content of the frames.
+	 */
+	public ShortTimeFourierTransform(double[] window, int hop, int capacity, Output output) {
+		if(window.length < 1) {
+			throw new IllegalArgumentException("The window must not be empty.");
+		}
+		if(hop < 1 || hop > window.length) {
+			throw new IllegalArgumentException("The hop size must be between one and the window length.");
+		}
+		if(capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be greater than zero.");
+		}
+		_window = window.clone();
+		_n = window.length;
+		_hop = hop;
+		_output = output;
+		_fft = RealFFT.getInstance(_n);
+		_workspace = _fft.newWorkspace();
+		_bins = _fft.getSpectrumLength();
+
+		_input = new double[_n];
+		_frame = new double[_n];
+		_real = new double[_bins];
+		_imag = new double[_bins];
+
+		_frameSize = output == Output.COMPLEX ? 2 * _bins : _bins;
+		_capacity = capacity;
+		_frames = new double[capacity * _frameSize];
+	}
+
+	/**
+	 * The length of the frames.
+	 * @return n, the length of the window.
+	 */
+	public int getFrameLength() {
+		return _n;
+	}
+
+	/**
+	 * The number of samples between consecutive frames.
+	 * @return The hop size.
+	 */
+	public int getHop() {
+		return _hop;
+	}
+
+	/**
+	 * The number of frequency bins of every frame.
+	 * @return n / 2 + 1.
+	 */
+	public int getBinCount() {
+		return _bins;
+	}
+
+	/**
+	 * The number of frames held by the ring buffer.
+	 * @return The capacity.
+	 */
+	public int getCapacity() {
+		return _capacity;
+	}
+
+	/**
+	 * The content of the frames.
+	 * @return The output.
+	 */
+	public Output getOutput() {
+		return _output;
+	}
+
+	/**
+	 * The number of frames in the ring buffer that have not been polled.
+	 * @return The number of available frames.
+	 */
+	public int getAvailableFrames() {
+		return _count;
+	}
+
+	/**
+	 * Process a chunk of samples.
+	 * @param samples The samples.
+	 * @return The number of frames produced.
+	 */
+	public int process(double[] samples) {
+		return this.process(samples, 0, samples.length);
+	}
+
+	/**
+	 * Process a chunk of samples.
+	 * @param samples The array of samples.
+	 * @param offset The index of the first sample of the chunk.
+	 * @param length The number of samples of the chunk.
+	 * @return The number of frames produced.
+	 */
+	public int process(double[] samples, int offset, int length) {
+		if(offset < 0 || length < 0 || offset + length > samples.length) {
+			throw new IllegalArgumentException("The chunk is out of the bounds of the array.");
+		}
+		int frames = 0;
+		while(length > 0) {
+			int count = Math.min(length, _n - _filled);
+			System.arraycopy(samples, offset, _input, _filled, count);
+			_filled += count;
+			offset += count;
+			length -= count;
+			if(_filled == _n) {
+				this.emitFrame();
+				++frames;
+				System.arraycopy(_input, _hop, _input, 0, _n - _hop);
+				_filled = _n - _hop;
+			}
+		}
+		return frames;
+	}
+
+	private void emitFrame() {
+		for (int i = 0; i < _n; ++i) {
+			_frame[i] = _input[i] * _window[i];
+		}
+		_fft.direct(_frame, _real, _imag, _workspace);
+
+		int slot = _head + _count;
+		if(slot >= _capacity) {
+			slot -= _capacity;
+		}
+		if(_count == _capacity) {
+			// Overwrite the oldest frame
+			_head = _head + 1 == _capacity ? 0 : _head + 1;
+		} else {
+			++_count;
+		}
+
+		final int base = slot * _frameSize;
+		switch (_output) {
+		case COMPLEX:
+			System.arraycopy(_real, 0, _frames, base, _bins);
+			System.arraycopy(_imag, 0, _frames, base + _bins, _bins);
+			break;
+		case MAGNITUDE:
+			for (int k = 0; k < _bins; ++k) {
+				_frames[base + k] = Math.sqrt(_real[k] * _real[k] + _imag[k] * _imag[k]);
+			}
+			break;
+		default:
+			for (int k = 0; k < _bins; ++k) {
+				_frames[base + k] = _real[k] * _real[k] + _imag[k] * _imag[k];
+			}
+		}
+	}
+
+	/**
+	 * Remove the oldest magnitude or power frame from the ring buffer.
+	 * @param frame The array of length n / 2 + 1 where the frame is stored.
+	 * @return {@code false} if there are no frames available, {@code true} otherwise.
+	 */
+	public boolean poll(double[] frame) {
+		if(_output == Output.COMPLEX) {
+			throw new IllegalStateException("The frames are complex.");
+		}
+		checkFrameLength(frame);
+		if(_count == 0) {
+			return false;
+		}
+		System.arraycopy(_frames, _head * _frameSize, frame, 0, _bins);
+		this.advance();
+		return true;
+	}
+
+	/**
+	 * Remove the oldest complex frame from the ring buffer.
+	 * @param real The array of length n / 2 + 1 where the real part of the frame is stored.
+	 * @param imag The array of length n / 2 + 1 where the imaginary part of the frame is stored.
+	 * @return {@code false} if there are no frames available, {@code true} otherwise.
+	 */
+	public boolean poll(double[] real, double[] imag) {
+		if(_output != Output.COMPLEX) {
+			throw new IllegalStateException("The frames are not complex.");
+		}
+		checkFrameLength(real);
+		checkFrameLength(imag);
+		if(_count == 0) {
+			return false;
+		}
+		final int base = _head * _frameSize;
+		System.arraycopy(_frames, base, real, 0, _bins);
+		System.arraycopy(_frames, base + _bins, imag, 0, _bins);
+		this.advance();
+		return true;
+	}
+
+	private void advance() {
+		_head = _head + 1 == _capacity ? 0 : _head + 1;
+		--_count;
+	}
+
+	/**
+	 * Discard the buffered samples and frames to start a new stream.
+	 */
+	public void reset() {
+		_filled = 0;
+		_head = 0;
+		_count = 0;
+	}
+
+	private void checkFrameLength(double[] frame) {
+		if(frame.length != _bins) {
+			throw new IllegalArgumentException(String.format("The length of the frame must be equal to n / 2 + 1 = %d.", _bins));
+		}
+	}
+}
@@ -0,0 +1,407 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code Welch} class estimates power spectral densities with Welch's method.
+ * <P>
+ * The signal is split into segments of n samples, where n is the length of
+ * the window, that overlap by a given number of samples. Every segment is
+ * multiplied by the window and transformed with a {@link RealFFT}, and the
+ * squared magnitudes of the spectra are averaged. A single segment the length
+ * of the signal gives the periodogram. Feeding two signals at once also
+ * averages the cross spectrum, which gives the cross spectral density and the
+ * magnitude squared coherence.
+ * <P>
+ * The samples are fed in chunks of any size through {@code update}. The
+ * samples of a segment that overlap the next chunk are kept internally and the
+ * spectra are accumulated as they are computed, so arbitrarily long recordings
+ * can be processed without holding them in memory. The estimates can be read
+ * at any time. The segments of a chunk can be transformed in parallel on the
+ * common fork-join pool, otherwise the updates do not allocate memory.
+ * <P>
+ * A {@code Welch} estimator keeps the state of the stream and is not thread safe.
+ * @see <a href="https://en.wikipedia.org/wiki/Welch%27s_method">Welch's method.</a>
+ */
+public class Welch {
+
+	/**
+	 * Scaling of the estimates.
+	 */
+	public enum Scaling {
+		/** Power spectral density in units<sup>2</sup>/Hz. */
+		DENSITY,
+		/** Power spectrum in units<sup>2</sup>. */
+		SPECTRUM
+	}
+
+	private final double[] _window;
+	private final int _n;
+	private final int _hop;
+	private final double _fs;
+	private final RealFFT _fft;
+	private final int _bins;
+	private Scaling _scaling = Scaling.DENSITY;
+	private boolean _detrend = false;
+	private boolean _parallel = false;
+
+	// Samples of the segment being filled
+	private final double[] _pendingX;
+	private final double[] _pendingY;
+	private int _filled = 0;
+
+	private final Accumulator _sums;
+	private long _segments = 0;
+	private Boolean _cross = null;
+
+	/**
+	 * Constructs an instance of the {@code Welch} class.
+	 * @param window The window of the segments. Its length is the segment length n. See {@link Windows}.
+	 * @param overlap The number of samples shared by consecutive segments, {@code 0 <= overlap < n}.
+	 * @param fs The sampling frequency.
+	 */
+	public Welch(double[] window, int overlap, double fs) {
+		if(window.length < 1) {
+			throw new IllegalArgumentException("The window must not be empty.");
+		}
+		if(overlap < 0 || overlap >= window.length) {
+			throw new IllegalArgumentException("The overlap must be non-negative and less than the window length.");
+		}
+		if(fs <= 0.0) {
+			throw new IllegalArgumentException("The sampling frequency must be greater than zero.");
+		}
+		_window = window.clone();
+		_n = window.length;
+		_hop = _n - overlap;
+		_fs = fs;
+		_fft = RealFFT.getInstance(_n);
+		_bins = _fft.getSpectrumLength();
+		_pendingX = new double[_n];
+		_pendingY = new double[_n];
+		_sums = new Accumulator();
+	}
+
+	/**
+	 * Set the scaling of the estimates.
+	 * @param scaling The scaling. Defaults to {@link Scaling#DENSITY}.
+	 * @return This {@code Welch} estimator.
+	 */
+	public Welch scaling(Scaling scaling) {
+		_scaling = scaling;
+		return this;
+	}
+
+	/**
+	 * Remove the mean of every segment before applying the window.
+	 * @param detrend {@code true} to remove the mean. Defaults to {@code false}.
+	 * @return This {@code Welch} estimator.
+	 */
+	public Welch detrend(boolean detrend) {
+		_detrend = detrend;
+		return this;
+	}
+
+	/**
+	 * Transform the segments of every chunk in parallel on the common fork-join pool.
+	 * @param parallel {@code true} to transform in parallel. Defaults to {@code false}.
+	 * @return This {@code Welch} estimator.
+	 */
+	public Welch parallel(boolean parallel) {
+		_parallel = parallel;
+		return this;
+	}
+
+	/**
+	 * The length of the segments.
+	 * @return n, the length of the window.
+	 */
+	public int getSegmentLength() {
+		return _n;
+	}
+
+	/**
+	 * The number of segments averaged so far.
+	 * @return The number of segments.
+	 */
+	public long getSegmentCount() {
+		return _segments;
+	}
+
+	/**
+	 * The frequencies of the estimates, k * fs / n for k = 0, ..., n / 2.
+	 * @return The frequencies.
+	 */
+	public double[] getFrequencies() {
+		double[] f = new double[_bins];
+		for (int k = 0; k < _bins; ++k) {
+			f[k] = k * _fs / _n;
+		}
+		return f;
+	}
+
+	/**
+	 * Process a chunk of samples of a signal.
+	 * @param x The samples.
+	 */
+	public void update(double[] x) {
+		this.update(x, 0, x.length);
+	}
+
+	/**
+	 * Process a chunk of samples of a signal.
+	 * @param x The array of samples.
+	 * @param offset The index of the first sample of the chunk.
+	 * @param length The number of samples of the chunk.
+	 */
+	public void update(double[] x, int offset, int length) {
+		checkBounds(x, offset, length);
+		checkMode(false);
+		this.process(x, null, offset, length);
+	}
+
+	/**
+	 * Process a chunk of samples of two signals acquired simultaneously.
+	 * @param x The samples of the first signal.
+	 * @param y The samples of the second signal.
+	 */
+	public void update(double[] x, double[] y) {
+		if(x.length != y.length) {
+			throw new IllegalArgumentException("x and y dimensions must match.");
+		}
+		this.update(x, y, 0, x.length);
+	}
+
+	/**
+	 * Process a chunk of samples of two signals acquired simultaneously.
+	 * @param x The array of samples of the first signal.
+	 * @param y The array of samples of the second signal.
+	 * @param offset The index of the first sample of the chunk in both arrays.
+	 * @param length The number of samples of the chunk.
+	 */
+	public void update(double[] x, double[] y, int offset, int length) {
+		checkBounds(x, offset, length);
+		checkBounds(y, offset, length);
+		checkMode(true);
+		this.process(x, y, offset, length);
+	}
+
+	private void process(double[] x, double[] y, int offset, int length) {
+		final int end = offset + length;
+		int pos = offset;
+		// Segments that start in the pending buffer
+		while(pos < end && pos - offset < _filled) {
+			int count = Math.min(end - pos, _n - _filled);
+			System.arraycopy(x, pos, _pendingX, _filled, count);
+			if(y != null) {
+				System.arraycopy(y, pos, _pendingY, _filled, count);
+			}
+			_filled += count;
+			pos += count;
+			if(_filled == _n) {
+				_sums.add(_pendingX, y == null ? null : _pendingY, 0);
+				++_segments;
+				System.arraycopy(_pendingX, _hop, _pendingX, 0, _n - _hop);
+				System.arraycopy(_pendingY, _hop, _pendingY, 0, _n - _hop);
+				_filled = _n - _hop;
+			}
+		}
+		if(pos - offset < _filled) {
+			return;
+		}
+
+		// Segments that lie in the chunk are read in place
+		final int start = pos - _filled;
+		final int segments = start + _n <= end ? (end - start - _n) / _hop + 1 : 0;
+		if(_parallel && segments > 1) {
+			final int blocks = Math.min(segments, ForkJoinPool.getCommonPoolParallelism());
+			Accumulator[] partials = IntStream.range(0, blocks).parallel().mapToObj(b -> {
+				Accumulator partial = new Accumulator();
+				for (int s = b * segments / blocks; s < (b + 1) * segments / blocks; ++s) {
+					partial.add(x, y, start + s * _hop);
+				}
+				return partial;
+			}).toArray(Accumulator[]::new);
+			for (Accumulator partial : partials) {
+				_sums.merge(partial);
+			}
+		} else {
+			for (int s = 0; s < segments; ++s) {
+				_sums.add(x, y, start + s * _hop);
+			}
+		}
+		_segments += segments;
+
+		final int next = start + segments * _hop;
+		_filled = end - next;
+		System.arraycopy(x, next, _pendingX, 0, _filled);
+		if(y != null) {
+			System.arraycopy(y, next, _pendingY, 0, _filled);
+		}
+	}
+
+	/**
+	 * One-sided power spectral density of the first signal. The bins other than zero and the Nyquist frequency are
+	 * doubled to account for the negative frequencies.
+	 * @return The power spectral density, or the power spectrum, at the frequencies of {@link #getFrequencies()}.
+	 */
+	public double[] getPowerSpectralDensity() {
+		return this.scale(_sums._xx);
+	}
+
+	/**
+	 * One-sided cross spectral density of the two signals, the average of conj(X(k)) * Y(k).
+	 * @return The cross spectral density, or the cross spectrum, at the frequencies of {@link #getFrequencies()}.
+	 */
+	public ComplexArray getCrossSpectralDensity() {
+		checkCross();
+		return new ComplexArray(this.scale(_sums._xyr), this.scale(_sums._xyi));
+	}
+
+	/**
+	 * Magnitude squared coherence of the two signals, |Pxy|<sup>2</sup> / (Pxx * Pyy).
+	 * @return The coherence at the frequencies of {@link #getFrequencies()}.
+	 */
+	public double[] getCoherence() {
+		checkCross();
+		checkSegments();
+		double[] c = new double[_bins];
+		for (int k = 0; k < _bins; ++k) {
+			double xyr = _sums._xyr[k];
+			double xyi = _sums._xyi[k];
+			c[k] = (xyr * xyr + xyi * xyi) / (_sums._xx[k] * _sums._yy[k]);
+		}
+		return c;
+	}
+
+	/**
+	 * Discard the pending samples and the accumulated spectra to start a new estimate.
+	 */
+	public void reset() {
+		_filled = 0;
+		_segments = 0;
+		_cross = null;
+		_sums.clear();
+	}
+
+	private double[] scale(double[] sums) {
+		checkSegments();
+		double w = 0.0;
+		if(_scaling == Scaling.DENSITY) {
+			for (double v : _window) {
+				w += v * v;
+			}
+			w *= _fs;
+		} else {
+			for (double v : _window) {
+				w += v;
+			}
+			w *= w;
+		}
+		final double factor = 1.0 / (w * _segments);
+		double[] p = new double[_bins];
+		for (int k = 0; k < _bins; ++k) {
+			p[k] = sums[k] * factor;
+		}
+		// Fold the negative frequencies, the Nyquist bin of even lengths has no counterpart
+		final int last = _n % 2 == 0 ? _bins - 1 : _bins;
+		for (int k = 1; k < last; ++k) {
+			p[k] *= 2.0;
+		}
+		return p;
+	}
+
+	private void checkMode(boolean cross) {
+		if(_cross == null) {
+			_cross = cross;
+		} else if(_cross != cross) {
+			throw new IllegalStateException("The estimator was started with " + (_cross ? "two signals." : "one signal."));
+		}
+	}
+
+	private void checkCross() {
+		if(_cross == null || !_cross) {
+			throw new IllegalStateException("The cross spectrum requires updates with two signals.");
+		}
+	}
+
+	private void checkSegments() {
+		if(_segments == 0) {
+			throw new IllegalStateException("No segments have been processed.");
+		}
+	}
+
+	private static void checkBounds(double[] x, int offset, int length) {
+		if(offset < 0 || length < 0 || offset + length > x.length) {
+			throw new IllegalArgumentException("The chunk is out of the bounds of the array.");
+		}
+	}
+
+	/*
+	 * Sums of |X(k)|^2, |Y(k)|^2 and conj(X(k)) * Y(k) over segments, with the
+	 * buffers to transform them.
+	 */
+	private final class Accumulator {
+		private final double[] _xx = new double[_bins];
+		private final double[] _yy = new double[_bins];
+		private final double[] _xyr = new double[_bins];
+		private final double[] _xyi = new double[_bins];
+
+		private final double[] _frame = new double[_n];
+		private final double[] _xr = new double[_bins];
+		private final double[] _xi = new double[_bins];
+		private final double[] _yr = new double[_bins];
+		private final double[] _yi = new double[_bins];
+		private final double[][] _workspace = _fft.newWorkspace();
+
+		void add(double[] x, double[] y, int start) {
+			this.transform(x, start, _xr, _xi);
+			for (int k = 0; k < _bins; ++k) {
+				_xx[k] += _xr[k] * _xr[k] + _xi[k] * _xi[k];
+			}
+			if(y == null) {
+				return;
+			}
+			this.transform(y, start, _yr, _yi);
+			for (int k = 0; k < _bins; ++k) {
+				_yy[k] += _yr[k] * _yr[k] + _yi[k] * _yi[k];
+				_xyr[k] += _xr[k] * _yr[k] + _xi[k] * _yi[k];
+				_xyi[k] += _xr[k] * _yi[k] - _xi[k] * _yr[k];
+			}
+		}
+
+		private void transform(double[] data, int start, double[] real, double[] imag) {
+			double mean = 0.0;
+			if(_detrend) {
+				for (int i = 0; i < _n; ++i) {
+					mean += data[start + i];
+				}
+				mean /= _n;
+			}
+			for (int i = 0; i < _n; ++i) {
+				_frame[i] = (data[start + i] - mean) * _window[i];
+			}
+			_fft.direct(_frame, real, imag, _workspace);
+		}
+
+		void merge(Accumulator other) {
+			for (int k = 0; k < _bins; ++k) {
+				_xx[k] += other._xx[k];
+				_yy[k] += other._yy[k];
+				_xyr[k] += other._xyr[k];
+				_xyi[k] += other._xyi[k];
+			}
+		}
+
+		void clear() {
+			for (int k = 0; k < _bins; ++k) {
+				_xx[k] = 0.0;
+				_yy[k] = 0.0;
+				_xyr[k] = 0.0;
+				_xyi[k] = 0.0;
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+/**
+ * The {@code Windows} class generates the coefficients of common spectral analysis windows.
+ * <P>
+ * Every window comes in two flavors. The symmetric window of length n is the
+ * one used for filter design, w(i) = w(n - 1 - i). The periodic window of
+ * length n is the first n samples of the symmetric window of length n + 1,
+ * which is the one used for spectral analysis, e.g. by
+ * {@link ShortTimeFourierTransform}, since overlapped periodic Hann and Hamming
+ * windows add up to a constant.
+ */
+public final class Windows {
+
+	private Windows() {
+
+	}
+
+	/**
+	 * Symmetric Hann window, w(i) = 0.5 - 0.5 * cos(2 * pi * i / (n - 1)).
+	 * @param length The length of the window.
+	 * @return The window coefficients.
+	 */
+	public static double[] hann(int length) {
+		return hann(length, false);
+	}
+
+	/**
+	 * Hann window.
+	 * @param length The length of the window.
+	 * @param periodic {@code true} for the periodic window, {@code false} for the symmetric window.
+	 * @return The window coefficients.
+	 */
+	public static double[] hann(int length, boolean periodic) {
+		return cosineSum(length, periodic, 0.5, 0.5);
+	}
+
+	/**
+	 * Symmetric Hamming window, w(i) = 0.54 - 0.46 * cos(2 * pi * i / (n - 1)).
+	 * @param length The length of the window.
+	 * @return The window coefficients.
+	 */
+	public static double[] hamming(int length) {
+		return hamming(length, false);
+	}
+
+	/**
+	 * Hamming window.
+	 * @param length The length of the window.
+	 * @param periodic {@code true} for the periodic window, {@code false} for the symmetric window.
+	 * @return The window coefficients.
+	 */
+	public static double[] hamming(int length, boolean periodic) {
+		return cosineSum(length, periodic, 0.54, 0.46);
+	}
+
+	/**
+	 * Symmetric Blackman window, w(i) = 0.42 - 0.5 * cos(2 * pi * i / (n - 1)) + 0.08 * cos(4 * pi * i / (n - 1)).
+	 * @param length The length of the window.
+	 * @return The window coefficients.
+	 */
+	public static double[] blackman(int length) {
+		return blackman(length, false);
+	}
+
+	/**
+	 * Blackman window.
+	 * @param length The length of the window.
+	 * @param periodic {@code true} for the periodic window, {@code false} for the symmetric window.
+	 * @return The window coefficients.
+	 */
+	public static double[] blackman(int length, boolean periodic) {
+		return cosineSum(length, periodic, 0.42, 0.5, 0.08);
+	}
+
+	/**
+	 * Symmetric Kaiser window, w(i) = I0(beta * sqrt(1 - (2 * i / (n - 1) - 1)<sup>2</sup>)) / I0(beta), where I0 is
+	 * the modified Bessel function of the first kind of order zero.
+	 * @param length The length of the window.
+	 * @param beta The shape parameter. Larger values trade a wider main lobe for lower side lobes.
+	 * @return The window coefficients.
+	 */
+	public static double[] kaiser(int length, double beta) {
+		return kaiser(length, beta, false);
+	}
+
+	/**
+	 * Kaiser window.
+	 * @param length The length of the window.
+	 * @param beta The shape parameter. Larger values trade a wider main lobe for lower side lobes.
+	 * @param periodic {@code true} for the periodic window, {@code false} for the symmetric window.
+	 * @return The window coefficients.
+	 */
+	public static double[] kaiser(int length, double beta, boolean periodic) {
+		checkLength(length);
+		double[] w = new double[length];
+		final int m = periodic ? length : length - 1;
+		if(m == 0) {
+			w[0] = 1.0;
+			return w;
+		}
+		final double scale = 1.0 / besselI0(beta);
+		for (int i = 0; i < length; ++i) {
+			double r = 2.0 * i / m - 1.0;
+			w[i] = besselI0(beta * Math.sqrt(Math.max(0.0, 1.0 - r * r))) * scale;
+		}
+		return w;
+	}
+
+	/*
+	 * w(i) = a0 - a1 * cos(2 * pi * i / m) + a2 * cos(4 * pi * i / m) - ...
+	 */
+	private static double[] cosineSum(int length, boolean periodic, double... a) {
+		checkLength(length);
+		double[] w = new double[length];
+		final int m = periodic ? length : length - 1;
+		if(m == 0) {
+			w[0] = 1.0;
+			return w;
+		}
+		for (int i = 0; i < length; ++i) {
+			double sum = a[0];
+			double sign = -1.0;
+			for (int k = 1; k < a.length; ++k) {
+				sum += sign * a[k] * Math.cos(2.0 * Math.PI * k * i / m);
+				sign = -sign;
+			}
+			w[i] = sum;
+		}
+		return w;
+	}
+
+	/*
+	 * Power series I0(x) = sum(((x / 2)^k / k!)^2), which converges for every x.
+	 */
+	private static double besselI0(double x) {
+		final double q = 0.25 * x * x;
+		double term = 1.0;
+		double sum = 1.0;
+		for (int k = 1; term > 1e-17 * sum; ++k) {
+			term *= q / ((double) k * k);
+			sum += term;
+		}
+		return sum;
+	}
+
+	private static void checkLength(int length) {
+		if(length < 1) {
+			throw new IllegalArgumentException("The length of the window must be greater than zero.");
+		}
+	}
+}
@@ -178,7 +178,8 @@ public class Bessel extends AnalogFilter {
      */
     public static ZeroPoleGain newLowPassZPK(int n, double wn) {
         ButterWorth.validateInputsLowPass(n, wn);
-        return besselap(n);
+        ZeroPoleGain zpk = besselap(n);
+        return lpTolpZPK(zpk, wn);
     }
 
     /**
@@ -0,0 +1,401 @@
+package com.wildbitsfoundry.etk4j.signals.filters;
+
+import com.wildbitsfoundry.etk4j.control.TransferFunction;
+import com.wildbitsfoundry.etk4j.control.ZeroPoleGain;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code DigitalFilter} class filters sampled signals with a rational transfer function in z.
+ * <P>
+ * The filter is defined by its numerator and denominator coefficients in ascending powers of z<sup>-1</sup>
+ * <pre>
+ *         b[0] + b[1] * z<sup>-1</sup> + ... + b[M] * z<sup>-M</sup>
+ * H(z) = -------------------------------------
+ *         a[0] + a[1] * z<sup>-1</sup> + ... + a[N] * z<sup>-N</sup>
+ * </pre>
+ * and realized in the transposed direct form II, which keeps max(M, N) delays. The contents of the delays are the
+ * state of the filter. The state is passed explicitly and updated in place, so a long signal can be filtered chunk by
+ * chunk with the same state array, as if it was filtered at once, and several channels can share a filter, each with
+ * its own state. Filtering into preallocated arrays does not allocate memory.
+ * <P>
+ * {@link #filtfilt(double[], Padding, int)} filters a whole signal forward and backward, which cancels the phase of
+ * the filter and squares its magnitude response. The signal is padded at its edges and each pass starts from the
+ * steady state of the filter for the edge sample, {@link #lfilterZi()}, to reduce the transients at the edges.
+ * <P>
+ * A {@code DigitalFilter} is immutable and can be shared between threads.
+ * @see <a href="https://en.wikipedia.org/wiki/Digital_biquad_filter#Transposed_direct_forms">Transposed direct forms.</a>
+ */
+public class DigitalFilter {
+
+    // Samples times coefficients above which the channels are filtered forward and backward in parallel
+    private static final long PARALLEL_THRESHOLD = 1L << 18;
+
+    private final double[] b;
+    private final double[] a;
+    private final int order;
+
+    /**
+     * Constructs a {@code DigitalFilter}. The coefficients are normalized so that {@code a[0] = 1}.
+     *
+     * @param b The numerator coefficients in ascending powers of z<sup>-1</sup>.
+     * @param a The denominator coefficients in ascending powers of z<sup>-1</sup>.
+     */
+    public DigitalFilter(double[] b, double[] a) {
+        if (b.length == 0 || a.length == 0) {
+            throw new IllegalArgumentException("The coefficients must not be empty.");
+        }
+        if (a[0] == 0.0) {
+            throw new IllegalArgumentException("The leading denominator coefficient must not be zero.");
+        }
+        order = Math.max(b.length, a.length) - 1;
+        this.b = new double[order + 1];
+        this.a = new double[order + 1];
+        for (int i = 0; i < b.length; ++i) {
+            this.b[i] = b[i] / a[0];
+        }
+        for (int i = 0; i < a.length; ++i) {
+            this.a[i] = a[i] / a[0];
+        }
+    }
+
+    /**
+     * Constructs a {@code DigitalFilter} from a transfer function in z, e.g. the result of
+     * {@link Filters#bilinear(ZeroPoleGain, double)}. The transfer function must be proper to be causal.
+     *
+     * @param tf The transfer function, in descending powers of z.
+     */
+    public DigitalFilter(TransferFunction tf) {
+        this(toAscending(tf.getNumeratorCoefficients(), tf.getDenominatorCoefficients()),
+                tf.getDenominatorCoefficients());
+    }
+
+    /**
+     * The numerator coefficients, normalized and padded with zeros to {@code order + 1} coefficients.
+     *
+     * @return The numerator coefficients in ascending powers of z<sup>-1</sup>.
+     */
+    public double[] getNumerator() {
+        return Arrays.copyOf(b, b.length);
+    }
+
+    /**
+     * The denominator coefficients, normalized and padded with zeros to {@code order + 1} coefficients.
+     *
+     * @return The denominator coefficients in ascending powers of z<sup>-1</sup>.
+     */
+    public double[] getDenominator() {
+        return Arrays.copyOf(a, a.length);
+    }
+
+    /**
+     * The order of the filter, which is the length of the state.
+     *
+     * @return The number of delays.
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * Filter a signal starting from rest.
+     *
+     * @param x The signal.
+     * @return The filtered signal.
+     */
+    public double[] filter(double[] x) {
+        double[] y = new double[x.length];
+        this.filter(x, y, new double[order]);
+        return y;
+    }
+
+    /**
+     * Filter a signal from a given state.
+     *
+     * @param x     The signal.
+     * @param y     The array where the filtered signal is stored. It can be {@code x}.
+     * @param state The initial state of length {@link #getOrder()}, which is replaced by the final state.
+     */
+    public void filter(double[] x, double[] y, double[] state) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("x and y dimensions must match.");
+        }
+        this.filter(x, 0, y, 0, x.length, state);
+    }
+
+    /**
+     * Filter a chunk of a signal from a given state.
+     *
+     * @param x       The array of samples of the signal.
+     * @param xOffset The index of the first sample of the chunk.
+     * @param y       The array where the filtered chunk is stored. It can be {@code x}.
+     * @param yOffset The index where the first filtered sample is stored.
+     * @param length  The number of samples of the chunk.
+     * @param state   The initial state of length {@link #getOrder()}, which is replaced by the final state.
+     */
+    public void filter(double[] x, int xOffset, double[] y, int yOffset, int length, double[] state) {
+        if (xOffset < 0 || yOffset < 0 || length < 0 || xOffset + length > x.length || yOffset + length > y.length) {
+            throw new IllegalArgumentException("The chunk is out of the bounds of the arrays.");
+        }
+        checkState(state);
+        final double[] b = this.b;
+        final double[] a = this.a;
+        final int n = order;
+        final double b0 = b[0];
+        if (n == 0) {
+            for (int i = 0; i < length; ++i) {
+                y[yOffset + i] = b0 * x[xOffset + i];
+            }
+            return;
+        }
+        for (int i = 0; i < length; ++i) {
+            double xi = x[xOffset + i];
+            double yi = b0 * xi + state[0];
+            for (int j = 1; j < n; ++j) {
+                state[j - 1] = b[j] * xi + state[j] - a[j] * yi;
+            }
+            state[n - 1] = b[n] * xi - a[n] * yi;
+            y[yOffset + i] = yi;
+        }
+    }
+
+    /**
+     * Filter several channels stored in separate arrays.
+     *
+     * @param x     The signals, one per channel.
+     * @param y     The arrays where the filtered signals are stored. They can be the arrays of {@code x}.
+     * @param state The states of the channels, each of length {@link #getOrder()}, which are replaced by the final
+     *              states.
+     */
+    public void filter(double[][] x, double[][] y, double[][] state) {
+        if (x.length != y.length || x.length != state.length) {
+            throw new IllegalArgumentException("The number of channels of x, y and the state must match.");
+        }
+        for (int c = 0; c < x.length; ++c) {
+            this.filter(x[c], y[c], state[c]);
+        }
+    }
+
+    /**
+     * Filter several channels stored interleaved, i.e. the i-th sample of channel c is stored at
+     * {@code i * channels + c}. Unless the signals are filtered in place, every sample of all the channels is
+     * processed at once, so the inner loops run over contiguous memory.
+     *
+     * @param x        The interleaved samples of the signals.
+     * @param y        The array where the interleaved filtered signals are stored. It can be {@code x}.
+     * @param channels The number of channels.
+     * @param state    The interleaved states of length {@code getOrder() * channels}, the j-th delay of channel c is
+     *                 stored at {@code j * channels + c}, which is replaced by the final states.
+     */
+    public void filterInterleaved(double[] x, double[] y, int channels, double[] state) {
+        if (channels < 1) {
+            throw new IllegalArgumentException("The number of channels must be greater than zero.");
+        }
+        if (x.length != y.length || x.length % channels != 0) {
+            throw new IllegalArgumentException("x and y must have the same length, a multiple of the number of channels.");
+        }
+        if (state.length != order * channels) {
+            throw new IllegalArgumentException(String.format("The length of the state must be equal to order * channels = %d.",
+                    order * channels));
+        }
+        final double[] b = this.b;
+        final double[] a = this.a;
+        final int n = order;
+        final double b0 = b[0];
+        if (n == 0) {
+            for (int i = 0; i < x.length; ++i) {
+                y[i] = b0 * x[i];
+            }
+            return;
+        }
+        if (x == y) {
+            // In place, the output of a channel overwrites its input so the channels are filtered one at a time
+            for (int base = 0; base < x.length; base += channels) {
+                for (int c = 0; c < channels; ++c) {
+                    double xi = x[base + c];
+                    double yi = b0 * xi + state[c];
+                    for (int j = 1, s = c; j < n; ++j, s += channels) {
+                        state[s] = b[j] * xi + state[s + channels] - a[j] * yi;
+                    }
+                    state[(n - 1) * channels + c] = b[n] * xi - a[n] * yi;
+                    y[base + c] = yi;
+                }
+            }
+            return;
+        }
+        for (int base = 0; base < x.length; base += channels) {
+            for (int c = 0; c < channels; ++c) {
+                y[base + c] = b0 * x[base + c] + state[c];
+            }
+            for (int j = 1; j <= n; ++j) {
+                final double bj = b[j];
+                final double aj = a[j];
+                final int s = (j - 1) * channels;
+                if (j < n) {
+                    for (int c = 0; c < channels; ++c) {
+                        state[s + c] = bj * x[base + c] + state[s + channels + c] - aj * y[base + c];
+                    }
+                } else {
+                    for (int c = 0; c < channels; ++c) {
+                        state[s + c] = bj * x[base + c] - aj * y[base + c];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The steady state of the filter for a unit step input, like {@code lfilter_zi}. The state {@code zi * x[0]} starts
+     * filtering a signal as if its first sample had been applied forever, so a constant signal is filtered without
+     * transient.
+     *
+     * @return The state of length {@link #getOrder()} for a unit step input.
+     * @throws IllegalStateException If the filter has a pole at z = 1, so its step response has no steady state.
+     */
+    public double[] lfilterZi() {
+        double sumB = 0.0;
+        double sumA = 0.0;
+        for (int i = 0; i <= order; ++i) {
+            sumB += b[i];
+            sumA += a[i];
+        }
+        if (sumA == 0.0) {
+            throw new IllegalStateException("The filter has a pole at z = 1 and its step response has no steady state.");
+        }
+        // The output settles to y = H(1) and every delay holds the sum of b[j] - a[j] * y of the later taps
+        final double y = sumB / sumA;
+        double[] zi = new double[order];
+        double sum = 0.0;
+        for (int j = order; j > 0; --j) {
+            sum += b[j] - a[j] * y;
+            zi[j - 1] = sum;
+        }
+        return zi;
+    }
+
+    /**
+     * Zero phase filtering, like {@code filtfilt}, with odd padding of {@code 3 * (getOrder() + 1)} samples.
+     *
+     * @param x The signal, longer than the padding.
+     * @return The signal filtered forward and backward.
+     * @see #filtfilt(double[], Padding, int)
+     */
+    public double[] filtfilt(double[] x) {
+        return this.filtfilt(x, Padding.ODD, 3 * (order + 1));
+    }
+
+    /**
+     * Zero phase filtering. The signal is extended by {@code padLength} samples at both edges, filtered forward, then
+     * filtered backward, each pass starting from the steady state {@link #lfilterZi()} scaled by its first sample,
+     * and the extension is removed. The result has no phase shift and the magnitude response of the filter squared.
+     *
+     * @param x         The signal, longer than the padding.
+     * @param padding   The extension of the signal at the edges.
+     * @param padLength The number of samples added at each edge, ignored for {@link Padding#NONE}.
+     * @return The signal filtered forward and backward.
+     */
+    public double[] filtfilt(double[] x, Padding padding, int padLength) {
+        double[] ext = padding.extend(x, padLength);
+        if (ext.length == 0) {
+            return ext;
+        }
+        double[] zi = this.lfilterZi();
+        double[] state = new double[order];
+        this.filterFromSteadyState(ext, zi, state);
+        reverse(ext);
+        this.filterFromSteadyState(ext, zi, state);
+        reverse(ext);
+        final int edge = (ext.length - x.length) / 2;
+        return Arrays.copyOfRange(ext, edge, edge + x.length);
+    }
+
+    /**
+     * Zero phase filtering of several channels, with odd padding of {@code 3 * (getOrder() + 1)} samples.
+     *
+     * @param x The signals, one per channel, each longer than the padding.
+     * @return The signals filtered forward and backward.
+     * @see #filtfilt(double[][], Padding, int)
+     */
+    public double[][] filtfilt(double[][] x) {
+        return this.filtfilt(x, Padding.ODD, 3 * (order + 1));
+    }
+
+    /**
+     * Zero phase filtering of several channels. The channels are independent, so long recordings with many channels
+     * are filtered in parallel on the common fork-join pool.
+     *
+     * @param x         The signals, one per channel, each longer than the padding.
+     * @param padding   The extension of the signals at the edges.
+     * @param padLength The number of samples added at each edge, ignored for {@link Padding#NONE}.
+     * @return The signals filtered forward and backward.
+     * @see #filtfilt(double[], Padding, int)
+     */
+    public double[][] filtfilt(double[][] x, Padding padding, int padLength) {
+        double[][] y = new double[x.length][];
+        long work = 0;
+        for (double[] channel : x) {
+            work += (long) channel.length * (order + 1);
+        }
+        IntStream range = IntStream.range(0, x.length);
+        (x.length > 1 && work >= PARALLEL_THRESHOLD ? range.parallel() : range)
+                .forEach(c -> y[c] = this.filtfilt(x[c], padding, padLength));
+        return y;
+    }
+
+    /**
+     * Filter a signal starting from rest, like {@code lfilter}.
+     *
+     * @param b The numerator coefficients in ascending powers of z<sup>-1</sup>.
+     * @param a The denominator coefficients in ascending powers of z<sup>-1</sup>.
+     * @param x The signal.
+     * @return The filtered signal.
+     */
+    public static double[] lfilter(double[] b, double[] a, double[] x) {
+        return new DigitalFilter(b, a).filter(x);
+    }
+
+    /**
+     * Zero phase filtering, like {@code filtfilt}.
+     *
+     * @param b The numerator coefficients in ascending powers of z<sup>-1</sup>.
+     * @param a The denominator coefficients in ascending powers of z<sup>-1</sup>.
+     * @param x The signal.
+     * @return The signal filtered forward and backward.
+     * @see #filtfilt(double[])
+     */
+    public static double[] filtfilt(double[] b, double[] a, double[] x) {
+        return new DigitalFilter(b, a).filtfilt(x);
+    }
+
+    private void filterFromSteadyState(double[] x, double[] zi, double[] state) {
+        for (int j = 0; j < order; ++j) {
+            state[j] = zi[j] * x[0];
+        }
+        this.filter(x, x, state);
+    }
+
+    private static void reverse(double[] x) {
+        for (int i = 0, j = x.length - 1; i < j; ++i, --j) {
+            double tmp = x[i];
+            x[i] = x[j];
+            x[j] = tmp;
+        }
+    }
+
+    private static double[] toAscending(double[] num, double[] den) {
+        if (num.length > den.length) {
+            throw new IllegalArgumentException("The transfer function must be proper.");
+        }
+        // Dividing by the highest power z^N of the denominator pads the numerator with leading zeros
+        double[] b = new double[den.length];
+        System.arraycopy(num, 0, b, den.length - num.length, num.length);
+        return b;
+    }
+
+    private void checkState(double[] state) {
+        if (state.length != order) {
+            throw new IllegalArgumentException(String.format("The length of the state must be equal to the order = %d.", order));
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.wildbitsfoundry.etk4j.signals.filters;
+
+import com.wildbitsfoundry.etk4j.control.ZeroPoleGain;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The {@code DigitalFilters} class designs digital IIR filters from the analog designs of {@link ButterWorth},
+ * {@link Chebyshev1}, {@link Chebyshev2}, {@link Elliptic} and {@link Bessel}.
+ * <P>
+ * The band edges, given in Hz, are pre-warped with w = 2 * fs * tan(pi * f / fs) before the analog filter is
+ * designed, so that the digital filter obtained with the bilinear transform {@link Filters#bilinearZPK(ZeroPoleGain, double)}
+ * has its edges at the requested frequencies. When the filter is designed from specifications, the order search is
+ * done on the pre-warped specifications as well.
+ * <P>
+ * The order search and the root solving of a design are done only once: every design is kept in a cache shared by
+ * the whole application, keyed by the type, the band, the order or the specifications, the edges, the ripples and
+ * the sampling frequency, and later requests of the same design return the cached filter. The cache holds at most
+ * {@value #MAX_CACHE_SIZE} designs; when it is full, the design that was used least recently is evicted. The designs
+ * are immutable so they can be shared between threads, and the methods of this class are thread safe.
+ */
+public final class DigitalFilters {
+
+    /**
+     * The approximation used to design the filter.
+     */
+    public enum Type {
+        BUTTERWORTH, CHEBYSHEV1, CHEBYSHEV2, ELLIPTIC, BESSEL
+    }
+
+    /**
+     * The band of frequencies let through by the filter.
+     */
+    public enum Band {
+        LOW_PASS, HIGH_PASS, BANDPASS, BAND_STOP
+    }
+
+    // The least recently used design is evicted when the cache grows past this many designs
+    static final int MAX_CACHE_SIZE = 4096;
+
+    // Access ordered, every access goes through a lock on the map
+    private static final Map<Key, Design> DESIGNS = new LinkedHashMap<Key, Design>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Design> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    private DigitalFilters() {
+    }
+
+    /**
+     * Design a digital filter of a given order.
+     *
+     * @param type  The type of the filter.
+     * @param band  The band of the filter.
+     * @param n     The order of the analog prototype. The order of bandpass and band stop filters is {@code 2 * n}.
+     * @param edges The cutoff frequency in Hz of low pass and high pass filters, or the lower and upper cutoff
+     *              frequencies of bandpass and band stop filters, between 0 and fs / 2.
+     * @param rp    The pass band ripple in dB of {@link Type#CHEBYSHEV1} and {@link Type#ELLIPTIC} filters.
+     * @param rs    The stop band attenuation in dB of {@link Type#CHEBYSHEV2} and {@link Type#ELLIPTIC} filters.
+     * @param fs    The sampling frequency in Hz.
+     * @return The {@link ZeroPoleGain} representation of the filter in z.
+     */
+    public static ZeroPoleGain designZPK(Type type, Band band, int n, double[] edges, double rp, double rs, double fs) {
+        return design(type, band, n, edges, rp, rs, fs).zpk;
+    }
+
+    /**
+     * Design a digital filter of a given order.
+     *
+     * @param type  The type of the filter.
+     * @param band  The band of the filter.
+     * @param n     The order of the analog prototype. The order of bandpass and band stop filters is {@code 2 * n}.
+     * @param edges The cutoff frequency in Hz of low pass and high pass filters, or the lower and upper cutoff
+     *              frequencies of bandpass and band stop filters, between 0 and fs / 2.
+     * @param rp    The pass band ripple in dB of {@link Type#CHEBYSHEV1} and {@link Type#ELLIPTIC} filters.
+     * @param rs    The stop band attenuation in dB of {@link Type#CHEBYSHEV2} and {@link Type#ELLIPTIC} filters.
+     * @param fs    The sampling frequency in Hz.
+     * @return The {@link SecondOrderSections} of the filter.
+     */
+    public static SecondOrderSections designSOS(Type type, Band band, int n, double[] edges, double rp, double rs,
+                                                double fs) {
+        return design(type, band, n, edges, rp, rs, fs).sos;
+    }
+
+    /**
+     * Design a low pass digital filter of the minimum order that meets the specifications.
+     *
+     * @param type  The type of the filter, other than {@link Type#BESSEL}.
+     * @param specs The design specifications, with the frequencies in Hz.
+     * @param fs    The sampling frequency in Hz.
+     * @return The {@link ZeroPoleGain} representation of the filter in z.
+     */
+    public static ZeroPoleGain designZPK(Type type, LowPassSpecs specs, double fs) {
+        return design(type, specs, fs).zpk;
+    }
+
+    /**
+     * Design a low pass digital filter of the minimum order that meets the specifications.
+     *
+     * @param type  The type of the filter, other than {@link Type#BESSEL}.
+     * @param specs The design specifications, with the frequencies in Hz.
+     * @param fs    The sampling frequency in Hz.
+     * @return The {@link SecondOrderSections} of the filter.
+     */
+    public static SecondOrderSections designSOS(Type type, LowPassSpecs specs, double fs) {
+        return design(type, specs, fs).sos;
+    }
+
+    /**
+     * Design a high pass digital filter of the minimum order that meets the specifications.
+     *
+     * @param type  The type of the filter, other than {@link Type#BESSEL}.
+     * @param specs The design specifications, with the frequencies in Hz.
+     * @param fs    The sampling frequency in Hz.
+     * @return The {@link ZeroPoleGain} representation of the filter in z.
+     */
+    public static ZeroPoleGain designZPK(Type type, HighPassSpecs specs, double fs) {
+        return design(type, specs, fs).zpk;
+    }
+
+    /**
+     * Design a high pass digital filter of the minimum order that meets the specifications.
+     *
+     * @param type  The type of the filter, other than {@link Type#BESSEL}.
+     * @param specs The design specifications, with the frequencies in Hz.
+     * @param fs    The sampling frequency in Hz.
+     * @return The {@link SecondOrderSections} of the filter.
+     */
+    public static SecondOrderSections designSOS(Type type, HighPassSpecs specs, double fs) {
+        return design(type, specs, fs).sos;
+    }
+
+    /**
+     * Design a bandpass digital filter of the minimum order that meets the specifications.
+     *
+     * @param type  The type of the filter, other than {@link Type#BESSEL}.
+     * @param specs The design specifications, with the frequencies in Hz.
+     * @param fs    The sampling frequency in Hz.
+     * @return The {@link ZeroPoleGain} representation of the filter in z.
+     */
+    public static ZeroPoleGain designZPK(Type type, BandpassSpecs specs, double fs) {
+        return design(type, specs, fs).zpk;
+    }
+
+    /**
+     * Design a bandpass digital filter of the minimum order that meets the specifications.
+     *
+     * @param type  The type of the filter, other than {@link Type#BESSEL}.
+     * @param specs The design specifications, with the frequencies in Hz.
+     * @param fs    The sampling frequency in Hz.
+     * @return The {@link SecondOrderSections} of the filter.
+     */
+    public static SecondOrderSections designSOS(Type type, BandpassSpecs specs, double fs) {
+        return design(type, specs, fs).sos;
+    }
+
+    /**
+     * Design a band stop digital filter of the minimum order that meets the specifications.
+     *
+     * @param type  The type of the filter, other than {@link Type#BESSEL}.
+     * @param specs The design specifications, with the frequencies in Hz.
+     * @param fs    The sampling frequency in Hz.
+     * @return The {@link ZeroPoleGain} representation of the filter in z.
+     */
+    public static ZeroPoleGain designZPK(Type type, BandStopSpecs specs, double fs) {
+        return design(type, specs, fs).zpk;
+    }
+
+    /**
+     * Design a band stop digital filter of the minimum order that meets the specifications.
+     *
+     * @param type  The type of the filter, other than {@link Type#BESSEL}.
+     * @param specs The design specifications, with the frequencies in Hz.
+     * @param fs    The sampling frequency in Hz.
+     * @return The {@link SecondOrderSections} of the filter.
+     */
+    public static SecondOrderSections designSOS(Type type, BandStopSpecs specs, double fs) {
+        return design(type, specs, fs).sos;
+    }
+
+    /**
+     * Remove all the designs from the shared cache.
+     */
+    public static void clearCache() {
+        synchronized (DESIGNS) {
+            DESIGNS.clear();
+        }
+    }
+
+    /**
+     * The number of designs in the shared cache.
+     *
+     * @return The number of cached designs.
+     */
+    public static int getCacheSize() {
+        synchronized (DESIGNS) {
+            return DESIGNS.size();
+        }
+    }
+
+    private static Design design(Type type, Band band, int n, double[] edges, double rp, double rs, double fs) {
+        if (n < 1) {
+            throw new IllegalArgumentException("The order of the filter must be greater than zero.");
+        }
+        final int count = band == Band.LOW_PASS || band == Band.HIGH_PASS ? 1 : 2;
+        if (edges.length != count) {
+            throw new IllegalArgumentException(String.format("The %s filter requires %d edge frequencies.",
+                    band.name().toLowerCase().replace('_', ' '), count));
+        }
+        // The ripples that do not apply to the type are left out of the key
+        final double ripple = type == Type.CHEBYSHEV1 || type == Type.ELLIPTIC ? rp : 0.0;
+        final double attenuation = type == Type.CHEBYSHEV2 || type == Type.ELLIPTIC ? rs : 0.0;
+        double[] values = Arrays.copyOf(edges, count + 3);
+        values[count] = ripple;
+        values[count + 1] = attenuation;
+        values[count + 2] = fs;
+        return lookup(new Key(type, band, n, values), () -> {
+            double[] w = new double[count];
+            for (int i = 0; i < count; ++i) {
+                w[i] = prewarp(edges[i], fs);
+            }
+            return digital(type, band, n, w, ripple, attenuation, fs);
+        });
+    }
+
+    private static Design design(Type type, LowPassSpecs specs, double fs) {
+        Key key = new Key(type, Band.LOW_PASS, 0, new double[]{specs.getPassBandFrequency(),
+                specs.getStopBandFrequency(), specs.getPassBandRipple(), specs.getStopBandAttenuation(), fs});
+        return lookup(key, () -> {
+            LowPassSpecs warped = new LowPassSpecs(specs);
+            warped.setPassBandFrequency(prewarp(specs.getPassBandFrequency(), fs));
+            warped.setStopBandFrequency(prewarp(specs.getStopBandFrequency(), fs));
+            LowPassResults results = order(type, warped, ButterWorth::buttord, Chebyshev1::cheb1ord,
+                    Chebyshev2::cheb2ord, Elliptic::ellipord);
+            double[] edges = {unwarp(results.getCutoffFrequency(), fs)};
+            return design(type, Band.LOW_PASS, results.getOrder(), edges, specs.getPassBandRipple(),
+                    specs.getStopBandAttenuation(), fs);
+        });
+    }
+
+    private static Design design(Type type, HighPassSpecs specs, double fs) {
+        Key key = new Key(type, Band.HIGH_PASS, 0, new double[]{specs.getPassBandFrequency(),
+                specs.getStopBandFrequency(), specs.getPassBandRipple(), specs.getStopBandAttenuation(), fs});
+        return lookup(key, () -> {
+            HighPassSpecs warped = new HighPassSpecs(specs);
+            warped.setPassBandFrequency(prewarp(specs.getPassBandFrequency(), fs));
+            warped.setStopBandFrequency(prewarp(specs.getStopBandFrequency(), fs));
+            HighPassResults results = order(type, warped, ButterWorth::buttord, Chebyshev1::cheb1ord,
+                    Chebyshev2::cheb2ord, Elliptic::ellipord);
+            double[] edges = {unwarp(results.getCutoffFrequency(), fs)};
+            return design(type, Band.HIGH_PASS, results.getOrder(), edges, specs.getPassBandRipple(),
+                    specs.getStopBandAttenuation(), fs);
+        });
+    }
+
+    private static Design design(Type type, BandpassSpecs specs, double fs) {
+        Key key = new Key(type, Band.BANDPASS, 0, new double[]{specs.getLowerPassBandFrequency(),
+                specs.getUpperPassBandFrequency(), specs.getLowerStopBandFrequency(), specs.getUpperStopBandFrequency(),
+                specs.getPassBandRipple(), specs.getStopBandAttenuation(), fs});
+        return lookup(key, () -> {
+            BandpassSpecs warped = new BandpassSpecs(specs);
+            warped.setLowerPassBandFrequency(prewarp(specs.getLowerPassBandFrequency(), fs));
+            warped.setUpperPassBandFrequency(prewarp(specs.getUpperPassBandFrequency(), fs));
+            warped.setLowerStopBandFrequency(prewarp(specs.getLowerStopBandFrequency(), fs));
+            warped.setUpperStopBandFrequency(prewarp(specs.getUpperStopBandFrequency(), fs));
+            BandpassResults results = order(type, warped, ButterWorth::buttord, Chebyshev1::cheb1ord,
+                    Chebyshev2::cheb2ord, Elliptic::ellipord);
+            return design(type, Band.BANDPASS, results.getOrder(), new double[]{
+                    unwarp(results.getLowerCutoffFrequency(), fs), unwarp(results.getUpperCutoffFrequency(), fs)},
+                    specs.getPassBandRipple(), specs.getStopBandAttenuation(), fs);
+        });
+    }
+
+    private static Design design(Type type, BandStopSpecs specs, double fs) {
+        Key key = new Key(type, Band.BAND_STOP, 0, new double[]{specs.getLowerPassBandFrequency(),
+                specs.getUpperPassBandFrequency(), specs.getLowerStopBandFrequency(), specs.getUpperStopBandFrequency(),
+                specs.getPassBandRipple(), specs.getStopBandAttenuation(), fs});
+        return lookup(key, () -> {
+            BandStopSpecs warped = new BandStopSpecs(specs);
+            warped.setLowerPassBandFrequency(prewarp(specs.getLowerPassBandFrequency(), fs));
+            warped.setUpperPassBandFrequency(prewarp(specs.getUpperPassBandFrequency(), fs));
+            warped.setLowerStopBandFrequency(prewarp(specs.getLowerStopBandFrequency(), fs));
+            warped.setUpperStopBandFrequency(prewarp(specs.getUpperStopBandFrequency(), fs));
+            BandStopResults results = order(type, warped, ButterWorth::buttord, Chebyshev1::cheb1ord,
+                    Chebyshev2::cheb2ord, Elliptic::ellipord);
+            return design(type, Band.BAND_STOP, results.getOrder(), new double[]{
+                    unwarp(results.getLowerCutoffFrequency(), fs), unwarp(results.getUpperCutoffFrequency(), fs)},
+                    specs.getPassBandRipple(), specs.getStopBandAttenuation(), fs);
+        });
+    }
+
+    // The order search of the type on the pre-warped specifications
+    private static <S, R> R order(Type type, S warped, Function<S, R> butterworth, Function<S, R> chebyshev1,
+                                  Function<S, R> chebyshev2, Function<S, R> elliptic) {
+        switch (type) {
+            case BUTTERWORTH:
+                return butterworth.apply(warped);
+            case CHEBYSHEV1:
+                return chebyshev1.apply(warped);
+            case CHEBYSHEV2:
+                return chebyshev2.apply(warped);
+            case ELLIPTIC:
+                return elliptic.apply(warped);
+            default:
+                throw new IllegalArgumentException("The order of Bessel filters can not be calculated from specifications.");
+        }
+    }
+
+    private static Design lookup(Key key, Supplier<Design> designer) {
+        Design design;
+        synchronized (DESIGNS) {
+            design = DESIGNS.get(key);
+        }
+        if (design == null) {
+            // Designing is done outside of the lock so that a slow design does not block other keys
+            design = designer.get();
+            synchronized (DESIGNS) {
+                Design previous = DESIGNS.putIfAbsent(key, design);
+                if (previous != null) {
+                    design = previous;
+                }
+            }
+        }
+        return design;
+    }
+
+    // The digital filter from the pre-warped edges w in rad/s
+    private static Design digital(Type type, Band band, int n, double[] w, double rp, double rs, double fs) {
+        ZeroPoleGain analog;
+        switch (type) {
+            case BUTTERWORTH:
+                analog = band == Band.LOW_PASS ? ButterWorth.newLowPassZPK(n, w[0])
+                        : band == Band.HIGH_PASS ? ButterWorth.newHighPassZPK(n, w[0])
+                        : band == Band.BANDPASS ? ButterWorth.newBandpassZPK(n, w[0], w[1])
+                        : ButterWorth.newBandStopZPK(n, w[0], w[1]);
+                break;
+            case CHEBYSHEV1:
+                analog = band == Band.LOW_PASS ? Chebyshev1.newLowPassZPK(n, rp, w[0])
+                        : band == Band.HIGH_PASS ? Chebyshev1.newHighPassZPK(n, rp, w[0])
+                        : band == Band.BANDPASS ? Chebyshev1.newBandpassZPK(n, rp, w[0], w[1])
+                        : Chebyshev1.newBandStopZPK(n, rp, w[0], w[1]);
+                break;
+            case CHEBYSHEV2:
+                analog = band == Band.LOW_PASS ? Chebyshev2.newLowPassZPK(n, rs, w[0])
+                        : band == Band.HIGH_PASS ? Chebyshev2.newHighPassZPK(n, rs, w[0])
+                        : band == Band.BANDPASS ? Chebyshev2.newBandpassZPK(n, rs, w[0], w[1])
+                        : Chebyshev2.newBandStopZPK(n, rs, w[0], w[1]);
+                break;
+            case ELLIPTIC:
+                analog = band == Band.LOW_PASS ? Elliptic.newLowPassZPK(n, rp, rs, w[0])
+                        : band == Band.HIGH_PASS ? Elliptic.newHighPassZPK(n, rp, rs, w[0])
+                        : band == Band.BANDPASS ? Elliptic.newBandpassZPK(n, rp, rs, w[0], w[1])
+                        : Elliptic.newBandStopZPK(n, rp, rs, w[0], w[1]);
+                break;
+            default:
+                analog = band == Band.LOW_PASS ? Bessel.newLowPassZPK(n, w[0])
+                        : band == Band.HIGH_PASS ? Bessel.newHighPassZPK(n, w[0])
+                        : band == Band.BANDPASS ? Bessel.newBandpassZPK(n, w[0], w[1])
+                        : Bessel.newBandStopZPK(n, w[0], w[1]);
+                break;
+        }
+        ZeroPoleGain zpk = Filters.bilinearZPK(analog, fs);
+        return new Design(zpk, SecondOrderSections.fromZPK(zpk));
+    }
+
+    private static double prewarp(double f, double fs) {
+        if (!(fs > 0.0) || Double.isInfinite(fs)) {
+            throw new IllegalArgumentException("The sampling frequency must be positive and finite.");
+        }
+        if (!(f > 0.0) || f >= 0.5 * fs) {
+            throw new IllegalArgumentException("The frequencies must be between 0 and the Nyquist frequency fs / 2.");
+        }
+        return 2.0 * fs * Math.tan(Math.PI * f / fs);
+    }
+
+    // The frequency in Hz of a pre-warped frequency w in rad/s
+    private static double unwarp(double w, double fs) {
+        return fs / Math.PI * Math.atan(w / (2.0 * fs));
+    }
+
+    private static final class Design {
+        final ZeroPoleGain zpk;
+        final SecondOrderSections sos;
+
+        Design(ZeroPoleGain zpk, SecondOrderSections sos) {
+            this.zpk = zpk;
+            this.sos = sos;
+        }
+    }
+
+    // Designs of a given order have n > 0, designs from specifications have n = 0
+    private static final class Key {
+        private final Type type;
+        private final Band band;
+        private final int n;
+        private final double[] values;
+
+        Key(Type type, Band band, int n, double[] values) {
+            this.type = type;
+            this.band = band;
+            this.n = n;
+            this.values = values;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return type == other.type && band == other.band && n == other.n && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * type.hashCode() + band.hashCode()) + n) + Arrays.hashCode(values);
+        }
+    }
+}
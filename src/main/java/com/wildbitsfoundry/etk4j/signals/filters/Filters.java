@@ -6,6 +6,7 @@ import com.wildbitsfoundry.etk4j.math.complex.Complex;
 import com.wildbitsfoundry.etk4j.math.polynomials.Polynomial;
 import com.wildbitsfoundry.etk4j.math.polynomials.RationalFunction;
 import com.wildbitsfoundry.etk4j.util.ComplexArrays;
+import com.wildbitsfoundry.etk4j.util.DoubleArrays;
 
 import java.util.Arrays;
 
@@ -300,6 +301,335 @@ public final class Filters {
         return new TransferFunction(lpTobsZPK(zpk, w0, bw));
     }
 
+    /*
+    Copyright (c) 2001-2002 Enthought, Inc. 2003-2022, SciPy Developers.
+    All rights reserved. see https://github.com/StaticBeagle/ETK4J/blob/master/SciPy.
+    */
+
+    /**
+     * Transform an analog filter into a digital filter with the bilinear transform s = 2 * fs * (z - 1) / (z + 1).
+     * The zeros at infinity are mapped to z = -1.
+     *
+     * @param zpk The {@link ZeroPoleGain} representation of the analog filter.
+     * @param fs  The sampling frequency in Hz.
+     * @return The {@link ZeroPoleGain} representation of the digital filter in z.
+     */
+    public static ZeroPoleGain bilinearZPK(ZeroPoleGain zpk, double fs) {
+        validateSamplingFrequency(fs);
+        return bilinearTransformZPK(zpk, 2.0 * fs);
+    }
+
+    /**
+     * Transform an analog filter into a digital filter with the bilinear transform pre-warped at a given frequency,
+     * s = wp / tan(wp / (2 * fs)) * (z - 1) / (z + 1), so that the responses of the analog and the digital filters
+     * are equal at wp rather than only at DC. The zeros at infinity are mapped to z = -1.
+     *
+     * @param zpk The {@link ZeroPoleGain} representation of the analog filter.
+     * @param fs  The sampling frequency in Hz.
+     * @param wp  The frequency in rad/s where the responses match, between 0 and the Nyquist frequency pi * fs.
+     * @return The {@link ZeroPoleGain} representation of the digital filter in z.
+     */
+    public static ZeroPoleGain bilinearZPK(ZeroPoleGain zpk, double fs, double wp) {
+        validateSamplingFrequency(fs);
+        return bilinearTransformZPK(zpk, prewarpFactor(fs, wp));
+    }
+
+    /**
+     * Transform an analog filter into a digital filter with the bilinear transform s = 2 * fs * (z - 1) / (z + 1).
+     *
+     * @param zpk The {@link ZeroPoleGain} representation of the analog filter.
+     * @param fs  The sampling frequency in Hz.
+     * @return The {@link TransferFunction} of the digital filter in z.
+     */
+    public static TransferFunction bilinear(ZeroPoleGain zpk, double fs) {
+        return new TransferFunction(bilinearZPK(zpk, fs));
+    }
+
+    /**
+     * Transform an analog filter into a digital filter with the bilinear transform pre-warped at a given frequency.
+     *
+     * @param zpk The {@link ZeroPoleGain} representation of the analog filter.
+     * @param fs  The sampling frequency in Hz.
+     * @param wp  The frequency in rad/s where the responses match, between 0 and the Nyquist frequency pi * fs.
+     * @return The {@link TransferFunction} of the digital filter in z.
+     * @see #bilinearZPK(ZeroPoleGain, double, double)
+     */
+    public static TransferFunction bilinear(ZeroPoleGain zpk, double fs, double wp) {
+        return new TransferFunction(bilinearZPK(zpk, fs, wp));
+    }
+
+    /**
+     * Transform an analog filter into a digital filter with the bilinear transform s = 2 * fs * (z - 1) / (z + 1).
+     *
+     * @param num The numerator coefficients of the analog filter in descending order.
+     * @param den The denominator coefficients of the analog filter in descending order.
+     * @param fs  The sampling frequency in Hz.
+     * @return The {@link TransferFunction} of the digital filter, in descending powers of z.
+     */
+    public static TransferFunction bilinear(double[] num, double[] den, double fs) {
+        validateSamplingFrequency(fs);
+        return bilinearTransform(num, den, 2.0 * fs);
+    }
+
+    /**
+     * Transform an analog filter into a digital filter with the bilinear transform pre-warped at a given frequency.
+     *
+     * @param num The numerator coefficients of the analog filter in descending order.
+     * @param den The denominator coefficients of the analog filter in descending order.
+     * @param fs  The sampling frequency in Hz.
+     * @param wp  The frequency in rad/s where the responses match, between 0 and the Nyquist frequency pi * fs.
+     * @return The {@link TransferFunction} of the digital filter, in descending powers of z.
+     * @see #bilinearZPK(ZeroPoleGain, double, double)
+     */
+    public static TransferFunction bilinear(double[] num, double[] den, double fs, double wp) {
+        validateSamplingFrequency(fs);
+        return bilinearTransform(num, den, prewarpFactor(fs, wp));
+    }
+
+    /**
+     * Transform an analog filter into a digital filter with the bilinear transform s = 2 * fs * (z - 1) / (z + 1).
+     *
+     * @param tf The {@link TransferFunction} of the analog filter.
+     * @param fs The sampling frequency in Hz.
+     * @return The {@link TransferFunction} of the digital filter, in descending powers of z.
+     */
+    public static TransferFunction bilinear(TransferFunction tf, double fs) {
+        return bilinear(tf.getNumeratorCoefficients(), tf.getDenominatorCoefficients(), fs);
+    }
+
+    /**
+     * Transform an analog filter into a digital filter with the matched Z-transform, which maps every zero and pole
+     * s to z = exp(s / fs). The zeros at infinity are mapped to z = -1 and the gain is chosen so that the magnitude
+     * responses match at DC, or at half of the Nyquist frequency if the filter has a zero or a pole at s = 0.
+     *
+     * @param zpk The {@link ZeroPoleGain} representation of the analog filter.
+     * @param fs  The sampling frequency in Hz.
+     * @return The {@link ZeroPoleGain} representation of the digital filter in z.
+     */
+    public static ZeroPoleGain matchedZZPK(ZeroPoleGain zpk, double fs) {
+        validateSamplingFrequency(fs);
+        boolean atOrigin = Arrays.stream(zpk.getZeros()).anyMatch(z -> z.abs() == 0.0)
+                || Arrays.stream(zpk.getPoles()).anyMatch(p -> p.abs() == 0.0);
+        return matchedZZPK(zpk, fs, atOrigin ? 0.5 * Math.PI * fs : 0.0);
+    }
+
+    /**
+     * Transform an analog filter into a digital filter with the matched Z-transform, which maps every zero and pole
+     * s to z = exp(s / fs). The zeros at infinity are mapped to z = -1 and the gain is chosen so that the magnitude
+     * responses match at a given frequency, e.g. the center frequency of a bandpass filter.
+     *
+     * @param zpk The {@link ZeroPoleGain} representation of the analog filter.
+     * @param fs  The sampling frequency in Hz.
+     * @param w   The frequency in rad/s where the magnitude responses match, between 0 and the Nyquist frequency
+     *            pi * fs.
+     * @return The {@link ZeroPoleGain} representation of the digital filter in z.
+     */
+    public static ZeroPoleGain matchedZZPK(ZeroPoleGain zpk, double fs, double w) {
+        validateSamplingFrequency(fs);
+        if (w < 0.0 || w >= Math.PI * fs) {
+            throw new IllegalArgumentException("The frequency must be between 0 and the Nyquist frequency.");
+        }
+        Complex[] zeros = zpk.getZeros();
+        Complex[] poles = zpk.getPoles();
+        validateProper(zeros, poles);
+        final double t = 1.0 / fs;
+
+        Complex[] zd = new Complex[poles.length];
+        for (int i = 0; i < zeros.length; ++i) {
+            zd[i] = zeros[i].multiply(t).exp();
+        }
+        for (int i = zeros.length; i < zd.length; ++i) {
+            zd[i] = Complex.fromReal(-1.0);
+        }
+        Complex[] pd = new Complex[poles.length];
+        for (int i = 0; i < poles.length; ++i) {
+            pd[i] = poles[i].multiply(t).exp();
+        }
+
+        Complex s = Complex.fromImaginary(w);
+        Complex z = Complex.fromImaginary(w * t).exp();
+        double analog = Polynomial.polyvalFromRoots(zeros, s).divide(Polynomial.polyvalFromRoots(poles, s)).abs();
+        double digital = Polynomial.polyvalFromRoots(zd, z).divide(Polynomial.polyvalFromRoots(pd, z)).abs();
+        if (!(digital > 0.0) || Double.isInfinite(digital) || !(analog > 0.0) || Double.isInfinite(analog)) {
+            throw new IllegalArgumentException("The frequency response must be finite and non zero at the matching frequency.");
+        }
+        double k = Math.abs(zpk.getGain()) * analog / digital;
+        return new ZeroPoleGain(zd, pd, Math.copySign(k, zpk.getGain()));
+    }
+
+    /**
+     * Transform an analog filter into a digital filter with the matched Z-transform.
+     *
+     * @param zpk The {@link ZeroPoleGain} representation of the analog filter.
+     * @param fs  The sampling frequency in Hz.
+     * @return The {@link TransferFunction} of the digital filter in z.
+     * @see #matchedZZPK(ZeroPoleGain, double)
+     */
+    public static TransferFunction matchedZ(ZeroPoleGain zpk, double fs) {
+        return new TransferFunction(matchedZZPK(zpk, fs));
+    }
+
+    /**
+     * Transform an analog filter into a digital filter with the matched Z-transform.
+     *
+     * @param tf The {@link TransferFunction} of the analog filter.
+     * @param fs The sampling frequency in Hz.
+     * @return The {@link TransferFunction} of the digital filter in z.
+     * @see #matchedZZPK(ZeroPoleGain, double)
+     */
+    public static TransferFunction matchedZ(TransferFunction tf, double fs) {
+        return matchedZ(tf.toZeroPoleGain(), fs);
+    }
+
+    /**
+     * Transform an analog filter into a digital filter by impulse invariance, i.e. the impulse response of the
+     * digital filter is the impulse response of the analog filter sampled at fs and scaled by 1 / fs, so that the
+     * gains of both filters are close at low frequencies. Each term r / (s - p) of the partial fraction expansion of
+     * the analog filter becomes r / (fs * (1 - exp(p / fs) * z<sup>-1</sup>)). The analog filter must be strictly
+     * proper and its poles must be distinct.
+     *
+     * @param zpk The {@link ZeroPoleGain} representation of the analog filter.
+     * @param fs  The sampling frequency in Hz.
+     * @return The {@link TransferFunction} of the digital filter, in descending powers of z.
+     */
+    public static TransferFunction impulseInvariance(ZeroPoleGain zpk, double fs) {
+        validateSamplingFrequency(fs);
+        Complex[] zeros = zpk.getZeros();
+        Complex[] poles = zpk.getPoles();
+        if (getRelativeDegree(zeros, poles) == 0) {
+            throw new IllegalArgumentException("Impulse invariance requires a strictly proper filter.");
+        }
+        final int n = poles.length;
+        final double t = 1.0 / fs;
+        Complex[] pd = new Complex[n];
+        for (int i = 0; i < n; ++i) {
+            pd[i] = poles[i].multiply(t).exp();
+        }
+
+        // H(z) = t * sum(r(i) * z / (z - pd(i))) over the common denominator prod(z - pd(i))
+        Complex[] num = ComplexArrays.zeros(n + 1);
+        for (int i = 0; i < n; ++i) {
+            Complex residue = Polynomial.polyvalFromRoots(zeros, poles[i]).multiply(zpk.getGain() * t);
+            Complex[] term = {Complex.fromReal(1.0), new Complex()};
+            for (int m = 0; m < n; ++m) {
+                if (m == i) {
+                    continue;
+                }
+                Complex distance = poles[i].subtract(poles[m]);
+                if (distance.abs() <= 1e-12 * Math.max(1.0, poles[i].abs())) {
+                    throw new IllegalArgumentException("Impulse invariance requires distinct poles.");
+                }
+                residue.divideEquals(distance);
+                term = ComplexArrays.convolve(term, new Complex[]{Complex.fromReal(1.0), pd[m].uminus()});
+            }
+            for (int j = 0; j <= n; ++j) {
+                num[j].addEquals(term[j].multiply(residue));
+            }
+        }
+        return new TransferFunction(ComplexArrays.real(num), new Polynomial(pd).getCoefficients());
+    }
+
+    /**
+     * Transform an analog filter into a digital filter by impulse invariance.
+     *
+     * @param num The numerator coefficients of the analog filter in descending order.
+     * @param den The denominator coefficients of the analog filter in descending order.
+     * @param fs  The sampling frequency in Hz.
+     * @return The {@link TransferFunction} of the digital filter, in descending powers of z.
+     * @see #impulseInvariance(ZeroPoleGain, double)
+     */
+    public static TransferFunction impulseInvariance(double[] num, double[] den, double fs) {
+        return impulseInvariance(new TransferFunction(num, den).toZeroPoleGain(), fs);
+    }
+
+    /**
+     * Transform an analog filter into a digital filter by impulse invariance.
+     *
+     * @param tf The {@link TransferFunction} of the analog filter.
+     * @param fs The sampling frequency in Hz.
+     * @return The {@link TransferFunction} of the digital filter, in descending powers of z.
+     * @see #impulseInvariance(ZeroPoleGain, double)
+     */
+    public static TransferFunction impulseInvariance(TransferFunction tf, double fs) {
+        return impulseInvariance(tf.toZeroPoleGain(), fs);
+    }
+
+    // The bilinear transform s = c * (z - 1) / (z + 1), c = 2 * fs without pre-warping
+    private static ZeroPoleGain bilinearTransformZPK(ZeroPoleGain zpk, double c) {
+        Complex[] zeros = zpk.getZeros();
+        Complex[] poles = zpk.getPoles();
+        validateProper(zeros, poles);
+
+        Complex[] zd = new Complex[poles.length];
+        Complex num = Complex.fromReal(1.0);
+        for (int i = 0; i < zeros.length; ++i) {
+            Complex cz = zeros[i].uminus().add(c);
+            zd[i] = zeros[i].add(c).divide(cz);
+            num.multiplyEquals(cz);
+        }
+        for (int i = zeros.length; i < zd.length; ++i) {
+            zd[i] = Complex.fromReal(-1.0);
+        }
+        Complex[] pd = new Complex[poles.length];
+        Complex den = Complex.fromReal(1.0);
+        for (int i = 0; i < poles.length; ++i) {
+            Complex cp = poles[i].uminus().add(c);
+            pd[i] = poles[i].add(c).divide(cp);
+            den.multiplyEquals(cp);
+        }
+        double k = zpk.getGain() * num.divide(den).real();
+        return new ZeroPoleGain(zd, pd, k);
+    }
+
+    /*
+     * The bilinear transform of the polynomials, sum(b(j) * c^j * (z - 1)^j * (z + 1)^(d - j)) where b(j) are the
+     * coefficients of s^j and d is the largest degree.
+     */
+    private static TransferFunction bilinearTransform(double[] num, double[] den, double c) {
+        final int degree = Math.max(num.length, den.length) - 1;
+        TransferFunction tf = new TransferFunction(bilinearPolynomial(num, degree, c), bilinearPolynomial(den, degree, c));
+        tf.normalize();
+        return tf;
+    }
+
+    private static double[] bilinearPolynomial(double[] p, int degree, double c) {
+        double[] result = new double[degree + 1];
+        final int m = p.length - 1;
+        for (int j = 0; j <= m; ++j) {
+            double[] term = {p[m - j] * Math.pow(c, j)};
+            for (int i = 0; i < j; ++i) {
+                term = DoubleArrays.convolve(term, new double[]{1.0, -1.0});
+            }
+            for (int i = j; i < degree; ++i) {
+                term = DoubleArrays.convolve(term, new double[]{1.0, 1.0});
+            }
+            for (int i = 0; i <= degree; ++i) {
+                result[i] += term[i];
+            }
+        }
+        return result;
+    }
+
+    private static double prewarpFactor(double fs, double wp) {
+        if (wp <= 0.0 || wp >= Math.PI * fs) {
+            throw new IllegalArgumentException("The pre-warping frequency must be between 0 and the Nyquist frequency.");
+        }
+        return wp / Math.tan(wp / (2.0 * fs));
+    }
+
+    private static void validateProper(Complex[] zeros, Complex[] poles) {
+        if (zeros.length > poles.length) {
+            throw new NegativeFilterOrderException("The number of poles for the filter is less than the number of zeros."
+                    + " Please check your inputs.");
+        }
+    }
+
+    private static void validateSamplingFrequency(double fs) {
+        if (!(fs > 0.0) || Double.isInfinite(fs)) {
+            throw new IllegalArgumentException("The sampling frequency must be positive and finite.");
+        }
+    }
+
     /*
     Copyright (c) 2001-2002 Enthought, Inc. 2003-2022, SciPy Developers.
     All rights reserved. see https://github.com/StaticBeagle/ETK4J/blob/master/SciPy.
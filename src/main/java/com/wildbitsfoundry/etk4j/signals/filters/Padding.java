@@ -0,0 +1,67 @@
+package com.wildbitsfoundry.etk4j.signals.filters;
+
+/**
+ * The {@code Padding} enum represents the extension of a signal beyond its edges before it is filtered forward and
+ * backward, which reduces the transients at the edges of the result.
+ * @see DigitalFilter#filtfilt(double[], Padding, int)
+ * @see SecondOrderSections#filtfilt(double[], Padding, int)
+ */
+public enum Padding {
+    /**
+     * The signal is reflected about its edge samples, i.e. x[-i] = 2 * x[0] - x[i], which keeps the signal and its
+     * slope continuous at the edges.
+     */
+    ODD,
+    /**
+     * The signal is mirrored about its edge samples, i.e. x[-i] = x[i].
+     */
+    EVEN,
+    /**
+     * The edge samples are repeated, i.e. x[-i] = x[0].
+     */
+    CONSTANT,
+    /**
+     * The signal is not extended.
+     */
+    NONE;
+
+    // The signal extended by padLength samples at both edges
+    double[] extend(double[] x, int padLength) {
+        if (this == NONE) {
+            return x.clone();
+        }
+        if (padLength < 0) {
+            throw new IllegalArgumentException("The pad length must not be negative.");
+        }
+        final int n = x.length;
+        if (padLength >= n) {
+            throw new IllegalArgumentException(String.format(
+                    "The length of the signal must be greater than the pad length = %d.", padLength));
+        }
+        double[] ext = new double[n + 2 * padLength];
+        System.arraycopy(x, 0, ext, padLength, n);
+        final double first = x[0];
+        final double last = x[n - 1];
+        for (int i = 1; i <= padLength; ++i) {
+            double left;
+            double right;
+            switch (this) {
+                case ODD:
+                    left = 2.0 * first - x[i];
+                    right = 2.0 * last - x[n - 1 - i];
+                    break;
+                case EVEN:
+                    left = x[i];
+                    right = x[n - 1 - i];
+                    break;
+                default:
+                    left = first;
+                    right = last;
+                    break;
+            }
+            ext[padLength - i] = left;
+            ext[padLength + n - 1 + i] = right;
+        }
+        return ext;
+    }
+}
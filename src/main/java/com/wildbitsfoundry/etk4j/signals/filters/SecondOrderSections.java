@@ -0,0 +1,528 @@
+package com.wildbitsfoundry.etk4j.signals.filters;
+
+import com.wildbitsfoundry.etk4j.control.ZeroPoleGain;
+import com.wildbitsfoundry.etk4j.math.complex.Complex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code SecondOrderSections} class filters sampled signals with a cascade of second order sections (biquads).
+ * <P>
+ * Every section k is a transfer function in z
+ * <pre>
+ *          b0[k] + b1[k] * z<sup>-1</sup> + b2[k] * z<sup>-2</sup>
+ * H[k](z) = -------------------------------------
+ *           1 + a1[k] * z<sup>-1</sup> + a2[k] * z<sup>-2</sup>
+ * </pre>
+ * realized in the transposed direct form II with two delays, and the filter is the product of the sections. High
+ * order filters realized directly from the coefficients of their transfer function are very sensitive to the rounding
+ * of the coefficients, since the roots of a polynomial of high degree move a lot with small changes of its
+ * coefficients. The coefficients of a section only place two poles and two zeros, so the cascade is as accurate as
+ * its roots. {@link #fromZPK(ZeroPoleGain)} pairs the poles and zeros into sections.
+ * <P>
+ * The state of the cascade, two delays per section, is passed explicitly and updated in place, so a long signal can
+ * be filtered chunk by chunk with the same state array, and several channels can share the filter, each with its own
+ * state. Filtering into preallocated arrays does not allocate memory.
+ * <P>
+ * {@link #filtfilt(double[], Padding, int)} filters a whole signal forward and backward through the cascade, like
+ * {@code sosfiltfilt}, starting each pass from the steady state {@link #sosfiltZi()}.
+ * <P>
+ * A {@code SecondOrderSections} is immutable and can be shared between threads.
+ * @see DigitalFilter
+ */
+public class SecondOrderSections {
+
+    // Samples times sections above which the channels are filtered forward and backward in parallel
+    private static final long PARALLEL_THRESHOLD = 1L << 17;
+
+    // b0, b1, b2, a1, a2 of every section
+    private final double[] coefs;
+    private final int sections;
+
+    /**
+     * Constructs a {@code SecondOrderSections}. The coefficients of every section are normalized so that
+     * {@code a0 = 1}.
+     *
+     * @param sos The coefficients of the sections, one row {@code {b0, b1, b2, a0, a1, a2}} per section.
+     */
+    public SecondOrderSections(double[][] sos) {
+        if (sos.length == 0) {
+            throw new IllegalArgumentException("At least one section is required.");
+        }
+        sections = sos.length;
+        coefs = new double[5 * sections];
+        for (int k = 0; k < sections; ++k) {
+            double[] row = sos[k];
+            if (row.length != 6) {
+                throw new IllegalArgumentException("Every section must have six coefficients.");
+            }
+            if (row[3] == 0.0) {
+                throw new IllegalArgumentException("The leading denominator coefficient of a section must not be zero.");
+            }
+            final double a0 = row[3];
+            coefs[5 * k] = row[0] / a0;
+            coefs[5 * k + 1] = row[1] / a0;
+            coefs[5 * k + 2] = row[2] / a0;
+            coefs[5 * k + 3] = row[4] / a0;
+            coefs[5 * k + 4] = row[5] / a0;
+        }
+    }
+
+    /**
+     * Pair the poles and zeros of a discrete time filter into second order sections, like {@code zpk2sos} with the
+     * nearest pairing. The poles closest to the unit circle are paired first, each with the zeros closest to it, and
+     * their sections are placed last in the cascade, so the sections with the highest gain see a signal that has
+     * already been attenuated by the others. The poles and zeros must come in complex conjugate pairs.
+     *
+     * @param zpk The poles, zeros and gain of the filter in z.
+     * @return The second order sections of the filter.
+     */
+    public static SecondOrderSections fromZPK(ZeroPoleGain zpk) {
+        List<Complex> z = new ArrayList<>();
+        List<Complex> p = new ArrayList<>();
+        for (Complex zero : zpk.getZeros()) {
+            z.add(zero);
+        }
+        for (Complex pole : zpk.getPoles()) {
+            p.add(pole);
+        }
+        final double k = zpk.getGain();
+        if (z.isEmpty() && p.isEmpty()) {
+            return new SecondOrderSections(new double[][]{{k, 0.0, 0.0, 1.0, 0.0, 0.0}});
+        }
+
+        // Pad with roots at the origin to the same, even, number of poles and zeros
+        while (z.size() < p.size()) {
+            z.add(new Complex());
+        }
+        while (p.size() < z.size()) {
+            p.add(new Complex());
+        }
+        if (p.size() % 2 == 1) {
+            z.add(new Complex());
+            p.add(new Complex());
+        }
+        final int n = p.size() / 2;
+        z = halfConjugates(z);
+        p = halfConjugates(p);
+
+        Complex[][] zSections = new Complex[n][];
+        Complex[][] pSections = new Complex[n][];
+        for (int s = 0; s < n; ++s) {
+            // The next pole is the one closest to the unit circle
+            int p1Index = 0;
+            for (int i = 1; i < p.size(); ++i) {
+                if (Math.abs(1.0 - p.get(i).abs()) < Math.abs(1.0 - p.get(p1Index).abs())) {
+                    p1Index = i;
+                }
+            }
+            Complex p1 = p.remove(p1Index);
+            Complex p2;
+            Complex z1;
+            Complex z2;
+            if (isReal(p1) && countReal(p) == 0) {
+                // The last real pole gets a real zero and a section of first order
+                z1 = z.remove(nearest(z, p1, true));
+                p2 = new Complex();
+                z2 = new Complex();
+            } else {
+                int z1Index;
+                if (!isReal(p1) && countReal(z) == 1) {
+                    // Keep the last real zero for a real pole
+                    z1Index = nearest(z, p1, false);
+                } else {
+                    z1Index = nearest(z, p1, null);
+                }
+                z1 = z.remove(z1Index);
+                if (!isReal(p1)) {
+                    p2 = p1.conj();
+                    if (!isReal(z1)) {
+                        z2 = z1.conj();
+                    } else {
+                        z2 = z.remove(nearest(z, p1, true));
+                    }
+                } else {
+                    int p2Index;
+                    if (!isReal(z1)) {
+                        z2 = z1.conj();
+                        p2Index = nearest(p, z1, true);
+                    } else {
+                        // The next real pole closest to the unit circle
+                        p2Index = -1;
+                        for (int i = 0; i < p.size(); ++i) {
+                            if (isReal(p.get(i)) && (p2Index == -1 ||
+                                    Math.abs(p.get(i).abs() - 1.0) < Math.abs(p.get(p2Index).abs() - 1.0))) {
+                                p2Index = i;
+                            }
+                        }
+                        z2 = z.remove(nearest(z, p.get(p2Index), true));
+                    }
+                    p2 = p.remove(p2Index);
+                }
+            }
+            // The first poles found are the closest to the unit circle, they go last
+            zSections[n - 1 - s] = new Complex[]{z1, z2};
+            pSections[n - 1 - s] = new Complex[]{p1, p2};
+        }
+
+        double[][] sos = new double[n][];
+        for (int s = 0; s < n; ++s) {
+            double[] b = quadratic(zSections[s]);
+            double[] a = quadratic(pSections[s]);
+            double gain = s == 0 ? k : 1.0;
+            sos[s] = new double[]{gain * b[0], gain * b[1], gain * b[2], a[0], a[1], a[2]};
+        }
+        return new SecondOrderSections(sos);
+    }
+
+    /*
+     * Keep one root of every complex conjugate pair, the one with positive
+     * imaginary part, followed by the real roots, whose imaginary part is set
+     * to zero if it is rounding error.
+     */
+    private static List<Complex> halfConjugates(List<Complex> roots) {
+        List<Complex> complex = new ArrayList<>();
+        List<Complex> real = new ArrayList<>();
+        for (Complex r : roots) {
+            if (Math.abs(r.imag()) <= 100 * Math.ulp(1.0) * r.abs()) {
+                real.add(new Complex(r.real(), 0.0));
+            } else if (r.imag() > 0) {
+                complex.add(r);
+            }
+        }
+        if (2 * complex.size() + real.size() != roots.size()) {
+            throw new IllegalArgumentException("The complex poles and zeros must come in conjugate pairs.");
+        }
+        complex.sort(Comparator.comparingDouble(Complex::real).thenComparingDouble(Complex::imag));
+        real.sort(Comparator.comparingDouble(Complex::real));
+        complex.addAll(real);
+        return complex;
+    }
+
+    private static boolean isReal(Complex c) {
+        return c.imag() == 0.0;
+    }
+
+    private static int countReal(List<Complex> roots) {
+        int count = 0;
+        for (Complex r : roots) {
+            if (isReal(r)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    // Index of the root closest to c, among the real roots, the complex roots or all the roots if real is null
+    private static int nearest(List<Complex> roots, Complex c, Boolean real) {
+        int index = -1;
+        double distance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < roots.size(); ++i) {
+            Complex r = roots.get(i);
+            if (real != null && isReal(r) != real) {
+                continue;
+            }
+            double d = r.subtract(c).abs();
+            if (d < distance) {
+                distance = d;
+                index = i;
+            }
+        }
+        if (index == -1) {
+            throw new IllegalArgumentException("The poles and zeros can't be paired into real sections.");
+        }
+        return index;
+    }
+
+    // Coefficients of (1 - r1 * z^-1) * (1 - r2 * z^-1) for real or conjugate roots
+    private static double[] quadratic(Complex[] roots) {
+        Complex r1 = roots[0];
+        Complex r2 = roots[1];
+        if (isReal(r1)) {
+            return new double[]{1.0, -(r1.real() + r2.real()), r1.real() * r2.real()};
+        }
+        return new double[]{1.0, -2.0 * r1.real(), r1.real() * r1.real() + r1.imag() * r1.imag()};
+    }
+
+    /**
+     * The number of sections.
+     *
+     * @return The number of sections.
+     */
+    public int getSectionCount() {
+        return sections;
+    }
+
+    /**
+     * The coefficients of the sections.
+     *
+     * @return One row {@code {b0, b1, b2, 1, a1, a2}} per section.
+     */
+    public double[][] getCoefficients() {
+        double[][] sos = new double[sections][];
+        for (int k = 0; k < sections; ++k) {
+            sos[k] = new double[]{coefs[5 * k], coefs[5 * k + 1], coefs[5 * k + 2], 1.0, coefs[5 * k + 3],
+                    coefs[5 * k + 4]};
+        }
+        return sos;
+    }
+
+    /**
+     * The length of the state of the cascade.
+     *
+     * @return Two delays per section.
+     */
+    public int getStateLength() {
+        return 2 * sections;
+    }
+
+    /**
+     * Filter a signal starting from rest.
+     *
+     * @param x The signal.
+     * @return The filtered signal.
+     */
+    public double[] filter(double[] x) {
+        double[] y = new double[x.length];
+        this.filter(x, y, new double[2 * sections]);
+        return y;
+    }
+
+    /**
+     * Filter a signal from a given state.
+     *
+     * @param x     The signal.
+     * @param y     The array where the filtered signal is stored. It can be {@code x}.
+     * @param state The initial state of length {@link #getStateLength()}, the delays of section k are stored at
+     *              {@code 2 * k} and {@code 2 * k + 1}, which is replaced by the final state.
+     */
+    public void filter(double[] x, double[] y, double[] state) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("x and y dimensions must match.");
+        }
+        this.filter(x, 0, y, 0, x.length, state);
+    }
+
+    /**
+     * Filter a chunk of a signal from a given state.
+     *
+     * @param x       The array of samples of the signal.
+     * @param xOffset The index of the first sample of the chunk.
+     * @param y       The array where the filtered chunk is stored. It can be {@code x}.
+     * @param yOffset The index where the first filtered sample is stored.
+     * @param length  The number of samples of the chunk.
+     * @param state   The initial state of length {@link #getStateLength()}, which is replaced by the final state.
+     */
+    public void filter(double[] x, int xOffset, double[] y, int yOffset, int length, double[] state) {
+        if (xOffset < 0 || yOffset < 0 || length < 0 || xOffset + length > x.length || yOffset + length > y.length) {
+            throw new IllegalArgumentException("The chunk is out of the bounds of the arrays.");
+        }
+        if (state.length != 2 * sections) {
+            throw new IllegalArgumentException(String.format("The length of the state must be equal to 2 * sections = %d.",
+                    2 * sections));
+        }
+        final double[] c = coefs;
+        final int n = sections;
+        for (int i = 0; i < length; ++i) {
+            double v = x[xOffset + i];
+            for (int k = 0, j = 0, s = 0; k < n; ++k, j += 5, s += 2) {
+                double out = c[j] * v + state[s];
+                state[s] = c[j + 1] * v - c[j + 3] * out + state[s + 1];
+                state[s + 1] = c[j + 2] * v - c[j + 4] * out;
+                v = out;
+            }
+            y[yOffset + i] = v;
+        }
+    }
+
+    /**
+     * Filter several channels stored in separate arrays.
+     *
+     * @param x     The signals, one per channel.
+     * @param y     The arrays where the filtered signals are stored. They can be the arrays of {@code x}.
+     * @param state The states of the channels, each of length {@link #getStateLength()}, which are replaced by the
+     *              final states.
+     */
+    public void filter(double[][] x, double[][] y, double[][] state) {
+        if (x.length != y.length || x.length != state.length) {
+            throw new IllegalArgumentException("The number of channels of x, y and the state must match.");
+        }
+        for (int ch = 0; ch < x.length; ++ch) {
+            this.filter(x[ch], y[ch], state[ch]);
+        }
+    }
+
+    /**
+     * Filter several channels stored interleaved, i.e. the i-th sample of channel c is stored at
+     * {@code i * channels + c}. Every sample of all the channels goes through each section at once, so the inner loop
+     * runs over contiguous memory.
+     *
+     * @param x        The interleaved samples of the signals.
+     * @param y        The array where the interleaved filtered signals are stored. It can be {@code x}.
+     * @param channels The number of channels.
+     * @param state    The interleaved states of length {@code getStateLength() * channels}, the j-th delay of channel
+     *                 c is stored at {@code j * channels + c}, which is replaced by the final states.
+     */
+    public void filterInterleaved(double[] x, double[] y, int channels, double[] state) {
+        if (channels < 1) {
+            throw new IllegalArgumentException("The number of channels must be greater than zero.");
+        }
+        if (x.length != y.length || x.length % channels != 0) {
+            throw new IllegalArgumentException("x and y must have the same length, a multiple of the number of channels.");
+        }
+        if (state.length != 2 * sections * channels) {
+            throw new IllegalArgumentException(String.format(
+                    "The length of the state must be equal to 2 * sections * channels = %d.", 2 * sections * channels));
+        }
+        final double[] c = coefs;
+        final int n = sections;
+        if (x != y) {
+            System.arraycopy(x, 0, y, 0, x.length);
+        }
+        for (int base = 0; base < y.length; base += channels) {
+            for (int k = 0, j = 0; k < n; ++k, j += 5) {
+                final double b0 = c[j];
+                final double b1 = c[j + 1];
+                final double b2 = c[j + 2];
+                final double a1 = c[j + 3];
+                final double a2 = c[j + 4];
+                final int s0 = 2 * k * channels;
+                final int s1 = s0 + channels;
+                for (int ch = 0; ch < channels; ++ch) {
+                    double v = y[base + ch];
+                    double out = b0 * v + state[s0 + ch];
+                    state[s0 + ch] = b1 * v - a1 * out + state[s1 + ch];
+                    state[s1 + ch] = b2 * v - a2 * out;
+                    y[base + ch] = out;
+                }
+            }
+        }
+    }
+
+    /**
+     * The steady state of the cascade for a unit step input, like {@code sosfilt_zi}. The state of every section is
+     * its own steady state scaled by the DC gain of the sections before it.
+     *
+     * @return The state of length {@link #getStateLength()} for a unit step input.
+     * @throws IllegalStateException If a section has a pole at z = 1, so the step response has no steady state.
+     */
+    public double[] sosfiltZi() {
+        double[] zi = new double[2 * sections];
+        double scale = 1.0;
+        for (int k = 0, j = 0; k < sections; ++k, j += 5) {
+            final double sumA = 1.0 + coefs[j + 3] + coefs[j + 4];
+            if (sumA == 0.0) {
+                throw new IllegalStateException("A section has a pole at z = 1 and its step response has no steady state.");
+            }
+            final double y = (coefs[j] + coefs[j + 1] + coefs[j + 2]) / sumA;
+            zi[2 * k + 1] = scale * (coefs[j + 2] - coefs[j + 4] * y);
+            zi[2 * k] = scale * (coefs[j + 1] - coefs[j + 3] * y) + zi[2 * k + 1];
+            scale *= y;
+        }
+        return zi;
+    }
+
+    /**
+     * Zero phase filtering, like {@code sosfiltfilt}, with odd padding of
+     * {@code 3 * (2 * getSectionCount() + 1 - m)} samples, where m is the smallest of the number of sections with
+     * b2 = 0 and the number of sections with a2 = 0.
+     *
+     * @param x The signal, longer than the padding.
+     * @return The signal filtered forward and backward.
+     * @see #filtfilt(double[], Padding, int)
+     */
+    public double[] filtfilt(double[] x) {
+        return this.filtfilt(x, Padding.ODD, this.defaultPadLength());
+    }
+
+    /**
+     * Zero phase filtering. The signal is extended by {@code padLength} samples at both edges, filtered forward, then
+     * filtered backward, each pass starting from the steady state {@link #sosfiltZi()} scaled by its first sample,
+     * and the extension is removed. The result has no phase shift and the magnitude response of the cascade squared.
+     *
+     * @param x         The signal, longer than the padding.
+     * @param padding   The extension of the signal at the edges.
+     * @param padLength The number of samples added at each edge, ignored for {@link Padding#NONE}.
+     * @return The signal filtered forward and backward.
+     */
+    public double[] filtfilt(double[] x, Padding padding, int padLength) {
+        double[] ext = padding.extend(x, padLength);
+        if (ext.length == 0) {
+            return ext;
+        }
+        double[] zi = this.sosfiltZi();
+        double[] state = new double[2 * sections];
+        this.filterFromSteadyState(ext, zi, state);
+        reverse(ext);
+        this.filterFromSteadyState(ext, zi, state);
+        reverse(ext);
+        final int edge = (ext.length - x.length) / 2;
+        return Arrays.copyOfRange(ext, edge, edge + x.length);
+    }
+
+    /**
+     * Zero phase filtering of several channels, with the odd padding of {@link #filtfilt(double[])}.
+     *
+     * @param x The signals, one per channel, each longer than the padding.
+     * @return The signals filtered forward and backward.
+     * @see #filtfilt(double[][], Padding, int)
+     */
+    public double[][] filtfilt(double[][] x) {
+        return this.filtfilt(x, Padding.ODD, this.defaultPadLength());
+    }
+
+    /**
+     * Zero phase filtering of several channels. The channels are independent, so long recordings with many channels
+     * are filtered in parallel on the common fork-join pool.
+     *
+     * @param x         The signals, one per channel, each longer than the padding.
+     * @param padding   The extension of the signals at the edges.
+     * @param padLength The number of samples added at each edge, ignored for {@link Padding#NONE}.
+     * @return The signals filtered forward and backward.
+     * @see #filtfilt(double[], Padding, int)
+     */
+    public double[][] filtfilt(double[][] x, Padding padding, int padLength) {
+        double[][] y = new double[x.length][];
+        long work = 0;
+        for (double[] channel : x) {
+            work += (long) channel.length * sections;
+        }
+        IntStream range = IntStream.range(0, x.length);
+        (x.length > 1 && work >= PARALLEL_THRESHOLD ? range.parallel() : range)
+                .forEach(ch -> y[ch] = this.filtfilt(x[ch], padding, padLength));
+        return y;
+    }
+
+    private int defaultPadLength() {
+        int zerosB = 0;
+        int zerosA = 0;
+        for (int j = 0; j < coefs.length; j += 5) {
+            if (coefs[j + 2] == 0.0) {
+                ++zerosB;
+            }
+            if (coefs[j + 4] == 0.0) {
+                ++zerosA;
+            }
+        }
+        return 3 * (2 * sections + 1 - Math.min(zerosB, zerosA));
+    }
+
+    private void filterFromSteadyState(double[] x, double[] zi, double[] state) {
+        for (int j = 0; j < state.length; ++j) {
+            state[j] = zi[j] * x[0];
+        }
+        this.filter(x, x, state);
+    }
+
+    private static void reverse(double[] x) {
+        for (int i = 0, j = x.length - 1; i < j; ++i, --j) {
+            double tmp = x[i];
+            x[i] = x[j];
+            x[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package com.wildbitsfoundry.etk4j.util;
+
+import com.wildbitsfoundry.etk4j.math.MathETK;
+import com.wildbitsfoundry.etk4j.math.complex.Complex;
+
+import java.util.Arrays;
+
+/**
+ * The {@code ComplexArray} class represents an array of complex numbers stored as two primitive arrays, one for the
+ * real parts and one for the imaginary parts. <br>
+ * Unlike {@code Complex[]}, no object is created per element and the element wise operations are done in place, so
+ * this class is meant for the hot paths of the library such as the {@code FFT} and frequency responses. The
+ * arithmetic follows the same order of operations as {@link Complex}, so the results are identical to the ones
+ * obtained with {@code Complex[]} and {@link ComplexArrays}.
+ */
+public class ComplexArray {
+    private final double[] real;
+    private final double[] imag;
+
+    /**
+     * Constructs an array of zeros.
+     *
+     * @param length The length of the array.
+     */
+    public ComplexArray(int length) {
+        this(new double[length], new double[length]);
+    }
+
+    /**
+     * Constructs an array from the real and imaginary parts. The arrays are not copied, so changes made to the
+     * {@code ComplexArray} are reflected in {@code real} and {@code imag} and vice versa.
+     *
+     * @param real The real parts.
+     * @param imag The imaginary parts.
+     * @throws IllegalArgumentException If the lengths of {@code real} and {@code imag} are not equal.
+     */
+    public ComplexArray(double[] real, double[] imag) {
+        if (real.length != imag.length) {
+            throw new IllegalArgumentException("Length mismatch between real and imag");
+        }
+        this.real = real;
+        this.imag = imag;
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param a The array to copy.
+     */
+    public ComplexArray(ComplexArray a) {
+        this(a.real.clone(), a.imag.clone());
+    }
+
+    /**
+     * Create a new {@code ComplexArray} from an array of Complex values.
+     *
+     * @param a The input array.
+     * @return The array with the real and imaginary parts of the values of {@code a}.
+     */
+    public static ComplexArray fromComplex(Complex[] a) {
+        ComplexArray result = new ComplexArray(a.length);
+        for (int i = 0; i < a.length; ++i) {
+            result.real[i] = a[i].real();
+            result.imag[i] = a[i].imag();
+        }
+        return result;
+    }
+
+    /**
+     * Create a new {@code ComplexArray} from an array of real values.
+     *
+     * @param a The input array.
+     * @return The array with real part equal to a copy of {@code a} and imaginary part equal to zero.
+     */
+    public static ComplexArray fromReal(double[] a) {
+        return new ComplexArray(a.clone(), new double[a.length]);
+    }
+
+    /**
+     * Create a new {@code ComplexArray} from an array of imaginary values.
+     *
+     * @param a The input array.
+     * @return The array with real part equal to zero and imaginary part equal to a copy of {@code a}.
+     */
+    public static ComplexArray fromImaginary(double[] a) {
+        return new ComplexArray(new double[a.length], a.clone());
+    }
+
+    /**
+     * Length of the array.
+     *
+     * @return The number of complex values in the array.
+     */
+    public int length() {
+        return real.length;
+    }
+
+    /**
+     * Real part of an element.
+     *
+     * @param i The index of the element.
+     * @return The real part of the i-th element.
+     */
+    public double real(int i) {
+        return real[i];
+    }
+
+    /**
+     * Imaginary part of an element.
+     *
+     * @param i The index of the element.
+     * @return The imaginary part of the i-th element.
+     */
+    public double imag(int i) {
+        return imag[i];
+    }
+
+    /**
+     * Get an element.
+     *
+     * @param i The index of the element.
+     * @return A new Complex value equal to the i-th element.
+     */
+    public Complex get(int i) {
+        return new Complex(real[i], imag[i]);
+    }
+
+    /**
+     * Set an element.
+     *
+     * @param i    The index of the element.
+     * @param real The real part.
+     * @param imag The imaginary part.
+     */
+    public void set(int i, double real, double imag) {
+        this.real[i] = real;
+        this.imag[i] = imag;
+    }
+
+    /**
+     * Set an element.
+     *
+     * @param i The index of the element.
+     * @param c The value.
+     */
+    public void set(int i, Complex c) {
+        this.set(i, c.real(), c.imag());
+    }
+
+    /**
+     * Access the real parts. The internal array is returned, not a copy.
+     *
+     * @return The real parts of the values in the array.
+     */
+    public double[] getReal() {
+        return real;
+    }
+
+    /**
+     * Access the imaginary parts. The internal array is returned, not a copy.
+     *
+     * @return The imaginary parts of the values in the array.
+     */
+    public double[] getImag() {
+        return imag;
+    }
+
+    /**
+     * Convert to an array of Complex values.
+     *
+     * @return A new array of Complex values equal to the values in the array.
+     */
+    public Complex[] toComplexArray() {
+        return ComplexArrays.zip(real, imag);
+    }
+
+    /**
+     * Copy the values of another array into this array.
+     *
+     * @param a The source array.
+     * @throws IllegalArgumentException If the lengths of the arrays are not equal.
+     */
+    public void assign(ComplexArray a) {
+        checkLength(a);
+        System.arraycopy(a.real, 0, real, 0, real.length);
+        System.arraycopy(a.imag, 0, imag, 0, imag.length);
+    }
+
+    /**
+     * Add an array in place. <br>
+     * Performs the equivalent of {@code a[i] += b[i]}.
+     *
+     * @param b The array to add.
+     * @throws IllegalArgumentException If the lengths of the arrays are not equal.
+     */
+    public void addEquals(ComplexArray b) {
+        checkLength(b);
+        for (int i = 0; i < real.length; ++i) {
+            real[i] += b.real[i];
+            imag[i] += b.imag[i];
+        }
+    }
+
+    /**
+     * Add a complex value in place. <br>
+     * Performs the equivalent of {@code a[i] += real + j * imag}.
+     *
+     * @param real The real part of the value to add.
+     * @param imag The imaginary part of the value to add.
+     */
+    public void addEquals(double real, double imag) {
+        for (int i = 0; i < this.real.length; ++i) {
+            this.real[i] += real;
+            this.imag[i] += imag;
+        }
+    }
+
+    /**
+     * Subtract an array in place. <br>
+     * Performs the equivalent of {@code a[i] -= b[i]}.
+     *
+     * @param b The array to subtract.
+     * @throws IllegalArgumentException If the lengths of the arrays are not equal.
+     */
+    public void subtractEquals(ComplexArray b) {
+        checkLength(b);
+        for (int i = 0; i < real.length; ++i) {
+            real[i] -= b.real[i];
+            imag[i] -= b.imag[i];
+        }
+    }
+
+    /**
+     * Subtract a complex value in place. <br>
+     * Performs the equivalent of {@code a[i] -= real + j * imag}.
+     *
+     * @param real The real part of the value to subtract.
+     * @param imag The imaginary part of the value to subtract.
+     */
+    public void subtractEquals(double real, double imag) {
+        for (int i = 0; i < this.real.length; ++i) {
+            this.real[i] -= real;
+            this.imag[i] -= imag;
+        }
+    }
+
+    /**
+     * Multiply by an array in place. <br>
+     * Performs the equivalent of {@code a[i] *= b[i]}.
+     *
+     * @param b The array to multiply by.
+     * @throws IllegalArgumentException If the lengths of the arrays are not equal.
+     */
+    public void multiplyEquals(ComplexArray b) {
+        checkLength(b);
+        for (int i = 0; i < real.length; ++i) {
+            double re = real[i] * b.real[i] - imag[i] * b.imag[i];
+            imag[i] = real[i] * b.imag[i] + imag[i] * b.real[i];
+            real[i] = re;
+        }
+    }
+
+    /**
+     * Multiply by a complex value in place. <br>
+     * Performs the equivalent of {@code a[i] *= real + j * imag}.
+     *
+     * @param real The real part of the value to multiply by.
+     * @param imag The imaginary part of the value to multiply by.
+     */
+    public void multiplyEquals(double real, double imag) {
+        for (int i = 0; i < this.real.length; ++i) {
+            double re = this.real[i] * real - this.imag[i] * imag;
+            this.imag[i] = this.real[i] * imag + this.imag[i] * real;
+            this.real[i] = re;
+        }
+    }
+
+    /**
+     * Multiply by a real value in place. <br>
+     * Performs the equivalent of {@code a[i] *= d}.
+     *
+     * @param d The value to multiply by.
+     */
+    public void multiplyEquals(double d) {
+        for (int i = 0; i < real.length; ++i) {
+            real[i] *= d;
+            imag[i] *= d;
+        }
+    }
+
+    /**
+     * Divide by an array in place. <br>
+     * Performs the equivalent of {@code a[i] /= b[i]}.
+     *
+     * @param b The array to divide by.
+     * @throws IllegalArgumentException If the lengths of the arrays are not equal.
+     */
+    public void divideEquals(ComplexArray b) {
+        checkLength(b);
+        for (int i = 0; i < real.length; ++i) {
+            double mag = 1.0 / (b.real[i] * b.real[i] + b.imag[i] * b.imag[i]);
+            double br = b.real[i] * mag;
+            double bi = b.imag[i] * -mag;
+            double re = real[i] * br - imag[i] * bi;
+            imag[i] = real[i] * bi + imag[i] * br;
+            real[i] = re;
+        }
+    }
+
+    /**
+     * Divide by a real value in place. <br>
+     * Performs the equivalent of {@code a[i] /= d}.
+     *
+     * @param d The value to divide by.
+     */
+    public void divideEquals(double d) {
+        this.multiplyEquals(1.0 / d);
+    }
+
+    /**
+     * Conjugate in place.
+     */
+    public void conjEquals() {
+        for (int i = 0; i < imag.length; ++i) {
+            imag[i] = -imag[i];
+        }
+    }
+
+    /**
+     * Reciprocal in place. <br>
+     * Performs the equivalent of {@code a[i] = 1 / a[i]}.
+     */
+    public void invertEquals() {
+        for (int i = 0; i < real.length; ++i) {
+            double mag = 1.0 / (real[i] * real[i] + imag[i] * imag[i]);
+            real[i] *= mag;
+            imag[i] *= -mag;
+        }
+    }
+
+    /**
+     * Array sum.
+     *
+     * @return The sum of all the elements in the array.
+     */
+    public Complex sum() {
+        double re = 0.0;
+        double im = 0.0;
+        for (int i = 0; i < real.length; ++i) {
+            re += real[i];
+            im += imag[i];
+        }
+        return new Complex(re, im);
+    }
+
+    /**
+     * Array product.
+     *
+     * @return The product of multiplying all the elements in the array.
+     */
+    public Complex product() {
+        double re = 1.0;
+        double im = 0.0;
+        for (int i = 0; i < real.length; ++i) {
+            double t = re * real[i] - im * imag[i];
+            im = re * imag[i] + im * real[i];
+            re = t;
+        }
+        return new Complex(re, im);
+    }
+
+    /**
+     * Absolute value element wise.
+     *
+     * @return An array with the absolute value of each element.
+     */
+    public double[] abs() {
+        double[] result = new double[real.length];
+        this.abs(result);
+        return result;
+    }
+
+    /**
+     * Absolute value element wise into a preallocated array. No memory is allocated.
+     *
+     * @param out The array where the absolute values are stored.
+     * @throws IllegalArgumentException If the length of {@code out} is not equal to the length of the array.
+     */
+    public void abs(double[] out) {
+        checkLength(out);
+        for (int i = 0; i < real.length; ++i) {
+            out[i] = MathETK.hypot(real[i], imag[i]);
+        }
+    }
+
+    /**
+     * Argument element wise.
+     *
+     * @return An array with the argument in radians of each element.
+     */
+    public double[] arg() {
+        double[] result = new double[real.length];
+        this.arg(result);
+        return result;
+    }
+
+    /**
+     * Argument element wise into a preallocated array. No memory is allocated.
+     *
+     * @param out The array where the arguments in radians are stored.
+     * @throws IllegalArgumentException If the length of {@code out} is not equal to the length of the array.
+     */
+    public void arg(double[] out) {
+        checkLength(out);
+        for (int i = 0; i < real.length; ++i) {
+            out[i] = Math.atan2(imag[i], real[i]);
+        }
+    }
+
+    /**
+     * Norm element wise into a preallocated array. No memory is allocated.
+     *
+     * @param out The array where the magnitudes squared, {@code real * real + imag * imag}, are stored.
+     * @throws IllegalArgumentException If the length of {@code out} is not equal to the length of the array.
+     */
+    public void norm(double[] out) {
+        checkLength(out);
+        for (int i = 0; i < real.length; ++i) {
+            out[i] = real[i] * real[i] + imag[i] * imag[i];
+        }
+    }
+
+    /**
+     * Convolve two arrays. The result is computed with the direct sum. For long arrays,
+     * {@link com.wildbitsfoundry.etk4j.signals.fft.FastConvolution#convolve(ComplexArray, ComplexArray)} uses the FFT
+     * when it is faster.
+     *
+     * @param a The left-hand array.
+     * @param b The right-hand array.
+     * @return The convolution of {@code a} and {@code b}.
+     */
+    public static ComplexArray convolve(ComplexArray a, ComplexArray b) {
+        final int na = a.length();
+        final int nb = b.length();
+        ComplexArray result = new ComplexArray(na + nb - 1);
+        for (int i = 0; i < result.length(); ++i) {
+            double re = 0.0;
+            double im = 0.0;
+            for (int j = Math.max(0, i + 1 - nb); j < Math.min(na, i + 1); ++j) {
+                re += a.real[j] * b.real[i - j] - a.imag[j] * b.imag[i - j];
+                im += a.real[j] * b.imag[i - j] + a.imag[j] * b.real[i - j];
+            }
+            result.real[i] = re;
+            result.imag[i] = im;
+        }
+        return result;
+    }
+
+    private void checkLength(ComplexArray a) {
+        if (a.real.length != real.length) {
+            throw new IllegalArgumentException("The lengths of the arrays must be equal.");
+        }
+    }
+
+    private void checkLength(double[] a) {
+        if (a.length != real.length) {
+            throw new IllegalArgumentException("The lengths of the arrays must be equal.");
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(real) + Arrays.hashCode(imag);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ComplexArray other = (ComplexArray) obj;
+        return Arrays.equals(real, other.real) && Arrays.equals(imag, other.imag);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.toComplexArray());
+    }
+}
@@ -39,10 +39,13 @@ public final class ComplexArrays {
     public static Complex[] convolve(Complex[] a, Complex[] b) {
         Complex[] result = new Complex[a.length + b.length - 1];
         for (int i = 0; i < result.length; ++i) {
-            result[i] = new Complex();
+            double real = 0.0;
+            double imag = 0.0;
             for (int j = Math.max(0, i + 1 - b.length); j < Math.min(a.length, i + 1); ++j) {
-                result[i].addEquals(a[j].multiply(b[i - j]));
+                real += a[j].real() * b[i - j].real() - a[j].imag() * b[i - j].imag();
+                imag += a[j].real() * b[i - j].imag() + a[j].imag() * b[i - j].real();
             }
+            result[i] = new Complex(real, imag);
         }
         return result;
     }
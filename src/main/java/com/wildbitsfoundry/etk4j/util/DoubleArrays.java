@@ -156,7 +156,9 @@ public final class DoubleArrays {
 
 
     /**
-     * Convolve two arrays.
+     * Convolve two arrays. The result is computed with the direct sum, which takes {@code a.length * b.length}
+     * multiply-adds. For long arrays, {@link com.wildbitsfoundry.etk4j.signals.fft.FastConvolution#convolve(double[], double[])}
+     * uses the FFT when it is faster.
      * @param a The left-hand array.
      * @param b The right-hand array.
      * @return The convolution of {@code a} and {@code b}.
@@ -176,6 +178,17 @@ public final class DoubleArrays {
         return result;
     }
 
+    /**
+     * Cross-correlate two arrays, c(k) = sum(a(i + k - m + 1) * b(i)) where m is the length of {@code b}. The element
+     * k of the result is the correlation at lag k - m + 1.
+     * @param a The left-hand array.
+     * @param b The right-hand array.
+     * @return The cross-correlation of {@code a} and {@code b}, of length {@code a.length + b.length - 1}.
+     */
+    public static double[] correlate(double[] a, double[] b) {
+        return convolve(a, reverse(b));
+    }
+
     /**
      * Add an array and a scalar element wise.
      * @param a The array to multiply.
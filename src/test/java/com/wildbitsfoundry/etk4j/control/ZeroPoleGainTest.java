@@ -2,8 +2,10 @@ package com.wildbitsfoundry.etk4j.control;
 
 import com.wildbitsfoundry.etk4j.math.complex.Complex;
 import com.wildbitsfoundry.etk4j.math.polynomials.Polynomial;
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class ZeroPoleGainTest {
@@ -18,4 +20,23 @@ public class ZeroPoleGainTest {
         TransferFunction tf = new TransferFunction(numerator, denominator).multiply(gain);
         assertEquals(tf.evaluateAt(100), zpk.evaluateAt(100));
     }
+
+    @Test
+    public void testEvaluateAtArray() {
+        double[] numerator = {1, 2, 1};
+        double[] denominator = {1, 2, 2, 1};
+        Complex[] zeros = new Polynomial(numerator).calculateRoots();
+        Complex[] poles = new Polynomial(denominator).calculateRoots();
+        ZeroPoleGain zpk = new ZeroPoleGain(zeros, poles, 2.0);
+        TransferFunction tf = new TransferFunction(numerator, denominator);
+        double[] w = {0.0, 0.1, 1.0, 10.0, 100.0};
+        ComplexArray zpkResponse = zpk.evaluateAt(w);
+        ComplexArray tfResponse = tf.evaluateAt(w);
+        for (int i = 0; i < w.length; ++i) {
+            assertEquals(zpk.evaluateAt(w[i]), zpkResponse.get(i));
+            assertEquals(tf.evaluateAt(w[i]), tfResponse.get(i));
+        }
+        assertArrayEquals(new double[]{tf.calculateMagnitudeAt(w[2]), tf.calculateMagnitudeAt(w[3])},
+                tf.calculateMagnitudeAt(new double[]{w[2], w[3]}), 0.0);
+    }
 }
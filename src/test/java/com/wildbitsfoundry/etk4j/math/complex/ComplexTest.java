@@ -382,4 +382,27 @@ public class ComplexTest {
 		Complex a = new Complex(-2.0, 3.0);
 		assertEquals("(-2.0000 + 3.0000j)", a.toString());
 	}
+
+	@Test
+	public void testComplexMath() {
+		Complex a = new Complex(-2.0, 3.0);
+		Complex b = new Complex(5.0, -6.0);
+
+		Complex register = new Complex();
+		ComplexMath.multiply(a.real(), a.imag(), b.real(), b.imag(), register);
+		assertEquals(a.multiply(b), register);
+		ComplexMath.divide(a.real(), a.imag(), b.real(), b.imag(), register);
+		assertEquals(a.divide(b), register);
+		ComplexMath.exp(a.real(), a.imag(), register);
+		assertEquals(a.exp(), register);
+		ComplexMath.pow(a.real(), a.imag(), b.real(), b.imag(), register);
+		assertEquals(a.pow(b), register);
+
+		// The register can be one of the operands
+		register.set(a.real(), a.imag());
+		ComplexMath.add(register.real(), register.imag(), b.real(), b.imag(), register);
+		ComplexMath.multiply(register.real(), register.imag(), b.real(), b.imag(), register);
+		ComplexMath.sqrt(register.real(), register.imag(), register);
+		assertEquals(a.add(b).multiply(b).sqrt(), register);
+	}
 }
@@ -7,6 +7,7 @@ import org.junit.Test;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 public class ComplexMatrixTest {
 
@@ -25,4 +26,71 @@ public class ComplexMatrixTest {
         assertArrayEquals(expected, inv.getArray());
 
     }
+
+    private static ComplexMatrix random(int rows, int cols) {
+        return new ComplexMatrix(Matrix.random(rows, cols), Matrix.random(rows, cols));
+    }
+
+    // Reference product computed element by element with Complex arithmetic
+    private static Complex[] naiveMultiply(ComplexMatrix a, ComplexMatrix b) {
+        int n = a.getColumnCount();
+        Complex[] result = new Complex[a.getRowCount() * b.getColumnCount()];
+        for (int i = 0; i < a.getRowCount(); ++i) {
+            for (int j = 0; j < b.getColumnCount(); ++j) {
+                Complex s = new Complex();
+                for (int k = 0; k < n; ++k) {
+                    s.addEquals(a.get(i, k).multiply(b.get(k, j)));
+                }
+                result[i * b.getColumnCount() + j] = s;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testMultiply() {
+        for (int n : new int[]{5, 60}) {
+            ComplexMatrix a = random(n, n + 3);
+            ComplexMatrix b = random(n + 3, n - 1);
+            Complex[] expected = naiveMultiply(a, b);
+            Complex[] actual = a.multiply(b).getArray();
+            for (int i = 0; i < expected.length; ++i) {
+                assertEquals(expected[i].real(), actual[i].real(), 1e-9);
+                assertEquals(expected[i].imag(), actual[i].imag(), 1e-9);
+            }
+            Matrix r = Matrix.random(n, n + 3);
+            assertArrayEquals(naiveMultiply(ComplexMatrix.fromRealMatrix(r), b), r.multiply(b).getArray());
+            Matrix q = Matrix.random(n + 3, n - 1);
+            assertArrayEquals(naiveMultiply(a, ComplexMatrix.fromRealMatrix(q)), a.multiply(q).getArray());
+        }
+    }
+
+    @Test
+    public void testSolve() {
+        ComplexMatrix a = random(6, 6);
+        ComplexMatrix b = random(6, 2);
+        ComplexLUDecomposition lu = new ComplexLUDecomposition(a);
+        ComplexMatrix x = lu.solve(b);
+        Complex[] ax = a.multiply(x).getArray();
+        Complex[] expected = b.getArray();
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals(expected[i].real(), ax[i].real(), 1e-9);
+            assertEquals(expected[i].imag(), ax[i].imag(), 1e-9);
+        }
+
+        // L * U = A(piv, :)
+        Complex[] product = lu.getL().multiply(lu.getU()).getArray();
+        int[] pivot = lu.getPivot();
+        for (int i = 0; i < 6; ++i) {
+            for (int j = 0; j < 6; ++j) {
+                assertEquals(a.getReal(pivot[i], j), product[i * 6 + j].real(), 1e-9);
+                assertEquals(a.getImag(pivot[i], j), product[i * 6 + j].imag(), 1e-9);
+            }
+        }
+
+        // det([[i, 1], [2, 3]]) = 3i - 2
+        ComplexMatrix c = new ComplexMatrix(new Complex[][]{{Complex.fromImaginary(1), Complex.fromReal(1)},
+                {Complex.fromReal(2), Complex.fromReal(3)}});
+        assertEquals(new Complex(-2, 3), new ComplexLUDecomposition(c).det());
+    }
 }
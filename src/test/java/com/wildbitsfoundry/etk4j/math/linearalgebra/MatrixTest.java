@@ -2,10 +2,16 @@ package com.wildbitsfoundry.etk4j.math.linearalgebra;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
 
 import org.junit.Test;
 
 import com.wildbitsfoundry.etk4j.constants.ConstantsETK;
+import com.wildbitsfoundry.etk4j.math.complex.Complex;
+import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 
 public class MatrixTest {
 
@@ -80,6 +86,358 @@ public class MatrixTest {
         assertArrayEquals(row, m.getCol(0), 1e-12);
     }
 
+    @Test
+    public void testMultiplyLarge() {
+        // Sizes exercising the naive, blocked (with partial tiles) and parallel paths.
+        int[][] dims = {{3, 5, 2}, {67, 45, 59}, {130, 301, 97}, {257, 263, 251}};
+        for (int[] dim : dims) {
+            Matrix A = Matrix.random(dim[0], dim[1]);
+            Matrix B = Matrix.random(dim[1], dim[2]);
+            double[] a = A.getArray();
+            double[] b = B.getArray();
+            double[] expected = new double[dim[0] * dim[2]];
+            for (int i = 0; i < dim[0]; ++i) {
+                for (int j = 0; j < dim[2]; ++j) {
+                    double s = 0;
+                    for (int k = 0; k < dim[1]; ++k) {
+                        s += a[i * dim[1] + k] * b[k * dim[2] + j];
+                    }
+                    expected[i * dim[2] + j] = s;
+                }
+            }
+            assertArrayEquals(expected, A.multiply(B).getArray(), 0.0);
+
+            Matrix C = A.copy();
+            C.multiplyEquals(B);
+            assertEquals(dim[0], C.getRowCount());
+            assertEquals(dim[2], C.getColumnCount());
+            assertArrayEquals(expected, C.getArray(), 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMatrixViewInvertedRows() {
+        Matrix.magic(5).view(3, 1, 0, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMatrixViewInvertedColumns() {
+        Matrix.magic(5).view().subView(0, 4, 2, 1);
+    }
+
+    @Test
+    public void testMultiplyEqualsKeepsStorage() {
+        // Small products use the thread scratch buffer, 300 x 300 is above its limit
+        for (int n : new int[]{5, 60, 300}) {
+            Matrix A = Matrix.random(n, n);
+            Matrix B = Matrix.random(n, n);
+            Matrix expected = A.multiply(B);
+            double[] data = A.getArray();
+            MatrixView view = A.view();
+            A.multiplyEquals(B);
+            assertSame(data, A.getArray());
+            assertArrayEquals(expected.getArray(), A.getArray(), 0.0);
+            assertEquals(expected, view.copy());
+
+            // A *= A reads both operands before the result is copied back
+            expected = A.multiply(A);
+            A.multiplyEquals(A);
+            assertArrayEquals(expected.getArray(), A.getArray(), 0.0);
+        }
+    }
+
+    @Test
+    public void testPreallocatedOperations() {
+        Matrix A = new Matrix(new double[][]{{1, 2, 3}, {4, 5, 6}});
+        Matrix B = new Matrix(new double[][]{{6, 5, 4}, {3, 2, 1}});
+        Matrix out = new Matrix(2, 3);
+
+        A.add(B, out);
+        assertEquals(A.add(B), out);
+        A.subtract(B, out);
+        assertEquals(A.subtract(B), out);
+        A.arrayMultiply(B, out);
+        assertEquals(A.arrayMultiply(B), out);
+        A.arrayRightDivide(B, out);
+        assertEquals(A.arrayRightDivide(B), out);
+        A.multiply(2.5, out);
+        assertEquals(A.multiply(2.5), out);
+        A.uminus(out);
+        assertEquals(A.uminus(), out);
+        A.addScaled(-2.0, B, out);
+        assertArrayEquals(new double[]{-11, -8, -5, -2, 1, 4}, out.getArray(), 0.0);
+
+        // Element-wise results can overwrite an operand.
+        Matrix C = A.copy();
+        C.add(B, C);
+        assertEquals(A.add(B), C);
+
+        Matrix T = new Matrix(3, 2);
+        A.transpose(T);
+        assertEquals(A.transpose(), T);
+
+        Matrix P = new Matrix(2, 2);
+        double[] storage = P.getArray();
+        A.multiply(B.transpose(), P);
+        assertEquals(A.multiply(B.transpose()), P);
+        assertTrue(storage == P.getArray());
+
+        // C = 2 * A * B' - C
+        Matrices.gemm(2.0, A, B.transpose(), -1.0, P);
+        assertArrayEquals(new double[]{28, 10, 73, 28}, P.getArray(), 1e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreallocatedOutputDimensions() {
+        Matrix.magic(3).add(Matrix.magic(3), new Matrix(3, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreallocatedMultiplyAliasing() {
+        Matrix A = Matrix.magic(3);
+        A.multiply(Matrix.magic(3), A);
+    }
+
+    @Test
+    public void testLULarge() {
+        // Sizes above the threshold of the recursive blocked algorithm
+        for (int n : new int[]{LUDecomposition.BLOCKED_THRESHOLD, 301}) {
+            Matrix A = Matrix.random(n);
+            LUDecomposition lu = A.LU();
+            assertTrue(lu.isNonSingular());
+            Matrix PA = A.subMatrix(lu.getPivot(), 0, n - 1);
+            assertArrayEquals(PA.getArray(), lu.getL().multiply(lu.getU()).getArray(), 1e-12 * n);
+
+            Matrix b = Matrix.random(n, 2);
+            Matrix x = lu.solve(b);
+            assertArrayEquals(b.getArray(), A.multiply(x).getArray(), 1e-9);
+        }
+
+        Matrix D = Matrix.identity(200).multiply(2.0);
+        D.set(0, 0, -1.0);
+        assertEquals(-Math.pow(2, 199), D.det(), 0.0);
+
+        // A zero column makes every pivot in it exactly zero
+        Matrix S = Matrix.random(150);
+        for (int i = 0; i < 150; ++i) {
+            S.set(i, 75, 0.0);
+        }
+        assertTrue(!S.LU().isNonSingular());
+    }
+
+    @Test
+    public void testQRLarge() {
+        // Blocked compact WY path, the last panel is narrower than the block size
+        Matrix A = Matrix.random(250, QRDecomposition.BLOCKED_THRESHOLD + 13);
+        QRDecomposition qr = A.QR();
+        Matrix Q = qr.getQThin();
+        assertArrayEquals(A.getArray(), Q.multiply(qr.getR()).getArray(), 1e-10);
+        assertArrayEquals(Matrix.identity(A.getColumnCount()).getArray(), Q.transpose().multiply(Q).getArray(), 1e-12);
+        Matrix b = Matrix.random(250, 2);
+        Matrix x = qr.solve(b);
+        Matrix At = A.transpose();
+        assertArrayEquals(At.multiply(b).getArray(), At.multiply(A).multiply(x).getArray(), 1e-6);
+
+        // Column pivoting reveals the rank of a 60 x 8 matrix of rank 5
+        Matrix L = Matrix.random(60, 5).multiply(Matrix.random(5, 8));
+        QRDecomposition qrcp = new QRDecomposition(L, true);
+        assertEquals(5, qrcp.rank());
+        Matrix R = qrcp.getR();
+        for (int k = 1; k < 6; ++k) {
+            assertTrue(Math.abs(R.get(k, k)) <= Math.abs(R.get(k - 1, k - 1)) * (1 + 1e-12));
+        }
+        Matrix LP = L.subMatrix(0, 59, qrcp.getPivot());
+        assertArrayEquals(LP.getArray(), qrcp.getQThin().multiply(R).getArray(), 1e-8);
+        // The basic solution reproduces a consistent right hand side
+        Matrix c = L.multiply(Matrix.random(8, 1));
+        assertArrayEquals(c.getArray(), L.multiply(qrcp.solve(c)).getArray(), 1e-6);
+        assertEquals(8, new QRDecomposition(Matrix.random(20, 8), true).rank());
+
+        // Tall and skinny least squares
+        Matrix T = Matrix.random(3 * TallSkinnyQR.LEAF_ROWS, 4);
+        Matrix y = Matrix.random(3 * TallSkinnyQR.LEAF_ROWS, 1);
+        Matrix expected = T.QR().solve(y);
+        assertArrayEquals(expected.getArray(), TallSkinnyQR.solve(T, y).getArray(), 1e-10);
+        assertArrayEquals(expected.getArray(), T.solve(y).getArray(), 1e-10);
+        Matrix RT = new TallSkinnyQR(T).getR();
+        assertArrayEquals(T.transpose().multiply(T).getArray(), RT.transpose().multiply(RT).getArray(), 1e-5);
+    }
+
+    @Test
+    public void testQRBlockedUpdate() {
+        // The leading columns of A have the leading block of R as their R factor, computed here without blocking,
+        // which checks the trailing updates T' * W of the panels
+        final int k = QRDecomposition.BLOCKED_THRESHOLD - 1;
+        Matrix A = Matrix.random(400, 3 * QRDecomposition.BLOCKED_THRESHOLD);
+        Matrix R = A.QR().getR();
+        Matrix Rk = A.subMatrix(0, 399, 0, k - 1).QR().getR();
+        assertArrayEquals(Rk.getArray(), R.subMatrix(0, k - 1, 0, k - 1).getArray(), 1e-10);
+    }
+
+    @Test
+    public void testEigSymmetric() {
+        // Symmetric matrix with a repeated eigenvalue, large enough for the divide and conquer merges
+        int n = 120;
+        Matrix X = Matrix.random(n, n);
+        Matrix S = X.add(X.transpose());
+        Matrix Q = S.eigSymmetric().getV();
+        Matrix L = new Matrix(n, n);
+        for (int i = 0; i < n; ++i) {
+            L.set(i, i, i < 20 ? 1.0 : i - n / 2.0 + 0.5);
+        }
+        Matrix A = Q.multiply(L).multiply(Q.transpose());
+        A = A.add(A.transpose()).multiply(0.5);
+
+        SymmetricEigenvalueDecomposition eig = A.eigSymmetric();
+        Matrix V = eig.getV();
+        double[] w = eig.getEigenvalues();
+        assertArrayEquals(A.multiply(V).getArray(), V.multiply(eig.getD()).getArray(), 1e-10);
+        assertArrayEquals(Matrix.identity(n).getArray(), V.transpose().multiply(V).getArray(), 1e-12);
+        for (int i = 1; i < n; ++i) {
+            assertTrue(w[i - 1] <= w[i]);
+        }
+        assertArrayEquals(w, new SymmetricEigenvalueDecomposition(A, false).getEigenvalues(), 1e-11);
+        assertArrayEquals(w, new EigenvalueDecomposition(A).getRealEigenvalues(), 1e-11);
+
+        // Largest five eigenpairs
+        SymmetricEigenvalueDecomposition top = SymmetricEigenvalueDecomposition.indexRange(A, n - 5, n - 1, true);
+        Matrix Vt = top.getV();
+        assertArrayEquals(Arrays.copyOfRange(w, n - 5, n), top.getEigenvalues(), 1e-11);
+        assertArrayEquals(A.multiply(Vt).getArray(), Vt.multiply(top.getD()).getArray(), 1e-10);
+        // The repeated eigenvalue needs orthogonal eigenvectors
+        SymmetricEigenvalueDecomposition ones = SymmetricEigenvalueDecomposition.valueRange(A, 0.9, 1.1, true);
+        assertEquals(20, ones.getEigenvalues().length);
+        Matrix Vo = ones.getV();
+        assertArrayEquals(Matrix.identity(20).getArray(), Vo.transpose().multiply(Vo).getArray(), 1e-10);
+        assertArrayEquals(A.multiply(Vo).getArray(), Vo.multiply(ones.getD()).getArray(), 1e-10);
+        assertTrue(!SymmetricEigenvalueDecomposition.valueRange(A, 1000.0, 2000.0, false).hasEigenvectors());
+    }
+
+    @Test
+    public void testEigenvalues() {
+        Matrix A = Matrix.random(40, 40);
+        EigenvalueDecomposition eig = A.eig();
+        Complex[] lambda = A.eigenvalues();
+        assertArrayEquals(eig.getRealEigenvalues(), ComplexArrays.real(lambda), 1e-9);
+        assertArrayEquals(eig.getImagEigenvalues(), ComplexArrays.imag(lambda), 1e-9);
+
+        // Companion matrix of (x - 1)(x - 2)...(x - 6)
+        double[] coefficients = {1, -21, 175, -735, 1624, -1764, 720};
+        Complex[] roots = EigenvalueDecomposition.hessenbergEigenvalues(Matrix.companion(coefficients, 6), true);
+        double[] real = ComplexArrays.real(roots);
+        Arrays.sort(real);
+        assertArrayEquals(new double[]{1, 2, 3, 4, 5, 6}, real, 1e-9);
+        assertArrayEquals(new double[6], ComplexArrays.imag(roots), 0.0);
+        assertArrayEquals(new double[]{1, -4, 4}, new Matrix(new double[][]{{2, 1}, {0, 2}}).poly(), 1e-12);
+    }
+
+    @Test
+    public void testTruncatedSVD() {
+        // Rank 5 matrix
+        Matrix A = Matrix.random(300, 5).multiply(Matrix.random(5, 120));
+        double[] expected = A.SVD().getSingularValues();
+        double[] values = new SingularValueDecomposition(A, false).getSingularValues();
+        assertArrayEquals(expected, values, 1e-9 * expected[0]);
+        double[] wide = new SingularValueDecomposition(A.transpose(), false).getSingularValues();
+        assertArrayEquals(expected, Arrays.copyOf(wide, expected.length), 1e-9 * expected[0]);
+        assertEquals(5, A.rank());
+
+        TruncatedSingularValueDecomposition svd = A.SVD(5);
+        assertArrayEquals(Arrays.copyOf(expected, 5), svd.getSingularValues(), 1e-9 * expected[0]);
+        assertArrayEquals(A.getArray(), svd.getApproximation().getArray(), 1e-9 * expected[0]);
+        Matrix U = svd.getU();
+        Matrix V = svd.getV();
+        assertArrayEquals(Matrix.identity(5).getArray(), U.transpose().multiply(U).getArray(), 1e-12);
+        assertArrayEquals(Matrix.identity(5).getArray(), V.transpose().multiply(V).getArray(), 1e-12);
+
+        TruncatedSingularValueDecomposition values8 = new TruncatedSingularValueDecomposition(A, 8, false);
+        assertEquals(5, values8.rank());
+        assertTrue(!values8.hasSingularVectors());
+        assertEquals(A.norm2(), values8.norm2(), 1e-9 * expected[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSVDWithoutVectors() {
+        new SingularValueDecomposition(Matrix.magic(4), false).getU();
+    }
+
+    @Test
+    public void testFactorize() {
+        Matrix A = Matrix.magic(6).add(Matrix.identity(6));
+        MatrixFactorization factorization = A.factorize();
+        Matrix B = Matrix.random(6, 3);
+        assertEquals(A.solve(B), factorization.solve(B));
+        Matrix X = new Matrix(6, 3);
+        factorization.solve(B, X);
+        assertEquals(A.solve(B), X);
+
+        double[] b = {1, 2, 3, 4, 5, 6};
+        double[] x = new double[6];
+        factorization.solve(b, x);
+        assertArrayEquals(A.solve(new Matrix(b, 6)).getArray(), x, 0.0);
+
+        assertEquals(A.det(), factorization.det(), 0.0);
+        assertEquals(A.inv(), factorization.inverse());
+
+        // Hager's estimate is a lower bound of ||inv(A)||_1 so rcond is an upper bound
+        double rcond = 1.0 / (A.norm1() * A.inv().norm1());
+        assertTrue(factorization.rcond() >= rcond * (1 - 1e-12));
+        assertTrue(factorization.rcond() <= 3 * rcond);
+        Matrix H = new Matrix(new double[][]{{1, 1.0 / 2, 1.0 / 3}, {1.0 / 2, 1.0 / 3, 1.0 / 4}, {1.0 / 3, 1.0 / 4, 1.0 / 5}});
+        assertEquals(1.0 / (H.norm1() * H.inv().norm1()), H.factorize().rcond(), 1e-12);
+        assertTrue(Matrix.magic(4).factorize().rcond() < ConstantsETK.DOUBLE_EPS);
+
+        Matrix thin = new Matrix(new double[][]{{1, 2}, {3, 4}, {5, 6}});
+        Matrix rhs = new Matrix(new double[][]{{1}, {2}, {4}});
+        assertEquals(thin.solve(rhs), thin.factorize().solve(rhs));
+        Matrix wide = thin.transpose();
+        assertEquals(wide.solve(new Matrix(new double[][]{{1}, {2}})),
+                wide.factorize().solve(new Matrix(new double[][]{{1}, {2}})));
+    }
+
+    @Test
+    public void testMatrixView() {
+        Matrix A = Matrix.magic(5);
+        MatrixView V = A.view(1, 3, 2, 4);
+        assertEquals(A.subMatrix(1, 3, 2, 4), V.copy());
+        assertEquals(A.subMatrix(1, 3, 2, 4).transpose(), V.transpose().copy());
+        assertEquals(A.subMatrix(2, 2, 2, 4), V.row(1).copy());
+        assertEquals(A.subMatrix(1, 3, 3, 3), V.col(1).copy());
+        assertEquals(A.subMatrix(1, 3, 2, 4).trace(), V.trace(), 0.0);
+        assertEquals(A.subMatrix(1, 3, 2, 4).norm1(), V.norm1(), 0.0);
+        assertEquals(A.subMatrix(1, 3, 2, 4).normInf(), V.normInf(), 0.0);
+
+        // writes go through to the backing matrix
+        V.transpose().set(2, 0, -1.0);
+        assertEquals(-1.0, A.get(1, 4), 0.0);
+
+        // strided multiply matches the copy based multiply
+        Matrix B = Matrix.random(70, 90);
+        Matrix C = Matrix.random(60, 90);
+        MatrixView Bv = B.view(3, 62, 5, 84);
+        MatrixView Cv = C.view(2, 51, 3, 82).transpose();
+        Matrix expected = Bv.copy().multiply(Cv.transpose().copy().transpose());
+        assertEquals(expected, Bv.multiply(Cv));
+        Matrix out = new Matrix(60, 50);
+        Bv.multiply(Cv, out);
+        assertEquals(expected, out);
+
+        double[] x = {1, 2, 3};
+        double[] y = new double[3];
+        V.multiply(x, y);
+        assertArrayEquals(V.copy().multiply(new Matrix(x, 3)).getArray(), y, 0.0);
+
+        // factorizations of a view match those of the copy
+        Matrix D = Matrix.magic(6);
+        MatrixView Dv = D.view(0, 3, 1, 4);
+        assertArrayEquals(new LUDecomposition(Dv.copy()).getU().getArray(),
+                new LUDecomposition(Dv).getU().getArray(), 0.0);
+        assertArrayEquals(new QRDecomposition(Dv.copy()).getR().getArray(),
+                new QRDecomposition(Dv).getR().getArray(), 0.0);
+        assertArrayEquals(new SingularValueDecomposition(Dv.copy()).getSingularValues(),
+                new SingularValueDecomposition(Dv).getSingularValues(), 0.0);
+    }
+
     @Test
     public void allTests() {
         Matrix A, B, C, Z, O, I, R, S, X, SUB, M, T, SQ, DEF, SOL;
@@ -0,0 +1,200 @@
+package com.wildbitsfoundry.etk4j.math.linearalgebra;
+
+import com.wildbitsfoundry.etk4j.math.optimize.OptimizerStatusType;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SparseMatrixTest {
+
+    // 2D Poisson matrix on a k x k grid, n = k^2
+    private static SparseMatrix poisson(int k) {
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(k * k, k * k);
+        for (int i = 0; i < k; ++i) {
+            for (int j = 0; j < k; ++j) {
+                int row = i * k + j;
+                builder.add(row, row, 4.0);
+                if (i > 0) builder.add(row, row - k, -1.0);
+                if (i < k - 1) builder.add(row, row + k, -1.0);
+                if (j > 0) builder.add(row, row - 1, -1.0);
+                if (j < k - 1) builder.add(row, row + 1, -1.0);
+            }
+        }
+        return builder.build();
+    }
+
+    // Diagonally dominant non-symmetric random matrix
+    private static SparseMatrix randomNonSymmetric(int n, long seed) {
+        Random random = new Random(seed);
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        for (int i = 0; i < n; ++i) {
+            builder.add(i, i, 10.0 + random.nextDouble());
+            for (int k = 0; k < 3; ++k) {
+                builder.add(i, random.nextInt(n), random.nextDouble() - 0.5);
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testBuilder() {
+        SparseMatrix A = new SparseMatrix.Builder(3, 4)
+                .add(2, 3, 1.0)
+                .add(0, 1, 2.0)
+                .add(2, 0, 3.0)
+                .add(0, 1, 5.0)
+                .build();
+        assertEquals(3, A.getNonZeroCount());
+        assertArrayEquals(new int[]{0, 1, 1, 3}, A.getRowPointers());
+        assertArrayEquals(new int[]{1, 0, 3}, A.getColumnIndices());
+        assertEquals(7.0, A.get(0, 1), 0.0);
+        assertEquals(0.0, A.get(1, 1), 0.0);
+        assertArrayEquals(new double[]{0, 7, 0, 0, 0, 0, 0, 0, 3, 0, 0, 1}, A.toDense().getArray(), 0.0);
+        assertEquals(A, SparseMatrix.fromDense(A.toDense()));
+        assertEquals(A.toDense().transpose(), A.transpose().toDense());
+    }
+
+    @Test
+    public void testMultiply() {
+        Matrix D = Matrix.magic(5);
+        SparseMatrix A = SparseMatrix.fromDense(D);
+        double[] x = {1, -2, 3, -4, 5};
+        assertArrayEquals(D.multiply(new Matrix(x, 5)).getArray(), A.multiply(x), 1e-12);
+        double[] y = new double[5];
+        A.transposeMultiply(x, y);
+        assertArrayEquals(D.transpose().multiply(new Matrix(x, 5)).getArray(), y, 1e-12);
+        Matrix B = Matrix.random(5, 3);
+        assertArrayEquals(D.multiply(B).getArray(), A.multiply(B).getArray(), 1e-12);
+    }
+
+    @Test
+    public void testSparseLU() {
+        SparseMatrix A = SparseMatrix.fromDense(Matrix.magic(6).add(Matrix.identity(6)));
+        Matrix b = Matrix.random(6, 2);
+        Matrix expected = A.toDense().solve(b);
+        for (SparseOrdering ordering : SparseOrdering.values()) {
+            SparseLUDecomposition lu = new SparseLUDecomposition(A, ordering, 1.0);
+            assertTrue(lu.isNonSingular());
+            assertArrayEquals(expected.getArray(), lu.solve(b).getArray(), 1e-9);
+            assertEquals(A.toDense().det(), lu.det(), 1e-6 * Math.abs(lu.det()));
+
+            // P * A * Q = L * U
+            int[] p = lu.getPivot();
+            int[] q = lu.getColumnPermutation();
+            Matrix PAQ = A.toDense().subMatrix(p, q);
+            assertArrayEquals(PAQ.getArray(), lu.getL().toDense().multiply(lu.getU().toDense()).getArray(), 1e-10);
+        }
+
+        SparseMatrix P = poisson(20);
+        double[] x = new double[P.getRowCount()];
+        for (int i = 0; i < x.length; ++i) {
+            x[i] = Math.sin(i);
+        }
+        assertArrayEquals(x, P.solve(P.multiply(x)), 1e-10);
+        SparseMatrix N = randomNonSymmetric(300, 7);
+        double[] z = new double[300];
+        for (int i = 0; i < z.length; ++i) {
+            z[i] = Math.cos(i);
+        }
+        assertArrayEquals(z, N.solve(N.multiply(z)), 1e-10);
+
+        SparseMatrix singular = new SparseMatrix.Builder(2, 2).add(0, 0, 1).add(1, 0, 1).build();
+        assertFalse(singular.LU().isNonSingular());
+        assertEquals(0.0, singular.LU().det(), 0.0);
+    }
+
+    @Test
+    public void testSparseCholesky() {
+        SparseMatrix P = poisson(15);
+        double[] x = new double[P.getRowCount()];
+        for (int i = 0; i < x.length; ++i) {
+            x[i] = Math.cos(i);
+        }
+        double[] b = P.multiply(x);
+        int natural = 0;
+        for (SparseOrdering ordering : SparseOrdering.values()) {
+            SparseCholeskyDecomposition chol = new SparseCholeskyDecomposition(P, ordering);
+            assertTrue(chol.isSPD());
+            assertArrayEquals(x, chol.solve(b), 1e-10);
+            if (ordering == SparseOrdering.NATURAL) {
+                natural = chol.getL().getNonZeroCount();
+            } else if (ordering == SparseOrdering.MINIMUM_DEGREE) {
+                assertTrue(chol.getL().getNonZeroCount() < natural);
+            }
+        }
+        SparseCholeskyDecomposition chol = P.Chol();
+        int[] p = chol.getPermutation();
+        Matrix L = chol.getL().toDense();
+        assertArrayEquals(P.toDense().subMatrix(p, p).getArray(), L.multiply(L.transpose()).getArray(), 1e-12);
+
+        SparseMatrix indefinite = SparseMatrix.fromDense(new Matrix(new double[][]{{1, 2}, {2, 1}}));
+        assertFalse(indefinite.Chol().isSPD());
+    }
+
+    @Test
+    public void testIterativeSolvers() {
+        SparseMatrix P = poisson(20);
+        double[] x = new double[P.getRowCount()];
+        for (int i = 0; i < x.length; ++i) {
+            x[i] = Math.sin(0.1 * i);
+        }
+        double[] b = P.multiply(x);
+
+        IterativeSolverResults cg = new ConjugateGradient(P, b).tolerance(1e-12).solve();
+        assertTrue(cg.hasConverged());
+        assertArrayEquals(x, cg.getValue(), 1e-9);
+
+        IterativeSolverResults pcg = new ConjugateGradient(P, b).tolerance(1e-12)
+                .preconditioner(new ILU0Preconditioner(P)).solve();
+        assertTrue(pcg.hasConverged());
+        assertTrue(pcg.getNumberOfIterations() < cg.getNumberOfIterations());
+        assertArrayEquals(x, pcg.getValue(), 1e-9);
+
+        SparseMatrix N = randomNonSymmetric(400, 11);
+        double[] y = new double[400];
+        for (int i = 0; i < y.length; ++i) {
+            y[i] = Math.cos(0.3 * i);
+        }
+        double[] c = N.multiply(y);
+        for (Preconditioner preconditioner : new Preconditioner[]{null, new JacobiPreconditioner(N),
+                new ILU0Preconditioner(N)}) {
+            IterativeSolver bicgstab = new BiCGSTAB(N, c).tolerance(1e-12);
+            IterativeSolver gmres = new GMRES(N, c).restart(20).tolerance(1e-12);
+            if (preconditioner != null) {
+                bicgstab.preconditioner(preconditioner);
+                gmres.preconditioner(preconditioner);
+            }
+            IterativeSolverResults r1 = bicgstab.solve();
+            assertTrue(r1.hasConverged());
+            assertArrayEquals(y, r1.getValue(), 1e-9);
+            IterativeSolverResults r2 = gmres.solve();
+            assertTrue(r2.hasConverged());
+            assertArrayEquals(y, r2.getValue(), 1e-9);
+        }
+
+        IterativeSolverResults limited = new GMRES(N, c).iterationLimit(2).solve();
+        assertFalse(limited.hasConverged());
+        assertEquals(2, limited.getNumberOfIterations());
+        assertEquals(OptimizerStatusType.MAXIMUM_NUMBER_OF_ITERATIONS_EXCEEDED, limited.getOptimizerStatusType());
+    }
+
+    @Test
+    public void testIterativeSolverBreakdown() {
+        // A * b = 0, so the Krylov subspace is invariant and A restricted to it is singular
+        SparseMatrix A = new SparseMatrix.Builder(2, 2).add(0, 1, 1).build();
+        double[] b = {1.0, 0.0};
+        IterativeSolverResults gmres = new GMRES(A, b).solve();
+        assertFalse(gmres.hasConverged());
+        assertEquals(OptimizerStatusType.BREAKDOWN, gmres.getOptimizerStatusType());
+        assertArrayEquals(new double[]{0.0, 0.0}, gmres.getValue(), 0.0);
+
+        IterativeSolverResults bicgstab = new BiCGSTAB(A, b).solve();
+        assertFalse(bicgstab.hasConverged());
+        assertEquals(OptimizerStatusType.BREAKDOWN, bicgstab.getOptimizerStatusType());
+    }
+}
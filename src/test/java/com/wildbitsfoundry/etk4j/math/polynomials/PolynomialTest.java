@@ -432,5 +432,9 @@ public class PolynomialTest {
         poly = new Polynomial(3, 1, 2, 0);
         roots = poly.calculateRoots();
 		assertEquals(new Complex(-14.666666666666668, 19.999999999999996), polyvalFromRoots(roots, new Complex(2, 2)));
+
+        double[] value = new double[2];
+        polyvalFromRoots(roots, 2.0, 2.0, value);
+        assertArrayEquals(new double[]{-14.666666666666668, 19.999999999999996}, value, 0.0);
     }
 }
@@ -0,0 +1,58 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BatchFFTTest {
+
+    @Test
+    public void testLayouts() {
+        int channels = 11;
+        for (int n : new int[]{1, 8, 32, 12, 67}) {
+            double[][] expectedReal = new double[channels][n];
+            double[][] expectedImag = new double[channels][n];
+            double[] major = new double[n * channels];
+            double[] majorImag = new double[n * channels];
+            double[] interleaved = new double[n * channels];
+            double[] interleavedImag = new double[n * channels];
+            for (int c = 0; c < channels; ++c) {
+                for (int i = 0; i < n; ++i) {
+                    double re = Math.sin(0.37 * i * i + c);
+                    double im = Math.cos(1.3 * i * c) - 0.25;
+                    expectedReal[c][i] = re;
+                    expectedImag[c][i] = im;
+                    major[c * n + i] = re;
+                    majorImag[c * n + i] = im;
+                    interleaved[i * channels + c] = re;
+                    interleavedImag[i * channels + c] = im;
+                }
+                FFT.getInstance(n).direct(expectedReal[c], expectedImag[c]);
+            }
+            double[] majorCopy = major.clone();
+            double[] interleavedCopy = interleaved.clone();
+
+            new BatchFFT(n, channels).direct(major, majorImag);
+            new BatchFFT(n, channels, BatchFFT.Layout.INTERLEAVED).parallel(true).direct(interleaved, interleavedImag);
+            for (int c = 0; c < channels; ++c) {
+                for (int i = 0; i < n; ++i) {
+                    assertEquals(expectedReal[c][i], major[c * n + i], 1e-12);
+                    assertEquals(expectedImag[c][i], majorImag[c * n + i], 1e-12);
+                    assertEquals(expectedReal[c][i], interleaved[i * channels + c], 1e-12);
+                    assertEquals(expectedImag[c][i], interleavedImag[i * channels + c], 1e-12);
+                }
+            }
+
+            new BatchFFT(n, channels).parallel(true).inverse(major, majorImag);
+            new BatchFFT(n, channels, BatchFFT.Layout.INTERLEAVED).inverse(interleaved, interleavedImag);
+            assertArrayEquals(majorCopy, major, 1e-12);
+            assertArrayEquals(interleavedCopy, interleaved, 1e-12);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLengthMismatch() {
+        new BatchFFT(8, 4).direct(new double[16], new double[16]);
+    }
+}
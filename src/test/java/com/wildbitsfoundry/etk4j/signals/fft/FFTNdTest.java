@@ -0,0 +1,80 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class FFTNdTest {
+
+    @Test
+    public void testThreeDimensional() {
+        int[] dims = {4, 6, 10};
+        int size = 4 * 6 * 10;
+        double[] real = new double[size];
+        double[] imag = new double[size];
+        for (int i = 0; i < size; ++i) {
+            real[i] = Math.sin(0.37 * i * i + 1.0);
+            imag[i] = Math.cos(1.3 * i) - 0.25;
+        }
+        double[] realCopy = real.clone();
+        double[] imagCopy = imag.clone();
+
+        FFTNd fft = new FFTNd(dims).parallel(true);
+        fft.direct(real, imag);
+        for (int k0 = 0; k0 < dims[0]; ++k0) {
+            for (int k1 = 0; k1 < dims[1]; ++k1) {
+                for (int k2 = 0; k2 < dims[2]; ++k2) {
+                    double sr = 0.0;
+                    double si = 0.0;
+                    for (int i0 = 0; i0 < dims[0]; ++i0) {
+                        for (int i1 = 0; i1 < dims[1]; ++i1) {
+                            for (int i2 = 0; i2 < dims[2]; ++i2) {
+                                double angle = -2.0 * Math.PI * ((double) (i0 * k0 % dims[0]) / dims[0]
+                                        + (double) (i1 * k1 % dims[1]) / dims[1]
+                                        + (double) (i2 * k2 % dims[2]) / dims[2]);
+                                int i = (i0 * dims[1] + i1) * dims[2] + i2;
+                                sr += realCopy[i] * Math.cos(angle) - imagCopy[i] * Math.sin(angle);
+                                si += realCopy[i] * Math.sin(angle) + imagCopy[i] * Math.cos(angle);
+                            }
+                        }
+                    }
+                    int k = (k0 * dims[1] + k1) * dims[2] + k2;
+                    assertEquals(sr, real[k], 1e-10);
+                    assertEquals(si, imag[k], 1e-10);
+                }
+            }
+        }
+        fft.inverse(real, imag);
+        assertArrayEquals(realCopy, real, 1e-12);
+        assertArrayEquals(imagCopy, imag, 1e-12);
+    }
+
+    @Test
+    public void testTwoDimensionalGrid() {
+        int rows = 16;
+        int cols = 12;
+        double[][] real = new double[rows][cols];
+        double[][] imag = new double[rows][cols];
+        double[] flatReal = new double[rows * cols];
+        double[] flatImag = new double[rows * cols];
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < cols; ++j) {
+                real[i][j] = Math.sin(0.3 * i + 0.7 * j * j);
+                flatReal[i * cols + j] = real[i][j];
+            }
+        }
+        FFTNd fft = new FFTNd(rows, cols);
+        fft.direct(real, imag);
+        fft.direct(flatReal, flatImag);
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < cols; ++j) {
+                assertEquals(flatReal[i * cols + j], real[i][j], 1e-12);
+                assertEquals(flatImag[i * cols + j], imag[i][j], 1e-12);
+            }
+        }
+        fft.inverse(real, imag);
+        assertEquals(Math.sin(0.3 * 5 + 0.7 * 9), real[5][3], 1e-12);
+        assertEquals(0.0, imag[5][3], 1e-12);
+    }
+}
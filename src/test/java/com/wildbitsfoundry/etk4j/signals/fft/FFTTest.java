@@ -1,12 +1,15 @@
 package com.wildbitsfoundry.etk4j.signals.fft;
 
 import com.wildbitsfoundry.etk4j.math.complex.Complex;
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
 import com.wildbitsfoundry.etk4j.util.ComplexArrays;
 import org.junit.Test;
 
 import java.util.Arrays;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class FFTTest {
 
@@ -103,4 +106,131 @@ public class FFTTest {
         assertArrayEquals(real, ComplexArrays.real(data), 1e-12);
         assertArrayEquals(imag, ComplexArrays.imag(data), 1e-12);
     }
+
+    @Test
+    public void testComplexArray() {
+        Complex[] data = new Complex[16];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = new Complex(Math.sin(0.3 * i), Math.cos(0.7 * i) - 0.5);
+        }
+        ComplexArray array = ComplexArray.fromComplex(data);
+
+        FFT fft = new FFT(16);
+        fft.direct(data);
+        fft.direct(array);
+        for (int i = 0; i < data.length; ++i) {
+            assertEquals(data[i].real(), array.real(i), 1e-12);
+            assertEquals(data[i].imag(), array.imag(i), 1e-12);
+        }
+
+        fft.inverse(array);
+        for (int i = 0; i < data.length; ++i) {
+            assertEquals(Math.sin(0.3 * i), array.real(i), 1e-12);
+            assertEquals(Math.cos(0.7 * i) - 0.5, array.imag(i), 1e-12);
+        }
+    }
+
+    @Test
+    public void testArbitraryLengths() {
+        // mixed radix: 2, 3, 4, 5, 7, 11 and combinations, Bluestein: 67, 2 * 101
+        int[] lengths = {1, 2, 3, 5, 6, 7, 11, 12, 45, 49, 67, 100, 202, 210, 1000};
+        for (int n : lengths) {
+            double[] real = new double[n];
+            double[] imag = new double[n];
+            for (int i = 0; i < n; ++i) {
+                real[i] = Math.sin(0.37 * i * i + 1.0);
+                imag[i] = Math.cos(1.3 * i) - 0.25;
+            }
+            double[] realCopy = Arrays.copyOf(real, n);
+            double[] imagCopy = Arrays.copyOf(imag, n);
+
+            FFT fft = new FFT(n);
+            fft.direct(real, imag);
+            for (int k = 0; k < n; ++k) {
+                double sr = 0.0;
+                double si = 0.0;
+                for (int i = 0; i < n; ++i) {
+                    double angle = -2.0 * Math.PI * ((long) i * k % n) / n;
+                    sr += realCopy[i] * Math.cos(angle) - imagCopy[i] * Math.sin(angle);
+                    si += realCopy[i] * Math.sin(angle) + imagCopy[i] * Math.cos(angle);
+                }
+                assertEquals(sr, real[k], 1e-10);
+                assertEquals(si, imag[k], 1e-10);
+            }
+
+            // The Complex[] transforms run the same plan on buffers kept per thread
+            Complex[] data = ComplexArrays.zip(realCopy, imagCopy);
+            fft.direct(data);
+            assertArrayEquals(real, ComplexArrays.real(data), 0.0);
+            assertArrayEquals(imag, ComplexArrays.imag(data), 0.0);
+
+            fft.inverse(real, imag);
+            assertArrayEquals(realCopy, real, 1e-12);
+            assertArrayEquals(imagCopy, imag, 1e-12);
+            fft.inverse(data);
+            assertArrayEquals(real, ComplexArrays.real(data), 0.0);
+            assertArrayEquals(imag, ComplexArrays.imag(data), 0.0);
+        }
+
+        Complex[] data = ComplexArrays.zip(new double[]{1, 2, 3, 4, 5, 6}, new double[6]);
+        new FFT(6).direct(data);
+        assertEquals(21.0, data[0].real(), 1e-12);
+        assertEquals(-3.0, data[3].real(), 1e-12);
+        assertEquals(0.0, data[3].imag(), 1e-12);
+        new FFT(6).inverse(data);
+        assertEquals(4.0, data[3].real(), 1e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLength() {
+        new FFT(0);
+    }
+
+    @Test
+    public void testPowersOfTwo() {
+        for (int m = 0; m <= 10; ++m) {
+            int n = 1 << m;
+            double[] real = new double[n];
+            double[] imag = new double[n];
+            for (int i = 0; i < n; ++i) {
+                real[i] = Math.sin(0.37 * i * i + 1.0);
+                imag[i] = Math.cos(1.3 * i) - 0.25;
+            }
+            double[] realCopy = Arrays.copyOf(real, n);
+            double[] imagCopy = Arrays.copyOf(imag, n);
+
+            FFT fft = FFT.getInstance(n);
+            fft.direct(real, imag);
+            for (int k = 0; k < n; k += Math.max(1, n / 16)) {
+                double sr = 0.0;
+                double si = 0.0;
+                for (int i = 0; i < n; ++i) {
+                    double angle = -2.0 * Math.PI * ((long) i * k % n) / n;
+                    sr += realCopy[i] * Math.cos(angle) - imagCopy[i] * Math.sin(angle);
+                    si += realCopy[i] * Math.sin(angle) + imagCopy[i] * Math.cos(angle);
+                }
+                assertEquals(sr, real[k], 1e-10);
+                assertEquals(si, imag[k], 1e-10);
+            }
+            // The Complex[] transforms run the same plan on buffers kept per thread
+            Complex[] data = ComplexArrays.zip(realCopy, imagCopy);
+            fft.direct(data);
+            assertArrayEquals(real, ComplexArrays.real(data), 0.0);
+            assertArrayEquals(imag, ComplexArrays.imag(data), 0.0);
+
+            fft.inverse(real, imag);
+            assertArrayEquals(realCopy, real, 1e-12);
+            assertArrayEquals(imagCopy, imag, 1e-12);
+            fft.inverse(data);
+            assertArrayEquals(real, ComplexArrays.real(data), 0.0);
+            assertArrayEquals(imag, ComplexArrays.imag(data), 0.0);
+        }
+    }
+
+    @Test
+    public void testPlanCache() {
+        assertSame(FFT.getInstance(48), FFT.getInstance(48));
+        assertEquals(48, FFT.getInstance(48).getLength());
+        assertSame(RealFFT.getInstance(48), RealFFT.getInstance(48));
+    }
 }
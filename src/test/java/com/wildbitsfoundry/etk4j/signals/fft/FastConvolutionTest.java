@@ -0,0 +1,98 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
+import com.wildbitsfoundry.etk4j.util.DoubleArrays;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class FastConvolutionTest {
+
+    private static double[] sequence(int length, double w) {
+        double[] x = new double[length];
+        for (int i = 0; i < length; ++i) {
+            x[i] = Math.sin(w * i + 0.01 * i * i) + 0.25;
+        }
+        return x;
+    }
+
+    private static double[] direct(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; ++i) {
+            for (int j = 0; j < b.length; ++j) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testConvolve() {
+        int[][] lengths = {{1, 1}, {1, 7}, {5, 3}, {64, 64}, {100, 37}, {37, 1000}, {5000, 33}, {3000, 700}};
+        for (int[] length : lengths) {
+            double[] a = sequence(length[0], 0.3);
+            double[] b = sequence(length[1], 1.1);
+            double[] expected = direct(a, b);
+            assertArrayEquals(expected, FastConvolution.convolve(a, b), 1e-9);
+            if (a.length >= b.length) {
+                assertArrayEquals(expected, FastConvolution.overlapAdd(a, b), 1e-9);
+                assertArrayEquals(expected, FastConvolution.overlapSave(a, b), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testBlockLengths() {
+        double[] x = sequence(1234, 0.7);
+        double[] h = sequence(50, 0.2);
+        double[] expected = direct(x, h);
+        for (int fftLength : new int[]{50, 64, 100, 127, 2048, 4096}) {
+            assertArrayEquals(expected, FastConvolution.overlapAdd(x, h, fftLength), 1e-10);
+            assertArrayEquals(expected, FastConvolution.overlapSave(x, h, fftLength), 1e-10);
+        }
+    }
+
+    @Test
+    public void testCorrelate() {
+        double[] a = sequence(500, 0.4);
+        double[] b = sequence(70, 0.9);
+        double[] reversed = new double[b.length];
+        for (int i = 0; i < b.length; ++i) {
+            reversed[i] = b[b.length - 1 - i];
+        }
+        assertArrayEquals(direct(a, reversed), FastConvolution.correlate(a, b), 1e-10);
+    }
+
+    @Test
+    public void testConvolveComplex() {
+        ComplexArray a = new ComplexArray(sequence(300, 0.3), sequence(300, 0.8));
+        ComplexArray b = new ComplexArray(sequence(90, 1.3), sequence(90, 0.1));
+        double[] real = direct(a.getReal(), b.getReal());
+        double[] imag = direct(a.getReal(), b.getImag());
+        double[] ri = direct(a.getImag(), b.getReal());
+        double[] ii = direct(a.getImag(), b.getImag());
+        for (int i = 0; i < real.length; ++i) {
+            real[i] -= ii[i];
+            imag[i] += ri[i];
+        }
+        ComplexArray c = FastConvolution.convolve(a, b);
+        assertArrayEquals(real, c.getReal(), 1e-10);
+        assertArrayEquals(imag, c.getImag(), 1e-10);
+        assertArrayEquals(real, ComplexArray.convolve(a, b).getReal(), 1e-10);
+    }
+
+    @Test
+    public void testShortArraysUseDirectSum() {
+        double[] a = sequence(39, 0.3);
+        double[] b = sequence(500, 1.1);
+        assertArrayEquals(DoubleArrays.convolve(a, b), FastConvolution.convolve(a, b), 0.0);
+        ComplexArray c = new ComplexArray(a, sequence(39, 0.7));
+        ComplexArray d = new ComplexArray(sequence(60, 0.5), sequence(60, 0.2));
+        assertArrayEquals(ComplexArray.convolve(c, d).getReal(), FastConvolution.convolve(c, d).getReal(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBlockShorterThanKernel() {
+        FastConvolution.overlapSave(new double[100], new double[20], 16);
+    }
+}
@@ -0,0 +1,38 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class RealFFTTest {
+
+    @Test
+    public void testDirectAndInverse() {
+        int[] lengths = {1, 2, 5, 8, 12, 15, 30, 64, 1000};
+        for (int n : lengths) {
+            double[] data = new double[n];
+            for (int i = 0; i < n; ++i) {
+                data[i] = Math.sin(0.37 * i * i + 1.0) + 0.5 * Math.cos(2.1 * i);
+            }
+            double[] real = data.clone();
+            double[] imag = new double[n];
+            new FFT(n).direct(real, imag);
+
+            RealFFT rfft = new RealFFT(n);
+            ComplexArray spectrum = rfft.direct(data);
+            assertEquals(n / 2 + 1, spectrum.length());
+            for (int k = 0; k < spectrum.length(); ++k) {
+                assertEquals(real[k], spectrum.real(k), 1e-11);
+                assertEquals(imag[k], spectrum.imag(k), 1e-11);
+            }
+            assertArrayEquals(data, rfft.inverse(spectrum), 1e-12);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSpectrumLengthMismatch() {
+        new RealFFT(8).inverse(new double[4], new double[4], new double[8]);
+    }
+}
@@ -0,0 +1,114 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import com.wildbitsfoundry.etk4j.signals.fft.ShortTimeFourierTransform.Output;
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShortTimeFourierTransformTest {
+
+    private static double[] signal(int length) {
+        double[] x = new double[length];
+        for (int i = 0; i < length; ++i) {
+            x[i] = Math.sin(0.37 * i + 0.001 * i * i) + 0.5 * Math.cos(2.1 * i);
+        }
+        return x;
+    }
+
+    @Test
+    public void testFrames() {
+        final int n = 48;
+        final int hop = 20;
+        double[] window = Windows.blackman(n, true);
+        double[] x = signal(500);
+        ShortTimeFourierTransform stft = new ShortTimeFourierTransform(window, hop, 32, Output.POWER);
+
+        int frames = 0;
+        for (int offset = 0, chunk = 1; offset < x.length; offset += chunk, chunk = chunk % 37 + 3) {
+            frames += stft.process(x, offset, Math.min(chunk, x.length - offset));
+        }
+        assertEquals((x.length - n) / hop + 1, frames);
+        assertEquals(frames, stft.getAvailableFrames());
+
+        RealFFT rfft = new RealFFT(n);
+        double[] power = new double[stft.getBinCount()];
+        for (int f = 0; f < frames; ++f) {
+            assertTrue(stft.poll(power));
+            double[] segment = new double[n];
+            for (int i = 0; i < n; ++i) {
+                segment[i] = x[f * hop + i] * window[i];
+            }
+            ComplexArray spectrum = rfft.direct(segment);
+            for (int k = 0; k < power.length; ++k) {
+                double expected = spectrum.real(k) * spectrum.real(k) + spectrum.imag(k) * spectrum.imag(k);
+                assertEquals(expected, power[k], 1e-10);
+            }
+        }
+        assertFalse(stft.poll(power));
+    }
+
+    @Test
+    public void testRingBufferOverwritesOldestFrames() {
+        final int n = 16;
+        double[] x = signal(100);
+        ShortTimeFourierTransform stft = new ShortTimeFourierTransform(Windows.hann(n, true), n, 2, Output.MAGNITUDE);
+        assertEquals(6, stft.process(x));
+        assertEquals(2, stft.getAvailableFrames());
+
+        double[] segment = new double[n];
+        System.arraycopy(x, 4 * n, segment, 0, n);
+        double[] window = Windows.hann(n, true);
+        for (int i = 0; i < n; ++i) {
+            segment[i] *= window[i];
+        }
+        ComplexArray spectrum = new RealFFT(n).direct(segment);
+        double[] magnitude = new double[n / 2 + 1];
+        assertTrue(stft.poll(magnitude));
+        for (int k = 0; k < magnitude.length; ++k) {
+            assertEquals(spectrum.abs()[k], magnitude[k], 1e-12);
+        }
+    }
+
+    @Test
+    public void testInverse() {
+        int[][] configurations = {{64, 16}, {60, 15}, {33, 11}};
+        for (int[] configuration : configurations) {
+            final int n = configuration[0];
+            final int hop = configuration[1];
+            double[] window = Windows.hann(n, true);
+            double[] x = signal(1000);
+            ShortTimeFourierTransform stft = new ShortTimeFourierTransform(window, hop, 4, Output.COMPLEX);
+            InverseShortTimeFourierTransform istft = new InverseShortTimeFourierTransform(window, hop);
+
+            double[] y = new double[x.length];
+            double[] real = new double[stft.getBinCount()];
+            double[] imag = new double[stft.getBinCount()];
+            int length = 0;
+            for (int offset = 0; offset < x.length; offset += 25) {
+                stft.process(x, offset, Math.min(25, x.length - offset));
+                while (stft.poll(real, imag)) {
+                    istft.process(real, imag, y, length);
+                    length += hop;
+                }
+            }
+            length += istft.flush(y, length);
+            assertEquals((x.length - n) / hop * hop + n, length);
+            for (int i = n - hop; i < length - (n - hop); ++i) {
+                assertEquals(x[i], y[i], 1e-12);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOverlapAddCondition() {
+        new InverseShortTimeFourierTransform(Windows.hann(16, true), 16);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPollComplexFrames() {
+        new ShortTimeFourierTransform(Windows.hann(16), 8, 4, Output.COMPLEX).poll(new double[9]);
+    }
+}
@@ -0,0 +1,132 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import com.wildbitsfoundry.etk4j.util.ComplexArray;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class WelchTest {
+
+    private static double[] noise(int length, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[length];
+        for (int i = 0; i < length; ++i) {
+            x[i] = random.nextGaussian() + Math.sin(0.3 * i);
+        }
+        return x;
+    }
+
+    @Test
+    public void testPeriodogramParseval() {
+        for (int n : new int[]{64, 63}) {
+            double[] x = noise(n, 1);
+            double[] window = new double[n];
+            Arrays.fill(window, 1.0);
+            final double fs = 10.0;
+            Welch welch = new Welch(window, 0, fs);
+            welch.update(x);
+            double[] p = welch.getPowerSpectralDensity();
+
+            double power = 0.0;
+            for (double v : x) {
+                power += v * v / n;
+            }
+            double sum = 0.0;
+            for (double v : p) {
+                sum += v * fs / n;
+            }
+            assertEquals(power, sum, 1e-12);
+            assertEquals(1, welch.getSegmentCount());
+        }
+    }
+
+    @Test
+    public void testSegmentsAndChunks() {
+        final int n = 100;
+        final int overlap = 60;
+        double[] window = Windows.hann(n, true);
+        double[] x = noise(2345, 2);
+        Welch welch = new Welch(window, overlap, 1.0).scaling(Welch.Scaling.SPECTRUM).detrend(true);
+        welch.update(x);
+
+        // Average of the periodograms of the segments
+        final int segments = (x.length - n) / (n - overlap) + 1;
+        double[] expected = new double[n / 2 + 1];
+        double sum = 0.0;
+        for (double v : window) {
+            sum += v;
+        }
+        RealFFT rfft = new RealFFT(n);
+        for (int s = 0; s < segments; ++s) {
+            double[] segment = Arrays.copyOfRange(x, s * (n - overlap), s * (n - overlap) + n);
+            double mean = 0.0;
+            for (double v : segment) {
+                mean += v / n;
+            }
+            for (int i = 0; i < n; ++i) {
+                segment[i] = (segment[i] - mean) * window[i];
+            }
+            ComplexArray spectrum = rfft.direct(segment);
+            for (int k = 0; k < expected.length; ++k) {
+                double scale = k == 0 || k == n / 2 ? 1.0 : 2.0;
+                expected[k] += scale * spectrum.abs()[k] * spectrum.abs()[k] / (sum * sum * segments);
+            }
+        }
+        assertEquals(segments, welch.getSegmentCount());
+        assertArrayEquals(expected, welch.getPowerSpectralDensity(), 1e-12);
+
+        Welch chunked = new Welch(window, overlap, 1.0).scaling(Welch.Scaling.SPECTRUM).detrend(true);
+        Welch parallel = new Welch(window, overlap, 1.0).scaling(Welch.Scaling.SPECTRUM).detrend(true).parallel(true);
+        for (int offset = 0, chunk = 7; offset < x.length; offset += chunk, chunk = chunk * 3 % 401 + 1) {
+            chunked.update(x, offset, Math.min(chunk, x.length - offset));
+            parallel.update(x, offset, Math.min(chunk, x.length - offset));
+        }
+        assertEquals(segments, chunked.getSegmentCount());
+        assertEquals(segments, parallel.getSegmentCount());
+        assertArrayEquals(expected, chunked.getPowerSpectralDensity(), 1e-12);
+        assertArrayEquals(expected, parallel.getPowerSpectralDensity(), 1e-12);
+    }
+
+    @Test
+    public void testCrossSpectrumAndCoherence() {
+        double[] x = noise(4096, 3);
+        double[] y = new double[x.length];
+        double[] z = noise(x.length, 4);
+        for (int i = 1; i < x.length; ++i) {
+            y[i] = 2.0 * x[i] - 0.5 * x[i - 1];
+        }
+        double[] window = Windows.hamming(256, true);
+        Welch xy = new Welch(window, 128, 1.0).parallel(true);
+        xy.update(x, y);
+        double[] coherence = xy.getCoherence();
+        for (double c : coherence) {
+            assertEquals(1.0, c, 1e-3);
+        }
+
+        // Pxx is the cross spectrum of x with itself
+        Welch xx = new Welch(window, 128, 1.0);
+        xx.update(x, x);
+        ComplexArray pxx = xx.getCrossSpectralDensity();
+        assertArrayEquals(xx.getPowerSpectralDensity(), pxx.getReal(), 1e-12);
+        assertArrayEquals(new double[pxx.length()], pxx.getImag(), 1e-12);
+
+        Welch xz = new Welch(window, 128, 1.0);
+        xz.update(x, z);
+        double mean = 0.0;
+        for (double c : xz.getCoherence()) {
+            mean += c / coherence.length;
+        }
+        assertEquals(0.0, mean, 0.1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCoherenceOfOneSignal() {
+        Welch welch = new Welch(Windows.hann(16), 8, 1.0);
+        welch.update(new double[64]);
+        welch.getCoherence();
+    }
+}
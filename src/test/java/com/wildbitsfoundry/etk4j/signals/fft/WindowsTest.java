@@ -0,0 +1,31 @@
+package com.wildbitsfoundry.etk4j.signals.fft;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class WindowsTest {
+
+    @Test
+    public void testCosineWindows() {
+        assertArrayEquals(new double[]{0.0, 0.5, 1.0, 0.5, 0.0}, Windows.hann(5), 1e-15);
+        assertArrayEquals(new double[]{0.0, 0.5, 1.0, 0.5}, Windows.hann(4, true), 1e-15);
+        assertArrayEquals(new double[]{0.08, 0.54, 1.0, 0.54, 0.08}, Windows.hamming(5), 1e-15);
+        assertArrayEquals(new double[]{0.0, 0.34, 1.0, 0.34, 0.0}, Windows.blackman(5), 1e-15);
+        assertArrayEquals(new double[]{1.0}, Windows.blackman(1), 0.0);
+    }
+
+    @Test
+    public void testKaiser() {
+        assertArrayEquals(new double[]{1.0, 1.0, 1.0}, Windows.kaiser(3, 0.0), 1e-15);
+        double[] expected = {0.0367108921, 0.5528517697, 1.0, 0.5528517697, 0.0367108921};
+        assertArrayEquals(expected, Windows.kaiser(5, 5.0), 1e-9);
+        assertArrayEquals(new double[]{0.0367108921, 0.5528517697, 1.0, 0.5528517697},
+                Windows.kaiser(4, 5.0, true), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLength() {
+        Windows.hann(0);
+    }
+}
@@ -290,6 +290,20 @@ public class AnalogFilterTest {
                 2.4591257855999993E66}, ba.getDenominator().getCoefficients(), 1e-12);
     }
 
+    @Test
+    public void testBesselLowPassZPK() {
+        for (int n = 1; n <= 5; ++n) {
+            TransferFunction expected = Bessel.newLowPass(n, 1000);
+            TransferFunction tf = new TransferFunction(Bessel.newLowPassZPK(n, 1000));
+            assertArrayEquals(expected.getNumerator().getCoefficients(), tf.getNumerator().getCoefficients(),
+                    1e-9 * Math.abs(expected.getNumerator().getCoefficients()[0]));
+            double[] den = expected.getDenominator().getCoefficients();
+            for (int i = 0; i < den.length; ++i) {
+                assertEquals(den[i], tf.getDenominator().getCoefficients()[i], 1e-12 * Math.abs(den[i]));
+            }
+        }
+    }
+
     @Test
     public void testBesselapPhaseNormalized() {
         ZeroPoleGain zpk = Bessel.besselapPhaseNormalized(4);
@@ -0,0 +1,166 @@
+package com.wildbitsfoundry.etk4j.signals.filters;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class DigitalFilterTest {
+
+    private static double[] signal(int length, double w) {
+        double[] x = new double[length];
+        for (int i = 0; i < length; ++i) {
+            x[i] = Math.sin(w * i) + 0.3 * Math.cos(0.05 * i * i);
+        }
+        return x;
+    }
+
+    @Test
+    public void testFilter() {
+        double[] ones = {1.0, 1.0, 1.0, 1.0, 1.0};
+        assertArrayEquals(new double[]{1.0, 1.5, 1.75, 1.875, 1.9375},
+                DigitalFilter.lfilter(new double[]{1.0}, new double[]{1.0, -0.5}, ones), 1e-15);
+        assertArrayEquals(new double[]{0.5, 1.0, 1.0, 1.0, 1.0},
+                DigitalFilter.lfilter(new double[]{0.5, 0.5}, new double[]{1.0}, ones), 1e-15);
+
+        // The coefficients are normalized by a[0]
+        DigitalFilter filter = new DigitalFilter(new double[]{2.0, 2.0}, new double[]{2.0, -1.0});
+        assertEquals(1, filter.getOrder());
+        assertArrayEquals(new double[]{1.0, 2.5, 3.25, 3.625, 3.8125}, filter.filter(ones), 1e-15);
+
+        // y = 2 * x is a filter without state
+        assertArrayEquals(new double[]{2.0, 2.0, 2.0, 2.0, 2.0},
+                DigitalFilter.lfilter(new double[]{4.0}, new double[]{2.0}, ones), 0.0);
+    }
+
+    @Test
+    public void testChunks() {
+        DigitalFilter filter = new DigitalFilter(new double[]{0.1, 0.2, 0.0, -0.2, -0.1},
+                new double[]{1.0, -1.2, 0.9, -0.3, 0.05});
+        double[] x = signal(1000, 0.2);
+        double[] expected = filter.filter(x);
+
+        double[] y = new double[x.length];
+        double[] state = new double[filter.getOrder()];
+        for (int offset = 0, chunk = 1; offset < x.length; offset += chunk, chunk = chunk * 2 % 97 + 1) {
+            filter.filter(x, offset, y, offset, Math.min(chunk, x.length - offset), state);
+        }
+        assertArrayEquals(expected, y, 0.0);
+
+        // In place
+        double[] z = x.clone();
+        filter.filter(z, z, new double[filter.getOrder()]);
+        assertArrayEquals(expected, z, 0.0);
+    }
+
+    @Test
+    public void testChannels() {
+        DigitalFilter filter = new DigitalFilter(new double[]{0.2, 0.3, 0.1}, new double[]{1.0, -0.4, 0.2, 0.1});
+        final int channels = 5;
+        final int length = 300;
+        double[][] x = new double[channels][];
+        double[] interleaved = new double[channels * length];
+        for (int c = 0; c < channels; ++c) {
+            x[c] = signal(length, 0.1 * (c + 1));
+            for (int i = 0; i < length; ++i) {
+                interleaved[i * channels + c] = x[c][i];
+            }
+        }
+        double[][] y = new double[channels][length];
+        filter.filter(x, y, new double[channels][filter.getOrder()]);
+
+        double[] out = new double[interleaved.length];
+        filter.filterInterleaved(interleaved, out, channels, new double[channels * filter.getOrder()]);
+        filter.filterInterleaved(interleaved, interleaved, channels, new double[channels * filter.getOrder()]);
+        for (int c = 0; c < channels; ++c) {
+            assertArrayEquals(filter.filter(x[c]), y[c], 0.0);
+            for (int i = 0; i < length; ++i) {
+                assertEquals(y[c][i], out[i * channels + c], 0.0);
+                assertEquals(y[c][i], interleaved[i * channels + c], 0.0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStateLength() {
+        new DigitalFilter(new double[]{1.0, 1.0}, new double[]{1.0, 0.5}).filter(new double[4], new double[4], new double[2]);
+    }
+
+    @Test
+    public void testLfilterZi() {
+        assertArrayEquals(new double[]{1.0}, new DigitalFilter(new double[]{1.0}, new double[]{1.0, -0.5}).lfilterZi(), 1e-15);
+
+        DigitalFilter filter = new DigitalFilter(new double[]{0.1, 0.2, 0.0, -0.05}, new double[]{1.0, -1.2, 0.9, -0.3, 0.05});
+        double[] ones = new double[50];
+        Arrays.fill(ones, 1.0);
+        double[] y = new double[ones.length];
+        filter.filter(ones, y, filter.lfilterZi());
+        for (double v : y) {
+            assertEquals(0.25 / 0.45, v, 1e-14);
+        }
+    }
+
+    @Test
+    public void testPadding() {
+        double[] x = {1.0, 2.0, 4.0, 7.0};
+        assertArrayEquals(new double[]{-2.0, 0.0, 1.0, 2.0, 4.0, 7.0, 10.0, 12.0}, Padding.ODD.extend(x, 2), 0.0);
+        assertArrayEquals(new double[]{4.0, 2.0, 1.0, 2.0, 4.0, 7.0, 4.0, 2.0}, Padding.EVEN.extend(x, 2), 0.0);
+        assertArrayEquals(new double[]{1.0, 1.0, 1.0, 2.0, 4.0, 7.0, 7.0, 7.0}, Padding.CONSTANT.extend(x, 2), 0.0);
+        assertArrayEquals(x, Padding.NONE.extend(x, 10), 0.0);
+    }
+
+    @Test
+    public void testFiltfilt() {
+        // Second order low pass filter with unit DC gain
+        double[] b = {0.06745527388907191, 0.13491054777814382, 0.06745527388907191};
+        double[] a = {1.0, -1.142980502539901, 0.41280159809618866};
+        DigitalFilter filter = new DigitalFilter(b, a);
+
+        // A constant signal starts in steady state
+        double[] x = new double[100];
+        Arrays.fill(x, 3.0);
+        assertArrayEquals(x, filter.filtfilt(x), 1e-13);
+
+        // The impulse response of the forward-backward filter is symmetric, so a ramp is not delayed
+        for (int i = 0; i < x.length; ++i) {
+            x[i] = 0.5 * i - 7.0;
+        }
+        for (Padding padding : Padding.values()) {
+            double[] y = filter.filtfilt(x, padding, 12);
+            for (int i = 40; i < 60; ++i) {
+                assertEquals(x[i], y[i], 1e-7);
+            }
+        }
+        assertArrayEquals(filter.filtfilt(x), DigitalFilter.filtfilt(b, a, x), 0.0);
+
+        // A slow sine is filtered without phase shift
+        double[] sine = new double[2000];
+        for (int i = 0; i < sine.length; ++i) {
+            sine[i] = Math.sin(0.01 * i);
+        }
+        double[] y = filter.filtfilt(sine, Padding.ODD, 100);
+        for (int i = 200; i < 1800; ++i) {
+            assertEquals(sine[i], y[i], 1e-3);
+        }
+    }
+
+    @Test
+    public void testFiltfiltChannels() {
+        DigitalFilter filter = new DigitalFilter(new double[]{0.2, 0.3, 0.1}, new double[]{1.0, -0.4, 0.2, 0.1});
+        double[][] x = new double[16][];
+        for (int c = 0; c < x.length; ++c) {
+            x[c] = signal(20000, 0.01 * (c + 1));
+        }
+        double[][] y = filter.filtfilt(x, Padding.EVEN, 30);
+        for (int c = 0; c < x.length; ++c) {
+            assertArrayEquals(filter.filtfilt(x[c], Padding.EVEN, 30), y[c], 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFiltfiltShortSignal() {
+        new DigitalFilter(new double[]{1.0, 1.0}, new double[]{1.0, 0.5}).filtfilt(new double[6]);
+    }
+}
@@ -0,0 +1,128 @@
+package com.wildbitsfoundry.etk4j.signals.filters;
+
+import com.wildbitsfoundry.etk4j.control.TransferFunction;
+import com.wildbitsfoundry.etk4j.control.ZeroPoleGain;
+import com.wildbitsfoundry.etk4j.math.complex.Complex;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DigitalFiltersTest {
+
+    // Magnitude response in dB of the cascade at frequency f in Hz
+    private static double gain(SecondOrderSections sos, double f, double fs) {
+        Complex zi = Complex.fromImaginary(-2.0 * Math.PI * f / fs).exp();
+        Complex h = new Complex(1.0, 0.0);
+        for (double[] c : sos.getCoefficients()) {
+            Complex num = zi.multiply(c[2]).add(c[1]).multiply(zi).add(c[0]);
+            Complex den = zi.multiply(c[5]).add(c[4]).multiply(zi).add(c[3]);
+            h = h.multiply(num.divide(den));
+        }
+        return 20.0 * Math.log10(h.abs());
+    }
+
+    @Test
+    public void testDesign() {
+        // butter(4, 0.2)
+        TransferFunction tf = new TransferFunction(DigitalFilters.designZPK(DigitalFilters.Type.BUTTERWORTH,
+                DigitalFilters.Band.LOW_PASS, 4, new double[]{100.0}, 0.0, 0.0, 1000.0));
+        assertArrayEquals(new double[]{0.004824343357716228, 0.01929737343086491, 0.02894606014629737,
+                0.01929737343086491, 0.004824343357716228}, tf.getNumeratorCoefficients(), 1e-12);
+        assertArrayEquals(new double[]{1.0, -2.369513007182038, 2.313988414415879, -1.054665405878568,
+                0.18737949236818502}, tf.getDenominatorCoefficients(), 1e-12);
+
+        final double fs = 48000.0;
+        for (DigitalFilters.Type type : DigitalFilters.Type.values()) {
+            SecondOrderSections sos = DigitalFilters.designSOS(type, DigitalFilters.Band.BANDPASS, 3,
+                    new double[]{1000.0, 4000.0}, 1.0, 40.0, fs);
+            assertEquals(3, sos.getSectionCount());
+            assertTrue(gain(sos, 2000.0, fs) > -3.5);
+            assertTrue(gain(sos, 10.0, fs) < -40.0);
+            assertTrue(gain(sos, 23000.0, fs) < -40.0);
+        }
+    }
+
+    @Test
+    public void testSpecs() {
+        final double fs = 8000.0;
+        LowPassSpecs lowPass = new LowPassSpecs();
+        lowPass.setPassBandFrequency(1000.0);
+        lowPass.setStopBandFrequency(1500.0);
+        lowPass.setPassBandRipple(1.0);
+        lowPass.setStopBandAttenuation(60.0);
+        BandStopSpecs bandStop = new BandStopSpecs();
+        bandStop.setLowerPassBandFrequency(500.0);
+        bandStop.setUpperPassBandFrequency(2000.0);
+        bandStop.setLowerStopBandFrequency(900.0);
+        bandStop.setUpperStopBandFrequency(1200.0);
+        bandStop.setPassBandRipple(1.0);
+        bandStop.setStopBandAttenuation(50.0);
+        DigitalFilters.Type[] types = {DigitalFilters.Type.BUTTERWORTH, DigitalFilters.Type.CHEBYSHEV1,
+                DigitalFilters.Type.CHEBYSHEV2, DigitalFilters.Type.ELLIPTIC};
+        for (DigitalFilters.Type type : types) {
+            SecondOrderSections sos = DigitalFilters.designSOS(type, lowPass, fs);
+            assertTrue(gain(sos, 1000.0, fs) > -1.0 - 1e-6);
+            assertTrue(gain(sos, 1500.0, fs) < -60.0 + 1e-6);
+
+            sos = DigitalFilters.designSOS(type, bandStop, fs);
+            assertTrue(gain(sos, 500.0, fs) > -1.0 - 1e-6);
+            assertTrue(gain(sos, 2000.0, fs) > -1.0 - 1e-6);
+            assertTrue(gain(sos, 1000.0, fs) < -50.0 + 1e-6);
+        }
+        // The elliptic filter has the lowest order
+        assertTrue(DigitalFilters.designSOS(DigitalFilters.Type.ELLIPTIC, lowPass, fs).getSectionCount()
+                < DigitalFilters.designSOS(DigitalFilters.Type.BUTTERWORTH, lowPass, fs).getSectionCount());
+    }
+
+    @Test
+    public void testCache() {
+        DigitalFilters.clearCache();
+        double[] edges = {50.0};
+        SecondOrderSections sos = DigitalFilters.designSOS(DigitalFilters.Type.CHEBYSHEV1,
+                DigitalFilters.Band.HIGH_PASS, 5, edges, 0.5, 0.0, 1000.0);
+        edges[0] = 60.0;
+        // The attenuation does not apply to Chebyshev type I filters
+        assertSame(sos, DigitalFilters.designSOS(DigitalFilters.Type.CHEBYSHEV1,
+                DigitalFilters.Band.HIGH_PASS, 5, new double[]{50.0}, 0.5, 20.0, 1000.0));
+        assertNotSame(sos, DigitalFilters.designSOS(DigitalFilters.Type.CHEBYSHEV1,
+                DigitalFilters.Band.HIGH_PASS, 5, new double[]{50.0}, 0.5, 0.0, 2000.0));
+        assertEquals(2, DigitalFilters.getCacheSize());
+        DigitalFilters.clearCache();
+        assertEquals(0, DigitalFilters.getCacheSize());
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsed() {
+        DigitalFilters.clearCache();
+        ZeroPoleGain first = DigitalFilters.designZPK(DigitalFilters.Type.BUTTERWORTH, DigitalFilters.Band.LOW_PASS, 1,
+                new double[]{10.0}, 0.0, 0.0, 1000.0);
+        ZeroPoleGain second = DigitalFilters.designZPK(DigitalFilters.Type.BUTTERWORTH, DigitalFilters.Band.LOW_PASS, 1,
+                new double[]{11.0}, 0.0, 0.0, 1000.0);
+        for (int i = 2; i < DigitalFilters.MAX_CACHE_SIZE; ++i) {
+            DigitalFilters.designZPK(DigitalFilters.Type.BUTTERWORTH, DigitalFilters.Band.LOW_PASS, 1,
+                    new double[]{10.0}, 0.0, 0.0, 1000.0 + i);
+        }
+        assertEquals(DigitalFilters.MAX_CACHE_SIZE, DigitalFilters.getCacheSize());
+        // Using the first design makes the second one the least recently used
+        assertSame(first, DigitalFilters.designZPK(DigitalFilters.Type.BUTTERWORTH, DigitalFilters.Band.LOW_PASS, 1,
+                new double[]{10.0}, 0.0, 0.0, 1000.0));
+        DigitalFilters.designZPK(DigitalFilters.Type.BUTTERWORTH, DigitalFilters.Band.LOW_PASS, 1,
+                new double[]{12.0}, 0.0, 0.0, 1000.0);
+        assertEquals(DigitalFilters.MAX_CACHE_SIZE, DigitalFilters.getCacheSize());
+        assertSame(first, DigitalFilters.designZPK(DigitalFilters.Type.BUTTERWORTH, DigitalFilters.Band.LOW_PASS, 1,
+                new double[]{10.0}, 0.0, 0.0, 1000.0));
+        assertNotSame(second, DigitalFilters.designZPK(DigitalFilters.Type.BUTTERWORTH, DigitalFilters.Band.LOW_PASS, 1,
+                new double[]{11.0}, 0.0, 0.0, 1000.0));
+        DigitalFilters.clearCache();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEdgeAboveNyquist() {
+        DigitalFilters.designZPK(DigitalFilters.Type.BUTTERWORTH, DigitalFilters.Band.LOW_PASS, 2,
+                new double[]{600.0}, 0.0, 0.0, 1000.0);
+    }
+}
@@ -1,9 +1,13 @@
 package com.wildbitsfoundry.etk4j.signals.filters;
 
 import com.wildbitsfoundry.etk4j.control.TransferFunction;
+import com.wildbitsfoundry.etk4j.control.ZeroPoleGain;
+import com.wildbitsfoundry.etk4j.math.complex.Complex;
+import com.wildbitsfoundry.etk4j.math.polynomials.Polynomial;
 import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 public class FiltersTest {
 
@@ -50,4 +54,84 @@ public class FiltersTest {
         assertArrayEquals(new double[]{1.0, 200.0, 10200.0, 20000.0, 10000.0},
                 tf.getDenominator().getCoefficients(), 1e-12);
     }
+
+    @Test
+    public void testBilinear() {
+        // 1 / (s + 1) at fs = 1 is (z + 1) / (3 * z - 1)
+        TransferFunction tf = Filters.bilinear(new double[]{1.0}, new double[]{1.0, 1.0}, 1.0);
+        assertArrayEquals(new double[]{1.0 / 3.0, 1.0 / 3.0}, tf.getNumeratorCoefficients(), 1e-15);
+        assertArrayEquals(new double[]{1.0, -1.0 / 3.0}, tf.getDenominatorCoefficients(), 1e-15);
+
+        // Second order Butterworth low pass filter with cutoff at fs / 10
+        final double fs = 1000.0;
+        double wn = 2.0 * fs * Math.tan(Math.PI * 100.0 / fs);
+        double[] b = {0.06745527388907191, 0.13491054777814382, 0.06745527388907191};
+        double[] a = {1.0, -1.142980502539901, 0.41280159809618866};
+        ZeroPoleGain zpk = ButterWorth.newLowPassZPK(2, wn);
+        tf = Filters.bilinear(zpk, fs);
+        assertArrayEquals(b, tf.getNumeratorCoefficients(), 1e-12);
+        assertArrayEquals(a, tf.getDenominatorCoefficients(), 1e-12);
+        tf = Filters.bilinear(ButterWorth.newLowPass(2, wn), fs);
+        assertArrayEquals(b, tf.getNumeratorCoefficients(), 1e-12);
+        assertArrayEquals(a, tf.getDenominatorCoefficients(), 1e-12);
+
+        // Pre-warping at the cutoff of the unwarped design gives the same filter
+        tf = Filters.bilinear(ButterWorth.newLowPassZPK(2, 2.0 * Math.PI * 100.0), fs, 2.0 * Math.PI * 100.0);
+        assertArrayEquals(b, tf.getNumeratorCoefficients(), 1e-12);
+        assertArrayEquals(a, tf.getDenominatorCoefficients(), 1e-12);
+    }
+
+    @Test
+    public void testMatchedZ() {
+        final double fs = 10.0;
+        ZeroPoleGain zpk = Filters.matchedZZPK(new ZeroPoleGain(new Complex[0], new Complex[]{Complex.fromReal(-1.0)}, 1.0), fs);
+        assertEquals(Math.exp(-0.1), zpk.getPoles()[0].real(), 1e-15);
+        assertEquals(-1.0, zpk.getZeros()[0].real(), 0.0);
+        assertEquals((1.0 - Math.exp(-0.1)) / 2.0, zpk.getGain(), 1e-15);
+
+        // High pass filters are matched at fs / 4
+        ZeroPoleGain hp = ButterWorth.newHighPassZPK(3, 2.0);
+        zpk = Filters.matchedZZPK(hp, fs);
+        double w = 0.5 * Math.PI * fs;
+        Complex z = Complex.fromImaginary(w / fs).exp();
+        Complex h = Polynomial.polyvalFromRoots(zpk.getZeros(), z)
+                .divide(Polynomial.polyvalFromRoots(zpk.getPoles(), z)).multiply(zpk.getGain());
+        assertEquals(new TransferFunction(hp).evaluateAt(w).abs(), h.abs(), 1e-12);
+        assertEquals(new TransferFunction(zpk).getNumeratorCoefficients()[0],
+                Filters.matchedZ(hp, fs).getNumeratorCoefficients()[0], 1e-15);
+
+        TransferFunction tf = Filters.matchedZ(new TransferFunction(new double[]{1.0}, new double[]{1.0, 1.0}), fs);
+        assertArrayEquals(new double[]{(1.0 - Math.exp(-0.1)) / 2.0, (1.0 - Math.exp(-0.1)) / 2.0},
+                tf.getNumeratorCoefficients(), 1e-15);
+        assertArrayEquals(new double[]{1.0, -Math.exp(-0.1)}, tf.getDenominatorCoefficients(), 1e-15);
+    }
+
+    @Test
+    public void testImpulseInvariance() {
+        // The impulse response of 1 / ((s + 1)^2 + 4) is exp(-t) * sin(2 * t) / 2
+        final double fs = 20.0;
+        TransferFunction tf = Filters.impulseInvariance(new double[]{1.0}, new double[]{1.0, 2.0, 5.0}, fs);
+        double[] impulse = new double[100];
+        impulse[0] = 1.0;
+        double[] h = new DigitalFilter(tf).filter(impulse);
+        for (int i = 0; i < h.length; ++i) {
+            double t = i / fs;
+            assertEquals(Math.exp(-t) * Math.sin(2.0 * t) / 2.0 / fs, h[i], 1e-15);
+        }
+
+        tf = Filters.impulseInvariance(new ZeroPoleGain(new Complex[0], new Complex[]{Complex.fromReal(-1.0)}, 1.0), 1.0);
+        assertArrayEquals(new double[]{1.0, 0.0}, tf.getNumeratorCoefficients(), 1e-15);
+        assertArrayEquals(new double[]{1.0, -Math.exp(-1.0)}, tf.getDenominatorCoefficients(), 1e-15);
+
+        TransferFunction analog = new TransferFunction(new double[]{1.0}, new double[]{1.0, 2.0, 5.0});
+        TransferFunction digital = Filters.impulseInvariance(analog, fs);
+        TransferFunction expected = Filters.impulseInvariance(new double[]{1.0}, new double[]{1.0, 2.0, 5.0}, fs);
+        assertArrayEquals(expected.getNumeratorCoefficients(), digital.getNumeratorCoefficients(), 0.0);
+        assertArrayEquals(expected.getDenominatorCoefficients(), digital.getDenominatorCoefficients(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testImpulseInvarianceRepeatedPoles() {
+        Filters.impulseInvariance(new double[]{1.0}, new double[]{1.0, 2.0, 1.0}, 1.0);
+    }
 }
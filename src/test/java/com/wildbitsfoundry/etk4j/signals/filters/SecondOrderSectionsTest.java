@@ -0,0 +1,166 @@
+package com.wildbitsfoundry.etk4j.signals.filters;
+
+import com.wildbitsfoundry.etk4j.control.ZeroPoleGain;
+import com.wildbitsfoundry.etk4j.math.complex.Complex;
+import com.wildbitsfoundry.etk4j.math.polynomials.Polynomial;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SecondOrderSectionsTest {
+
+    // Narrow low pass like filter of order 2 * pairs with zeros on the unit circle
+    private static ZeroPoleGain digitalZPK(int pairs) {
+        return digitalZPK(pairs, 0.05, 0.02, 0.97);
+    }
+
+    private static ZeroPoleGain digitalZPK(int pairs, double theta0, double dtheta, double radius0) {
+        Complex[] zeros = new Complex[2 * pairs];
+        Complex[] poles = new Complex[2 * pairs];
+        for (int i = 0; i < pairs; ++i) {
+            double theta = theta0 + dtheta * i;
+            double radius = radius0 - 0.01 * i;
+            poles[2 * i] = Complex.fromPolar(radius, theta);
+            poles[2 * i + 1] = poles[2 * i].conj();
+            zeros[2 * i] = Complex.fromPolar(1.0, 0.4 + 0.3 * i);
+            zeros[2 * i + 1] = zeros[2 * i].conj();
+        }
+        return new ZeroPoleGain(zeros, poles, 1e-3);
+    }
+
+    private static double[] signal(int length) {
+        double[] x = new double[length];
+        for (int i = 0; i < length; ++i) {
+            x[i] = Math.sin(0.03 * i) + 0.5 * Math.sin(1.3 * i) + (i == 0 ? 1.0 : 0.0);
+        }
+        return x;
+    }
+
+    @Test
+    public void testPairing() {
+        ZeroPoleGain zpk = new ZeroPoleGain(new Complex[]{new Complex(-1.0, 0.0), new Complex(-1.0, 0.0)},
+                new Complex[]{new Complex(0.5, 0.0), new Complex(0.25, 0.0)}, 2.0);
+        SecondOrderSections sos = SecondOrderSections.fromZPK(zpk);
+        assertEquals(1, sos.getSectionCount());
+        assertArrayEquals(new double[]{2.0, 4.0, 2.0, 1.0, -0.75, 0.125}, sos.getCoefficients()[0], 1e-15);
+
+        zpk = new ZeroPoleGain(new Complex[0], new Complex[]{new Complex(0.5, 0.0)}, 1.0);
+        sos = SecondOrderSections.fromZPK(zpk);
+        assertArrayEquals(new double[]{1.0, 0.0, 0.0, 1.0, -0.5, 0.0}, sos.getCoefficients()[0], 1e-15);
+
+        sos = SecondOrderSections.fromZPK(digitalZPK(8));
+        assertEquals(8, sos.getSectionCount());
+    }
+
+    @Test
+    public void testFrequencyResponse() {
+        ZeroPoleGain zpk = digitalZPK(8);
+        SecondOrderSections sos = SecondOrderSections.fromZPK(zpk);
+        double[][] coefficients = sos.getCoefficients();
+        for (double w = 0.0; w < Math.PI; w += 0.01) {
+            Complex z = Complex.fromPolar(1.0, w);
+            Complex expected = Polynomial.polyvalFromRoots(zpk.getZeros(), z)
+                    .divide(Polynomial.polyvalFromRoots(zpk.getPoles(), z)).multiply(zpk.getGain());
+            Complex zi = z.invert();
+            Complex h = new Complex(1.0, 0.0);
+            for (double[] c : coefficients) {
+                Complex num = zi.multiply(c[2]).add(c[1]).multiply(zi).add(c[0]);
+                Complex den = zi.multiply(c[5]).add(c[4]).multiply(zi).add(c[3]);
+                h = h.multiply(num.divide(den));
+            }
+            assertEquals(expected.real(), h.real(), 1e-9 * Math.max(1.0, expected.abs()));
+            assertEquals(expected.imag(), h.imag(), 1e-9 * Math.max(1.0, expected.abs()));
+        }
+    }
+
+    @Test
+    public void testFilter() {
+        // A low order filter with well separated poles is accurate in direct form as well
+        ZeroPoleGain zpk = digitalZPK(3, 0.3, 0.9, 0.9);
+        SecondOrderSections sos = SecondOrderSections.fromZPK(zpk);
+        double[] b = new Polynomial(zpk.getZeros()).getCoefficients();
+        double[] a = new Polynomial(zpk.getPoles()).getCoefficients();
+        for (int i = 0; i < b.length; ++i) {
+            b[i] *= zpk.getGain();
+        }
+        double[] x = signal(2000);
+        double[] expected = DigitalFilter.lfilter(b, a, x);
+        assertArrayEquals(expected, sos.filter(x), 1e-10);
+
+        double[] y = new double[x.length];
+        double[] state = new double[sos.getStateLength()];
+        for (int offset = 0, chunk = 5; offset < x.length; offset += chunk, chunk = chunk * 7 % 113 + 1) {
+            sos.filter(x, offset, y, offset, Math.min(chunk, x.length - offset), state);
+        }
+        assertArrayEquals(sos.filter(x), y, 0.0);
+    }
+
+    @Test
+    public void testChannels() {
+        SecondOrderSections sos = SecondOrderSections.fromZPK(digitalZPK(6));
+        final int channels = 3;
+        final int length = 500;
+        double[] x = signal(length * channels);
+        double[][] split = new double[channels][length];
+        for (int i = 0; i < length; ++i) {
+            for (int c = 0; c < channels; ++c) {
+                split[c][i] = x[i * channels + c];
+            }
+        }
+        double[] y = new double[x.length];
+        sos.filterInterleaved(x, y, channels, new double[sos.getStateLength() * channels]);
+        sos.filter(split, split, new double[channels][sos.getStateLength()]);
+        for (int c = 0; c < channels; ++c) {
+            for (int i = 0; i < length; ++i) {
+                assertEquals(split[c][i], y[i * channels + c], 0.0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnpairedComplexRoots() {
+        SecondOrderSections.fromZPK(new ZeroPoleGain(new Complex[0], new Complex[]{new Complex(0.5, 0.5)}, 1.0));
+    }
+
+    @Test
+    public void testFiltfilt() {
+        ZeroPoleGain zpk = digitalZPK(3, 0.3, 0.9, 0.9);
+        SecondOrderSections sos = SecondOrderSections.fromZPK(zpk);
+        double[] b = new Polynomial(zpk.getZeros()).getCoefficients();
+        double[] a = new Polynomial(zpk.getPoles()).getCoefficients();
+        for (int i = 0; i < b.length; ++i) {
+            b[i] *= zpk.getGain();
+        }
+        DigitalFilter filter = new DigitalFilter(b, a);
+
+        // The steady state of the cascade gives the DC gain of the direct form
+        double[] ones = new double[20];
+        Arrays.fill(ones, 1.0);
+        double[] y = new double[ones.length];
+        sos.filter(ones, y, sos.sosfiltZi());
+        double dc = 0.0;
+        for (int i = 0; i < b.length; ++i) {
+            dc += b[i];
+        }
+        dc /= Arrays.stream(a).sum();
+        for (double v : y) {
+            assertEquals(dc, v, 1e-12);
+        }
+
+        double[] x = signal(2000);
+        assertEquals(21, 3 * (2 * sos.getSectionCount() + 1));
+        assertArrayEquals(filter.filtfilt(x, Padding.ODD, 21), sos.filtfilt(x), 1e-10);
+        for (Padding padding : Padding.values()) {
+            assertArrayEquals(filter.filtfilt(x, padding, 50), sos.filtfilt(x, padding, 50), 1e-10);
+        }
+
+        double[][] channels = {signal(3000), signal(1000), x};
+        double[][] filtered = sos.filtfilt(channels);
+        for (int c = 0; c < channels.length; ++c) {
+            assertArrayEquals(sos.filtfilt(channels[c]), filtered[c], 0.0);
+        }
+    }
+}
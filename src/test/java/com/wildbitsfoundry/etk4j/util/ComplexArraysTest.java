@@ -4,6 +4,7 @@ import com.wildbitsfoundry.etk4j.math.complex.Complex;
 import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 public class ComplexArraysTest {
 
@@ -46,4 +47,36 @@ public class ComplexArraysTest {
         Complex[] expected = {new Complex(-3, 1), new Complex(-2, 2), new Complex(-1 ,3)};
         assertArrayEquals(expected, ComplexArrays.subtractElementWise(a, b));
     }
+
+    @Test
+    public void testComplexArray() {
+        Complex[] a = {new Complex(1, -2), new Complex(0.5, 3), new Complex(-4, 0.25)};
+        Complex[] b = {new Complex(2, 1), new Complex(-1.5, 0.75), new Complex(3, -3)};
+        ComplexArray ca = ComplexArray.fromComplex(a);
+        ComplexArray cb = ComplexArray.fromComplex(b);
+
+        ComplexArray result = new ComplexArray(ca);
+        result.multiplyEquals(cb);
+        result.divideEquals(cb);
+        result.addEquals(cb);
+        result.subtractEquals(1.0, 2.0);
+        Complex[] expected = new Complex[a.length];
+        for (int i = 0; i < a.length; ++i) {
+            expected[i] = a[i].multiply(b[i]).divide(b[i]).add(b[i]).subtract(new Complex(1.0, 2.0));
+        }
+        assertArrayEquals(expected, result.toComplexArray());
+
+        assertEquals(ComplexArrays.product(a), ca.product());
+        assertEquals(new Complex(-2.5, 1.25), ca.sum());
+        assertArrayEquals(ComplexArrays.convolve(a, b), ComplexArray.convolve(ca, cb).toComplexArray());
+        assertArrayEquals(new double[]{a[0].abs(), a[1].abs(), a[2].abs()}, ca.abs(), 0.0);
+        assertArrayEquals(new double[]{a[0].arg(), a[1].arg(), a[2].arg()}, ca.arg(), 0.0);
+
+        ca.conjEquals();
+        ca.invertEquals();
+        for (int i = 0; i < a.length; ++i) {
+            expected[i] = a[i].conj().invert();
+        }
+        assertArrayEquals(expected, ca.toComplexArray());
+    }
 }
@@ -7,6 +7,8 @@ import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 public class DoubleArraysTest {
 
 
@@ -43,6 +45,42 @@ public class DoubleArraysTest {
 
         conv = new double[]{5.0, 11.0, 16.0, 27.0, 43.0, 70.0, 113.0, 183.0, 126.0};
         assertArrayEquals(conv, DoubleArrays.convolve(a, b), 1e-12);
+
+        // Long integer sequences are convolved exactly
+        double[] ones = new double[500];
+        Arrays.fill(ones, 1.0);
+        conv = DoubleArrays.convolve(ones, ones);
+        for (int i = 0; i < conv.length; ++i) {
+            assertEquals(Math.min(i + 1, conv.length - i), conv[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testCorrelate() {
+        double[] a = new double[]{1, 2, 3};
+        double[] b = new double[]{0, 1, 0.5};
+        assertArrayEquals(new double[]{0.5, 2.0, 3.5, 3.0, 0.0}, DoubleArrays.correlate(a, b), 1e-12);
+
+        double[] x = new double[300];
+        double[] y = new double[120];
+        for (int i = 0; i < x.length; ++i) {
+            x[i] = Math.sin(0.1 * i * i);
+        }
+        for (int i = 0; i < y.length; ++i) {
+            y[i] = Math.cos(0.7 * i);
+        }
+        double[] c = DoubleArrays.correlate(x, y);
+        assertEquals(x.length + y.length - 1, c.length);
+        for (int k = 0; k < c.length; ++k) {
+            double expected = 0.0;
+            for (int i = 0; i < y.length; ++i) {
+                int j = i + k - y.length + 1;
+                if (j >= 0 && j < x.length) {
+                    expected += x[j] * y[i];
+                }
+            }
+            assertEquals(expected, c[k], 1e-12);
+        }
     }
 
     @Test